@@ -0,0 +1,106 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+
+/**
+ * The cost of an <TT>ALT</TT> over many channel guards: a server <TT>fairSelect</TT>s
+ * over <TT>guards</TT> channels and reads from the one selected.  There is only ever
+ * one ready guard.  With <TT>writes=same</TT>, the benchmark thread always writes to the
+ * first channel - which, being the one last selected, the fair-select tries last - so
+ * every select enables and disables all the guards (the worst case).  With
+ * <TT>writes=rotating</TT> it writes to each channel in turn, so the ready guard is the
+ * first one tried (the best case).
+ * <P>
+ * The server is stopped at the end of a trial by sending it {@link #STOP}.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class AltFanIn {
+
+  private static final Integer ONE = Integer.valueOf (1);
+
+  private static final Integer STOP = Integer.valueOf (-1);
+
+  @Param ({"2", "10", "100", "1000", "10000"})
+  public int guards;
+
+  @Param ({"same", "rotating"})
+  public String writes;
+
+  private boolean rotating;
+
+  private One2OneChannel[] c;
+
+  private int next = 0;
+
+  private ProcessManager server;
+
+  private static CSProcess server (final One2OneChannel[] c) {
+    return new CSProcess () {
+      public void run () {
+        final Guard[] guard = new Guard[c.length];
+        for (int i = 0; i < c.length; i++) {
+          guard[i] = c[i].in ();
+        }
+        final Alternative alt = new Alternative (guard);
+        while (c[alt.fairSelect ()].in ().read () != STOP) {
+        }
+      }
+    };
+  }
+
+  @Setup
+  public void setup () {
+    c = Channel.one2oneArray (guards);
+    rotating = writes.equals ("rotating");
+    server = new ProcessManager (server (c));
+    server.start ();
+  }
+
+  @Benchmark
+  public void select () {
+    c[next].out ().write (ONE);
+    if (rotating) {
+      next = (next + 1 == guards) ? 0 : next + 1;
+    }
+  }
+
+  @TearDown
+  public void tearDown () {
+    c[next].out ().write (STOP);
+    server.join ();
+  }
+
+}
@@ -0,0 +1,99 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+
+/**
+ * How {@link AltingBarrier} synchronisation scales with the number of independent
+ * barrier groups.
+ * <P>
+ * Each group is <TT>size</TT> processes, all enrolled on the same two alting barriers,
+ * each repeatedly choosing between the two with a {@link Alternative#fairSelect()}.
+ * No barrier is shared between groups, so the groups' ALT sequences are coordinated
+ * independently.  Each invocation runs the groups in parallel for {@link #SYNCS}
+ * barrier synchronisations in all, so the score is the time per synchronisation.
+ * It should fall as the number of groups rises, up to the number of cores.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class AltingBarrierGroups {
+
+  /** The barrier synchronisations per invocation (shared between the groups) */
+  static final int SYNCS = 1024;
+
+  @Param ({"1", "2", "4", "8", "16"})
+  public int groups;
+
+  @Param ({"3"})
+  public int size;
+
+  private Parallel par;
+
+  @Setup
+  public void setup () {
+    final int each = SYNCS/groups;
+    final CSProcess[] procs = new CSProcess[groups*size];
+    for (int g = 0; g < groups; g++) {
+      final AltingBarrier[] left = AltingBarrier.create (size);
+      final AltingBarrier[] right = AltingBarrier.create (size);
+      for (int p = 0; p < size; p++) {
+        final AltingBarrier l = left[p];
+        final AltingBarrier r = right[p];
+        final Alternative alt = new Alternative (new Guard[] {l, r});
+        procs[g*size + p] = new CSProcess () {
+          public void run () {
+            l.mark ();                    // (each run may be on a different thread)
+            r.mark ();
+            for (int i = 0; i < each; i++) {
+              alt.fairSelect ();
+            }
+          }
+        };
+      }
+    }
+    par = new Parallel (procs);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation (SYNCS)
+  public void sync () {
+    par.run ();
+  }
+
+  @TearDown
+  public void tearDown () {
+    par.releaseAllThreads ();
+  }
+
+}
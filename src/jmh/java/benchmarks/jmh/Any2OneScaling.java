@@ -0,0 +1,111 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+import jcsp.util.Buffer;
+
+/**
+ * How buffered <I>any-one</I> channels scale with the number of writers: the time per
+ * message when <TT>writers</TT> processes share {@link #MESSAGES} messages per
+ * invocation into a single reader, over the monitor-based
+ * {@link Channel#any2one(jcsp.util.ChannelDataStore)} (<TT>monitor</TT>) or the
+ * lock-free {@link Channel#any2oneLockFree(int)} (<TT>lockFree</TT>).
+ * Run on an otherwise idle multi-core machine; with fewer cores than writers,
+ * both channels mostly measure the scheduler.
+ *
+ * @see PingPong
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class Any2OneScaling {
+
+  /** The messages per invocation (shared between the writers) */
+  static final int MESSAGES = 1 << 16;
+
+  private static final Object MESSAGE = new Object ();
+
+  @Param ({"1", "2", "4", "8", "16", "64"})
+  public int writers;
+
+  @Param ({"monitor", "lockFree"})
+  public String kind;
+
+  @Param ({"256"})
+  public int size;
+
+  private Parallel par;
+
+  @Setup
+  public void setup () {
+    final Any2OneChannel c;
+    if (kind.equals ("monitor")) {
+      c = Channel.any2one (new Buffer (size));
+    } else if (kind.equals ("lockFree")) {
+      c = Channel.any2oneLockFree (size);
+    } else {
+      throw new IllegalArgumentException ("*** Any2OneScaling: unknown kind " + kind);
+    }
+    final int each = MESSAGES/writers;
+    final CSProcess[] procs = new CSProcess[writers + 1];
+    for (int w = 0; w < writers; w++) {
+      final SharedChannelOutput out = c.out ();
+      procs[w] = new CSProcess () {
+        public void run () {
+          for (int i = 0; i < each; i++) {
+            out.write (MESSAGE);
+          }
+        }
+      };
+    }
+    final AltingChannelInput in = c.in ();
+    procs[writers] = new CSProcess () {
+      public void run () {
+        for (int i = each*writers; i > 0; i--) {
+          in.read ();
+        }
+      }
+    };
+    par = new Parallel (procs);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation (MESSAGES)
+  public void stream () {
+    par.run ();
+  }
+
+  @TearDown
+  public void tearDown () {
+    par.releaseAllThreads ();
+  }
+
+}
@@ -0,0 +1,143 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+
+/**
+ * The time for a synchronisation on a {@link Barrier} (or {@link TreeBarrier}) and on
+ * an {@link AltingBarrier}, by <TT>parties</TT> processes - the benchmark thread and
+ * <TT>(parties - 1)</TT> background processes that sync in a loop.
+ * <P>
+ * At the end of a trial, the background processes are told to stop; every party
+ * resigns as it stops, so those still syncing are released.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class BarrierSync {
+
+  @State (Scope.Benchmark)
+  public static class Barriers {
+
+    @Param ({"2", "4", "16", "64"})
+    public int parties;
+
+    @Param ({"Barrier", "TreeBarrier"})
+    public String kind;
+
+    Barrier barrier;
+
+    private volatile boolean running;
+
+    private ProcessManager others;
+
+    @Setup
+    public void setup () {
+      barrier = kind.equals ("TreeBarrier") ? new TreeBarrier (parties) : new Barrier (parties);
+      running = true;
+      final CSProcess[] procs = new CSProcess[parties - 1];
+      for (int i = 0; i < procs.length; i++) {
+        procs[i] = new CSProcess () {
+          public void run () {
+            while (running) {
+              barrier.sync ();
+            }
+            barrier.resign ();
+          }
+        };
+      }
+      others = new ProcessManager (new Parallel (procs));
+      others.start ();
+    }
+
+    @TearDown
+    public void tearDown () {
+      running = false;
+      barrier.resign ();
+      others.join ();
+    }
+
+  }
+
+  @State (Scope.Benchmark)
+  public static class AltingBarriers {
+
+    @Param ({"2", "4", "16", "64"})
+    public int parties;
+
+    AltingBarrier mine;
+
+    private volatile boolean running;
+
+    private ProcessManager others;
+
+    @Setup
+    public void setup () {
+      final AltingBarrier[] barrier = AltingBarrier.create (parties);
+      mine = barrier[0];
+      running = true;
+      final CSProcess[] procs = new CSProcess[parties - 1];
+      for (int i = 0; i < procs.length; i++) {
+        final AltingBarrier b = barrier[i + 1];
+        procs[i] = new CSProcess () {
+          public void run () {
+            while (running) {
+              b.sync ();
+            }
+            b.resign ();
+          }
+        };
+      }
+      others = new ProcessManager (new Parallel (procs));
+      others.start ();
+    }
+
+    @TearDown
+    public void tearDown () {
+      running = false;
+      mine.resign ();
+      others.join ();
+    }
+
+  }
+
+  @Benchmark
+  public void barrier (final Barriers s) {
+    s.barrier.sync ();
+  }
+
+  @Benchmark
+  public void altingBarrier (final AltingBarriers s) {
+    s.mine.sync ();
+  }
+
+}
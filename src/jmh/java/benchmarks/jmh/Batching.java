@@ -0,0 +1,111 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import jcsp.lang.*;
+import jcsp.plugNplay.Batch;
+import jcsp.util.Buffer;
+
+/**
+ * The time per message to feed a sink that has a fixed cost for each channel input
+ * (<TT>cost</TT> JMH <TT>consumeCPU</TT> tokens - think of a database write or a
+ * network send): directly (<TT>batch = 1</TT>), or through a {@link Batch} of
+ * <TT>batch</TT> messages, so that the sink pays its cost once per batch.  The
+ * benchmark thread writes to a 256-message buffered channel, which the {@link Batch}
+ * drains with batch reads.
+ * <P>
+ * At the end of a trial, the benchmark thread poisons its channel; the last batch
+ * is flushed and the poison spreads to the sink.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class Batching {
+
+  private static final Integer ONE = Integer.valueOf (1);
+
+  @Param ({"1", "16", "256"})
+  public int batch;
+
+  @Param ({"0", "10000"})
+  public int cost;
+
+  private ChannelOutput out;
+
+  private ProcessManager network;
+
+  private static CSProcess sink (final ChannelInput in, final long cost) {
+    return new CSProcess () {
+      public void run () {
+        try {
+          while (true) {
+            in.read ();
+            Blackhole.consumeCPU (cost);
+          }
+        } catch (PoisonException e) {
+          in.poison (1);
+        }
+      }
+    };
+  }
+
+  @Setup
+  public void setup () {
+    final One2OneChannel in = Channel.one2one (new Buffer (256), 0);
+    final CSProcess[] procs;
+    if (batch == 1) {
+      procs = new CSProcess[] {sink (in.in (), cost)};
+    } else {
+      final One2OneChannel batches = Channel.one2one (0);
+      procs = new CSProcess[] {
+        new Batch (in.in (), batches.out (), batch, 1000),
+        sink (batches.in (), cost)
+      };
+    }
+    out = in.out ();
+    network = new ProcessManager (new Parallel (procs));
+    network.start ();
+  }
+
+  @Benchmark
+  public void write () {
+    out.write (ONE);
+  }
+
+  @TearDown
+  public void tearDown () {
+    out.poison (1);
+    network.join ();
+  }
+
+}
@@ -0,0 +1,113 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+import jcsp.plugNplay.Delta;
+
+/**
+ * The time to broadcast a message to <TT>readers</TT> processes: through a
+ * {@link Delta} (<TT>delta</TT>), or to readers subscribed directly to a synchronising
+ * (<TT>broadcast</TT>) or buffered (<TT>buffered</TT>, 16 messages) {@link BroadcastChannel}.
+ * <P>
+ * At the end of a trial, the benchmark thread poisons its channel and the poison
+ * spreads to the readers.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class Broadcast {
+
+  private static final Integer ONE = Integer.valueOf (1);
+
+  @Param ({"1", "4", "16"})
+  public int readers;
+
+  @Param ({"delta", "broadcast", "buffered"})
+  public String kind;
+
+  private ChannelOutput out;
+
+  private ProcessManager network;
+
+  private static CSProcess reader (final ChannelInput in) {
+    return new CSProcess () {
+      public void run () {
+        try {
+          while (true) {
+            in.read ();
+          }
+        } catch (PoisonException e) {
+          in.poison (1);
+        }
+      }
+    };
+  }
+
+  @Setup
+  public void setup () {
+    final CSProcess[] procs;
+    if (kind.equals ("delta")) {
+      final One2OneChannel in = Channel.one2one (0);
+      final One2OneChannel[] c = Channel.one2oneArray (readers, 0);
+      final ChannelOutput[] outs = new ChannelOutput[readers];
+      procs = new CSProcess[readers + 1];
+      for (int i = 0; i < readers; i++) {
+        outs[i] = c[i].out ();
+        procs[i + 1] = reader (c[i].in ());
+      }
+      procs[0] = new Delta (in.in (), outs);
+      out = in.out ();
+    } else {
+      final BroadcastChannel b = Channel.broadcast (kind.equals ("buffered") ? 16 : 0, 0);
+      procs = new CSProcess[readers];
+      for (int i = 0; i < readers; i++) {
+        procs[i] = reader (b.subscribe ());
+      }
+      out = b.out ();
+    }
+    network = new ProcessManager (new Parallel (procs));
+    network.start ();
+  }
+
+  @Benchmark
+  public void write () {
+    out.write (ONE);
+  }
+
+  @TearDown
+  public void tearDown () {
+    out.poison (1);
+    network.join ();
+  }
+
+}
@@ -0,0 +1,151 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+
+/**
+ * The round-trip time of a CALL on a {@link One2OneCallChannel} (accepted directly)
+ * and on an {@link Any2OneCallChannel} (accepted through an {@link Alternative}).
+ * Run with more than one thread (<TT>-t</TT>) only the <TT>any2one</TT> benchmark.
+ * <P>
+ * The server is stopped at the end of a trial by a call with the argument
+ * {@link #STOP}.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class CallChannels {
+
+  private static final int STOP = Integer.MIN_VALUE;
+
+  private static interface Adder {
+    public int add (int a, int b);
+  }
+
+  private static class One2OneAdderChannel extends One2OneCallChannel implements Adder {
+    public int add (final int a, final int b) {
+      join ();
+      final int result = ((Adder) server).add (a, b);
+      fork ();
+      return result;
+    }
+  }
+
+  private static class Any2OneAdderChannel extends Any2OneCallChannel implements Adder {
+    public int add (final int a, final int b) {
+      join ();
+      final int result = ((Adder) server).add (a, b);
+      fork ();
+      return result;
+    }
+  }
+
+  private static class AdderServer implements CSProcess, Adder {
+    private final AltingChannelAccept in;
+    private final boolean alting;
+    private boolean running = true;
+    AdderServer (final AltingChannelAccept in, final boolean alting) {
+      this.in = in;
+      this.alting = alting;
+    }
+    public int add (final int a, final int b) {
+      if (a == STOP) {
+        running = false;
+      }
+      return a + b;
+    }
+    public void run () {
+      final Alternative alt = new Alternative (new Guard[] {in});
+      while (running) {
+        if (alting) {
+          alt.select ();
+        }
+        in.accept (this);
+      }
+    }
+  }
+
+  @State (Scope.Benchmark)
+  public static class One2One {
+
+    One2OneAdderChannel c;
+
+    private ProcessManager server;
+
+    @Setup
+    public void setup () {
+      c = new One2OneAdderChannel ();
+      server = new ProcessManager (new AdderServer (c, false));
+      server.start ();
+    }
+
+    @TearDown
+    public void tearDown () {
+      c.add (STOP, 0);
+      server.join ();
+    }
+
+  }
+
+  @State (Scope.Benchmark)
+  public static class Any2One {
+
+    Any2OneAdderChannel c;
+
+    private ProcessManager server;
+
+    @Setup
+    public void setup () {
+      c = new Any2OneAdderChannel ();
+      server = new ProcessManager (new AdderServer (c, true));
+      server.start ();
+    }
+
+    @TearDown
+    public void tearDown () {
+      c.add (STOP, 0);
+      server.join ();
+    }
+
+  }
+
+  @Benchmark
+  public int one2one (final One2One s) {
+    return s.c.add (1, 2);
+  }
+
+  @Benchmark
+  public int any2one (final Any2One s) {
+    return s.c.add (1, 2);
+  }
+
+}
@@ -0,0 +1,116 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+import jcsp.util.Buffer;
+
+/**
+ * The cost of the {@link InstrumentedChannelFactory} instrumentation: the time per
+ * message streamed to a reader process over an unbuffered (<TT>buffer = 0</TT>) or
+ * buffered <TT>One2OneChannel</TT>, built with instrumentation
+ * {@link ChannelRegistry#setEnabled(boolean) switched} off (a plain channel) or on.
+ * <P>
+ * The reader is stopped at the end of a trial by sending it {@link #STOP}.
+ * <P>
+ * On a machine with few processors, handing the messages between processes costs far
+ * more than the instrumentation, and varies too much for its cost to show.
+ * {@link #writeRead()} takes that out: a single process writes a message to a
+ * one-place buffered channel (made the same way) and reads it back.
+ *
+ * @see PingPong
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class ChannelMetricsOverhead {
+
+  private static final Integer ONE = Integer.valueOf (1);
+
+  private static final Integer STOP = Integer.valueOf (-1);
+
+  @Param ({"false", "true"})
+  public boolean instrumented;
+
+  @Param ({"0", "64"})
+  public int buffer;
+
+  private ChannelOutput out;
+
+  private ChannelOutput soloOut;
+
+  private ChannelInput soloIn;
+
+  private ProcessManager reader;
+
+  private static CSProcess reader (final ChannelInput in) {
+    return new CSProcess () {
+      public void run () {
+        while (in.read () != STOP) {
+        }
+      }
+    };
+  }
+
+  @Setup
+  public void setup () {
+    final boolean enabled = ChannelRegistry.isEnabled ();
+    ChannelRegistry.setEnabled (instrumented);
+    final InstrumentedChannelFactory factory = new InstrumentedChannelFactory ();
+    final One2OneChannel c = (buffer == 0)
+                             ? factory.createOne2One ("ChannelMetricsOverhead")
+                             : factory.createOne2One (new Buffer (buffer), "ChannelMetricsOverhead");
+    final One2OneChannel solo = factory.createOne2One (new Buffer (1), "ChannelMetricsOverhead-solo");
+    ChannelRegistry.setEnabled (enabled);
+    out = c.out ();
+    soloOut = solo.out ();
+    soloIn = solo.in ();
+    reader = new ProcessManager (reader (c.in ()));
+    reader.start ();
+  }
+
+  @Benchmark
+  public void write () {
+    out.write (ONE);
+  }
+
+  @Benchmark
+  public Object writeRead () {
+    soloOut.write (ONE);
+    return soloIn.read ();
+  }
+
+  @TearDown
+  public void tearDown () {
+    out.write (STOP);
+    reader.join ();
+  }
+
+}
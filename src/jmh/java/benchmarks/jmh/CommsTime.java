@@ -0,0 +1,134 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+
+/**
+ * The classic <I>CommsTime</I> benchmark: the time for one cycle of a ring of
+ * <TT>Prefix</TT>, <TT>Delta</TT> and <TT>Successor</TT> processes, each cycle being
+ * four channel communications and four context switches.
+ * <P>
+ * The ring runs in the background; the benchmark thread is the consumer on the
+ * <TT>Delta</TT>'s second output.  At the end of a trial, the consumer poisons its
+ * channel and the poison spreads round the ring.
+ * <P>
+ * The benchmarks in this package are run by the <TT>jmh</TT> gradle task, which writes
+ * the results as JSON (to <TT>build/reports/jmh/results.json</TT>):
+ * <PRE>
+ *   gradle jmh                                   // everything
+ *   gradle jmh -PjmhInclude=CommsTime            // a regular expression
+ *   gradle jmh -PjmhInclude=PingPong -PjmhArgs="-p flavour=int -f 3"
+ * </PRE>
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class CommsTime {
+
+  private One2OneChannelInt consume;
+
+  private ProcessManager ring;
+
+  private static CSProcess prefix (final int n, final ChannelInputInt in, final ChannelOutputInt out) {
+    return new CSProcess () {
+      public void run () {
+        try {
+          out.write (n);
+          while (true) {
+            out.write (in.read ());
+          }
+        } catch (PoisonException e) {
+          in.poison (1);
+          out.poison (1);
+        }
+      }
+    };
+  }
+
+  private static CSProcess delta (final ChannelInputInt in, final ChannelOutputInt out0,
+                                  final ChannelOutputInt out1) {
+    return new CSProcess () {
+      public void run () {
+        try {
+          while (true) {
+            final int n = in.read ();
+            out0.write (n);
+            out1.write (n);
+          }
+        } catch (PoisonException e) {
+          in.poison (1);
+          out0.poison (1);
+          out1.poison (1);
+        }
+      }
+    };
+  }
+
+  private static CSProcess successor (final ChannelInputInt in, final ChannelOutputInt out) {
+    return new CSProcess () {
+      public void run () {
+        try {
+          while (true) {
+            out.write (in.read () + 1);
+          }
+        } catch (PoisonException e) {
+          in.poison (1);
+          out.poison (1);
+        }
+      }
+    };
+  }
+
+  @Setup
+  public void setup () {
+    final One2OneChannelInt a = Channel.one2oneInt (0);
+    final One2OneChannelInt b = Channel.one2oneInt (0);
+    final One2OneChannelInt c = Channel.one2oneInt (0);
+    consume = Channel.one2oneInt (0);
+    ring = new ProcessManager (new Parallel (new CSProcess[] {
+      prefix (0, c.in (), a.out ()),
+      delta (a.in (), consume.out (), b.out ()),
+      successor (b.in (), c.out ())
+    }));
+    ring.start ();
+  }
+
+  @Benchmark
+  public int cycle () {
+    return consume.in ().read ();
+  }
+
+  @TearDown
+  public void tearDown () {
+    consume.in ().poison (1);
+    ring.join ();
+  }
+
+}
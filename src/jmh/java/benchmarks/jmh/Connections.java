@@ -0,0 +1,123 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+
+/**
+ * The round-trip time of a request and its reply over an open {@link One2OneConnection}
+ * and {@link Any2OneConnection}, answered by an <TT>ALT</TT>ing server; and the time
+ * to open, use and close a connection.  Run with <TT>-prof gc</TT> for the bytes
+ * allocated per request and reply (by the client and the server together).
+ * <P>
+ * The server is stopped at the end of a trial by the request {@link #STOP}.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class Connections {
+
+  private static final Integer ONE = Integer.valueOf (1);
+
+  private static final Integer STOP = Integer.valueOf (-1);
+
+  private static final Integer CLOSE = Integer.valueOf (0);
+
+  private static CSProcess server (final AltingConnectionServer server) {
+    return new CSProcess () {
+      public void run () {
+        final Alternative alt = new Alternative (new Guard[] {server});
+        while (true) {
+          alt.select ();
+          final Object request = server.request ();
+          server.reply (request, request != ONE);
+          if (request == STOP) {
+            return;
+          }
+        }
+      }
+    };
+  }
+
+  @State (Scope.Benchmark)
+  public static class Open {
+
+    @Param ({"one2one", "any2one"})
+    public String kind;
+
+    ConnectionClient client;
+
+    private ProcessManager server;
+
+    @Setup
+    public void setup () {
+      final AltingConnectionServer s;
+      if (kind.equals ("any2one")) {
+        final Any2OneConnection c = Connection.createAny2One ();
+        s = c.server ();
+        client = c.client ();
+      } else {
+        final One2OneConnection c = Connection.createOne2One ();
+        s = c.server ();
+        client = c.client ();
+      }
+      server = new ProcessManager (server (s));
+      server.start ();
+    }
+
+    @TearDown
+    public void tearDown () {
+      client.request (STOP);
+      client.reply ();
+      server.join ();
+    }
+
+  }
+
+  /**
+   * A request and reply, leaving the connection open.
+   */
+  @Benchmark
+  public Object request (final Open s) {
+    s.client.request (ONE);
+    return s.client.reply ();
+  }
+
+  /**
+   * A request and a reply that closes the connection, so each is a new opening.
+   */
+  @Benchmark
+  public Object requestAndClose (final Open s) {
+    s.client.request (CLOSE);
+    return s.client.reply ();
+  }
+
+}
@@ -0,0 +1,77 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+
+/**
+ * The time to run a {@link Parallel} of <TT>processes</TT> {@link Skip}s - the cost of
+ * starting and finishing a PAR - either built once and run repeatedly (as in a loop
+ * body) or built afresh for each run.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class ParallelStartup {
+
+  @Param ({"1", "2", "10", "100", "1000"})
+  public int processes;
+
+  private CSProcess[] skips;
+
+  private Parallel par;
+
+  @Setup
+  public void setup () {
+    skips = new CSProcess[processes];
+    for (int i = 0; i < processes; i++) {
+      skips[i] = new Skip ();
+    }
+    par = new Parallel (skips);
+  }
+
+  @Benchmark
+  public void run () {
+    par.run ();
+  }
+
+  @Benchmark
+  public void buildAndRun () {
+    new Parallel (skips).run ();
+  }
+
+  @TearDown
+  public void tearDown () {
+    par.releaseAllThreads ();
+  }
+
+}
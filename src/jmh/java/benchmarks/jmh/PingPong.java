@@ -0,0 +1,156 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package benchmarks.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import jcsp.lang.*;
+import jcsp.util.Buffer;
+
+/**
+ * The round-trip time of a message to an echo process and back, for each flavour of
+ * channel: <TT>one2one</TT>, <TT>buffered</TT> (a <TT>one2one</TT> with a
+ * {@link Buffer} of 16), <TT>poisonable</TT>, <TT>int</TT>, <TT>any2one</TT> and
+ * <TT>any2any</TT>.
+ * <P>
+ * The echo process is stopped at the end of a trial by sending it {@link #STOP}.
+ *
+ * @see CommsTime
+ *
+ * @author Kevin Chalmers
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 5, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class PingPong {
+
+  private static final Integer PING = Integer.valueOf (1);
+
+  private static final Integer STOP = Integer.valueOf (-1);
+
+  @Param ({"one2one", "buffered", "poisonable", "int", "any2one", "any2any"})
+  public String flavour;
+
+  private ChannelOutput ping;
+  private ChannelInput pong;
+
+  private ChannelOutputInt pingInt;
+  private ChannelInputInt pongInt;
+
+  private ProcessManager echo;
+
+  private static CSProcess echo (final ChannelInput in, final ChannelOutput out) {
+    return new CSProcess () {
+      public void run () {
+        Object o;
+        while ((o = in.read ()) != STOP) {
+          out.write (o);
+        }
+      }
+    };
+  }
+
+  private static CSProcess echo (final ChannelInputInt in, final ChannelOutputInt out) {
+    return new CSProcess () {
+      public void run () {
+        int n;
+        while ((n = in.read ()) >= 0) {
+          out.write (n);
+        }
+      }
+    };
+  }
+
+  @Setup
+  public void setup () {
+    if (flavour.equals ("int")) {
+      final One2OneChannelInt a = Channel.one2oneInt ();
+      final One2OneChannelInt b = Channel.one2oneInt ();
+      pingInt = a.out ();
+      pongInt = b.in ();
+      echo = new ProcessManager (echo (a.in (), b.out ()));
+    } else {
+      final ChannelInput echoIn;
+      final ChannelOutput echoOut;
+      if (flavour.equals ("one2one") || flavour.equals ("buffered") || flavour.equals ("poisonable")) {
+        final One2OneChannel a, b;
+        if (flavour.equals ("buffered")) {
+          a = Channel.one2one (new Buffer (16));
+          b = Channel.one2one (new Buffer (16));
+        } else if (flavour.equals ("poisonable")) {
+          a = Channel.one2one (0);
+          b = Channel.one2one (0);
+        } else {
+          a = Channel.one2one ();
+          b = Channel.one2one ();
+        }
+        ping = a.out ();
+        echoIn = a.in ();
+        echoOut = b.out ();
+        pong = b.in ();
+      } else if (flavour.equals ("any2one")) {
+        final Any2OneChannel a = Channel.any2one ();
+        final Any2OneChannel b = Channel.any2one ();
+        ping = a.out ();
+        echoIn = a.in ();
+        echoOut = b.out ();
+        pong = b.in ();
+      } else if (flavour.equals ("any2any")) {
+        final Any2AnyChannel a = Channel.any2any ();
+        final Any2AnyChannel b = Channel.any2any ();
+        ping = a.out ();
+        echoIn = a.in ();
+        echoOut = b.out ();
+        pong = b.in ();
+      } else {
+        throw new IllegalArgumentException ("*** PingPong: unknown flavour " + flavour);
+      }
+      echo = new ProcessManager (echo (echoIn, echoOut));
+    }
+    echo.start ();
+  }
+
+  @Benchmark
+  public Object roundTrip () {
+    if (pingInt != null) {
+      pingInt.write (1);
+      return Integer.valueOf (pongInt.read ());
+    }
+    ping.write (PING);
+    return pong.read ();
+  }
+
+  @TearDown
+  public void tearDown () {
+    if (pingInt != null) {
+      pingInt.write (-1);
+    } else {
+      ping.write (STOP);
+    }
+    echo.join ();
+  }
+
+}
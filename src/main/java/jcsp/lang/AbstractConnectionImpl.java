@@ -37,4 +37,21 @@ abstract class AbstractConnectionImpl
     static class NonSingleRequestOpenMsg
     {
     }
+
+    /**
+     * Creates a channel to carry requests to, or replies from, a server.
+     * <P>
+     * The connection protocol never has more than one message in flight in each
+     * direction, and only one process at a time writes (or reads) either channel -
+     * the others are excluded by the claim on the connection.  So a one-place
+     * {@link LockFreeBufferedOne2OneChannel} will do: a write never blocks, and
+     * each message costs one volatile write and (at most) one wakeup of the reader,
+     * with no lock and no allocation.
+     *
+     * @return the new channel.
+     */
+    static One2OneChannel createDataChannel()
+    {
+        return new LockFreeBufferedOne2OneChannel(1);
+    }
 }
@@ -20,6 +20,8 @@
 
 package jcsp.lang;
 
+import java.util.concurrent.locks.LockSupport;
+
 //{{{  javadoc
 
     /**
@@ -602,6 +604,7 @@ package jcsp.plugNplay;
  * @see AltingBarrier
  * @see CSTimer
  * @see Skip
+ * @see ReadySetAlternative
  * 
  * @author P.H. Welch and P.D. Austin
  */
@@ -617,8 +620,11 @@ public class Alternative
   private static final int ready = 2;
   private static final int inactive = 3;
   
-  /** The state of the ALTing process. */
-  private int state = inactive;
+  /** The state of the ALTing process (volatile so that it may be polled while spinning). */
+  private volatile int state = inactive;
+
+  /** How the ALTing process waits for a guard to become ready. */
+  private WaitStrategy waitStrategy = WaitStrategy.getDefault ();
 
   /** The array of guard events from which we are selecting. */
   private final Guard[] guard;
@@ -634,6 +640,12 @@ public class Alternative
 
   /** This indicates whether an AltingBarrier is one of the Guards. */
   private boolean barrierPresent;
+
+  /** The group of the AltingBarriers among the Guards (if barrierPresent). */
+  private AltingBarrierCoordinate barrierGroup;
+
+  /** The root of barrierGroup, claimed by the current enable sequence. */
+  private AltingBarrierCoordinate barrierCoordinate;
   
   /** This flag is set by a successful AltingBarrier enable/disable. */
   private boolean barrierTrigger = false;
@@ -662,6 +674,28 @@ public class Alternative
    */
   private int timeIndex;
 
+  /** This flag is set if one of the enabled guards was a nanosecond CSTimer guard. */
+  private boolean timeoutNanos = false;
+
+  /** If one or more guards were nanosecond CSTimers, this holds the earliest timeout. */
+  private long nanos;
+
+  /** The spin tail requested by the CSTimer with the earliest nanosecond timeout. */
+  private long spinNanos;
+
+  /** The index of the CSTimer with the earliest nanosecond timeout. */
+  private int nanoTimeIndex;
+
+  /** The ALTing process, while it is parked awaiting a nanosecond timeout. */
+  private Thread waiter = null;
+
+  /**
+   * Set while an enabled guard is a timeout, so the ALTing process will wake even if
+   * no other guard becomes ready.  This is read by the {@link DeadlockDetector}, since
+   * a timer using the timing wheel leaves the process waiting without a timeout.
+   */
+  private volatile boolean timing = false;
+
   /**
    * Construct an <code>Alternative</code> object operating on the {@link Guard}
    * array of events.  Supported guard events are channel inputs
@@ -670,21 +704,38 @@ public class Alternative
    * barriers ({@link AltingBarrier}),
    * timeouts ({@link CSTimer}) and skips ({@link Skip}).
    * <P>
+   * Barriers offered together by an <code>Alternative</code> are coordinated as one
+   * group, so if the guards include barriers that are not yet in the same group, this
+   * merges their groups.  That waits until no other process is part-way through an
+   * ALT enable or disable sequence on those barriers, so this constructor may block
+   * (briefly).  Guard arrays without barriers, or whose barriers are already grouped,
+   * never block.
    *
    * @param guard the event guards over which the select operations will be made.
+   * @throws ProcessInterruptedException if interrupted while waiting to merge
+   *   barrier groups.
    */
     public Alternative(final Guard[] guard)
     {
     	this.guard = guard;
+	    barrierPresent = false;
 	    for (int i = 0; i < guard.length; i++)
 	    {
 	        if (guard[i] instanceof MultiwaySynchronisation)
 	    	{
 		        barrierPresent = true;
-				return;
+		        // only the barriers offered together need to coordinate
+		        final AltingBarrierCoordinate c = AltingBarrierCoordinate.of (guard[i]);
+		        if (c == null)
+		            continue;
+		        if (barrierGroup == null)
+		            barrierGroup = c;
+		        else
+		            AltingBarrierCoordinate.join (barrierGroup, c);
       		}
     	}
-	    barrierPresent = false;
+	    if (barrierPresent && (barrierGroup == null))
+	        barrierGroup = new AltingBarrierCoordinate ();
 	}
 
   /**
@@ -703,6 +754,15 @@ public class Alternative
    * the one with the lowest index is selected.
    */
   public final int priSelect () {
+    final Object e = Events.events.beginSelect ();
+    final int i = doPriSelect ();
+    if (e != null) {
+      Events.events.endSelect (e, i, guard.length);
+    }
+    return i;
+  }
+
+  private int doPriSelect () {
     // if (barrierPresent) {
     //   throw new AlternativeError (
     //     "*** Cannot 'priSelect' with an AltingBarrier in the Guard array"
@@ -711,6 +771,10 @@ public class Alternative
     state = enabling;
     favourite = 0;
     enableGuards ();
+    spinWhileEnabling ();
+    if (timeoutNanos) {
+      awaitNanos ();                      // leaves the state ready
+    }
     synchronized (altMonitor) {
       if (state == enabling) {
         state = waiting;
@@ -772,6 +836,10 @@ public class Alternative
     disableGuards ();
     state = inactive;
     timeout = false;
+    timeoutNanos = false;
+    if (timing) {
+      timing = false;
+    }
     return selected;
   }
 
@@ -783,8 +851,21 @@ public class Alternative
    * priority next time around.</I>
    */
   public final int fairSelect () {
+    final Object e = Events.events.beginSelect ();
+    final int i = doFairSelect ();
+    if (e != null) {
+      Events.events.endSelect (e, i, guard.length);
+    }
+    return i;
+  }
+
+  private int doFairSelect () {
     state = enabling;
     enableGuards ();
+    spinWhileEnabling ();
+    if (timeoutNanos) {
+      awaitNanos ();                      // leaves the state ready
+    }
     synchronized (altMonitor) {
       if (state == enabling) {
         state = waiting;
@@ -857,6 +938,10 @@ public class Alternative
     if (favourite == guard.length) 
     	favourite = 0;
     timeout = false;
+    timeoutNanos = false;
+    if (timing) {
+      timing = false;
+    }
     return selected;
   }
 
@@ -868,7 +953,7 @@ public class Alternative
   private final void enableGuards () {
     if (barrierPresent) {
       // System.out.println ("ENABLE barrier(s) present ...");
-      AltingBarrierCoordinate.startEnable ();
+      barrierCoordinate = AltingBarrierCoordinate.startEnable (barrierGroup);
     }
     barrierSelected = NONE_SELECTED;
     for (enableIndex = favourite; enableIndex < guard.length; enableIndex++) {
@@ -885,7 +970,7 @@ public class Alternative
           barrierTrigger = false;
 	} else if (barrierPresent) {
 	  // System.out.println ("ENABLE " + enableIndex + " NON-BARRIER SUCCEED");
-          AltingBarrierCoordinate.finishEnable ();
+          barrierCoordinate.finishEnable ();
         }
         return;
       } // else {
@@ -910,7 +995,7 @@ public class Alternative
           barrierTrigger = false;
 	} else if (barrierPresent) {
 	  // System.out.println ("ENABLE " + enableIndex + " NON-BARRIER SUCCEED");
-          AltingBarrierCoordinate.finishEnable ();
+          barrierCoordinate.finishEnable ();
         }
         return;
       } // else {
@@ -924,7 +1009,7 @@ public class Alternative
     // System.out.println ("ENABLE ALL FAIL");
     selected = NONE_SELECTED;
     if (barrierPresent) {
-      AltingBarrierCoordinate.finishEnable ();
+      barrierCoordinate.finishEnable ();
     }
   }
 
@@ -975,9 +1060,9 @@ public class Alternative
         selected = timeIndex;
       } 
     }
-    if (barrierSelected != NONE_SELECTED) {        // We must choose a barrier sync
-      selected = barrierSelected;                  // if one is ready - so that all
-      AltingBarrierCoordinate.finishDisable ();    // parties make the same choice.
+    if (barrierSelected != NONE_SELECTED) {                // We must choose a barrier sync
+      selected = barrierSelected;                          // if one is ready - so that all
+      AltingBarrierCoordinate.finishDisable (barrierGroup);  // parties make the same choice.
     }
   }
 
@@ -987,6 +1072,7 @@ public class Alternative
    * It is still in the flow of control of the ALTing process.
    */
   void setTimeout (long msecs) {
+    timing = true;
     if (timeout) {
       if (msecs < this.msecs) {
         this.msecs = msecs;
@@ -999,6 +1085,138 @@ public class Alternative
     }
   }
 
+  /**
+   * This is the call-back from enabling a CSTimer guard whose alarm was set in
+   * nanoseconds.  It is still in the flow of control of the ALTing process.
+   *
+   * @param nanos the absolute timeout (on the {@link System#nanoTime()} clock).
+   * @param spin how much of the end of the wait to spend spinning.
+   */
+  void setTimeoutNanos (long nanos, long spin) {
+    timing = true;
+    if ((!timeoutNanos) || (nanos - this.nanos < 0)) {
+      this.nanos = nanos;
+      spinNanos = spin;
+      nanoTimeIndex = enableIndex;
+    }
+    timeoutNanos = true;
+  }
+
+  /**
+   * This is the call-back from enabling a CSTimer guard whose alarm is on the
+   * timing wheel (which will {@link #schedule()} this when it expires).
+   * It is still in the flow of control of the ALTing process.
+   */
+  void setWheelTimeout () {
+    timing = true;
+  }
+
+  /**
+   * Returns whether one of the guards being waited on is a timeout (for the
+   * {@link DeadlockDetector}).
+   */
+  boolean isTiming () {
+    return timing;
+  }
+
+  /**
+   * Waits for a guard to become ready or the earliest timeout to expire, when one
+   * of the timeouts was set in nanoseconds.  Rather than waiting on the altMonitor
+   * (whose timeouts only have millisecond resolution), the process parks until the
+   * deadline, spinning (with yields) through any spin tail requested by the timer.
+   * {@link #schedule()} unparks it.  This leaves the state <code>ready</code>.
+   */
+  private void awaitNanos () {
+    long deadline = nanos;
+    long spin = spinNanos;
+    if (timeout) {
+      // a millisecond CSTimer is also enabled: convert its timeout to compare
+      final long d = System.nanoTime () + ((msecs - System.currentTimeMillis ()) * 1000000L);
+      if (d - deadline < 0) {
+        deadline = d;
+        spin = 0;
+      } else {
+        timeIndex = nanoTimeIndex;
+      }
+    } else {
+      timeIndex = nanoTimeIndex;
+    }
+    synchronized (altMonitor) {
+      if (state != enabling) {
+        return;
+      }
+      state = waiting;
+      waiter = Thread.currentThread ();
+    }
+    try {
+      while (state == waiting) {
+        final long remaining = deadline - System.nanoTime ();
+        if (remaining <= 0) {
+          break;
+        }
+        if (remaining > spin) {
+          LockSupport.parkNanos (this, remaining - spin);
+        } else {
+          Thread.yield ();
+        }
+        if (Thread.interrupted ()) {
+          throw new ProcessInterruptedException (
+            "*** Thrown from Alternative.select ()\n"
+          );
+        }
+      }
+    }
+    finally {
+      synchronized (altMonitor) {
+        state = ready;
+        waiter = null;
+      }
+    }
+  }
+
+  /**
+   * Sets the {@link WaitStrategy} used by the select methods while waiting for a
+   * guard to become ready.  By default, this is the global default strategy at the
+   * time this <code>Alternative</code> was constructed.
+   *
+   * @param waitStrategy the strategy to use.
+   */
+  public void setWaitStrategy (final WaitStrategy waitStrategy) {
+    if (waitStrategy == null) {
+      throw new IllegalArgumentException (
+        "*** Attempt to set a null WaitStrategy on an Alternative\n"
+      );
+    }
+    this.waitStrategy = waitStrategy;
+  }
+
+  /**
+   * Spins (outside the altMonitor) while none of the enabled guards has become
+   * ready, if the wait strategy asks for it.  A guard becoming ready during this
+   * phase changes the state from <code>enabling</code> to <code>ready</code>
+   * (see {@link #schedule()}), so the following monitor sequence does not wait.
+   * The spin is abandoned once any timeout has expired.
+   */
+  private void spinWhileEnabling () {
+    if ((state == enabling) && waitStrategy.spins ()) {
+      int i = 0;
+      while ((state == enabling) && waitStrategy.idle (i)) {
+        if (timeout && ((i & 0xff) == 0) && (System.currentTimeMillis () >= msecs)) {
+          break;
+        }
+        if (timeoutNanos && (System.nanoTime () - nanos >= 0)) {
+          break;
+        }
+        i++;
+      }
+      if (state == enabling) {
+        waitStrategy.recordBlock ();
+      } else {
+        waitStrategy.recordSpinSuccess ();
+      }
+    }
+  }
+
   /**
    * This is a call-back from an AltingBarrier.
    * It is still in the flow of control of the ALTing process.
@@ -1021,6 +1239,9 @@ public class Alternative
         case waiting:
           state = ready;
           altMonitor.notify ();
+          if (waiter != null) {
+            LockSupport.unpark (waiter);
+          }
         break;
         // case ready: case inactive:
         // break
@@ -1059,6 +1280,15 @@ public class Alternative
    * @param preCondition the guards from which to select
    */
   public final int priSelect (boolean[] preCondition) {
+    final Object e = Events.events.beginSelect ();
+    final int i = doPriSelect (preCondition);
+    if (e != null) {
+      Events.events.endSelect (e, i, guard.length);
+    }
+    return i;
+  }
+
+  private int doPriSelect (boolean[] preCondition) {
     // if (barrierPresent) {
     //   throw new AlternativeError (
     //     "*** Cannot 'priSelect' with an AltingBarrier in the Guard array"
@@ -1073,6 +1303,10 @@ public class Alternative
     state = enabling;
     favourite = 0;
     enableGuards (preCondition);
+    spinWhileEnabling ();
+    if (timeoutNanos) {
+      awaitNanos ();                      // leaves the state ready
+    }
     synchronized (altMonitor) {
       if (state == enabling) {
         state = waiting;
@@ -1118,6 +1352,10 @@ public class Alternative
     disableGuards (preCondition);
     state = inactive;
     timeout = false;
+    timeoutNanos = false;
+    if (timing) {
+      timing = false;
+    }
     return selected;
   }
 
@@ -1135,6 +1373,15 @@ public class Alternative
    * @param preCondition the guards from which to select
    */
   public final int fairSelect (boolean[] preCondition) {
+    final Object e = Events.events.beginSelect ();
+    final int i = doFairSelect (preCondition);
+    if (e != null) {
+      Events.events.endSelect (e, i, guard.length);
+    }
+    return i;
+  }
+
+  private int doFairSelect (boolean[] preCondition) {
     if (preCondition.length != guard.length) {
       throw new IllegalArgumentException (
         "*** jcsp.lang.Alternative.select called with a preCondition array\n" +
@@ -1143,6 +1390,10 @@ public class Alternative
     }
     state = enabling;
     enableGuards (preCondition);
+    spinWhileEnabling ();
+    if (timeoutNanos) {
+      awaitNanos ();                      // leaves the state ready
+    }
     synchronized (altMonitor) {
       if (state == enabling) {
         state = waiting;
@@ -1190,6 +1441,10 @@ public class Alternative
     favourite = selected + 1;
     if (favourite == guard.length) favourite = 0;
     timeout = false;
+    timeoutNanos = false;
+    if (timing) {
+      timing = false;
+    }
     return selected;
   }
 
@@ -1204,7 +1459,7 @@ public class Alternative
    */
   private final void enableGuards (boolean[] preCondition) {
     if (barrierPresent) {
-      AltingBarrierCoordinate.startEnable ();
+      barrierCoordinate = AltingBarrierCoordinate.startEnable (barrierGroup);
     }
     barrierSelected = NONE_SELECTED;
     for (enableIndex = favourite; enableIndex < guard.length; enableIndex++) {
@@ -1215,7 +1470,7 @@ public class Alternative
 	  barrierSelected = selected;
           barrierTrigger = false;
 	} else if (barrierPresent) {
-          AltingBarrierCoordinate.finishEnable ();
+          barrierCoordinate.finishEnable ();
         }
         return;
       }
@@ -1228,14 +1483,14 @@ public class Alternative
 	  barrierSelected = selected;
           barrierTrigger = false;
 	} else if (barrierPresent) {
-          AltingBarrierCoordinate.finishEnable ();
+          barrierCoordinate.finishEnable ();
         }
         return;
       }
     }
     selected = NONE_SELECTED;
     if (barrierPresent) {
-      AltingBarrierCoordinate.finishEnable ();
+      barrierCoordinate.finishEnable ();
     }
   }
 
@@ -1287,9 +1542,9 @@ public class Alternative
         selected = timeIndex;
       }
     }
-    if (barrierSelected != NONE_SELECTED) {        // We must choose a barrier sync
-      selected = barrierSelected;                  // if one is ready - so that all
-      AltingBarrierCoordinate.finishDisable ();    // parties make the same choice.
+    if (barrierSelected != NONE_SELECTED) {                // We must choose a barrier sync
+      selected = barrierSelected;                          // if one is ready - so that all
+      AltingBarrierCoordinate.finishDisable (barrierGroup);  // parties make the same choice.
     }
   }
 
@@ -21,11 +21,30 @@
 
 package jcsp.lang;
 
+import java.util.concurrent.atomic.AtomicLong;
+
   class AltingBarrierCoordinate {     // package-only visible class
 
+  /*
+   * Each AltingBarrierBase has one of these.  When an Alternative is constructed,
+   * the coordinates of all the barriers in its guards are joined (union-find style)
+   * into a single group, whose root does the coordination described below.  So the
+   * groups are the connected components of the graph whose nodes are barriers and
+   * whose edges are the Alternatives that offer them together.  Barriers in
+   * different groups can never complete in the same ALT sequence, so their enable
+   * and disable sequences need not be serialised with each other -- independent
+   * AltingBarrier networks no longer share one JVM-wide lock.
+   * <P>
+   * Groups are only ever merged, never split.  A merge needs both roots to be free
+   * of enable and disable sequences (it acquires them as though it were starting an
+   * enable sequence, lowest id first), so the root of a group never changes while
+   * one of its sequences is in progress.  Processes waiting to start an enable
+   * sequence on a root that is merged away try again on the new root.
+   */
+
   /*
    * This records number of processes active in ALT enable/disable sequences
-   * involving a barrier.
+   * involving a barrier of this group (only maintained at the root).
    * <P>
    * Only one process may be engaged in an enable sequence involving a barrier.
    * <P>
@@ -41,30 +60,116 @@ package jcsp.lang;
    * sequence becomes as though it had been triggered by that successful barrier
    * enable (rather than the non-barrier event).
    */
-  private static int active = 0;
+  private int active = 0;
+
+  /** The coordinate this group has been merged into (null for a root). */
+  private volatile AltingBarrierCoordinate parent = null;
+
+  /** Orders the acquisition of two roots by a merge. */
+  private final long id = ids.getAndIncrement ();
+
+  private static final AtomicLong ids = new AtomicLong ();
+
+  /* Returns the root of this group. */
+  AltingBarrierCoordinate find () {
+    AltingBarrierCoordinate root = this;
+    AltingBarrierCoordinate up;
+    while ((up = root.parent) != null) {
+      root = up;
+    }
+    if (root != this) {
+      parent = root;              // a shortcut: root is (or was) an ancestor
+    }
+    return root;
+  }
+
+  /*
+   * Returns the coordinate of an AltingBarrier (or symmetric channel end) guard,
+   * or null if it has none (the barrier has been contracted).
+   */
+  static AltingBarrierCoordinate of (Guard guard) {
+    AltingBarrier ab = null;
+    if (guard instanceof AltingBarrier) {
+      ab = (AltingBarrier) guard;
+    } else if (guard instanceof AltingChannelInputSymmetricImpl) {
+      ab = ((AltingChannelInputSymmetricImpl) guard).barrier ();
+    } else if (guard instanceof AltingChannelInputIntSymmetricImpl) {
+      ab = ((AltingChannelInputIntSymmetricImpl) guard).barrier ();
+    } else if (guard instanceof AltingChannelOutputSymmetricImpl) {
+      ab = ((AltingChannelOutputSymmetricImpl) guard).barrier ();
+    } else if (guard instanceof AltingChannelOutputIntSymmetricImpl) {
+      ab = ((AltingChannelOutputIntSymmetricImpl) guard).barrier ();
+    }
+    final AltingBarrierBase base = (ab == null) ? null : ab.base;
+    return (base == null) ? null : base.coordinate;
+  }
 
-  /** Lock object for coordinating enable/disable sequences. */
-  private static Object activeLock = new Object ();
+  /*
+   * Merges the groups of a and b.  Invoked when an Alternative offering barriers
+   * from both is constructed.  This waits until neither group has an enable or
+   * disable sequence in progress, and throws a ProcessInterruptedException
+   * (leaving the groups unmerged) if interrupted while it does.
+   */
+  static void join (AltingBarrierCoordinate a, AltingBarrierCoordinate b) {
+    while (true) {
+      final AltingBarrierCoordinate ra = a.find ();
+      final AltingBarrierCoordinate rb = b.find ();
+      if (ra == rb) {
+        return;
+      }
+      final AltingBarrierCoordinate first = (ra.id < rb.id) ? ra : rb;
+      final AltingBarrierCoordinate second = (ra.id < rb.id) ? rb : ra;
+      if (!first.acquire ()) {
+        continue;
+      }
+      boolean acquired = false;
+      try {
+        acquired = second.acquire ();
+      }
+      finally {
+        if (!acquired) {
+          first.finishEnable ();  // (also if interrupted, so first is not left claimed)
+        }
+      }
+      if (!acquired) {
+        continue;
+      }
+      synchronized (second) {
+        second.parent = first;
+        second.active = 0;
+        second.notifyAll ();      // its waiters must try again on first
+      }
+      first.finishEnable ();
+      return;
+    }
+  }
 
-  /* Invoked at start of an enable sequence involving a barrier. */
-  static void startEnable () {
-    synchronized (activeLock) {
-      if (active > 0) {
+  /*
+   * Waits until no sequences are active on this coordinate and claims it for an
+   * enable sequence.  Returns false (claiming nothing) if, meanwhile, it has been
+   * merged into another group.
+   */
+  private boolean acquire () {
+    synchronized (this) {
+      if ((active > 0) && (parent == null)) {
         try {
-	  activeLock.wait ();
-          while (active > 0) {
+	  wait ();
+          while ((active > 0) && (parent == null)) {
             // This may be a spurious wakeup.  More likely, this is a properly
-	    // notified wakeup that has been raced to the 'activelock' monitor
-	    // by another thread (quite possibly the notifying one) that has
-	    // (re-)acquired it and set 'active' greater than zero.  We have
-	    // not instrumented the code to tell the difference.  Either way:
-            activeLock.wait ();
+	    // notified wakeup that has been raced to this monitor by another
+	    // thread (quite possibly the notifying one) that has (re-)acquired
+	    // it and set 'active' greater than zero.  We have not instrumented
+	    // the code to tell the difference.  Either way:
+            wait ();
 	  }
 	}
         catch (InterruptedException e) {
           throw new ProcessInterruptedException(e.toString ());
         }
       }
+      if (parent != null) {
+        return false;
+      }
       if (active != 0) {
         throw new JCSP_InternalError(
 	  "\n*** AltingBarrier enable sequence starting " +
@@ -72,12 +177,27 @@ package jcsp.lang;
 	);
       }
       active = 1;
+      return true;
+    }
+  }
+
+  /*
+   * Invoked at start of an enable sequence involving a barrier of the given group.
+   *
+   * @return the root of the group, on which the sequence must be finished.
+   */
+  static AltingBarrierCoordinate startEnable (AltingBarrierCoordinate group) {
+    while (true) {
+      final AltingBarrierCoordinate root = group.find ();
+      if (root.acquire ()) {
+        return root;
+      }
     }
   }
 
-  /* Invoked at finish of an unsuccessful enable sequence involving a barrier. */
-  static void finishEnable () {
-    synchronized (activeLock) {
+  /* Invoked (on the root returned by startEnable) at finish of an unsuccessful enable sequence involving a barrier. */
+  void finishEnable () {
+    synchronized (this) {
       if (active != 1) {
         throw new JCSP_InternalError(
 	  "\n*** AltingBarrier enable sequence finished " +
@@ -85,44 +205,47 @@ package jcsp.lang;
 	);
       }
       active = 0;
-      activeLock.notify ();
+      notify ();
     }
   }
 
   /*
    * Invoked by a successful barrier enable.
    *
+   * @param group the coordinate of the barrier.
    * @param n The number of processes being released to start their disable sequences.
    */
-  static void startDisable (int n) {
+  static void startDisable (AltingBarrierCoordinate group, int n) {
     if (n <= 0) {
       throw new JCSP_InternalError(
         "\n*** attempt to start " + n + " disable sequences!"
       );
     }
-    synchronized (activeLock) {               // not necessary ... ?
-      if (active != 1) {
+    final AltingBarrierCoordinate root = group.find ();
+    synchronized (root) {                     // not necessary ... ?
+      if (root.active != 1) {
         throw new JCSP_InternalError(
 	  "\n*** completed AltingBarrier found in ALT sequence " +
-	  "with 'active' count not equal to one: " + active
+	  "with 'active' count not equal to one: " + root.active
 	);
       }
-      active = n;
+      root.active = n;
     }
   }
 
-  /* Invoked at finish of a disable sequence selecting a barrier. */
-  static void finishDisable () {
-    synchronized (activeLock) {
-      if (active < 1) {
+  /* Invoked at finish of a disable sequence selecting a barrier of the given group. */
+  static void finishDisable (AltingBarrierCoordinate group) {
+    final AltingBarrierCoordinate root = group.find ();
+    synchronized (root) {
+      if (root.active < 1) {
         throw new JCSP_InternalError(
 	  "\n*** AltingBarrier disable sequence finished " +
-	  "with 'active' count less than one: " + active
+	  "with 'active' count less than one: " + root.active
 	);
       }
-      active--;
-      if (active == 0) {
-        activeLock.notify ();
+      root.active--;
+      if (root.active == 0) {
+        root.notify ();
       }
     }
   }
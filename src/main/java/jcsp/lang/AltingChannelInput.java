@@ -85,4 +85,18 @@ public abstract class AltingChannelInput extends Guard implements ChannelInput
      * @return state of the channel.
      */
     public abstract boolean pending();
+
+    /**
+     * Reads one <TT>Object</TT> from the channel, waiting if necessary, then more
+     * (up to <TT>max</TT>) while the channel is {@link #pending() pending}.
+     * Channels that can drain a buffer in one step override this.
+     *
+     * @param dst the array into which the objects are read.
+     * @param max the most objects to read.
+     * @return the number of objects read.
+     */
+    public int read(Object[] dst, int max)
+    {
+        return ChannelBatch.readPending(this, dst, max);
+    }
 }
@@ -48,11 +48,25 @@ package jcsp.lang;
 	}
 
 	public int read() {
-		return channel.read();
+		final Object e = Events.events.beginRead();
+		try {
+			return channel.read();
+		} finally {
+			if (e != null) {
+				Events.events.end(e, channel);
+			}
+		}
 	}
 
 	public int startRead() {
-		return channel.startRead();
+		final Object e = Events.events.beginRead();
+		try {
+			return channel.startRead();
+		} finally {
+			if (e != null) {
+				Events.events.end(e, channel);
+			}
+		}
 	}
 
 	public void poison(int strength) {
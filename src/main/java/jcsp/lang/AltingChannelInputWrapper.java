@@ -98,6 +98,18 @@ public class AltingChannelInputWrapper extends AltingChannelInput
     {
         return channel.read();
     }
+
+    /**
+     * Read a batch of Objects from the channel.
+     *
+     * @param dst the array into which the objects are read
+     * @param max the most objects to read
+     * @return the number of objects read
+     */
+    public int read(Object[] dst, int max)
+    {
+        return channel.read(dst, max);
+    }
     
     /**
      * Begins an extended rendezvous
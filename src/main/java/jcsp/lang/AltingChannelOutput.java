@@ -94,4 +94,18 @@ public abstract class AltingChannelOutput extends Guard implements ChannelOutput
    */
   public abstract boolean pending ();
 
+  /**
+   * Writes a batch of <TT>Object</TT>s to the channel, one at a time.
+   *
+   * @param items the objects to write to the channel.
+   * @param off the index in <TT>items</TT> of the first object to write.
+   * @param len the number of objects to write.
+   */
+  public void write (Object[] items, int off, int len) {
+    ChannelBatch.checkWrite (items, off, len);
+    for (int i = off; i < off + len; i++) {
+      write (items[i]);
+    }
+  }
+
 }
@@ -36,6 +36,11 @@ package jcsp.lang;
     this.out = out;
   }
 
+  /** The barrier synchronised with each communication (for {@link AltingBarrierCoordinate}). */
+  AltingBarrier barrier () {
+    return ab;
+  }
+
   boolean enable (Alternative alt) {
     syncDone = ab.enable (alt);
     return syncDone;
@@ -99,6 +99,9 @@ public class AltingConnectionClientImpl extends AltingConnectionClient
             throw new IllegalStateException
                     ("Cannot call reply() on a ConnectionClient that is not waiting for a reply.");
         ConnectionServerMessage serverReply = (ConnectionServerMessage)fromServer.read();
+        //take the data before release() lets another client open a connection
+        //(the server may re-use its message for that)
+        Object data = serverReply.data;
 
         //check whether the server closed the connection
         currentClientState = serverReply.open ? CLIENT_STATE_OPEN : CLIENT_STATE_CLOSED;
@@ -109,7 +112,7 @@ public class AltingConnectionClientImpl extends AltingConnectionClient
             currentClientState = CLIENT_STATE_CLOSED;
             release();
         }
-        return serverReply.data;
+        return data;
     }
 
     /**
@@ -65,6 +65,12 @@ public class AltingConnectionServerImpl extends AltingConnectionServer
 
     private ConnectionServerMessage msg = null;
 
+    /**
+     * Whether <TT>msg</TT> may be re-used for each connection, rather than replaced
+     * (see {@link #setReuseMessage(boolean)}).
+     */
+    private boolean reuseMessage = false;
+
     /**
      * Constructs a new server instance. This must be called by a subclass which is responsible for
      * creating the channels.
@@ -105,8 +111,9 @@ public class AltingConnectionServerImpl extends AltingConnectionServer
 
                 //create a new msg for connection established
                 //don't know if client implementation will have finished with
-                //message after connection closed
-                this.msg = new ConnectionServerMessage();
+                //message after connection closed (unless we've been told)
+                if (!reuseMessage || (this.msg == null))
+                    this.msg = new ConnectionServerMessage();
             }
             else
                 throw new IllegalStateException("Invalid message received from client");
@@ -179,6 +186,20 @@ public class AltingConnectionServerImpl extends AltingConnectionServer
         reply(data, true);
     }
 
+    /**
+     * Allows the reply message to be re-used for every connection, so that a
+     * server allocates nothing after its first connection.  This is only safe if
+     * every client has finished with the closing reply of one connection before
+     * the next connection can be opened - as is the case for the <TT>jcsp.lang</TT>
+     * connections, whose clients read each reply before releasing the connection.
+     *
+     * @param reuseMessage true to re-use the reply message.
+     */
+    void setReuseMessage(boolean reuseMessage)
+    {
+        this.reuseMessage = reuseMessage;
+    }
+
     protected int getServerState()
     {
         return currentServerState;
@@ -455,12 +455,7 @@ public abstract class Any2AnyCallChannel implements ChannelAccept, Serializable
     /**
      * This is used to synchronise the calling and accepting process.
      */
-    final private Any2OneChannelImpl c = new Any2OneChannelImpl();
-
-    /**
-     * This is used to synchronise the calling and accepting process.
-     */
-    final private One2OneChannelImpl d = new One2OneChannelImpl();
+    final private CallHandoff c = new CallHandoff();
 
     /**
      * This holds a reference to a <I>server</I> process so that a <I>client</I> may
@@ -498,8 +493,7 @@ public abstract class Any2AnyCallChannel implements ChannelAccept, Serializable
     public synchronized int accept(CSProcess server)
     {
         this.server = server;
-        c.read(); // ready to ACCEPT the CALL
-        d.read(); // wait until the CALL is complete
+        c.accept(); // ACCEPT the CALL and wait until it is complete
         return selected;
     }
 
@@ -513,7 +507,7 @@ public abstract class Any2AnyCallChannel implements ChannelAccept, Serializable
      */
     protected void join()
     {
-        c.write(null);
+        c.join();
     }
 
     /**
@@ -526,6 +520,6 @@ public abstract class Any2AnyCallChannel implements ChannelAccept, Serializable
      */
     protected void fork()
     {
-        d.write(null);
+        c.fork();
     }
 }
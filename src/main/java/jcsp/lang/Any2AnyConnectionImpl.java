@@ -45,8 +45,8 @@ class Any2AnyConnectionImpl extends AbstractConnectionImpl implements Any2AnyCon
     public Any2AnyConnectionImpl()
     {
         super();
-        chanToServer = ConnectionServer.FACTORY.createOne2One(new Buffer(1));
-        chanFromServer = ConnectionServer.FACTORY.createOne2One(new Buffer(1));
+        chanToServer = createDataChannel();
+        chanFromServer = createDataChannel();
         chanClientSynch = ConnectionServer.FACTORY.createAny2One(new Buffer(1));
         chanServerSynch = ConnectionServer.FACTORY.createAny2One(new Buffer(1));
     }
@@ -83,11 +83,13 @@ class Any2AnyConnectionImpl extends AbstractConnectionImpl implements Any2AnyCon
      */
     public SharedConnectionServer server()
     {
-        return new SharedConnectionServerImpl(
+        SharedConnectionServerImpl serverImpl = new SharedConnectionServerImpl(
                 chanToServer.in(),
                 chanToServer.in(),
                 chanServerSynch.in(),
                 chanServerSynch.out(),
                 this);
+        serverImpl.setReuseMessage(true);
+        return serverImpl;
     }
 }
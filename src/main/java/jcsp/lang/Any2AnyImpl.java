@@ -59,6 +59,18 @@ package jcsp.lang;
         }
 
         //begin never used:
+        public int read(Object[] dst, int max) {
+                readMutex.claim();
+                try
+                {
+                        return channel.read(dst, max);
+                }
+                finally
+                {
+                        readMutex.release();
+                }
+        }
+
         public boolean readerDisable() {
                 return false;
         }
@@ -99,6 +111,12 @@ package jcsp.lang;
                 }                
         }
 
+        public void write(Object[] items, int off, int len) {
+                synchronized (writeMonitor) {
+                        channel.write(items, off, len);
+                }
+        }
+
         public void writerPoison(int strength) {
                 synchronized (writeMonitor) {                
                         channel.writerPoison(strength);
@@ -648,12 +648,7 @@ public abstract class Any2OneCallChannel extends AltingChannelAccept implements
     /**
      * This is used to synchronise the calling and accepting process.
      */
-    final private Any2OneChannelImpl c = new Any2OneChannelImpl();
-
-    /**
-     * This is used to synchronise the calling and accepting process.
-     */
-    final private One2OneChannelImpl d = new One2OneChannelImpl();
+    final private CallHandoff c = new CallHandoff();
 
     /**
      * This holds a reference to a <I>server</I> process so that a <I>client</I> may
@@ -691,8 +686,7 @@ public abstract class Any2OneCallChannel extends AltingChannelAccept implements
     {
         // invoked by the callee
         this.server = server;
-        c.read(); // ready to ACCEPT the CALL
-        d.read(); // wait until the CALL is complete
+        c.accept(); // ACCEPT the CALL and wait until it is complete
         return selected;
     }
 
@@ -706,7 +700,7 @@ public abstract class Any2OneCallChannel extends AltingChannelAccept implements
     protected void join()
     {
         // indirectly invoked by the caller
-        c.write(null);
+        c.join();
     }
 
     /**
@@ -719,7 +713,7 @@ public abstract class Any2OneCallChannel extends AltingChannelAccept implements
     protected void fork()
     {
         // indirectly invoked by the caller
-        d.write(null);
+        c.fork();
     }
 
     /**
@@ -728,7 +722,7 @@ public abstract class Any2OneCallChannel extends AltingChannelAccept implements
     boolean enable(Alternative alt)
     {
         // ignore this!
-        return c.readerEnable(alt);
+        return c.enable(alt);
     }
 
     /**
@@ -737,6 +731,6 @@ public abstract class Any2OneCallChannel extends AltingChannelAccept implements
     boolean disable()
     {
         // ignore this!
-        return c.readerDisable();
+        return c.disable();
     }
 }
@@ -0,0 +1,41 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+    /**
+ * This implements an any-to-one double channel,
+ * safe for use by many writers and one reader.Refer to the {@link Any2OneChannelDouble} interface for
+ * a fuller description.
+ *
+ * @see jcsp.lang.One2OneChannelDoubleImpl
+ * @see jcsp.lang.One2AnyChannelDoubleImpl
+ * @see Any2AnyChannelDoubleImpl
+ * @see jcsp.util.doubles.ChannelDataStoreDouble
+ *
+ * @author P.D. Austin and P.H. Welch
+ */
+
+class Any2OneChannelDoubleImpl extends Any2OneDoubleImpl
+{
+	Any2OneChannelDoubleImpl() {
+		super(new One2OneChannelDoubleImpl());
+	}
+}
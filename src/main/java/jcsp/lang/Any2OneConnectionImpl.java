@@ -44,11 +44,14 @@ class Any2OneConnectionImpl implements Any2OneConnection
      */
     public Any2OneConnectionImpl() {
         super();
-        chanToServer = ConnectionServer.FACTORY.createOne2One(new Buffer(1));
-        chanFromServer = ConnectionServer.FACTORY.createOne2One(new Buffer(1));
+        chanToServer = AbstractConnectionImpl.createDataChannel();
+        chanFromServer = AbstractConnectionImpl.createDataChannel();
         chanSynch = ConnectionServer.FACTORY.createAny2One(new Buffer(1));
         //create the server object - client object created when accessed
-        server = new AltingConnectionServerImpl(chanToServer.in(), chanToServer.in());
+        AltingConnectionServerImpl serverImpl =
+                new AltingConnectionServerImpl(chanToServer.in(), chanToServer.in());
+        serverImpl.setReuseMessage(true);
+        server = serverImpl;
     }
 
     /**
@@ -67,6 +67,16 @@ package jcsp.lang;
 
 	}
 
+	public void write(Object[] items, int off, int len) {
+		synchronized (writeMonitor) {
+			channel.write(items, off, len);
+		}
+	}
+
+	public int read(Object[] dst, int max) {
+		return channel.read(dst, max);
+	}
+
 	public void writerPoison(int strength) {
 		synchronized (writeMonitor) {
 			channel.writerPoison(strength);
@@ -341,6 +341,9 @@ import java.io.Serializable;
  * for this implementation are comparable with those of a <TT>synchronized</TT> method
  * invocation followed by an <TT>Object.wait</TT>.
  * <P>
+ * For barriers with large enrolments, {@link TreeBarrier} avoids the monitor and releases
+ * the waiting processes down a tree, rather than with a <TT>notifyAll</TT>.
+ * <P>
  * [<I>Note:</I> CSP synchronisation primitives can be implemented with much lighter
  * overheads.  For example,
  * the <A HREF="http://www.hensa.ac.uk/parallel/occam/projects/occam-for-all/kroc/">KRoC</A>
@@ -350,6 +353,7 @@ import java.io.Serializable;
  * the <I>final</I> <TT>sync</TT>.  Future work on JCSP may look towards this standard.]
  *
  * @see AltingBarrier
+ * @see TreeBarrier
  * @see Bucket
  * @see Alternative
  * 
@@ -375,9 +379,15 @@ public class Barrier implements Serializable
   private Object barrierLock = new Object ();
 
   /**
-   * The even/odd flag used to detect spurious wakeups.
+   * The even/odd flag used to detect spurious wakeups (volatile so that it
+   * may be polled by spinning processes).
+   */
+  private volatile boolean evenOddCycle = true;      // could be initialised to false ...
+
+  /**
+   * How processes wait for the barrier to complete.
    */
-  private boolean evenOddCycle = true;      // could be initialised to false ...
+  private WaitStrategy waitStrategy = WaitStrategy.getDefault ();
 
   /**
    * Construct a barrier initially associated with no processes.
@@ -441,32 +451,90 @@ public class Barrier implements Serializable
    * processes associated with the barrier have synchronised (or resigned).
    */
   public void sync () {
+    final Object e = Events.events.beginSync ();
+    doSync ();
+    if (e != null) {
+      Events.events.end (e, this);
+    }
+  }
+
+  private void doSync () {
+    final boolean spuriousCycle;
     synchronized (barrierLock) {
       countDown--;
 //System.out.println ("Barrier.sync : " + nEnrolled + ", " + countDown);
       if (countDown > 0) {
-        try {
-          boolean spuriousCycle = evenOddCycle;
-          barrierLock.wait ();
-	  while (spuriousCycle == evenOddCycle) {
-	    if (Spurious.logging) {
-	      SpuriousLog.record (SpuriousLog.BarrierSync);
-	    }
-	    barrierLock.wait ();
-          }	  
-        }
-        catch (InterruptedException e) {
-          throw new ProcessInterruptedException (
-	    "*** Thrown from Barrier.sync ()\n" + e.toString ()
-	  );
+        spuriousCycle = evenOddCycle;
+        if (!waitStrategy.spins ()) {
+          try {
+            barrierLock.wait ();
+	    while (spuriousCycle == evenOddCycle) {
+	      if (Spurious.logging) {
+	        SpuriousLog.record (SpuriousLog.BarrierSync);
+	      }
+	      barrierLock.wait ();
+            }	  
+          }
+          catch (InterruptedException e) {
+            throw new ProcessInterruptedException (
+	      "*** Thrown from Barrier.sync ()\n" + e.toString ()
+	    );
+          }
+          return;
         }
       } else {
         countDown = nEnrolled;
         evenOddCycle = !evenOddCycle;         // to detect spurious wakeups  :(
 //System.out.println ("Barrier.sync : " + nEnrolled + ", " + countDown);
         barrierLock.notifyAll ();
+        return;
       }
     }
+    // spin (outside the lock) for the last process to arrive ...
+    int i = 0;
+    while ((spuriousCycle == evenOddCycle) && waitStrategy.idle (i)) {
+      i++;
+    }
+    if (spuriousCycle != evenOddCycle) {
+      waitStrategy.recordSpinSuccess ();
+      return;
+    }
+    waitStrategy.recordBlock ();
+    synchronized (barrierLock) {
+      try {
+        while (spuriousCycle == evenOddCycle) {
+          barrierLock.wait ();
+        }
+      }
+      catch (InterruptedException e) {
+        throw new ProcessInterruptedException (
+          "*** Thrown from Barrier.sync ()\n" + e.toString ()
+        );
+      }
+    }
+  }
+
+  /**
+   * Sets the {@link WaitStrategy} used by processes waiting in {@link #sync()}.
+   * By default, this is the global default strategy at the time this barrier
+   * was constructed.
+   *
+   * @param waitStrategy the strategy to use.
+   */
+  public void setWaitStrategy (final WaitStrategy waitStrategy) {
+    if (waitStrategy == null) {
+      throw new IllegalArgumentException (
+        "*** Attempt to set a null WaitStrategy on a barrier\n"
+      );
+    }
+    this.waitStrategy = waitStrategy;
+  }
+
+  /**
+   * Returns the {@link WaitStrategy} used by processes waiting in {@link #sync()}.
+   */
+  WaitStrategy getWaitStrategy () {
+    return waitStrategy;
   }
 
   /**
@@ -54,6 +54,18 @@ public class BlackHoleChannel implements ChannelOutput
     public void write(Object object)
     {      
     }   
+
+    /**
+     * Write a batch of Objects to the channel and lose them.
+     *
+     * @param items the objects to write to the channel.
+     * @param off the index in <TT>items</TT> of the first object to write.
+     * @param len the number of objects to write.
+     */
+    public void write(Object[] items, int off, int len)
+    {
+        ChannelBatch.checkWrite(items, off, len);
+    }
     
     public void poison(int strength) 
     {    
@@ -0,0 +1,89 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+package jcsp.lang;
+
+/**
+ * This defines the interface for a <i>one-to-many</i> broadcasting Object channel.
+ * <H2>Description</H2>
+ * Every message written to a <TT>BroadcastChannel</TT> is delivered to <i>every</i>
+ * reader subscribed to it, in the order written.  There is one writing end,
+ * {@link #out()}.  Each reader has its own input end, obtained by {@link #subscribe()}:
+ * it receives each message written from then on, until it {@link #unsubscribe unsubscribes}.
+ * Readers may {@link Alternative <TT>ALT</TT>} on their ends and may use the extended
+ * rendezvous (<TT>startRead</TT> / <TT>endRead</TT>).  The writer is committed.
+ * <P>
+ * A {@link Channel#broadcast() <i>synchronising</i>} broadcast channel is the one-to-many
+ * generalisation of a CSP channel: a write completes only when every subscribed reader
+ * has taken the message (and, if it used the extended rendezvous, ended its read).
+ * A {@link Channel#broadcast(int) <i>buffered</i>} one holds up to <TT>size</TT> messages
+ * that not all readers have yet taken: the writer waits only while the slowest reader is
+ * that far behind.  Either may also be {@link Channel#broadcast(int,int) <i>poisonable</i>}
+ * &ndash; poison from the writer, or from any reader, poisons the whole channel.
+ * <P>
+ * The writer hands each message over once, whatever the number of readers: it stores
+ * the message and wakes the readers waiting for it, each of which then takes it at its
+ * own pace.  A write to a channel with no readers completes at once and the message
+ * is lost.
+ * <H2>Example</H2>
+ * <PRE>
+ *   final BroadcastChannel news = Channel.broadcast ();
+ *
+ *   new Parallel (
+ *     new CSProcess[] {
+ *       new Generate (news.out (), 1),
+ *       new Printer (news.subscribe (), "A: ", "\n"),
+ *       new Printer (news.subscribe (), "B: ", "\n")
+ *     }
+ *   ).run ();
+ * </PRE>
+ *
+ * @see Channel#broadcast()
+ * @see jcsp.plugNplay.Delta
+ * @see jcsp.plugNplay.DynamicDelta
+ *
+ * @author Kevin Chalmers
+ */
+
+public interface BroadcastChannel
+{
+    /**
+     * Returns the output channel end.
+     *
+     * @return the output end.
+     */
+    public ChannelOutput out();
+
+    /**
+     * Subscribes a new reader, which will receive every message written from now on.
+     *
+     * @return the new input end.
+     */
+    public AltingChannelInput subscribe();
+
+    /**
+     * Unsubscribes a reader: it receives no more messages, and a writer waiting for it
+     * to take a message no longer does.  The reader must not use the end again &ndash;
+     * if it does (or is still waiting in a read), it gets an <TT>IllegalStateException</TT>.
+     * Unsubscribing an end that is not subscribed has no effect.
+     *
+     * @param in an input end obtained from {@link #subscribe()}.
+     */
+    public void unsubscribe(AltingChannelInput in);
+}
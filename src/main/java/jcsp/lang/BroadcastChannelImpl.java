@@ -0,0 +1,579 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+package jcsp.lang;
+
+import java.util.concurrent.locks.LockSupport;
+
+import jcsp.util.BufferSizeError;
+
+/**
+ * This implements a one-to-many broadcasting Object channel.
+ * <H2>Description</H2>
+ * <TT>BroadcastChannelImpl</TT> implements {@link BroadcastChannel}.  Messages are
+ * held in a ring of <TT>size</TT> slots (one slot for a synchronising channel), indexed
+ * by ever-increasing sequence numbers: <TT>written</TT>, the number of messages written,
+ * and each {@link Subscriber}'s own <TT>cursor</TT>, the number it has taken.  A slot
+ * may be reused once every cursor has passed it, and is cleared then (by the last
+ * reader to take its message), so that the ring holds on to no message every reader
+ * has taken.
+ * <P>
+ * When the channel is poisoned, each reader still takes the messages already written
+ * for it before it sees the poison.
+ * <P>
+ * All state is guarded by one monitor, which is only ever held briefly &ndash; nobody
+ * waits holding it.  Waiting processes publish their threads and park:
+ * <UL>
+ *   <LI>a write stores the message, advances <TT>written</TT> and wakes each reader
+ *     waiting for it (or its {@link Alternative}) &ndash; one handoff, however many
+ *     readers there are;</LI>
+ *   <LI>a writer that must wait (for space in the ring, or for a synchronising
+ *     channel's message to be taken) counts the readers it is waiting for;
+ *     each such reader decrements the count as it takes the message, and the last
+ *     wakes the writer.</LI>
+ * </UL>
+ * The channel itself implements the writer's side of {@link ChannelInternals}; each
+ * reader's side is a {@link Subscriber}.
+ * <P>
+ * Channels of this kind are obtained from {@link Channel#broadcast()},
+ * {@link Channel#broadcast(int)} and {@link Channel#broadcast(int,int)}.
+ *
+ * @author Kevin Chalmers
+ */
+
+class BroadcastChannelImpl implements BroadcastChannel, ChannelInternals
+{
+    private static final Subscriber[] NONE = new Subscriber[0];
+
+    /** Guards everything below */
+    private final Object monitor = new Object();
+
+    /** The messages not yet taken by every reader */
+    private final Object[] ring;
+
+    /** True if a write waits for every reader to take its message */
+    private final boolean synchronous;
+
+    /** Poison strengths up to this have no effect on the ends */
+    private final int immunity;
+
+    /** The number of messages written */
+    private long written = 0;
+
+    /** The oldest reader's cursor (or <TT>written</TT> if there are no readers) ... */
+    private long tail = 0;
+
+    /** ... and how many readers are there */
+    private int atTail = 0;
+
+    /** The current readers (replaced, not changed, as they come and go) */
+    private Subscriber[] subscribers = NONE;
+
+    /** The writer, while it waits for readers */
+    private Thread writer;
+
+    /** The cursor of the readers the writer is waiting for ... */
+    private long waitMark;
+
+    /** ... and how many of them there still are */
+    private int blockers;
+
+    /** 0 means unpoisoned */
+    private int poisonStrength = 0;
+
+    /**
+     * Constructs a broadcast channel.
+     *
+     * @param size the number of messages held for slow readers (0 for a synchronising channel).
+     * @param immunity the channel is immune to poison strengths up to and including this level.
+     */
+    BroadcastChannelImpl(final int size, final int immunity)
+    {
+        if (size < 0)
+        {
+            throw new BufferSizeError(
+                "\n*** Attempt to create a broadcast channel with negative capacity"
+            );
+        }
+        this.ring = new Object[(size == 0) ? 1 : size];
+        this.synchronous = (size == 0);
+        this.immunity = immunity;
+    }
+
+    /*************Methods from BroadcastChannel******************************/
+
+    public ChannelOutput out()
+    {
+        return new ChannelOutputImpl(this, immunity);
+    }
+
+    public AltingChannelInput subscribe()
+    {
+        final Subscriber s = new Subscriber();
+        synchronized (monitor)
+        {
+            s.cursor = written;
+            if (written == tail)
+            {
+                atTail++;
+            }
+            final Subscriber[] a = new Subscriber[subscribers.length + 1];
+            System.arraycopy(subscribers, 0, a, 0, subscribers.length);
+            a[subscribers.length] = s;
+            subscribers = a;
+        }
+        return new AltingChannelInputImpl(s, immunity);
+    }
+
+    public void unsubscribe(final AltingChannelInput in)
+    {
+        if (!(in instanceof AltingChannelInputImpl))
+        {
+            return;
+        }
+        final ChannelInternals c = ((AltingChannelInputImpl) in).getChannel();
+        if (!(c instanceof Subscriber) || (((Subscriber) c).channel() != this))
+        {
+            return;
+        }
+        final Subscriber s = (Subscriber) c;
+        synchronized (monitor)
+        {
+            int i = 0;
+            while ((i < subscribers.length) && (subscribers[i] != s))
+            {
+                i++;
+            }
+            if (i == subscribers.length)
+            {
+                return;
+            }
+            final Subscriber[] a = new Subscriber[subscribers.length - 1];
+            System.arraycopy(subscribers, 0, a, 0, i);
+            System.arraycopy(subscribers, i + 1, a, i, a.length - i);
+            subscribers = a;
+            s.subscribed = false;
+            released(s.cursor);
+            s.wake();
+        }
+    }
+
+    /*************Methods from ChannelInternals (the writer's side)*********/
+
+    /**
+     * Writes an <TT>Object</TT> to every reader.
+     *
+     * @param value the object to write to the channel.
+     */
+    public void write(final Object value)
+    {
+        if (!synchronous)
+        {
+            awaitReaders(written - ring.length);      // for a free slot
+        }
+        synchronized (monitor)
+        {
+            if (poisonStrength > 0)
+            {
+                throw new PoisonException(poisonStrength);
+            }
+            final Subscriber[] s = subscribers;
+            if (s.length > 0)
+            {
+                ring[(int) (written % ring.length)] = value;
+            }
+            written++;
+            if (s.length == 0)
+            {
+                tail = written;         // no one to take it
+            }
+            for (int i = 0; i < s.length; i++)
+            {
+                s[i].wake();
+            }
+        }
+        if (synchronous)
+        {
+            awaitReaders(written - 1);                // for every reader to take it
+        }
+    }
+
+    public void write(final Object[] items, final int off, final int len)
+    {
+        ChannelBatch.writeEach(this, items, off, len);
+    }
+
+    public void writerPoison(final int strength)
+    {
+        if (strength > 0)
+        {
+            synchronized (monitor)
+            {
+                poisonStrength = strength;
+                final Subscriber[] s = subscribers;
+                for (int i = 0; i < s.length; i++)
+                {
+                    s[i].wake();
+                }
+            }
+        }
+    }
+
+    public void readerPoison(final int strength)
+    {
+        if (strength > 0)
+        {
+            synchronized (monitor)
+            {
+                poisonStrength = strength;
+                if (writer != null)
+                {
+                    LockSupport.unpark(writer);
+                }
+                // the other readers must see it too
+                final Subscriber[] s = subscribers;
+                for (int i = 0; i < s.length; i++)
+                {
+                    s[i].wake();
+                }
+            }
+        }
+    }
+
+    // the readers' side is each Subscriber's:
+
+    public Object read()
+    {
+        throw new IllegalStateException("*** Attempt to read from a BroadcastChannel output end");
+    }
+
+    public int read(final Object[] dst, final int max)
+    {
+        throw new IllegalStateException("*** Attempt to read from a BroadcastChannel output end");
+    }
+
+    public Object startRead()
+    {
+        throw new IllegalStateException("*** Attempt to read from a BroadcastChannel output end");
+    }
+
+    public void endRead()
+    {
+    }
+
+    public boolean readerEnable(final Alternative alt)
+    {
+        return false;
+    }
+
+    public boolean readerDisable()
+    {
+        return false;
+    }
+
+    public boolean readerPending()
+    {
+        return false;
+    }
+
+    /**
+     * Waits until no reader's cursor is at <TT>mark</TT> (none can be behind it).
+     * This is invoked by the writer, not holding the monitor.
+     */
+    private void awaitReaders(final long mark)
+    {
+        final Thread me = Thread.currentThread();
+        synchronized (monitor)
+        {
+            if (poisonStrength > 0)
+            {
+                throw new PoisonException(poisonStrength);
+            }
+            int n = 0;
+            final Subscriber[] s = subscribers;
+            for (int i = 0; i < s.length; i++)
+            {
+                if (s[i].cursor == mark)
+                {
+                    n++;
+                }
+            }
+            if (n == 0)
+            {
+                return;
+            }
+            waitMark = mark;
+            blockers = n;
+            writer = me;
+        }
+        while (true)
+        {
+            LockSupport.park(this);
+            synchronized (monitor)
+            {
+                if (poisonStrength > 0)
+                {
+                    writer = null;
+                    throw new PoisonException(poisonStrength);
+                }
+                if (blockers == 0)
+                {
+                    return;
+                }
+                if (Thread.interrupted())
+                {
+                    writer = null;
+                    throw new ProcessInterruptedException(
+                        "*** Thrown from BroadcastChannel.write (Object)\n"
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Notes that a reader at <TT>cursor</TT> has moved on (or left), waking the
+     * writer if it was the last one the writer was waiting for, and clearing the slots
+     * every reader has now passed.  This must be called holding the monitor, after
+     * the reader's cursor has moved.
+     */
+    private void released(final long cursor)
+    {
+        if ((writer != null) && (cursor == waitMark) && (--blockers == 0))
+        {
+            LockSupport.unpark(writer);
+            writer = null;
+        }
+        if ((cursor == tail) && (--atTail == 0))
+        {
+            final Subscriber[] s = subscribers;
+            while ((atTail == 0) && (tail < written))
+            {
+                ring[(int) (tail % ring.length)] = null;
+                tail++;
+                for (int i = 0; i < s.length; i++)
+                {
+                    if (s[i].cursor == tail)
+                    {
+                        atTail++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The reader's side of a {@link BroadcastChannelImpl}: one per subscribed reader.
+     */
+    final class Subscriber implements ChannelInternals
+    {
+        /** The number of messages this reader has taken (guarded by the monitor) */
+        long cursor;
+
+        /** False once unsubscribed */
+        boolean subscribed = true;
+
+        /** The reader, while it waits for a message */
+        private Thread waiting;
+
+        /** The Alternative of an ALTing reader */
+        private Alternative alt;
+
+        BroadcastChannelImpl channel()
+        {
+            return BroadcastChannelImpl.this;
+        }
+
+        /**
+         * Wakes this reader, if it is waiting.  This must be called holding the monitor.
+         */
+        void wake()
+        {
+            if (waiting != null)
+            {
+                LockSupport.unpark(waiting);
+                waiting = null;
+            }
+            if (alt != null)
+            {
+                alt.schedule();
+                alt = null;
+            }
+        }
+
+        /**
+         * Returns true if there is a message for this reader; otherwise registers it as
+         * waiting for one.  This must be called holding the monitor.
+         */
+        private boolean ready()
+        {
+            if (!subscribed)
+            {
+                throw new IllegalStateException(
+                    "*** Attempt to read from an unsubscribed BroadcastChannel end"
+                );
+            }
+            if (cursor < written)
+            {
+                return true;                    // (even if poisoned since)
+            }
+            if (poisonStrength > 0)
+            {
+                throw new PoisonException(poisonStrength);
+            }
+            waiting = Thread.currentThread();
+            return false;
+        }
+
+        /**
+         * Parks this reader (not holding the monitor) until it is woken.
+         */
+        private void pause()
+        {
+            LockSupport.park(this);
+            if (Thread.interrupted())
+            {
+                synchronized (monitor)
+                {
+                    waiting = null;
+                }
+                throw new ProcessInterruptedException(
+                    "*** Thrown from BroadcastChannel.read ()\n"
+                );
+            }
+        }
+
+        public Object read()
+        {
+            while (true)
+            {
+                synchronized (monitor)
+                {
+                    if (ready())
+                    {
+                        final Object o = ring[(int) (cursor % ring.length)];
+                        cursor++;
+                        released(cursor - 1);
+                        return o;
+                    }
+                }
+                pause();
+            }
+        }
+
+        public int read(final Object[] dst, final int max)
+        {
+            ChannelBatch.checkRead(dst, max);
+            while (true)
+            {
+                synchronized (monitor)
+                {
+                    if (ready())
+                    {
+                        int n = 0;
+                        while ((n < max) && (cursor < written))
+                        {
+                            dst[n++] = ring[(int) (cursor % ring.length)];
+                            cursor++;
+                            released(cursor - 1);
+                        }
+                        return n;
+                    }
+                }
+                pause();
+            }
+        }
+
+        public Object startRead()
+        {
+            while (true)
+            {
+                synchronized (monitor)
+                {
+                    if (ready())
+                    {
+                        return ring[(int) (cursor % ring.length)];
+                    }
+                }
+                pause();
+            }
+        }
+
+        public void endRead()
+        {
+            synchronized (monitor)
+            {
+                if (subscribed && (cursor < written))
+                {
+                    cursor++;
+                    released(cursor - 1);
+                }
+            }
+        }
+
+        public boolean readerEnable(final Alternative alt)
+        {
+            synchronized (monitor)
+            {
+                if ((cursor < written) || (poisonStrength > 0) || !subscribed)
+                {
+                    return true;
+                }
+                this.alt = alt;
+                return false;
+            }
+        }
+
+        public boolean readerDisable()
+        {
+            synchronized (monitor)
+            {
+                alt = null;
+                return (cursor < written) || (poisonStrength > 0) || !subscribed;
+            }
+        }
+
+        public boolean readerPending()
+        {
+            synchronized (monitor)
+            {
+                return (cursor < written) || (poisonStrength > 0);
+            }
+        }
+
+        public void readerPoison(final int strength)
+        {
+            BroadcastChannelImpl.this.readerPoison(strength);
+        }
+
+        public void write(final Object obj)
+        {
+            throw new IllegalStateException("*** Attempt to write to a BroadcastChannel input end");
+        }
+
+        public void write(final Object[] items, final int off, final int len)
+        {
+            throw new IllegalStateException("*** Attempt to write to a BroadcastChannel input end");
+        }
+
+        public void writerPoison(final int strength)
+        {
+        }
+    }
+}
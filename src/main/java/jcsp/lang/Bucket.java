@@ -372,7 +372,12 @@ public class Bucket implements Serializable
    * Instead, a count must be used.  Theoretically this is unsafe, but the likelihood of the bucket
    * completing 4 *billion* cycles before the process wakes up is somewhat slim.
    */
-  private int bucketCycle = 0;
+  private volatile int bucketCycle = 0;     // volatile so that it may be polled by spinning processes
+
+  /**
+   * How processes wait in the bucket to be flushed.
+   */
+  private WaitStrategy waitStrategy = WaitStrategy.getDefault ();
 
   /**
    * Fall into the bucket.
@@ -380,21 +385,63 @@ public class Bucket implements Serializable
    */
     public void fallInto()
     {
+    	final Object e = Events.events.beginFallInto ();
+    	doFallInto ();
+    	if (e != null)
+    	{
+    		Events.events.end (e, this);
+    	}
+    }
+
+    private void doFallInto()
+    {
+    	final int spuriousCycle;
     	synchronized (bucketLock)
     	{
     		nHolding++;
     		// System.out.println ("Bucket.fallInto : " + nHolding);
+    		spuriousCycle = bucketCycle;
+    		if (!waitStrategy.spins ())
+    		{
+    			try 
+    			{
+    				bucketLock.wait ();
+    				while (spuriousCycle == bucketCycle) 
+    				{
+    				    if (Spurious.logging) {
+    				      SpuriousLog.record (SpuriousLog.BucketFallInto);
+    				    }
+    				    bucketLock.wait ();
+    			    }
+    			}
+    			catch (InterruptedException e) 
+    			{
+    				throw new ProcessInterruptedException("*** Thrown from Bucket.fallInto ()\n"
+                                         + e.toString ());
+    			}
+    			return;
+    		}
+    	}
+    	// spin (outside the lock) for the flush ...
+    	int i = 0;
+    	while ((spuriousCycle == bucketCycle) && waitStrategy.idle (i))
+    	{
+    		i++;
+    	}
+    	if (spuriousCycle != bucketCycle)
+    	{
+    		waitStrategy.recordSpinSuccess ();
+    		return;
+    	}
+    	waitStrategy.recordBlock ();
+    	synchronized (bucketLock)
+    	{
     		try 
     		{
-    			int  spuriousCycle = bucketCycle;
-    			bucketLock.wait ();
     			while (spuriousCycle == bucketCycle) 
     			{
-    			    if (Spurious.logging) {
-    			      SpuriousLog.record (SpuriousLog.BucketFallInto);
-    			    }
-    			    bucketLock.wait ();
-    		    }
+    				bucketLock.wait ();
+    			}
     		}
     		catch (InterruptedException e) 
     		{
@@ -404,6 +451,24 @@ public class Bucket implements Serializable
     	}
   }
 
+  /**
+   * Sets the {@link WaitStrategy} used by processes waiting in {@link #fallInto()}.
+   * By default, this is the global default strategy at the time this bucket
+   * was constructed.
+   *
+   * @param waitStrategy the strategy to use.
+   */
+  public void setWaitStrategy (final WaitStrategy waitStrategy)
+  {
+	  if (waitStrategy == null)
+	  {
+		  throw new IllegalArgumentException (
+		    "*** Attempt to set a null WaitStrategy on a bucket\n"
+		  );
+	  }
+	  this.waitStrategy = waitStrategy;
+  }
+
   /**
    * Flush the bucket.  All held processes will be released.
    * It returns the number that were released.
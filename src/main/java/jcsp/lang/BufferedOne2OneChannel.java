@@ -61,6 +61,12 @@ class BufferedOne2OneChannel implements One2OneChannel, ChannelInternals
     private final Object rwMonitor = new Object();
     
     private Alternative alt;
+
+    /** A copy of <code>data.getState ()</code>, maintained under the monitor, for spinning processes to poll */
+    private volatile int state = ChannelDataStore.EMPTY;
+
+    /** How the reader and writer wait for each other */
+    private final WaitStrategy waitStrategy;
     
     /**
      * Constructs a new BufferedOne2OneChannel with the specified ChannelDataStore.
@@ -69,18 +75,53 @@ class BufferedOne2OneChannel implements One2OneChannel, ChannelInternals
      */
     public BufferedOne2OneChannel(ChannelDataStore data)
     {
+        this(data, WaitStrategy.getDefault());
+    }
+
+    /**
+     * Constructs a new BufferedOne2OneChannel with the specified ChannelDataStore
+     * and {@link WaitStrategy}.
+     *
+     * @param data the ChannelDataStore used to store the data for the channel
+     * @param waitStrategy how the reader and writer wait for each other
+     */
+    BufferedOne2OneChannel(ChannelDataStore data, WaitStrategy waitStrategy)
+    {
+        this.waitStrategy = waitStrategy;
         if (data == null)
             throw new IllegalArgumentException
                     ("Null ChannelDataStore given to channel constructor ...\n");
         this.data = (ChannelDataStore) data.clone();
     }
 
+    /**
+     * Spins (outside the monitor) while the buffer is in the given state, if the
+     * wait strategy asks for it.  This does not commit the caller to anything:
+     * on return, the normal (monitor) protocol is followed.
+     *
+     * @param blockedState the state (EMPTY or FULL) in which the caller would block.
+     */
+    private void spinWhile (int blockedState) {
+      if ((state == blockedState) && waitStrategy.spins ()) {
+        int i = 0;
+        while ((state == blockedState) && waitStrategy.idle (i)) {
+          i++;
+        }
+        if (state == blockedState) {
+          waitStrategy.recordBlock ();
+        } else {
+          waitStrategy.recordSpinSuccess ();
+        }
+      }
+    }
+
     /**
      * Reads an <TT>Object</TT> from the channel.
      *
      * @return the object read from the channel.
      */
     public Object read () {
+      spinWhile (ChannelDataStore.EMPTY);
       synchronized (rwMonitor) {
         if (data.getState () == ChannelDataStore.EMPTY) {
           try {
@@ -99,11 +140,44 @@ class BufferedOne2OneChannel implements One2OneChannel, ChannelInternals
           }
         }
         rwMonitor.notify ();
-        return data.get ();
+        final Object value = data.get ();
+        state = data.getState ();
+        return value;
+      }
+    }
+    
+    /**
+     * Reads up to <TT>max</TT> <TT>Object</TT>s from the channel, waiting only
+     * if the buffer is empty.  They are drained from the buffer in a single
+     * acquisition of the monitor.
+     *
+     * @param dst the array into which the objects are read.
+     * @param max the most objects to read.
+     * @return the number of objects read.
+     */
+    public int read (Object[] dst, int max) {
+      ChannelBatch.checkRead (dst, max);
+      spinWhile (ChannelDataStore.EMPTY);
+      synchronized (rwMonitor) {
+        try {
+          while (data.getState () == ChannelDataStore.EMPTY) {
+            rwMonitor.wait ();
+          }
+        }
+        catch (InterruptedException e) {
+          throw new ProcessInterruptedException (
+            "*** Thrown from One2OneChannel.read (Object[], int)\n" + e.toString ()
+          );
+        }
+        rwMonitor.notify ();
+        final int n = data.drainTo (dst, 0, max);
+        state = data.getState ();
+        return n;
       }
     }
     
     public Object startRead() {
+      spinWhile (ChannelDataStore.EMPTY);
       synchronized (rwMonitor) {
         if (data.getState () == ChannelDataStore.EMPTY) {
           try {
@@ -129,6 +203,7 @@ class BufferedOne2OneChannel implements One2OneChannel, ChannelInternals
     public void endRead() {
       synchronized(rwMonitor) {
         data.endGet();
+        state = data.getState ();
         rwMonitor.notify ();
       }
     }
@@ -141,11 +216,18 @@ class BufferedOne2OneChannel implements One2OneChannel, ChannelInternals
     public void write (Object value) {
       synchronized (rwMonitor) {
         data.put (value);
+        state = data.getState ();
         if (alt != null) {
           alt.schedule ();
         } else {
           rwMonitor.notify ();
         }
+        if (state != ChannelDataStore.FULL) {
+          return;
+        }
+      }
+      spinWhile (ChannelDataStore.FULL);
+      synchronized (rwMonitor) {
         if (data.getState () == ChannelDataStore.FULL) {
           try {
             rwMonitor.wait ();
@@ -165,6 +247,49 @@ class BufferedOne2OneChannel implements One2OneChannel, ChannelInternals
       }
     }
 
+    /**
+     * Writes a batch of <TT>Object</TT>s to the channel.  As many as fit are put
+     * into the buffer at each acquisition of the monitor, waking the reader once
+     * for each such group.  As with a single write, this only returns once the
+     * buffer is not full.
+     *
+     * @param items the objects to write to the channel.
+     * @param off the index in <TT>items</TT> of the first object to write.
+     * @param len the number of objects to write.
+     */
+    public void write (Object[] items, int off, int len) {
+      ChannelBatch.checkWrite (items, off, len);
+      if (len == 0) {
+        return;
+      }
+      synchronized (rwMonitor) {
+        try {
+          while (true) {
+            while (data.getState () == ChannelDataStore.FULL) {
+              rwMonitor.wait ();
+            }
+            if (len == 0) {
+              return;
+            }
+            final int n = data.putAll (items, off, len);
+            off += n;
+            len -= n;
+            state = data.getState ();
+            if (alt != null) {
+              alt.schedule ();
+            } else {
+              rwMonitor.notify ();
+            }
+          }
+        }
+        catch (InterruptedException e) {
+          throw new ProcessInterruptedException (
+            "*** Thrown from One2OneChannel.write (Object[], int, int)\n" + e.toString ()
+          );
+        }
+      }
+    }
+
     /**
      * turns on Alternative selection for the channel. Returns true if the
      * channel has data that can be read immediately.
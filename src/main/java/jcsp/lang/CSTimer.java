@@ -20,6 +20,8 @@
 
 package jcsp.lang;
 
+import java.util.concurrent.locks.LockSupport;
+
     /**
  * This is a {@link Guard} for setting timeouts in an {@link Alternative}.
  * <H2>Description</H2>
@@ -91,6 +93,36 @@ package jcsp.lang;
  * {@link Thread#sleep(long) <TT>java.lang.Thread.sleep</TT>}.
  * [<I>Note:</I> programming a regular sequence of events is a little easier using
  * {@link #after <TT>after</TT>} (as in the above) rather than {@link #sleep <TT>sleep</TT>}.]
+ * <H2>Nanosecond Timeouts</H2>
+ * The methods above work in milliseconds, on the <TT>System.currentTimeMillis</TT> clock.
+ * For finer timeouts, {@link #readNanos()}, {@link #setAlarmNanos(long)} and
+ * {@link #afterNanos(long)} work in nanoseconds, on the <TT>System.nanoTime</TT> clock
+ * (whose values are only meaningful relative to each other).  An alarm set with
+ * {@link #setAlarmNanos(long)} replaces any set with {@link #setAlarm(long)}, and
+ * vice-versa.  An {@link Alternative} waits for a nanosecond alarm by parking its
+ * process until the deadline, rather than with a millisecond <TT>wait</TT>.
+ * <P>
+ * Parking may overshoot by some tens of microseconds, depending on the operating
+ * system.  For deadlines that must be met more closely, {@link #setSpinNanos(long)}
+ * asks for the last part of each wait to be spent spinning instead.  This burns
+ * processor time, so should be kept short (no more than about <TT>100000</TT>).
+ * <H2>The Timing Wheel</H2>
+ * Normally, an {@link Alternative} waiting for a <TT>CSTimer</TT> guard does so with a
+ * timed <TT>wait</TT> on its own monitor.  With thousands of processes each waiting
+ * on a timeout (heartbeats, retries, ...), those timed waits are a significant load
+ * on the JVM and operating system.  A <TT>CSTimer</TT> may instead be asked (with
+ * {@link #setTimingWheel(boolean)}, or for all new timers with
+ * {@link #setTimingWheelDefault(boolean)}) to register its millisecond alarms with a
+ * single, shared, hierarchical <I>timing wheel</I>.  Its <TT>Alternative</TT> then
+ * waits without a timeout and is woken by the wheel's thread when the alarm expires;
+ * cancelling the alarm (when the guard is disabled) takes constant time.
+ * {@link #after(long)} and {@link #sleep(long)} use the wheel too.
+ * <P>
+ * The wheel has a tick of one millisecond, so alarms may fire up to a millisecond or
+ * so late.  On the other hand, its alarms never fire early, so the allowance that
+ * <TT>CSTimer</TT>s otherwise make for <TT>wait</TT>s that return early (treating an
+ * alarm due within a few milliseconds as already expired) is not needed.  Nanosecond
+ * alarms never use the wheel.
  *
  * @see Alternative
  * @see Guard
@@ -112,6 +144,63 @@ public class CSTimer extends Guard
      */
     private long msecs = 0;
 
+    /** The absolute timeout value, if set by {@link #setAlarmNanos(long)}. */
+    private long nanos = 0;
+
+    /** Whether the alarm was set by {@link #setAlarmNanos(long)}. */
+    private boolean nanoAlarm = false;
+
+    /** The length of the spin at the end of a nanosecond wait. */
+    private long spinNanos = 0;
+
+    /** Whether new timers use the timing wheel. */
+    private static volatile boolean timingWheelDefault = false;
+
+    /** This timer's alarm on the timing wheel, or null if it does not use the wheel. */
+    private TimingWheel.Entry wheelEntry;
+
+    /**
+     * Constructs a timer, which uses the timing wheel if that is the
+     * {@link #setTimingWheelDefault(boolean) default}.
+     */
+    public CSTimer()
+    {
+        setTimingWheel(timingWheelDefault);
+    }
+
+    /**
+     * Sets whether this timer's millisecond alarms are managed by the shared timing
+     * wheel (see the <I>Timing Wheel</I> section above).  This must not be changed
+     * while the timer is enabled by an <TT>Alternative</TT>.
+     *
+     * @param use whether to use the timing wheel.
+     */
+    public void setTimingWheel(final boolean use)
+    {
+        wheelEntry = use ? new TimingWheel.Entry() : null;
+    }
+
+    /**
+     * Returns whether this timer's millisecond alarms are managed by the shared timing wheel.
+     *
+     * @return whether this timer uses the timing wheel.
+     */
+    public boolean getTimingWheel()
+    {
+        return wheelEntry != null;
+    }
+
+    /**
+     * Sets whether timers constructed from now on use the shared timing wheel.
+     * Initially, they do not.
+     *
+     * @param use whether new timers use the timing wheel.
+     */
+    public static void setTimingWheelDefault(final boolean use)
+    {
+        timingWheelDefault = use;
+    }
+
     /**
      * Sets the absolute timeout value that will trigger an <TT>Alternative</TT>
      * <I>select</I> operation (when this <TT>CSTimer</TT> is one of the guards
@@ -122,6 +211,45 @@ public class CSTimer extends Guard
     public void setAlarm(final long msecs)
     {
         this.msecs = msecs;
+        nanoAlarm = false;
+    }
+
+    /**
+     * Sets the absolute timeout value, in nanoseconds on the
+     * {@link #readNanos()} clock, that will trigger an <TT>Alternative</TT>
+     * <I>select</I> operation (when this <TT>CSTimer</TT> is one of the guards
+     * with which that <TT>Alternative</TT> was constructed).
+     *
+     * @param nanos the absolute timeout value.
+     */
+    public void setAlarmNanos(final long nanos)
+    {
+        this.nanos = nanos;
+        nanoAlarm = true;
+    }
+
+    /**
+     * Returns the alarm value that has been set by the previous call to
+     * {@link #setAlarmNanos(long)}.
+     */
+    public long getAlarmNanos()
+    {
+        return nanos;
+    }
+
+    /**
+     * Sets how much of the end of each nanosecond wait (in {@link #afterNanos(long)}
+     * or in an <TT>Alternative</TT> waiting for this timer's alarm) is spent spinning,
+     * rather than parked.  The default is zero.
+     *
+     * @param spinNanos the length of the spin, in nanoseconds.
+     */
+    public void setSpinNanos(final long spinNanos)
+    {
+        if (spinNanos < 0)
+            throw new IllegalArgumentException
+                    ("*** Attempt to set a negative CSTimer spin: " + spinNanos + "\n");
+        this.spinNanos = spinNanos;
     }
 
     /**
@@ -146,6 +274,7 @@ public class CSTimer extends Guard
     public void set(final long msecs)
     {
         this.msecs = msecs;
+        nanoAlarm = false;
     }
 
     /**
@@ -158,6 +287,17 @@ public class CSTimer extends Guard
         return System.currentTimeMillis();
     }
 
+    /**
+     * Returns the current value of the nanosecond clock.  This is only
+     * meaningful relative to other values of the same clock.
+     *
+     * @return the current value of <TT>System.nanoTime</TT>.
+     */
+    public long readNanos()
+    {
+        return System.nanoTime();
+    }
+
     /**
      * Puts the process to sleep until an absolute time is reached.
      *
@@ -166,7 +306,9 @@ public class CSTimer extends Guard
     public void after(final long msecs)
     {
         final long delay = msecs - System.currentTimeMillis();
-        if (delay > 0)
+        if ((delay > 0) && (wheelEntry != null))
+            awaitWheel(msecs, "after");
+        else if (delay > 0)
             try
             {
                 Thread.sleep(delay);
@@ -178,6 +320,28 @@ public class CSTimer extends Guard
             }
     }
 
+    /**
+     * Puts the process to sleep until an absolute time on the nanosecond clock
+     * is reached.  The process parks until the deadline, spinning through the
+     * last {@link #setSpinNanos(long) spin} nanoseconds.
+     *
+     * @param nanos the absolute time awaited.  Note: if this time has already been reached, this returns straight away.
+     */
+    public void afterNanos(final long nanos)
+    {
+        long remaining;
+        while ((remaining = nanos - System.nanoTime()) > 0)
+        {
+            if (remaining > spinNanos)
+                LockSupport.parkNanos(this, remaining - spinNanos);
+            else
+                Thread.yield();
+            if (Thread.interrupted())
+                throw new ProcessInterruptedException
+                        ("*** Thrown from CSTimer.afterNanos (long)\n");
+        }
+    }
+
     /**
      * Puts the process to sleep for a specified time (milliseconds).
      *
@@ -185,7 +349,9 @@ public class CSTimer extends Guard
      */
     public void sleep(final long msecs)
     {
-        if (msecs > 0)
+        if ((msecs > 0) && (wheelEntry != null))
+            awaitWheel(System.currentTimeMillis() + msecs + 1, "sleep");  // (the clock may be about to tick)
+        else if (msecs > 0)
             try
             {
                 Thread.sleep(msecs);
@@ -197,12 +363,57 @@ public class CSTimer extends Guard
             }
     }
 
+    /**
+     * Parks the calling process until the timing wheel fires this timer's alarm
+     * at the absolute time <TT>msecs</TT>.
+     */
+    private void awaitWheel(final long msecs, final String method)
+    {
+        final TimingWheel wheel = TimingWheel.getInstance();
+        wheelEntry.alt = null;
+        wheelEntry.thread = Thread.currentThread();
+        wheel.add(wheelEntry, msecs);
+        try
+        {
+            while (!wheelEntry.fired)
+            {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                    throw new ProcessInterruptedException
+                            ("*** Thrown from CSTimer." + method + " (long)\n");
+            }
+        }
+        finally
+        {
+            wheel.cancel(wheelEntry);
+            wheelEntry.thread = null;
+        }
+    }
+
     /**
      * Enables this guard.
      *
      * @param alt the Alternative doing the enabling.
      */
     boolean enable (Alternative alt) {
+        if (nanoAlarm) {
+          if (nanos - System.nanoTime () <= 0) {
+            return true;
+          }
+          alt.setTimeoutNanos (nanos, spinNanos);
+          return false;
+        }
+        if (wheelEntry != null) {
+          // the wheel will schedule alt, which need not time its wait (so there
+          // is no early return to allow for)
+          if ((msecs - System.currentTimeMillis ()) <= 0) {
+            return true;
+          }
+          wheelEntry.alt = alt;
+          TimingWheel.getInstance ().add (wheelEntry, msecs);
+          alt.setWheelTimeout ();
+          return false;
+        }
         if ((msecs - System.currentTimeMillis ()) <= Spurious.earlyTimeout) {
           return true;
         } else {
@@ -215,6 +426,16 @@ public class CSTimer extends Guard
        * Disables this guard.
        */
       boolean disable () {
+        if (nanoAlarm) {
+          return (nanos - System.nanoTime () <= 0);
+        }
+        if (wheelEntry != null) {
+          if (wheelEntry.alt != null) {
+            TimingWheel.getInstance ().cancel (wheelEntry);
+            wheelEntry.alt = null;
+          }
+          return ((msecs - System.currentTimeMillis ()) <= 0);
+        }
         // final long now = System.currentTimeMillis ();
         // System.out.println ("*** CSTimer.disable: " + msecs + ", " + now);
         // return (msecs <= now);
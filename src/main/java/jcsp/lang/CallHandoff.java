@@ -0,0 +1,263 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is the synchronisation behind the <I>CALL</I> channels
+ * ({@link One2OneCallChannel}, {@link Any2OneCallChannel}, {@link One2AnyCallChannel}
+ * and {@link Any2AnyCallChannel}).
+ * <H2>Description</H2>
+ * A CALL has two synchronisations between the <I>client</I> and the <I>server</I>:
+ * the {@link #join()}, which waits for the server to {@link #accept()} and the
+ * {@link #fork()}, which releases the server when the client has made its call on it.
+ * Built from two channel communications, each of these is a full rendezvous - and
+ * so costs up to four wakeups per CALL.  But the fork need not be a rendezvous at all,
+ * since the server is certainly waiting for it:
+ * <UL>
+ *   <LI>if the server is already accepting when the client arrives, the client just
+ *     claims it and carries on, leaving it asleep;</LI>
+ *   <LI>otherwise the client queues (in order of arrival) and sleeps until a server
+ *     accepts it;</LI>
+ *   <LI>the fork just marks the call complete and wakes the server -
+ *     the client does not wait.</LI>
+ * </UL>
+ * So a client blocks (at most) once per CALL and the server is woken once.
+ * <P>
+ * The server may {@link Alternative <TT>ALT</TT>} on a waiting client.
+ * There must only be one server at a time (the shared CALL channels ensure this
+ * by <TT>synchronized</TT> accepts).
+ *
+ * @author Kevin Chalmers
+ */
+
+final class CallHandoff
+{
+    /** Guards the fields below (but only briefly - no one waits holding it) */
+    private final Object monitor = new Object();
+
+    /** The server, while it is waiting in <TT>accept</TT> for a client */
+    private Thread accepting;
+
+    /** Clients waiting (in order of arrival) for a server */
+    private Caller head, tail;
+
+    /** The Alternative of an ALTing server */
+    private Alternative alt;
+
+    /** The thread of the server in the current call */
+    private volatile Thread server;
+
+    /** Set by the client's fork */
+    private volatile boolean complete;
+
+    /**
+     * Accepts a call: waits for a client to join and then for it to fork.
+     * This is invoked by the server.
+     */
+    void accept()
+    {
+        final Thread me = Thread.currentThread();
+        server = me;
+        boolean claimed = false;
+        synchronized (monitor)
+        {
+            if (head != null)
+            {
+                final Caller caller = head;
+                head = caller.next;
+                if (head == null)
+                {
+                    tail = null;
+                }
+                caller.granted = true;
+                LockSupport.unpark(caller.thread);
+                claimed = true;
+            }
+            else
+            {
+                accepting = me;
+            }
+        }
+        boolean interrupted = false;
+        while (!complete)
+        {
+            LockSupport.park(this);
+            if (Thread.interrupted())
+            {
+                if (!claimed)
+                {
+                    synchronized (monitor)
+                    {
+                        if (accepting == me)
+                        {
+                            accepting = null;     // no client yet -- back out
+                            throw new ProcessInterruptedException(
+                                "*** Thrown from CallChannel.accept ()\n"
+                            );
+                        }
+                    }
+                    claimed = true;
+                }
+                interrupted = true;               // in a call -- finish it
+            }
+        }
+        complete = false;
+        if (interrupted)
+        {
+            me.interrupt();
+        }
+    }
+
+    /**
+     * Joins a server: claims it if it is waiting in <TT>accept</TT> or waits for it.
+     * This is invoked by a client.
+     */
+    void join()
+    {
+        final Caller caller;
+        synchronized (monitor)
+        {
+            if (accepting != null)
+            {
+                accepting = null;                 // the server sleeps on until the fork
+                return;
+            }
+            caller = new Caller();
+            if (tail == null)
+            {
+                head = caller;
+            }
+            else
+            {
+                tail.next = caller;
+            }
+            tail = caller;
+            if (alt != null)
+            {
+                alt.schedule();
+            }
+        }
+        while (!caller.granted)
+        {
+            LockSupport.park(this);
+            if (Thread.interrupted())
+            {
+                synchronized (monitor)
+                {
+                    if (!caller.granted)
+                    {
+                        remove(caller);
+                        throw new ProcessInterruptedException(
+                            "*** Thrown from CallChannel.join ()\n"
+                        );
+                    }
+                }
+                Thread.currentThread().interrupt();   // accepted -- make the call
+            }
+        }
+    }
+
+    /**
+     * Completes a call, releasing the server.  This is invoked by the client
+     * and does not block.
+     */
+    void fork()
+    {
+        final Thread s = server;
+        complete = true;
+        LockSupport.unpark(s);
+    }
+
+    /**
+     * Removes <TT>caller</TT> from the queue.  This must be called holding <TT>monitor</TT>.
+     */
+    private void remove(final Caller caller)
+    {
+        Caller prev = null;
+        for (Caller c = head; c != null; prev = c, c = c.next)
+        {
+            if (c == caller)
+            {
+                if (prev == null)
+                {
+                    head = c.next;
+                }
+                else
+                {
+                    prev.next = c.next;
+                }
+                if (tail == c)
+                {
+                    tail = prev;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Turns on Alternative selection.  Returns true if a client is waiting.
+     *
+     * @param alt the Alternative class which will control the selection.
+     * @return true if a client is waiting, else false.
+     */
+    boolean enable(Alternative alt)
+    {
+        synchronized (monitor)
+        {
+            if (head != null)
+            {
+                return true;
+            }
+            this.alt = alt;
+            return false;
+        }
+    }
+
+    /**
+     * Turns off Alternative selection.  Returns true if a client is waiting.
+     *
+     * @return true if a client is waiting, else false.
+     */
+    boolean disable()
+    {
+        synchronized (monitor)
+        {
+            alt = null;
+            return head != null;
+        }
+    }
+
+    /**
+     * A client waiting for a server.
+     */
+    private static final class Caller
+    {
+        final Thread thread = Thread.currentThread();
+
+        /** Set when a server has accepted this client */
+        volatile boolean granted;
+
+        /** The next in the queue */
+        Caller next;
+    }
+}
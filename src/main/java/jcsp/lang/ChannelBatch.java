@@ -0,0 +1,115 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+/**
+ * This holds the argument checks and the item-by-item implementations of the
+ * batch operations {@link ChannelOutput#write(Object[], int, int)} and
+ * {@link ChannelInput#read(Object[], int)}.
+ * <H2>Description</H2>
+ * Buffered channels implement the batch operations with a single acquisition of
+ * their lock, through {@link jcsp.util.ChannelDataStore#putAll putAll} and
+ * {@link jcsp.util.ChannelDataStore#drainTo drainTo}.  A zero-buffered channel has
+ * no such shortcut: every item needs its own rendezvous, so it falls back to the
+ * methods here.
+ *
+ * @author Kevin Chalmers
+ */
+
+final class ChannelBatch
+{
+    private ChannelBatch () {
+    }
+
+    /**
+     * Checks the arguments of a batch write.
+     */
+    static void checkWrite (final Object[] items, final int off, final int len) {
+      if ((off < 0) || (len < 0) || (off > items.length - len)) {
+        throw new IndexOutOfBoundsException (
+          "*** Batch write of " + len + " items from offset " + off +
+          " of an array of length " + items.length + "\n"
+        );
+      }
+    }
+
+    /**
+     * Checks the arguments of a batch read.
+     */
+    static void checkRead (final Object[] dst, final int max) {
+      if ((max < 1) || (max > dst.length)) {
+        throw new IllegalArgumentException (
+          "*** Batch read of up to " + max + " items into an array of length " +
+          dst.length + "\n"
+        );
+      }
+    }
+
+    /**
+     * Writes the items one at a time.
+     */
+    static void writeEach (final ChannelInternals channel,
+                           final Object[] items, final int off, final int len) {
+      checkWrite (items, off, len);
+      for (int i = off; i < off + len; i++) {
+        channel.write (items[i]);
+      }
+    }
+
+    /**
+     * Reads one item (blocking if necessary), then more while a writer is waiting.
+     * If the channel is poisoned part way, the items already read are returned --
+     * the poison will be reported by the next read.
+     */
+    static int readPending (final ChannelInternals channel, final Object[] dst, final int max) {
+      checkRead (dst, max);
+      dst[0] = channel.read ();
+      int n = 1;
+      try {
+        while ((n < max) && channel.readerPending ()) {
+          dst[n] = channel.read ();
+          n++;
+        }
+      }
+      catch (PoisonException e) {
+      }
+      return n;
+    }
+
+    /**
+     * Reads one item (blocking if necessary), then more while
+     * <TT>in</TT> is {@link AltingChannelInput#pending() pending}.
+     */
+    static int readPending (final AltingChannelInput in, final Object[] dst, final int max) {
+      checkRead (dst, max);
+      dst[0] = in.read ();
+      int n = 1;
+      try {
+        while ((n < max) && in.pending ()) {
+          dst[n] = in.read ();
+          n++;
+        }
+      }
+      catch (PoisonException e) {
+      }
+      return n;
+    }
+}
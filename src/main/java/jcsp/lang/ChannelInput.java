@@ -116,6 +116,22 @@ public interface ChannelInput extends Poisonable
      * @return the object read from the channel
      */
     public Object read();
+
+    /**
+     * Read a batch of Objects from the channel: <I>drain-up-to</I> <TT>max</TT>.
+     * <P>
+     * This blocks (like {@link #read <code>read</code>}) until at least one Object is
+     * available, then reads into <TT>dst[0]</TT>, <TT>dst[1]</TT>, ... as many more as are
+     * available without further blocking, up to <TT>max</TT>.  On a buffered channel, they
+     * are taken from the buffer under a single acquisition of the channel's lock.  On a
+     * zero-buffered channel, each needs its own rendezvous (the batch is ended as soon as no
+     * writer is waiting).
+     *
+     * @param dst the array into which the objects are read.
+     * @param max the most objects to read (at least 1, at most <TT>dst.length</TT>).
+     * @return the number of objects read (at least 1).
+     */
+    public int read(Object[] dst, int max);
     
     /**
      * Begin an extended rendezvous read from the channel.
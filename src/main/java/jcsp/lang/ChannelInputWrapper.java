@@ -56,6 +56,19 @@ public class ChannelInputWrapper implements ChannelInput
     {
         return in.read();
     }
+
+    /**
+     * Reads a batch of values from the channel.
+     *
+     * @see ChannelInput
+     * @param dst the array into which the values are read.
+     * @param max the most values to read.
+     * @return the number of values read.
+     */
+    public int read(Object[] dst, int max)
+    {
+        return in.read(dst, max);
+    }
     
     /**
      * Begins an extended rendezvous
@@ -25,6 +25,9 @@ package jcsp.lang;
 	public Object read();
 	public void write(Object obj);
 	
+	public int read(Object[] dst, int max);
+	public void write(Object[] items, int off, int len);
+	
 	public Object startRead();
 	public void endRead();
 	
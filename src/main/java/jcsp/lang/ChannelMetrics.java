@@ -0,0 +1,348 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * This holds the counters of one channel built by an {@link InstrumentedChannelFactory}
+ * or {@link InstrumentedChannelIntFactory}.
+ * <H2>Description</H2>
+ * The counters are updated as the channel is used:
+ * <UL>
+ *   <LI>the number of messages written and read;</LI>
+ *   <LI>the total time writers and readers spent inside <TT>write</TT> and <TT>read</TT>
+ *     - i.e. blocked waiting for the other side (or, for shared channels, for each other).
+ *     To keep the cost of reading the clock down, this is estimated by timing one
+ *     operation in {@link #SAMPLE_PERIOD} and scaling up;</LI>
+ *   <LI>the number of times an {@link Alternative} of the reader was woken by this channel
+ *     (having found it not ready when enabling it);</LI>
+ *   <LI>for buffered channels, the highest number of messages held by the buffer.
+ *     This is taken on the timed writes (and on every batch write), so it may miss
+ *     a peak that comes and goes between them.</LI>
+ * </UL>
+ * The live counters of a channel are found through the {@link ChannelRegistry}, which
+ * can also {@link ChannelRegistry#snapshot() snapshot} all of them at once.
+ * A {@link #snapshot()} is a copy that no longer changes.
+ * <P>
+ * The counters are read without locking the channel, so a reading taken while the
+ * channel is in use may be mid-communication (e.g. one more write than reads).
+ * The high-water mark may likewise overstate the buffer occupancy by one.
+ * <P>
+ * The counters of each end are kept apart (on their own cache lines), so the reader
+ * and writer of a channel do not slow each other down by updating them.  An end used
+ * by only one process at a time is counted with an ordered store rather than an
+ * atomic increment.
+ *
+ * @see InstrumentedChannelFactory
+ * @see ChannelRegistry
+ *
+ * @author Kevin Chalmers
+ */
+
+public final class ChannelMetrics
+{
+    /**
+     * One in this many reads (and writes) is timed for the blocked times.
+     */
+    public static final int SAMPLE_PERIOD = 16;
+
+    /** For choosing the operations to time (<TT>SAMPLE_PERIOD</TT> is a power of two) */
+    static final int SAMPLE_MASK = SAMPLE_PERIOD - 1;
+
+    private final String name;
+
+    private final String kind;
+
+    private final boolean buffered;
+
+    /** The counters of the reading end */
+    final End reading;
+
+    /** The counters of the writing end */
+    final End writing;
+
+    private final AtomicLong altWakeups;
+
+    private final AtomicLong highWater;
+
+    ChannelMetrics(final String name, final String kind, final boolean buffered)
+    {
+        this.name = name;
+        this.kind = kind;
+        this.buffered = buffered;
+        reading = new End(kind.indexOf("2Any") >= 0);
+        writing = new End(kind.startsWith("Any"));
+        altWakeups = new AtomicLong();
+        highWater = new AtomicLong();
+    }
+
+    private ChannelMetrics(final ChannelMetrics m)
+    {
+        this.name = m.name;
+        this.kind = m.kind;
+        this.buffered = m.buffered;
+        highWater = new AtomicLong(m.highWater.get());
+        altWakeups = new AtomicLong(m.altWakeups.get());
+        reading = new End(m.reading);
+        writing = new End(m.writing);
+    }
+
+    /**
+     * Records <TT>n</TT> messages written, taking <TT>nanos</TT> in all, and takes
+     * the high-water mark.
+     */
+    void recordWrite(final int n, final long nanos)
+    {
+        writing.record(n, nanos);
+        if (buffered)
+        {
+            final long held = writing.count - reading.count;
+            long h;
+            while (held > (h = highWater.get()))
+            {
+                if (highWater.compareAndSet(h, held))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the reader's Alternative being woken by the channel.
+     */
+    void recordAltWakeup()
+    {
+        altWakeups.incrementAndGet();
+    }
+
+    /**
+     * Returns a copy of the counters as they are now.
+     *
+     * @return the copy.
+     */
+    public ChannelMetrics snapshot()
+    {
+        return new ChannelMetrics(this);
+    }
+
+    /**
+     * Returns the name of the channel.
+     *
+     * @return the name.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the kind of the channel (e.g. <TT>"Any2One"</TT> or <TT>"One2OneInt"</TT>).
+     *
+     * @return the kind.
+     */
+    public String getKind()
+    {
+        return kind;
+    }
+
+    /**
+     * Returns whether the channel is buffered.
+     *
+     * @return true if the channel is buffered.
+     */
+    public boolean isBuffered()
+    {
+        return buffered;
+    }
+
+    /**
+     * Returns the number of messages written.
+     *
+     * @return the count.
+     */
+    public long getWrites()
+    {
+        return writing.count;
+    }
+
+    /**
+     * Returns the number of messages read.
+     *
+     * @return the count.
+     */
+    public long getReads()
+    {
+        return reading.count;
+    }
+
+    /**
+     * Returns the (estimated) total time spent by writers in <TT>write</TT>, in nanoseconds.
+     *
+     * @return the time.
+     */
+    public long getWriterBlockedNanos()
+    {
+        return writing.blocked;
+    }
+
+    /**
+     * Returns the (estimated) total time spent by readers in <TT>read</TT>, in nanoseconds.
+     * This does not include time spent waiting in an {@link Alternative}.
+     *
+     * @return the time.
+     */
+    public long getReaderBlockedNanos()
+    {
+        return reading.blocked;
+    }
+
+    /**
+     * Returns the number of times the reader's {@link Alternative} was woken by the channel.
+     *
+     * @return the count.
+     */
+    public long getAltWakeups()
+    {
+        return altWakeups.get();
+    }
+
+    /**
+     * Returns the highest number of messages held in the buffer (zero for an
+     * unbuffered channel).
+     *
+     * @return the high-water mark.
+     */
+    public long getHighWaterMark()
+    {
+        return highWater.get();
+    }
+
+    public String toString()
+    {
+        return name + " (" + kind + (buffered ? ", buffered" : "") + "): writes " +
+               getWrites() + ", reads " + getReads() + ", writer blocked " +
+               getWriterBlockedNanos()/1000 + " us, reader blocked " +
+               getReaderBlockedNanos()/1000 + " us, ALT wakeups " + getAltWakeups() +
+               (buffered ? ", high-water " + getHighWaterMark() : "");
+    }
+
+    /**
+     * The counters of one end of a channel, and the processes using it for the
+     * {@link DeadlockDetector}.
+     */
+    static final class End
+    {
+        private static final AtomicLongFieldUpdater countUpdater =
+            AtomicLongFieldUpdater.newUpdater(End.class, "count");
+
+        private static final AtomicLongFieldUpdater blockedUpdater =
+            AtomicLongFieldUpdater.newUpdater(End.class, "blocked");
+
+        long p1, p2, p3, p4, p5, p6, p7;
+
+        /** The number of messages */
+        volatile long count = 0;
+
+        /** The (estimated) time spent blocked, in nanoseconds */
+        volatile long blocked = 0;
+
+        /**
+         * The process blocked at this end (or <TT>ALT</TT>ing on the reading end),
+         * and the last process to use it.  These are written without synchronisation -
+         * the detector only needs a picture of processes that have stayed blocked.
+         */
+        Thread at, last;
+
+        /** The <TT>Alternative</TT> the process at the reading end is waiting in, or null */
+        Alternative alt;
+
+        /** Counts operations, to choose those to time */
+        int tick = 0;
+
+        /** Whether more than one process may use this end at once */
+        private final boolean shared;
+
+        long q1, q2, q3, q4, q5, q6, q7;
+
+        End(final boolean shared)
+        {
+            this.shared = shared;
+        }
+
+        End(final End e)
+        {
+            this.shared = e.shared;
+            this.count = e.count;
+            this.blocked = e.blocked;
+        }
+
+        /**
+         * Records that the current process is at this end, returning it.
+         */
+        Thread start()
+        {
+            final Thread me = Thread.currentThread();
+            at = me;
+            if (last != me)
+            {
+                last = me;
+            }
+            return me;
+        }
+
+        /**
+         * Records that process <TT>me</TT> has left this end.
+         */
+        void stop(final Thread me)
+        {
+            if (at == me)
+            {
+                at = null;
+            }
+        }
+
+        /**
+         * Records <TT>n</TT> messages.
+         */
+        void add(final int n)
+        {
+            if (shared)
+            {
+                countUpdater.addAndGet(this, n);
+            }
+            else
+            {
+                countUpdater.lazySet(this, count + n);
+            }
+        }
+
+        /**
+         * Records <TT>n</TT> messages, taking <TT>nanos</TT> in all.
+         */
+        void record(final int n, final long nanos)
+        {
+            add(n);
+            blockedUpdater.addAndGet(this, nanos);
+        }
+    }
+}
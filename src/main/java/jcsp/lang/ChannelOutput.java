@@ -73,4 +73,19 @@ public interface ChannelOutput extends Poisonable
      * @param object the object to write to the channel
      */
     public void write(Object object);
+
+    /**
+     * Write a batch of Objects to the channel, in order.
+     * <P>
+     * The effect is that of writing <TT>items[off]</TT> to <TT>items[off + len - 1]</TT>
+     * one after the other.  On a buffered channel, however, as many of them as fit are
+     * put into the buffer under a single acquisition of the channel's lock (and the reader
+     * is woken at most once for them), so that synchronisation is paid per batch rather than
+     * per item.  On a zero-buffered channel, each item still needs its own rendezvous.
+     *
+     * @param items the objects to write to the channel.
+     * @param off the index in <TT>items</TT> of the first object to write.
+     * @param len the number of objects to write.
+     */
+    public void write(Object[] items, int off, int len);
 }
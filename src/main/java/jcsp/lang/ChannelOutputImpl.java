@@ -31,8 +31,26 @@ package jcsp.lang;
 	}
 
 	public void write(Object object) {
-		channel.write(object);
+		final Object e = Events.events.beginWrite();
+		try {
+			channel.write(object);
+		} finally {
+			if (e != null) {
+				Events.events.end(e, channel);
+			}
+		}
+
+	}
 
+	public void write(Object[] items, int off, int len) {
+		final Object e = Events.events.beginWrite();
+		try {
+			channel.write(items, off, len);
+		} finally {
+			if (e != null) {
+				Events.events.end(e, channel);
+			}
+		}
 	}
 
 	public void poison(int strength) {
@@ -41,4 +59,8 @@ package jcsp.lang;
 		}
 	}
 
+	ChannelInternals getChannel() {
+		return channel;
+	}
+
 }
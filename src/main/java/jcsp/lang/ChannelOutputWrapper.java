@@ -56,6 +56,19 @@ public class ChannelOutputWrapper implements ChannelOutput
     {
         out.write(o);
     }
+
+    /**
+     * Writes a batch of values to the channel.
+     *
+     * @param items the values to write.
+     * @param off the index in <TT>items</TT> of the first value to write.
+     * @param len the number of values to write.
+     * @see ChannelOutput
+     */
+    public void write(Object[] items, int off, int len)
+    {
+        out.write(items, off, len);
+    }
     
     public void poison(int strength) 
 	{
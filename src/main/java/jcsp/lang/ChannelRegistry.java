@@ -0,0 +1,185 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * This is the (static) register of the {@link ChannelMetrics} of all channels built by
+ * an {@link InstrumentedChannelFactory} or {@link InstrumentedChannelIntFactory}.
+ * <H2>Description</H2>
+ * Each instrumented channel is registered, under its name, when it is built and
+ * stays registered for as long as either of its ends (or the channel object) is
+ * reachable - the register does not keep channels alive.
+ * <P>
+ * Instrumentation is switched on by default, but may be switched off with
+ * {@link #setEnabled(boolean)} (or by starting the JVM with
+ * <TT>-Djcsp.channelMetrics=false</TT>).  While it is off, the instrumented factories
+ * build ordinary, uninstrumented channels - so there is no cost at all to leaving
+ * them in place.  Switching it off does not affect channels already built.
+ * <P>
+ * For example, to print the counters of every channel in the system:
+ * <PRE>
+ *   ChannelMetrics[] metrics = ChannelRegistry.snapshot ();
+ *   for (int i = 0; i < metrics.length; i++) {
+ *     System.out.println (metrics[i]);
+ *   }
+ * </PRE>
+ *
+ * @see InstrumentedChannelFactory
+ * @see ChannelMetrics
+ *
+ * @author Kevin Chalmers
+ */
+
+public class ChannelRegistry
+{
+    private static volatile boolean enabled =
+        !"false".equals(System.getProperty("jcsp.channelMetrics"));
+
+    /** The metrics of each registered channel, keyed by the channel's internals */
+    private static final Map registry = new WeakHashMap();
+
+    /** For naming unnamed channels */
+    private static int count = 0;
+
+    private static final Comparator byName = new Comparator()
+    {
+        public int compare(final Object a, final Object b)
+        {
+            return ((ChannelMetrics) a).getName().compareTo(((ChannelMetrics) b).getName());
+        }
+    };
+
+    private ChannelRegistry()
+    {
+    }
+
+    /**
+     * Switches instrumentation of new channels on or off.
+     *
+     * @param enabled true to instrument channels built from now on.
+     */
+    public static void setEnabled(final boolean enabled)
+    {
+        ChannelRegistry.enabled = enabled;
+    }
+
+    /**
+     * Returns whether new channels are being instrumented.
+     *
+     * @return true if instrumentation is on.
+     */
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Returns a {@link ChannelMetrics#snapshot() snapshot} of the metrics of every
+     * registered channel, in order of name.
+     *
+     * @return the snapshots.
+     */
+    public static ChannelMetrics[] snapshot()
+    {
+        final List list = new ArrayList();
+        synchronized (registry)
+        {
+            for (Iterator i = registry.values().iterator(); i.hasNext(); )
+            {
+                list.add(((ChannelMetrics) i.next()).snapshot());
+            }
+        }
+        final ChannelMetrics[] metrics = (ChannelMetrics[]) list.toArray(new ChannelMetrics[list.size()]);
+        Arrays.sort(metrics, byName);
+        return metrics;
+    }
+
+    /**
+     * Returns the live metrics of a registered channel.  If more than one channel has
+     * been given the name, any one of them is returned.
+     *
+     * @param name the name of the channel.
+     * @return the metrics, or null if there is no such channel.
+     */
+    public static ChannelMetrics get(final String name)
+    {
+        synchronized (registry)
+        {
+            for (Iterator i = registry.values().iterator(); i.hasNext(); )
+            {
+                final ChannelMetrics m = (ChannelMetrics) i.next();
+                if (m.getName().equals(name))
+                {
+                    return m;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the live metrics of every registered channel.
+     */
+    static ChannelMetrics[] channels()
+    {
+        synchronized (registry)
+        {
+            return (ChannelMetrics[]) registry.values().toArray(new ChannelMetrics[registry.size()]);
+        }
+    }
+
+    /**
+     * Returns the number of registered channels.
+     *
+     * @return the number of channels.
+     */
+    public static int size()
+    {
+        synchronized (registry)
+        {
+            return registry.size();
+        }
+    }
+
+    /**
+     * Registers the metrics of a channel for as long as <TT>channel</TT> is reachable.
+     * A null <TT>name</TT> is replaced by one made from the <TT>kind</TT> of channel.
+     */
+    static ChannelMetrics register(final Object channel, final String name, final String kind,
+                                   final boolean buffered)
+    {
+        synchronized (registry)
+        {
+            final ChannelMetrics m = new ChannelMetrics(
+                (name == null) ? kind + "-" + (++count) : name, kind, buffered
+            );
+            registry.put(channel, m);
+            return m;
+        }
+    }
+}
@@ -401,6 +401,12 @@ package jcsp.lang;
  * and can lead to infinite starvation.  This is a problem for <I>any</I> Java system
  * relying on good behaviour from <TT>synchronized</TT>, not just for JCSP's
  * <I>any-1</I> channels or <TT>Crew</TT> locks.
+ * <P>
+ * Where the round trip to the <TT>CrewServer</TT> on every access is too costly,
+ * {@link OptimisticCrew} offers the same methods (and the same order of service)
+ * with a lock-free path for readers.
+ *
+ * @see OptimisticCrew
  *
  * @author P.H. Welch
  */
@@ -440,6 +446,23 @@ public class Crew
         this.shared = shared;
     }
 
+    /**
+     * Construct a lock that does not spawn a <TT>CrewServer</TT> (for subclasses,
+     * such as {@link OptimisticCrew}, that implement the protocol themselves and
+     * override all the access methods and {@link #finalize()}).
+     *
+     * @param shared the shared resource for which this lock is to be used.
+     * @param serve false.
+     */
+    Crew(Object shared, boolean serve)
+    {
+        if (serve)
+        {
+            manager.start();
+        }
+        this.shared = shared;
+    }
+
     /**
      * Finalize method added to terminate the process that it spawned. The spawned process holds no references
      * to this object so this object will eventually fall out of scope and gets finalized.
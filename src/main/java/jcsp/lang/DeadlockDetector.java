@@ -0,0 +1,413 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This finds processes that are deadlocked, or starved, on channels.
+ * <H2>Description</H2>
+ * The detector works from the channels built by an {@link InstrumentedChannelFactory}
+ * or {@link InstrumentedChannelIntFactory}, which record the process blocked at each
+ * end (or <TT>ALT</TT>ing on it) and the process that last used each end.  From these
+ * it builds a <I>wait-for</I> graph: a process blocked reading a channel waits for the
+ * last process to write it, and vice versa.  A blocked process can make progress if any
+ * process it waits for can (an <TT>ALT</TT>ing process waits for all its channels'
+ * writers, but needs only one of them).  The processes left that cannot are reported:
+ * <UL>
+ *   <LI>as <I>deadlocked</I>, if they wait (directly or not) on a cycle of blocked
+ *     processes;</LI>
+ *   <LI>as <I>starved</I>, if the other end of their channel has never been used or its
+ *     last user has terminated.</LI>
+ * </UL>
+ * (Pooled threads are reused, so a last user whose thread has gone on to run another
+ * process is not known to have terminated: its channel partners are not reported.)
+ * For example:
+ * <PRE>
+ * *** jcsp.lang.DeadlockDetector: 2 processes deadlocked
+ *   Producer blocked writing "results" (last read by Consumer)
+ *   Consumer blocked reading "requests" (last written by Producer)
+ * </PRE>
+ * Only the last process to use each end is recorded, so a process waiting on a
+ * <I>shared</I> end (the writing end of an <I>any-one</I> channel, say, for its reader)
+ * might be served by some other process that uses it: such a process is taken to be
+ * able to make progress, and so is never reported.
+ * Processes blocked on other things (barriers, <I>CALL</I> channels, uninstrumented
+ * channels) are not in the graph.  But if <I>every</I> process run by {@link Parallel}
+ * and {@link ProcessManager} stays blocked, the detector reports a <I>stall</I>, listing
+ * them all with what they are blocked on (as found by the {@link ProcessInspector}).
+ * <P>
+ * {@link #start(long, PrintStream)} checks periodically, reporting only what has
+ * stayed stuck for a whole period (so processes that are merely in the middle of
+ * communicating are not reported); {@link #check()} looks once, now.
+ * Nothing is recorded while processes run beyond what the instrumented channels
+ * already do (a few field writes per communication).
+ * <P>
+ * A process with a timeout in its <TT>ALT</TT> is not counted as blocked (even if its
+ * timer uses the {@link CSTimer#setTimingWheel(boolean) timing wheel}, so that it
+ * waits without a timeout of its own).  One that
+ * <TT>ALT</TT>s over an instrumented channel and something not in the graph (e.g. a
+ * barrier) is judged on the channel alone, so may be wrongly reported as stuck.
+ *
+ * @see InstrumentedChannelFactory
+ * @see ProcessInspector
+ *
+ * @author Kevin Chalmers
+ */
+
+public class DeadlockDetector
+{
+    /** The running detector (or null) */
+    private static Thread detector = null;
+
+    private DeadlockDetector()
+    {
+    }
+
+    /**
+     * Starts checking, every <TT>period</TT> milliseconds, for processes that have been
+     * deadlocked or starved throughout the period, and for stalls.  Each is reported once.
+     * Any detector already running is stopped.
+     *
+     * @param period the checking period in milliseconds.
+     * @param out where to report.
+     */
+    public static synchronized void start(final long period, final PrintStream out)
+    {
+        if (period <= 0)
+            throw new IllegalArgumentException(
+                "*** Attempt to start a DeadlockDetector with a period of " + period + "\n"
+            );
+        stop();
+        detector = new Thread("jcsp.lang.DeadlockDetector")
+        {
+            public void run()
+            {
+                Map previous = new HashMap();
+                Set reported = new HashSet();
+                boolean stalled = false;
+                boolean stallReported = false;
+                try
+                {
+                    while (true)
+                    {
+                        Thread.sleep(period);
+                        final Map stuck = findStuck();
+                        final List confirmed = new ArrayList();
+                        for (Iterator i = stuck.values().iterator(); i.hasNext(); )
+                        {
+                            final Blocked b = (Blocked) i.next();
+                            final Blocked before = (Blocked) previous.get(b.thread);
+                            if ((before != null) && before.signature.equals(b.signature) &&
+                                !reported.contains(b.signature))
+                                confirmed.add(b);
+                        }
+                        reported.retainAll(signatures(stuck));
+                        if (!confirmed.isEmpty())
+                        {
+                            out.print(report(confirmed));
+                            out.flush();
+                            reported.addAll(signatures(confirmed));
+                        }
+                        previous = stuck;
+
+                        final String stall = stall();
+                        if ((stall != null) && stalled && !stallReported)
+                        {
+                            out.print(stall);
+                            out.flush();
+                            stallReported = true;
+                        }
+                        stalled = (stall != null);
+                        if (!stalled)
+                            stallReported = false;
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // stopped
+                }
+            }
+        };
+        detector.setDaemon(true);
+        detector.start();
+    }
+
+    /**
+     * Stops the detector started by {@link #start(long, PrintStream)}, if any.
+     */
+    public static synchronized void stop()
+    {
+        if (detector != null)
+        {
+            detector.interrupt();
+            detector = null;
+        }
+    }
+
+    /**
+     * Looks, now, for deadlocked or starved processes and for a stall.  Since this looks
+     * only once, processes in the middle of communicating may be reported.
+     *
+     * @return the report, or null if nothing is stuck.
+     */
+    public static String check()
+    {
+        final Map stuck = findStuck();
+        final String stall = stall();
+        if (stuck.isEmpty())
+            return stall;
+        final String report = report(new ArrayList(stuck.values()));
+        return (stall == null) ? report : report + stall;
+    }
+
+    /**
+     * Returns the processes blocked on instrumented channels that cannot make progress,
+     * keyed by thread.
+     */
+    private static Map findStuck()
+    {
+        // who is waiting on what
+        final ChannelMetrics[] channels = ChannelRegistry.channels();
+        final Map blocked = new HashMap();
+        final Set served = new HashSet();      // on a shared end (so may be served), or timing out
+        for (int i = 0; i < channels.length; i++)
+        {
+            final ChannelMetrics m = channels[i];
+            final Thread reader = m.reading.at;
+            final Thread writer = m.writing.at;
+            final String kind = m.getKind();
+            final Alternative alt = m.reading.alt;
+            if ((reader != null) && (writer == null))
+            {
+                if (kind.startsWith("Any") || ((alt != null) && alt.isTiming()))
+                    served.add(reader);
+                else
+                    wait(blocked, reader, m, true, m.writing.last);
+            }
+            else if ((writer != null) && (reader == null))
+            {
+                if (kind.endsWith("Any"))
+                    served.add(writer);
+                else
+                    wait(blocked, writer, m, false, m.reading.last);
+            }
+        }
+        blocked.keySet().removeAll(served);
+        for (Iterator i = blocked.keySet().iterator(); i.hasNext(); )
+        {
+            final Thread.State state = ((Thread) i.next()).getState();
+            if ((state != Thread.State.WAITING) && (state != Thread.State.BLOCKED))
+                i.remove();             // running, or waiting with a timeout
+        }
+
+        // take out those waiting for someone that can make progress, until none are left
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (Iterator i = blocked.values().iterator(); i.hasNext(); )
+            {
+                final Blocked b = (Blocked) i.next();
+                for (int j = 0; j < b.peers.size(); j++)
+                {
+                    final Thread peer = (Thread) b.peers.get(j);
+                    if (!gone(peer) && !blocked.containsKey(peer))
+                    {
+                        i.remove();
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+        for (Iterator i = blocked.values().iterator(); i.hasNext(); )
+            ((Blocked) i.next()).sign();
+        return blocked;
+    }
+
+    /**
+     * Records <TT>thread</TT> waiting at one end of channel <TT>m</TT> for <TT>peer</TT>.
+     */
+    private static void wait(final Map blocked, final Thread thread, final ChannelMetrics m,
+                             final boolean reading, final Thread peer)
+    {
+        Blocked b = (Blocked) blocked.get(thread);
+        if (b == null)
+        {
+            b = new Blocked(thread);
+            blocked.put(thread, b);
+        }
+        b.channels.add(m);
+        b.reading.add(Boolean.valueOf(reading));
+        b.peers.add(peer);
+    }
+
+    /**
+     * Returns whether <TT>peer</TT> will never use the channel again: there is none, or its
+     * process has terminated (a pooled thread that ran it may be idle, or running another).
+     */
+    private static boolean gone(final Thread peer)
+    {
+        return (peer == null) || !peer.isAlive() ||
+               ((peer instanceof ParThread) && ((ParThread) peer).isIdle());
+    }
+
+    private static Set signatures(final Map stuck)
+    {
+        return signatures(stuck.values());
+    }
+
+    private static Set signatures(final java.util.Collection stuck)
+    {
+        final Set set = new HashSet();
+        for (Iterator i = stuck.iterator(); i.hasNext(); )
+            set.add(((Blocked) i.next()).signature);
+        return set;
+    }
+
+    /**
+     * Returns the report of the given stuck processes: the starved, then the deadlocked.
+     */
+    private static String report(final List stuck)
+    {
+        final StringBuffer starved = new StringBuffer();
+        final StringBuffer deadlocked = new StringBuffer();
+        int nStarved = 0;
+        int nDeadlocked = 0;
+        for (int i = 0; i < stuck.size(); i++)
+        {
+            final Blocked b = (Blocked) stuck.get(i);
+            boolean orphaned = true;
+            for (int j = 0; j < b.peers.size(); j++)
+            {
+                final Thread peer = (Thread) b.peers.get(j);
+                if (!gone(peer))
+                    orphaned = false;
+            }
+            if (orphaned)
+            {
+                b.describe(starved);
+                nStarved++;
+            }
+            else
+            {
+                b.describe(deadlocked);
+                nDeadlocked++;
+            }
+        }
+        final StringBuffer s = new StringBuffer();
+        if (nStarved > 0)
+            s.append("*** jcsp.lang.DeadlockDetector: ").append(nStarved)
+             .append((nStarved == 1) ? " process" : " processes").append(" starved\n")
+             .append(starved);
+        if (nDeadlocked > 0)
+            s.append("*** jcsp.lang.DeadlockDetector: ").append(nDeadlocked)
+             .append((nDeadlocked == 1) ? " process" : " processes").append(" deadlocked\n")
+             .append(deadlocked);
+        return s.toString();
+    }
+
+    /**
+     * Returns a report if every (non-idle) process is blocked in JCSP, else null.
+     */
+    private static String stall()
+    {
+        final ProcessInfo[] processes = ProcessInspector.snapshot();
+        final StringBuffer s = new StringBuffer();
+        int n = 0;
+        for (int i = 0; i < processes.length; i++)
+        {
+            final String state = processes[i].getState();
+            if (state == ProcessInfo.IDLE)
+                continue;
+            if ((state == ProcessInfo.RUNNING) || (state == ProcessInfo.TIMER) ||
+                (state == ProcessInfo.WAITING))
+                return null;
+            s.append("  ").append(processes[i]).append('\n');
+            n++;
+        }
+        if (n == 0)
+            return null;
+        return "*** jcsp.lang.DeadlockDetector: stalled - all " + n +
+               " processes are blocked (unless a thread outside JCSP wakes one)\n" + s;
+    }
+
+    /**
+     * A process blocked on one or more (if <TT>ALT</TT>ing) instrumented channels.
+     */
+    private static final class Blocked
+    {
+        final Thread thread;
+
+        /** The channels (ChannelMetrics), whether reading each and the process waited for */
+        final List channels = new ArrayList(1), reading = new ArrayList(1), peers = new ArrayList(1);
+
+        /** Identifies the process, its channels and how far they have got */
+        String signature;
+
+        Blocked(final Thread thread)
+        {
+            this.thread = thread;
+        }
+
+        void sign()
+        {
+            final StringBuffer s = new StringBuffer();
+            s.append(System.identityHashCode(thread));
+            for (int i = 0; i < channels.size(); i++)
+            {
+                final ChannelMetrics m = (ChannelMetrics) channels.get(i);
+                s.append(':').append(System.identityHashCode(m))
+                 .append('/').append(m.getReads()).append('/').append(m.getWrites());
+            }
+            signature = s.toString();
+        }
+
+        void describe(final StringBuffer s)
+        {
+            s.append("  ").append(thread.getName()).append(" blocked ");
+            if (channels.size() > 1)
+                s.append("in ALT ");
+            for (int i = 0; i < channels.size(); i++)
+            {
+                final boolean r = ((Boolean) reading.get(i)).booleanValue();
+                final Thread peer = (Thread) peers.get(i);
+                s.append((i == 0) ? "" : ", ").append(r ? "reading \"" : "writing \"")
+                 .append(((ChannelMetrics) channels.get(i)).getName()).append("\" (");
+                if (peer == null)
+                    s.append(r ? "never written" : "never read");
+                else if (gone(peer))
+                    s.append(r ? "its last writer has terminated" : "its last reader has terminated");
+                else
+                    s.append(r ? "last written by " : "last read by ").append(peer.getName());
+                s.append(')');
+            }
+            s.append('\n');
+        }
+    }
+}
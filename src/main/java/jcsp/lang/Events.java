@@ -0,0 +1,164 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+/**
+ * These are the hooks through which JCSP operations report themselves to
+ * Java Flight Recorder.
+ * <H2>Description</H2>
+ * Each reporting operation brackets itself with a <TT>begin</TT> and an <TT>end</TT>
+ * on {@link #events}:
+ * <PRE>
+ *   final Object e = Events.events.beginRead ();
+ *   final Object o = channel.read ();
+ *   if (e != null) {
+ *     Events.events.end (e, channel);
+ *   }
+ * </PRE>
+ * This class does nothing: every <TT>begin</TT> returns null.  If the JDK has Flight
+ * Recorder (<TT>jdk.jfr</TT>, from Java 11), {@link #events} is instead a
+ * {@link JfrEvents}, whose <TT>begin</TT>s return an event - but only while a recording
+ * has that event enabled.  It is loaded reflectively, so JCSP still runs on older JDKs
+ * (and it may be kept out with <TT>-Djcsp.jfr=false</TT>).
+ * <P>
+ * An event is committed only if its operation took longer than the event's threshold
+ * in the recording settings (see {@link JfrEvents} for the events and their default
+ * thresholds), so a recording costs little more than reading the clock twice per
+ * operation.
+ *
+ * @author Kevin Chalmers
+ */
+
+class Events
+{
+    /** The hooks in use: a {@link JfrEvents} if Flight Recorder is available */
+    static final Events events = load();
+
+    private static Events load()
+    {
+        if (!"false".equals(System.getProperty("jcsp.jfr")))
+        {
+            try
+            {
+                return (Events) Class.forName("jcsp.lang.JfrEvents").getDeclaredConstructor().newInstance();
+            }
+            catch (ReflectiveOperationException e)
+            {
+                // JfrEvents could not be built -- report nothing
+            }
+            catch (LinkageError e)
+            {
+                // no jdk.jfr -- report nothing
+            }
+        }
+        return new Events();
+    }
+
+    /**
+     * Begins a channel read.
+     *
+     * @return the event, or null.
+     */
+    Object beginRead()
+    {
+        return null;
+    }
+
+    /**
+     * Begins a channel write.
+     *
+     * @return the event, or null.
+     */
+    Object beginWrite()
+    {
+        return null;
+    }
+
+    /**
+     * Begins an {@link Alternative} select.
+     *
+     * @return the event, or null.
+     */
+    Object beginSelect()
+    {
+        return null;
+    }
+
+    /**
+     * Begins a {@link Barrier} sync.
+     *
+     * @return the event, or null.
+     */
+    Object beginSync()
+    {
+        return null;
+    }
+
+    /**
+     * Begins a {@link Bucket} fall-into.
+     *
+     * @return the event, or null.
+     */
+    Object beginFallInto()
+    {
+        return null;
+    }
+
+    /**
+     * Begins a {@link Parallel} run.
+     *
+     * @return the event, or null.
+     */
+    Object beginParallel()
+    {
+        return null;
+    }
+
+    /**
+     * Ends a read, write, sync or fall-into on <TT>target</TT>.
+     *
+     * @param event the event returned by the <TT>begin</TT>.
+     * @param target the channel, barrier or bucket.
+     */
+    void end(final Object event, final Object target)
+    {
+    }
+
+    /**
+     * Ends a select.
+     *
+     * @param event the event returned by <TT>beginSelect</TT>.
+     * @param selected the index of the guard selected.
+     * @param guards the number of guards.
+     */
+    void endSelect(final Object event, final int selected, final int guards)
+    {
+    }
+
+    /**
+     * Ends a Parallel run.
+     *
+     * @param event the event returned by <TT>beginParallel</TT>.
+     * @param processes the number of processes run.
+     */
+    void endParallel(final Object event, final int processes)
+    {
+    }
+}
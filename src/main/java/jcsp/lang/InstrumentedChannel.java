@@ -0,0 +1,307 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+/**
+ * This wraps the internals of a channel, recording its use (and the processes at
+ * its ends, for the {@link DeadlockDetector}) in a {@link ChannelMetrics}.
+ * The nested classes are the channels handed out by the {@link InstrumentedChannelFactory}:
+ * their ends are the standard ones, built around this instead of the wrapped channel.
+ * <P>
+ * Each <TT>read</TT> and <TT>write</TT> adds one to the count of its end (an ordered
+ * store, or an atomic increment at a shared end) and notes the process at that end.
+ * Reading the clock costs more than that, so only one in
+ * {@link ChannelMetrics#SAMPLE_PERIOD} is timed.
+ * <P>
+ * Measured with the <TT>ChannelMetricsOverhead.writeRead</TT> benchmark (one process
+ * writing to a buffered <TT>One2One</TT> channel and reading back, on a single processor),
+ * this adds about 8-10 nanoseconds to each <TT>read</TT> and <TT>write</TT>, against
+ * about 80 for the operation itself - more than the counting alone, as noting the
+ * process at each end (for the detector) and the sampling tick cost as much again.
+ * Between two processes the difference is lost in the cost of switching between them.
+ *
+ * @author Kevin Chalmers
+ */
+
+class InstrumentedChannel implements ChannelInternals
+{
+    private final ChannelInternals channel;
+
+    private final ChannelMetrics metrics;
+
+    /** The counters of each end */
+    private final ChannelMetrics.End reading, writing;
+
+    /** Set by the reader when its Alternative found the channel not ready */
+    private boolean altWaiting = false;
+
+    InstrumentedChannel(final ChannelInternals channel, final String name, final String kind,
+                        final boolean buffered)
+    {
+        this.channel = channel;
+        this.metrics = ChannelRegistry.register(this, name, kind, buffered);
+        this.reading = metrics.reading;
+        this.writing = metrics.writing;
+    }
+
+    /**
+     * Returns the live metrics of this channel.
+     */
+    ChannelMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    public Object read()
+    {
+        final Thread me = reading.start();
+        try
+        {
+            if ((++reading.tick & ChannelMetrics.SAMPLE_MASK) != 0)
+            {
+                final Object o = channel.read();
+                reading.add(1);
+                return o;
+            }
+            final long t0 = System.nanoTime();
+            final Object o = channel.read();
+            reading.record(1, (System.nanoTime() - t0)*ChannelMetrics.SAMPLE_PERIOD);
+            return o;
+        }
+        finally
+        {
+            reading.stop(me);
+        }
+    }
+
+    public void write(final Object obj)
+    {
+        final Thread me = writing.start();
+        try
+        {
+            if ((++writing.tick & ChannelMetrics.SAMPLE_MASK) != 0)
+            {
+                channel.write(obj);
+                writing.add(1);
+                return;
+            }
+            final long t0 = System.nanoTime();
+            channel.write(obj);
+            metrics.recordWrite(1, (System.nanoTime() - t0)*ChannelMetrics.SAMPLE_PERIOD);
+        }
+        finally
+        {
+            writing.stop(me);
+        }
+    }
+
+    public int read(final Object[] dst, final int max)
+    {
+        final Thread me = reading.start();
+        try
+        {
+            final long t0 = System.nanoTime();
+            final int n = channel.read(dst, max);
+            reading.record(n, System.nanoTime() - t0);
+            return n;
+        }
+        finally
+        {
+            reading.stop(me);
+        }
+    }
+
+    public void write(final Object[] items, final int off, final int len)
+    {
+        final Thread me = writing.start();
+        try
+        {
+            final long t0 = System.nanoTime();
+            channel.write(items, off, len);
+            metrics.recordWrite(len, System.nanoTime() - t0);
+        }
+        finally
+        {
+            writing.stop(me);
+        }
+    }
+
+    public Object startRead()
+    {
+        final Thread me = reading.start();
+        try
+        {
+            if ((++reading.tick & ChannelMetrics.SAMPLE_MASK) != 0)
+            {
+                final Object o = channel.startRead();
+                reading.add(1);
+                return o;
+            }
+            final long t0 = System.nanoTime();
+            final Object o = channel.startRead();
+            reading.record(1, (System.nanoTime() - t0)*ChannelMetrics.SAMPLE_PERIOD);
+            return o;
+        }
+        finally
+        {
+            reading.stop(me);
+        }
+    }
+
+    public void endRead()
+    {
+        channel.endRead();
+    }
+
+    public boolean readerEnable(final Alternative alt)
+    {
+        final boolean ready = channel.readerEnable(alt);
+        altWaiting = !ready;
+        if (!ready)
+        {
+            reading.start();
+            reading.alt = alt;
+        }
+        return ready;
+    }
+
+    public boolean readerDisable()
+    {
+        final boolean ready = channel.readerDisable();
+        if (ready && altWaiting)
+        {
+            metrics.recordAltWakeup();
+        }
+        if (altWaiting)
+        {
+            reading.alt = null;
+            reading.stop(Thread.currentThread());
+            altWaiting = false;
+        }
+        return ready;
+    }
+
+    public boolean readerPending()
+    {
+        return channel.readerPending();
+    }
+
+    public void readerPoison(final int strength)
+    {
+        channel.readerPoison(strength);
+    }
+
+    public void writerPoison(final int strength)
+    {
+        channel.writerPoison(strength);
+    }
+
+    /**
+     * An instrumented <TT>One2OneChannel</TT>.
+     */
+    static final class One2One implements One2OneChannel
+    {
+        private final InstrumentedChannel channel;
+
+        One2One(final ChannelInternals channel, final String name, final boolean buffered)
+        {
+            this.channel = new InstrumentedChannel(channel, name, "One2One", buffered);
+        }
+
+        public AltingChannelInput in()
+        {
+            return new AltingChannelInputImpl(channel, 0);
+        }
+
+        public ChannelOutput out()
+        {
+            return new ChannelOutputImpl(channel, 0);
+        }
+    }
+
+    /**
+     * An instrumented <TT>Any2OneChannel</TT>.
+     */
+    static final class Any2One implements Any2OneChannel
+    {
+        private final InstrumentedChannel channel;
+
+        Any2One(final ChannelInternals channel, final String name, final boolean buffered)
+        {
+            this.channel = new InstrumentedChannel(channel, name, "Any2One", buffered);
+        }
+
+        public AltingChannelInput in()
+        {
+            return new AltingChannelInputImpl(channel, 0);
+        }
+
+        public SharedChannelOutput out()
+        {
+            return new SharedChannelOutputImpl(channel, 0);
+        }
+    }
+
+    /**
+     * An instrumented <TT>One2AnyChannel</TT>.
+     */
+    static final class One2Any implements One2AnyChannel
+    {
+        private final InstrumentedChannel channel;
+
+        One2Any(final ChannelInternals channel, final String name, final boolean buffered)
+        {
+            this.channel = new InstrumentedChannel(channel, name, "One2Any", buffered);
+        }
+
+        public SharedChannelInput in()
+        {
+            return new SharedChannelInputImpl(channel, 0);
+        }
+
+        public ChannelOutput out()
+        {
+            return new ChannelOutputImpl(channel, 0);
+        }
+    }
+
+    /**
+     * An instrumented <TT>Any2AnyChannel</TT>.
+     */
+    static final class Any2Any implements Any2AnyChannel
+    {
+        private final InstrumentedChannel channel;
+
+        Any2Any(final ChannelInternals channel, final String name, final boolean buffered)
+        {
+            this.channel = new InstrumentedChannel(channel, name, "Any2Any", buffered);
+        }
+
+        public SharedChannelInput in()
+        {
+            return new SharedChannelInputImpl(channel, 0);
+        }
+
+        public SharedChannelOutput out()
+        {
+            return new SharedChannelOutputImpl(channel, 0);
+        }
+    }
+}
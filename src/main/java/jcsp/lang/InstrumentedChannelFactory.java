@@ -0,0 +1,421 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import jcsp.util.ChannelDataStore;
+
+/**
+ * <p>This class acts as a Factory for creating channels whose use is recorded
+ * in a {@link ChannelMetrics}, registered with the {@link ChannelRegistry}.</p>
+ *
+ * <p>The channels are built by a {@link StandardChannelFactory} and then wrapped,
+ * so they behave exactly as that factory's channels do.  Each may be given a name
+ * (by which it may be found in the registry); channels built through the
+ * {@link ChannelFactory} interfaces are named after their kind and a serial number
+ * (e.g. <code>Any2One-7</code>).</p>
+ *
+ * <p>The wrapping costs a few uncontended atomic increments on each
+ * <code>read</code> and <code>write</code> (the clock is read for only one in
+ * {@link ChannelMetrics#SAMPLE_PERIOD} of them), which is small against the cost of a
+ * channel communication.  If instrumentation is
+ * {@link ChannelRegistry#setEnabled(boolean) switched off}, this factory returns
+ * the unwrapped channels of the standard factory, which cost nothing extra.</p>
+ *
+ * @see InstrumentedChannelIntFactory
+ * @see ChannelRegistry
+ *
+ * @author Kevin Chalmers
+ */
+public class InstrumentedChannelFactory
+        implements ChannelFactory, ChannelArrayFactory, BufferedChannelFactory, BufferedChannelArrayFactory
+{
+    private final StandardChannelFactory factory;
+
+    /**
+     * Constructs a new factory, wrapping the default {@link StandardChannelFactory}.
+     */
+    public InstrumentedChannelFactory()
+    {
+        this(StandardChannelFactory.getDefaultInstance());
+    }
+
+    /**
+     * Constructs a new factory, wrapping the channels of the given factory.
+     *
+     * @param factory the factory building the underlying channels.
+     */
+    public InstrumentedChannelFactory(StandardChannelFactory factory)
+    {
+        super();
+        this.factory = factory;
+    }
+
+    /**
+     * Constructs and returns a named <code>One2OneChannel</code> object.
+     *
+     * @param name the name of the channel in the registry.
+     * @return the channel object.
+     */
+    public One2OneChannel createOne2One(String name)
+    {
+        final One2OneChannel c = factory.createOne2One();
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannel.One2One((ChannelInternals) c, name, false);
+    }
+
+    /**
+     * Constructs and returns a named <code>Any2OneChannel</code> object.
+     *
+     * @param name the name of the channel in the registry.
+     * @return the channel object.
+     */
+    public Any2OneChannel createAny2One(String name)
+    {
+        final Any2OneChannel c = factory.createAny2One();
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannel.Any2One((ChannelInternals) c, name, false);
+    }
+
+    /**
+     * Constructs and returns a named <code>One2AnyChannel</code> object.
+     *
+     * @param name the name of the channel in the registry.
+     * @return the channel object.
+     */
+    public One2AnyChannel createOne2Any(String name)
+    {
+        final One2AnyChannel c = factory.createOne2Any();
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannel.One2Any((ChannelInternals) c, name, false);
+    }
+
+    /**
+     * Constructs and returns a named <code>Any2AnyChannel</code> object.
+     *
+     * @param name the name of the channel in the registry.
+     * @return the channel object.
+     */
+    public Any2AnyChannel createAny2Any(String name)
+    {
+        final Any2AnyChannel c = factory.createAny2Any();
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannel.Any2Any((ChannelInternals) c, name, false);
+    }
+
+    /**
+     * Constructs and returns a named, buffered <code>One2OneChannel</code> object.
+     *
+     * @param buffer the <code>ChannelDataStore</code> to use (it is cloned).
+     * @param name the name of the channel in the registry.
+     * @return the buffered channel.
+     */
+    public One2OneChannel createOne2One(ChannelDataStore buffer, String name)
+    {
+        final One2OneChannel c = factory.createOne2One(buffer);
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannel.One2One((ChannelInternals) c, name, true);
+    }
+
+    /**
+     * Constructs and returns a named, buffered <code>Any2OneChannel</code> object.
+     *
+     * @param buffer the <code>ChannelDataStore</code> to use (it is cloned).
+     * @param name the name of the channel in the registry.
+     * @return the buffered channel.
+     */
+    public Any2OneChannel createAny2One(ChannelDataStore buffer, String name)
+    {
+        final Any2OneChannel c = factory.createAny2One(buffer);
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannel.Any2One((ChannelInternals) c, name, true);
+    }
+
+    /**
+     * Constructs and returns a named, buffered <code>One2AnyChannel</code> object.
+     *
+     * @param buffer the <code>ChannelDataStore</code> to use (it is cloned).
+     * @param name the name of the channel in the registry.
+     * @return the buffered channel.
+     */
+    public One2AnyChannel createOne2Any(ChannelDataStore buffer, String name)
+    {
+        final One2AnyChannel c = factory.createOne2Any(buffer);
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannel.One2Any((ChannelInternals) c, name, true);
+    }
+
+    /**
+     * Constructs and returns a named, buffered <code>Any2AnyChannel</code> object.
+     *
+     * @param buffer the <code>ChannelDataStore</code> to use (it is cloned).
+     * @param name the name of the channel in the registry.
+     * @return the buffered channel.
+     */
+    public Any2AnyChannel createAny2Any(ChannelDataStore buffer, String name)
+    {
+        final Any2AnyChannel c = factory.createAny2Any(buffer);
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannel.Any2Any((ChannelInternals) c, name, true);
+    }
+
+    /**
+     * Constructs and returns a <code>One2OneChannel</code> object.
+     *
+     * @return the channel object.
+     *
+     * @see ChannelFactory#createOne2One()
+     */
+    public One2OneChannel createOne2One()
+    {
+        return createOne2One((String) null);
+    }
+
+    /**
+     * Constructs and returns an <code>Any2OneChannel</code> object.
+     *
+     * @return the channel object.
+     *
+     * @see ChannelFactory#createAny2One()
+     */
+    public Any2OneChannel createAny2One()
+    {
+        return createAny2One((String) null);
+    }
+
+    /**
+     * Constructs and returns a <code>One2AnyChannel</code> object.
+     *
+     * @return the channel object.
+     *
+     * @see ChannelFactory#createOne2Any()
+     */
+    public One2AnyChannel createOne2Any()
+    {
+        return createOne2Any((String) null);
+    }
+
+    /**
+     * Constructs and returns an <code>Any2AnyChannel</code> object.
+     *
+     * @return the channel object.
+     *
+     * @see ChannelFactory#createAny2Any()
+     */
+    public Any2AnyChannel createAny2Any()
+    {
+        return createAny2Any((String) null);
+    }
+
+    /**
+     * Constructs and returns an array of <code>One2OneChannel</code>
+     * objects.
+     *
+     * @param	n	the size of the array of channels.
+     * @return the array of channels.
+     *
+     * @see ChannelArrayFactory#createOne2One(int)
+     */
+    public One2OneChannel[] createOne2One(int n)
+    {
+        One2OneChannel[] toReturn = new One2OneChannel[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createOne2One();
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of <code>Any2OneChannel</code>
+     * objects.
+     *
+     * @param	n	the size of the array of channels.
+     * @return the array of channels.
+     *
+     * @see ChannelArrayFactory#createAny2One(int)
+     */
+    public Any2OneChannel[] createAny2One(int n)
+    {
+        Any2OneChannel[] toReturn = new Any2OneChannel[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createAny2One();
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of <code>One2AnyChannel</code>
+     * objects.
+     *
+     * @param	n	the size of the array of channels.
+     * @return the array of channels.
+     *
+     * @see ChannelArrayFactory#createOne2Any(int)
+     */
+    public One2AnyChannel[] createOne2Any(int n)
+    {
+        One2AnyChannel[] toReturn = new One2AnyChannel[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createOne2Any();
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of <code>Any2AnyChannel</code>
+     * objects.
+     *
+     * @param	n	the size of the array of channels.
+     * @return the array of channels.
+     *
+     * @see ChannelArrayFactory#createAny2Any(int)
+     */
+    public Any2AnyChannel[] createAny2Any(int n)
+    {
+        Any2AnyChannel[] toReturn = new Any2AnyChannel[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createAny2Any();
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns a buffered <code>One2OneChannel</code> object.
+     *
+     * @param	buffer	the <code>ChannelDataStore</code> to use (it is cloned).
+     * @return the buffered channel.
+     *
+     * @see BufferedChannelFactory#createOne2One(ChannelDataStore)
+     */
+    public One2OneChannel createOne2One(ChannelDataStore buffer)
+    {
+        return createOne2One(buffer, null);
+    }
+
+    /**
+     * Constructs and returns a buffered <code>Any2OneChannel</code> object.
+     *
+     * @param	buffer	the <code>ChannelDataStore</code> to use (it is cloned).
+     * @return the buffered channel.
+     *
+     * @see BufferedChannelFactory#createAny2One(ChannelDataStore)
+     */
+    public Any2OneChannel createAny2One(ChannelDataStore buffer)
+    {
+        return createAny2One(buffer, null);
+    }
+
+    /**
+     * Constructs and returns a buffered <code>One2AnyChannel</code> object.
+     *
+     * @param	buffer	the <code>ChannelDataStore</code> to use (it is cloned).
+     * @return the buffered channel.
+     *
+     * @see BufferedChannelFactory#createOne2Any(ChannelDataStore)
+     */
+    public One2AnyChannel createOne2Any(ChannelDataStore buffer)
+    {
+        return createOne2Any(buffer, null);
+    }
+
+    /**
+     * Constructs and returns a buffered <code>Any2AnyChannel</code> object.
+     *
+     * @param	buffer	the <code>ChannelDataStore</code> to use (it is cloned).
+     * @return the buffered channel.
+     *
+     * @see BufferedChannelFactory#createAny2Any(ChannelDataStore)
+     */
+    public Any2AnyChannel createAny2Any(ChannelDataStore buffer)
+    {
+        return createAny2Any(buffer, null);
+    }
+
+    /**
+     * Constructs and returns an array of buffered <code>One2OneChannel</code> objects.
+     *
+     * @param	buffer	the <code>ChannelDataStore</code> to use (it is cloned for each).
+     * @param	n	    the size of the array of channels.
+     * @return the array of buffered channels.
+     *
+     * @see BufferedChannelArrayFactory#createOne2One(ChannelDataStore,int)
+     */
+    public One2OneChannel[] createOne2One(ChannelDataStore buffer, int n)
+    {
+        One2OneChannel[] toReturn = new One2OneChannel[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createOne2One(buffer);
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of buffered <code>Any2OneChannel</code> objects.
+     *
+     * @param	buffer	the <code>ChannelDataStore</code> to use (it is cloned for each).
+     * @param	n	    the size of the array of channels.
+     * @return the array of buffered channels.
+     *
+     * @see BufferedChannelArrayFactory#createAny2One(ChannelDataStore,int)
+     */
+    public Any2OneChannel[] createAny2One(ChannelDataStore buffer, int n)
+    {
+        Any2OneChannel[] toReturn = new Any2OneChannel[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createAny2One(buffer);
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of buffered <code>One2AnyChannel</code> objects.
+     *
+     * @param	buffer	the <code>ChannelDataStore</code> to use (it is cloned for each).
+     * @param	n	    the size of the array of channels.
+     * @return the array of buffered channels.
+     *
+     * @see BufferedChannelArrayFactory#createOne2Any(ChannelDataStore,int)
+     */
+    public One2AnyChannel[] createOne2Any(ChannelDataStore buffer, int n)
+    {
+        One2AnyChannel[] toReturn = new One2AnyChannel[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createOne2Any(buffer);
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of buffered <code>Any2AnyChannel</code> objects.
+     *
+     * @param	buffer	the <code>ChannelDataStore</code> to use (it is cloned for each).
+     * @param	n	    the size of the array of channels.
+     * @return the array of buffered channels.
+     *
+     * @see BufferedChannelArrayFactory#createAny2Any(ChannelDataStore,int)
+     */
+    public Any2AnyChannel[] createAny2Any(ChannelDataStore buffer, int n)
+    {
+        Any2AnyChannel[] toReturn = new Any2AnyChannel[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createAny2Any(buffer);
+        return toReturn;
+    }
+}
@@ -0,0 +1,268 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+/**
+ * This wraps the internals of an integer channel, recording its use (and the processes
+ * at its ends, for the {@link DeadlockDetector}) in a {@link ChannelMetrics}.
+ * The nested classes are the channels handed out by the {@link InstrumentedChannelIntFactory}:
+ * their ends are the standard ones, built around this instead of the wrapped channel.
+ * <P>
+ * Each <TT>read</TT> and <TT>write</TT> is counted, and one in
+ * {@link ChannelMetrics#SAMPLE_PERIOD} timed, as for an {@link InstrumentedChannel}
+ * (which gives the measured cost).
+ *
+ * @author Kevin Chalmers
+ */
+
+class InstrumentedChannelInt implements ChannelInternalsInt
+{
+    private final ChannelInternalsInt channel;
+
+    private final ChannelMetrics metrics;
+
+    /** The counters of each end */
+    private final ChannelMetrics.End reading, writing;
+
+    /** Set by the reader when its Alternative found the channel not ready */
+    private boolean altWaiting = false;
+
+    InstrumentedChannelInt(final ChannelInternalsInt channel, final String name, final String kind,
+                        final boolean buffered)
+    {
+        this.channel = channel;
+        this.metrics = ChannelRegistry.register(this, name, kind, buffered);
+        this.reading = metrics.reading;
+        this.writing = metrics.writing;
+    }
+
+    /**
+     * Returns the live metrics of this channel.
+     */
+    ChannelMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    public int read()
+    {
+        final Thread me = reading.start();
+        try
+        {
+            if ((++reading.tick & ChannelMetrics.SAMPLE_MASK) != 0)
+            {
+                final int o = channel.read();
+                reading.add(1);
+                return o;
+            }
+            final long t0 = System.nanoTime();
+            final int o = channel.read();
+            reading.record(1, (System.nanoTime() - t0)*ChannelMetrics.SAMPLE_PERIOD);
+            return o;
+        }
+        finally
+        {
+            reading.stop(me);
+        }
+    }
+
+    public void write(final int obj)
+    {
+        final Thread me = writing.start();
+        try
+        {
+            if ((++writing.tick & ChannelMetrics.SAMPLE_MASK) != 0)
+            {
+                channel.write(obj);
+                writing.add(1);
+                return;
+            }
+            final long t0 = System.nanoTime();
+            channel.write(obj);
+            metrics.recordWrite(1, (System.nanoTime() - t0)*ChannelMetrics.SAMPLE_PERIOD);
+        }
+        finally
+        {
+            writing.stop(me);
+        }
+    }
+
+    public int startRead()
+    {
+        final Thread me = reading.start();
+        try
+        {
+            if ((++reading.tick & ChannelMetrics.SAMPLE_MASK) != 0)
+            {
+                final int o = channel.startRead();
+                reading.add(1);
+                return o;
+            }
+            final long t0 = System.nanoTime();
+            final int o = channel.startRead();
+            reading.record(1, (System.nanoTime() - t0)*ChannelMetrics.SAMPLE_PERIOD);
+            return o;
+        }
+        finally
+        {
+            reading.stop(me);
+        }
+    }
+
+    public void endRead()
+    {
+        channel.endRead();
+    }
+
+    public boolean readerEnable(final Alternative alt)
+    {
+        final boolean ready = channel.readerEnable(alt);
+        altWaiting = !ready;
+        if (!ready)
+        {
+            reading.start();
+            reading.alt = alt;
+        }
+        return ready;
+    }
+
+    public boolean readerDisable()
+    {
+        final boolean ready = channel.readerDisable();
+        if (ready && altWaiting)
+        {
+            metrics.recordAltWakeup();
+        }
+        if (altWaiting)
+        {
+            reading.alt = null;
+            reading.stop(Thread.currentThread());
+            altWaiting = false;
+        }
+        return ready;
+    }
+
+    public boolean readerPending()
+    {
+        return channel.readerPending();
+    }
+
+    public void readerPoison(final int strength)
+    {
+        channel.readerPoison(strength);
+    }
+
+    public void writerPoison(final int strength)
+    {
+        channel.writerPoison(strength);
+    }
+
+    /**
+     * An instrumented <TT>One2OneChannelInt</TT>.
+     */
+    static final class One2One implements One2OneChannelInt
+    {
+        private final InstrumentedChannelInt channel;
+
+        One2One(final ChannelInternalsInt channel, final String name, final boolean buffered)
+        {
+            this.channel = new InstrumentedChannelInt(channel, name, "One2OneInt", buffered);
+        }
+
+        public AltingChannelInputInt in()
+        {
+            return new AltingChannelInputIntImpl(channel, 0);
+        }
+
+        public ChannelOutputInt out()
+        {
+            return new ChannelOutputIntImpl(channel, 0);
+        }
+    }
+
+    /**
+     * An instrumented <TT>Any2OneChannelInt</TT>.
+     */
+    static final class Any2One implements Any2OneChannelInt
+    {
+        private final InstrumentedChannelInt channel;
+
+        Any2One(final ChannelInternalsInt channel, final String name, final boolean buffered)
+        {
+            this.channel = new InstrumentedChannelInt(channel, name, "Any2OneInt", buffered);
+        }
+
+        public AltingChannelInputInt in()
+        {
+            return new AltingChannelInputIntImpl(channel, 0);
+        }
+
+        public SharedChannelOutputInt out()
+        {
+            return new SharedChannelOutputIntImpl(channel, 0);
+        }
+    }
+
+    /**
+     * An instrumented <TT>One2AnyChannelInt</TT>.
+     */
+    static final class One2Any implements One2AnyChannelInt
+    {
+        private final InstrumentedChannelInt channel;
+
+        One2Any(final ChannelInternalsInt channel, final String name, final boolean buffered)
+        {
+            this.channel = new InstrumentedChannelInt(channel, name, "One2AnyInt", buffered);
+        }
+
+        public SharedChannelInputInt in()
+        {
+            return new SharedChannelInputIntImpl(channel, 0);
+        }
+
+        public ChannelOutputInt out()
+        {
+            return new ChannelOutputIntImpl(channel, 0);
+        }
+    }
+
+    /**
+     * An instrumented <TT>Any2AnyChannelInt</TT>.
+     */
+    static final class Any2Any implements Any2AnyChannelInt
+    {
+        private final InstrumentedChannelInt channel;
+
+        Any2Any(final ChannelInternalsInt channel, final String name, final boolean buffered)
+        {
+            this.channel = new InstrumentedChannelInt(channel, name, "Any2AnyInt", buffered);
+        }
+
+        public SharedChannelInputInt in()
+        {
+            return new SharedChannelInputIntImpl(channel, 0);
+        }
+
+        public SharedChannelOutputInt out()
+        {
+            return new SharedChannelOutputIntImpl(channel, 0);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import jcsp.util.ints.ChannelDataStoreInt;
+
+/**
+ * <p>This class acts as a Factory for creating integer channels whose use is recorded
+ * in a {@link ChannelMetrics}, registered with the {@link ChannelRegistry}.</p>
+ *
+ * <p>The channels are built by a {@link StandardChannelIntFactory} and then wrapped,
+ * so they behave exactly as that factory's channels do.  Each may be given a name
+ * (by which it may be found in the registry); channels built through the
+ * {@link ChannelIntFactory} interfaces are named after their kind and a serial number
+ * (e.g. <code>Any2OneInt-7</code>).</p>
+ *
+ * <p>The wrapping costs a few uncontended atomic increments on each
+ * <code>read</code> and <code>write</code> (the clock is read for only one in
+ * {@link ChannelMetrics#SAMPLE_PERIOD} of them), which is small against the cost of a
+ * channel communication.  If instrumentation is
+ * {@link ChannelRegistry#setEnabled(boolean) switched off}, this factory returns
+ * the unwrapped channels of the standard factory, which cost nothing extra.</p>
+ *
+ * @see InstrumentedChannelFactory
+ * @see ChannelRegistry
+ *
+ * @author Kevin Chalmers
+ */
+public class InstrumentedChannelIntFactory
+        implements ChannelIntFactory, ChannelIntArrayFactory, BufferedChannelIntFactory, BufferedChannelIntArrayFactory
+{
+    private final StandardChannelIntFactory factory;
+
+    /**
+     * Constructs a new factory, wrapping a new {@link StandardChannelIntFactory}.
+     */
+    public InstrumentedChannelIntFactory()
+    {
+        this(new StandardChannelIntFactory());
+    }
+
+    /**
+     * Constructs a new factory, wrapping the channels of the given factory.
+     *
+     * @param factory the factory building the underlying channels.
+     */
+    public InstrumentedChannelIntFactory(StandardChannelIntFactory factory)
+    {
+        super();
+        this.factory = factory;
+    }
+
+    /**
+     * Constructs and returns a named <code>One2OneChannelInt</code> object.
+     *
+     * @param name the name of the channel in the registry.
+     * @return the channel object.
+     */
+    public One2OneChannelInt createOne2One(String name)
+    {
+        final One2OneChannelInt c = factory.createOne2One();
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannelInt.One2One((ChannelInternalsInt) c, name, false);
+    }
+
+    /**
+     * Constructs and returns a named <code>Any2OneChannelInt</code> object.
+     *
+     * @param name the name of the channel in the registry.
+     * @return the channel object.
+     */
+    public Any2OneChannelInt createAny2One(String name)
+    {
+        final Any2OneChannelInt c = factory.createAny2One();
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannelInt.Any2One((ChannelInternalsInt) c, name, false);
+    }
+
+    /**
+     * Constructs and returns a named <code>One2AnyChannelInt</code> object.
+     *
+     * @param name the name of the channel in the registry.
+     * @return the channel object.
+     */
+    public One2AnyChannelInt createOne2Any(String name)
+    {
+        final One2AnyChannelInt c = factory.createOne2Any();
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannelInt.One2Any((ChannelInternalsInt) c, name, false);
+    }
+
+    /**
+     * Constructs and returns a named <code>Any2AnyChannelInt</code> object.
+     *
+     * @param name the name of the channel in the registry.
+     * @return the channel object.
+     */
+    public Any2AnyChannelInt createAny2Any(String name)
+    {
+        final Any2AnyChannelInt c = factory.createAny2Any();
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannelInt.Any2Any((ChannelInternalsInt) c, name, false);
+    }
+
+    /**
+     * Constructs and returns a named, buffered <code>One2OneChannelInt</code> object.
+     *
+     * @param buffer the <code>ChannelDataStoreInt</code> to use (it is cloned).
+     * @param name the name of the channel in the registry.
+     * @return the buffered channel.
+     */
+    public One2OneChannelInt createOne2One(ChannelDataStoreInt buffer, String name)
+    {
+        final One2OneChannelInt c = factory.createOne2One(buffer);
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannelInt.One2One((ChannelInternalsInt) c, name, true);
+    }
+
+    /**
+     * Constructs and returns a named, buffered <code>Any2OneChannelInt</code> object.
+     *
+     * @param buffer the <code>ChannelDataStoreInt</code> to use (it is cloned).
+     * @param name the name of the channel in the registry.
+     * @return the buffered channel.
+     */
+    public Any2OneChannelInt createAny2One(ChannelDataStoreInt buffer, String name)
+    {
+        final Any2OneChannelInt c = factory.createAny2One(buffer);
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannelInt.Any2One((ChannelInternalsInt) c, name, true);
+    }
+
+    /**
+     * Constructs and returns a named, buffered <code>One2AnyChannelInt</code> object.
+     *
+     * @param buffer the <code>ChannelDataStoreInt</code> to use (it is cloned).
+     * @param name the name of the channel in the registry.
+     * @return the buffered channel.
+     */
+    public One2AnyChannelInt createOne2Any(ChannelDataStoreInt buffer, String name)
+    {
+        final One2AnyChannelInt c = factory.createOne2Any(buffer);
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannelInt.One2Any((ChannelInternalsInt) c, name, true);
+    }
+
+    /**
+     * Constructs and returns a named, buffered <code>Any2AnyChannelInt</code> object.
+     *
+     * @param buffer the <code>ChannelDataStoreInt</code> to use (it is cloned).
+     * @param name the name of the channel in the registry.
+     * @return the buffered channel.
+     */
+    public Any2AnyChannelInt createAny2Any(ChannelDataStoreInt buffer, String name)
+    {
+        final Any2AnyChannelInt c = factory.createAny2Any(buffer);
+        if (!ChannelRegistry.isEnabled())
+            return c;
+        return new InstrumentedChannelInt.Any2Any((ChannelInternalsInt) c, name, true);
+    }
+
+    /**
+     * Constructs and returns a <code>One2OneChannelInt</code> object.
+     *
+     * @return the channel object.
+     *
+     * @see ChannelIntFactory#createOne2One()
+     */
+    public One2OneChannelInt createOne2One()
+    {
+        return createOne2One((String) null);
+    }
+
+    /**
+     * Constructs and returns an <code>Any2OneChannelInt</code> object.
+     *
+     * @return the channel object.
+     *
+     * @see ChannelIntFactory#createAny2One()
+     */
+    public Any2OneChannelInt createAny2One()
+    {
+        return createAny2One((String) null);
+    }
+
+    /**
+     * Constructs and returns a <code>One2AnyChannelInt</code> object.
+     *
+     * @return the channel object.
+     *
+     * @see ChannelIntFactory#createOne2Any()
+     */
+    public One2AnyChannelInt createOne2Any()
+    {
+        return createOne2Any((String) null);
+    }
+
+    /**
+     * Constructs and returns an <code>Any2AnyChannelInt</code> object.
+     *
+     * @return the channel object.
+     *
+     * @see ChannelIntFactory#createAny2Any()
+     */
+    public Any2AnyChannelInt createAny2Any()
+    {
+        return createAny2Any((String) null);
+    }
+
+    /**
+     * Constructs and returns an array of <code>One2OneChannelInt</code>
+     * objects.
+     *
+     * @param	n	the size of the array of channels.
+     * @return the array of channels.
+     *
+     * @see ChannelIntArrayFactory#createOne2One(int)
+     */
+    public One2OneChannelInt[] createOne2One(int n)
+    {
+        One2OneChannelInt[] toReturn = new One2OneChannelInt[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createOne2One();
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of <code>Any2OneChannelInt</code>
+     * objects.
+     *
+     * @param	n	the size of the array of channels.
+     * @return the array of channels.
+     *
+     * @see ChannelIntArrayFactory#createAny2One(int)
+     */
+    public Any2OneChannelInt[] createAny2One(int n)
+    {
+        Any2OneChannelInt[] toReturn = new Any2OneChannelInt[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createAny2One();
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of <code>One2AnyChannelInt</code>
+     * objects.
+     *
+     * @param	n	the size of the array of channels.
+     * @return the array of channels.
+     *
+     * @see ChannelIntArrayFactory#createOne2Any(int)
+     */
+    public One2AnyChannelInt[] createOne2Any(int n)
+    {
+        One2AnyChannelInt[] toReturn = new One2AnyChannelInt[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createOne2Any();
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of <code>Any2AnyChannelInt</code>
+     * objects.
+     *
+     * @param	n	the size of the array of channels.
+     * @return the array of channels.
+     *
+     * @see ChannelIntArrayFactory#createAny2Any(int)
+     */
+    public Any2AnyChannelInt[] createAny2Any(int n)
+    {
+        Any2AnyChannelInt[] toReturn = new Any2AnyChannelInt[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createAny2Any();
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns a buffered <code>One2OneChannelInt</code> object.
+     *
+     * @param	buffer	the <code>ChannelDataStoreInt</code> to use (it is cloned).
+     * @return the buffered channel.
+     *
+     * @see BufferedChannelIntFactory#createOne2One(ChannelDataStoreInt)
+     */
+    public One2OneChannelInt createOne2One(ChannelDataStoreInt buffer)
+    {
+        return createOne2One(buffer, null);
+    }
+
+    /**
+     * Constructs and returns a buffered <code>Any2OneChannelInt</code> object.
+     *
+     * @param	buffer	the <code>ChannelDataStoreInt</code> to use (it is cloned).
+     * @return the buffered channel.
+     *
+     * @see BufferedChannelIntFactory#createAny2One(ChannelDataStoreInt)
+     */
+    public Any2OneChannelInt createAny2One(ChannelDataStoreInt buffer)
+    {
+        return createAny2One(buffer, null);
+    }
+
+    /**
+     * Constructs and returns a buffered <code>One2AnyChannelInt</code> object.
+     *
+     * @param	buffer	the <code>ChannelDataStoreInt</code> to use (it is cloned).
+     * @return the buffered channel.
+     *
+     * @see BufferedChannelIntFactory#createOne2Any(ChannelDataStoreInt)
+     */
+    public One2AnyChannelInt createOne2Any(ChannelDataStoreInt buffer)
+    {
+        return createOne2Any(buffer, null);
+    }
+
+    /**
+     * Constructs and returns a buffered <code>Any2AnyChannelInt</code> object.
+     *
+     * @param	buffer	the <code>ChannelDataStoreInt</code> to use (it is cloned).
+     * @return the buffered channel.
+     *
+     * @see BufferedChannelIntFactory#createAny2Any(ChannelDataStoreInt)
+     */
+    public Any2AnyChannelInt createAny2Any(ChannelDataStoreInt buffer)
+    {
+        return createAny2Any(buffer, null);
+    }
+
+    /**
+     * Constructs and returns an array of buffered <code>One2OneChannelInt</code> objects.
+     *
+     * @param	buffer	the <code>ChannelDataStoreInt</code> to use (it is cloned for each).
+     * @param	n	    the size of the array of channels.
+     * @return the array of buffered channels.
+     *
+     * @see BufferedChannelIntArrayFactory#createOne2One(ChannelDataStoreInt,int)
+     */
+    public One2OneChannelInt[] createOne2One(ChannelDataStoreInt buffer, int n)
+    {
+        One2OneChannelInt[] toReturn = new One2OneChannelInt[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createOne2One(buffer);
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of buffered <code>Any2OneChannelInt</code> objects.
+     *
+     * @param	buffer	the <code>ChannelDataStoreInt</code> to use (it is cloned for each).
+     * @param	n	    the size of the array of channels.
+     * @return the array of buffered channels.
+     *
+     * @see BufferedChannelIntArrayFactory#createAny2One(ChannelDataStoreInt,int)
+     */
+    public Any2OneChannelInt[] createAny2One(ChannelDataStoreInt buffer, int n)
+    {
+        Any2OneChannelInt[] toReturn = new Any2OneChannelInt[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createAny2One(buffer);
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of buffered <code>One2AnyChannelInt</code> objects.
+     *
+     * @param	buffer	the <code>ChannelDataStoreInt</code> to use (it is cloned for each).
+     * @param	n	    the size of the array of channels.
+     * @return the array of buffered channels.
+     *
+     * @see BufferedChannelIntArrayFactory#createOne2Any(ChannelDataStoreInt,int)
+     */
+    public One2AnyChannelInt[] createOne2Any(ChannelDataStoreInt buffer, int n)
+    {
+        One2AnyChannelInt[] toReturn = new One2AnyChannelInt[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createOne2Any(buffer);
+        return toReturn;
+    }
+
+    /**
+     * Constructs and returns an array of buffered <code>Any2AnyChannelInt</code> objects.
+     *
+     * @param	buffer	the <code>ChannelDataStoreInt</code> to use (it is cloned for each).
+     * @param	n	    the size of the array of channels.
+     * @return the array of buffered channels.
+     *
+     * @see BufferedChannelIntArrayFactory#createAny2Any(ChannelDataStoreInt,int)
+     */
+    public Any2AnyChannelInt[] createAny2Any(ChannelDataStoreInt buffer, int n)
+    {
+        Any2AnyChannelInt[] toReturn = new Any2AnyChannelInt[n];
+        for (int i = 0; i < n; i++)
+            toReturn[i] = createAny2Any(buffer);
+        return toReturn;
+    }
+}
@@ -0,0 +1,257 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * These are the {@link Events} hooks that emit Java Flight Recorder events.
+ * <H2>Description</H2>
+ * This class needs <TT>jdk.jfr</TT> (Java 11 or later) and is only ever loaded
+ * reflectively, by {@link Events}.  The events, all in the <TT>JCSP</TT> category, are:
+ * <TABLE BORDER="2">
+ *   <TR><TH>Name</TH><TH>Recorded for</TH><TH>Default threshold</TH></TR>
+ *   <TR><TD><TT>jcsp.ChannelRead</TT></TD><TD>a channel <TT>read</TT> (or <TT>startRead</TT>)</TD><TD>1 ms</TD></TR>
+ *   <TR><TD><TT>jcsp.ChannelWrite</TT></TD><TD>a channel <TT>write</TT></TD><TD>1 ms</TD></TR>
+ *   <TR><TD><TT>jcsp.AlternativeSelect</TT></TD><TD>an {@link Alternative} select, with the index selected</TD><TD>1 ms</TD></TR>
+ *   <TR><TD><TT>jcsp.BarrierSync</TT></TD><TD>a {@link Barrier} <TT>sync</TT></TD><TD>1 ms</TD></TR>
+ *   <TR><TD><TT>jcsp.BucketFallInto</TT></TD><TD>a {@link Bucket} <TT>fallInto</TT></TD><TD>1 ms</TD></TR>
+ *   <TR><TD><TT>jcsp.ParallelRun</TT></TD><TD>a {@link Parallel} <TT>run</TT>, from start to finish</TD><TD>0</TD></TR>
+ * </TABLE>
+ * The thresholds may be changed in the recording settings, for example:
+ * <PRE>
+ *   jfr configure jcsp.ChannelRead#threshold=100us ...
+ * </PRE>
+ * Channels built by an {@link InstrumentedChannelFactory} are identified by their names;
+ * other channels, barriers and buckets by class and identity.
+ *
+ * @author Kevin Chalmers
+ */
+
+class JfrEvents extends Events
+{
+    Object beginRead()
+    {
+        final ChannelRead e = new ChannelRead();
+        if (!e.isEnabled())
+        {
+            return null;
+        }
+        e.begin();
+        return e;
+    }
+
+    Object beginWrite()
+    {
+        final ChannelWrite e = new ChannelWrite();
+        if (!e.isEnabled())
+        {
+            return null;
+        }
+        e.begin();
+        return e;
+    }
+
+    Object beginSelect()
+    {
+        final AlternativeSelect e = new AlternativeSelect();
+        if (!e.isEnabled())
+        {
+            return null;
+        }
+        e.begin();
+        return e;
+    }
+
+    Object beginSync()
+    {
+        final BarrierSync e = new BarrierSync();
+        if (!e.isEnabled())
+        {
+            return null;
+        }
+        e.begin();
+        return e;
+    }
+
+    Object beginFallInto()
+    {
+        final BucketFallInto e = new BucketFallInto();
+        if (!e.isEnabled())
+        {
+            return null;
+        }
+        e.begin();
+        return e;
+    }
+
+    Object beginParallel()
+    {
+        final ParallelRun e = new ParallelRun();
+        if (!e.isEnabled())
+        {
+            return null;
+        }
+        e.begin();
+        return e;
+    }
+
+    void end(final Object event, final Object target)
+    {
+        final Event e = (Event) event;
+        e.end();
+        if (!e.shouldCommit())
+        {
+            return;
+        }
+        if (e instanceof ChannelRead)
+        {
+            ((ChannelRead) e).channel = describe(target);
+        }
+        else if (e instanceof ChannelWrite)
+        {
+            ((ChannelWrite) e).channel = describe(target);
+        }
+        else if (e instanceof BarrierSync)
+        {
+            ((BarrierSync) e).barrier = describe(target);
+        }
+        else if (e instanceof BucketFallInto)
+        {
+            ((BucketFallInto) e).bucket = describe(target);
+        }
+        e.commit();
+    }
+
+    void endSelect(final Object event, final int selected, final int guards)
+    {
+        final AlternativeSelect e = (AlternativeSelect) event;
+        e.end();
+        if (e.shouldCommit())
+        {
+            e.selected = selected;
+            e.guards = guards;
+            e.commit();
+        }
+    }
+
+    void endParallel(final Object event, final int processes)
+    {
+        final ParallelRun e = (ParallelRun) event;
+        e.end();
+        if (e.shouldCommit())
+        {
+            e.processes = processes;
+            e.commit();
+        }
+    }
+
+    /**
+     * Returns the registered name of an instrumented channel, or else the class and
+     * identity of <TT>target</TT>.
+     */
+    private static String describe(final Object target)
+    {
+        if (target instanceof InstrumentedChannel)
+        {
+            return ((InstrumentedChannel) target).getMetrics().getName();
+        }
+        if (target instanceof InstrumentedChannelInt)
+        {
+            return ((InstrumentedChannelInt) target).getMetrics().getName();
+        }
+        final String c = target.getClass().getName();
+        return c.substring(c.lastIndexOf('.') + 1) + "@" +
+               Integer.toHexString(System.identityHashCode(target));
+    }
+
+    @Name("jcsp.ChannelRead")
+    @Label("Channel Read")
+    @Description("A process waiting to read from a channel")
+    @Category("JCSP")
+    @Threshold("1 ms")
+    static final class ChannelRead extends Event
+    {
+        @Label("Channel")
+        String channel;
+    }
+
+    @Name("jcsp.ChannelWrite")
+    @Label("Channel Write")
+    @Description("A process waiting to write to a channel")
+    @Category("JCSP")
+    @Threshold("1 ms")
+    static final class ChannelWrite extends Event
+    {
+        @Label("Channel")
+        String channel;
+    }
+
+    @Name("jcsp.AlternativeSelect")
+    @Label("Alternative Select")
+    @Description("A process waiting for one of the guards of an Alternative")
+    @Category("JCSP")
+    @Threshold("1 ms")
+    static final class AlternativeSelect extends Event
+    {
+        @Label("Selected Index")
+        int selected;
+
+        @Label("Guards")
+        int guards;
+    }
+
+    @Name("jcsp.BarrierSync")
+    @Label("Barrier Sync")
+    @Description("A process waiting on a barrier")
+    @Category("JCSP")
+    @Threshold("1 ms")
+    static final class BarrierSync extends Event
+    {
+        @Label("Barrier")
+        String barrier;
+    }
+
+    @Name("jcsp.BucketFallInto")
+    @Label("Bucket Fall Into")
+    @Description("A process waiting in a bucket to be flushed")
+    @Category("JCSP")
+    @Threshold("1 ms")
+    static final class BucketFallInto extends Event
+    {
+        @Label("Bucket")
+        String bucket;
+    }
+
+    @Name("jcsp.ParallelRun")
+    @Label("Parallel Run")
+    @Description("A Parallel running its processes, from start to finish")
+    @Category("JCSP")
+    static final class ParallelRun extends Event
+    {
+        @Label("Processes")
+        int processes;
+    }
+}
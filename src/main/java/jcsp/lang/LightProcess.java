@@ -0,0 +1,445 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * This is a cooperative process that suspends, rather than blocks a thread,
+ * when it has to wait.
+ * <H2>Description</H2>
+ * An ordinary {@link CSProcess} owns a <TT>Thread</TT> (and its stack) for the whole
+ * of its life, most of which is usually spent blocked on a channel.  A
+ * <TT>LightProcess</TT> owns no thread.  It is written as a <I>state machine</I>:
+ * its {@link #step()} method is called by one of the worker threads of a
+ * {@link LightRuntime} whenever the process may be able to make progress, does as
+ * much as it can without blocking, and returns.  A handful of workers (one per core,
+ * by default) can therefore multiplex a very large number of such processes -- each
+ * costs a few tens of bytes plus the state it chooses to keep.
+ * <P>
+ * Inside <TT>step</TT>, the process waits by <I>asking</I> whether it can proceed:
+ * <UL>
+ *   <LI>{@link #await(Guard)} returns <TT>true</TT> if the guard is ready -- for a channel
+ *     input, a following <TT>read</TT> will not block.  Otherwise it arranges for the process
+ *     to be stepped again when the guard becomes ready, and returns <TT>false</TT>.</LI>
+ *   <LI>{@link #write(ChannelOutput, Object)} returns <TT>true</TT> if the write has completed.
+ *     Otherwise it arranges for the process to be stepped again once it has, and returns
+ *     <TT>false</TT>.</LI>
+ *   <LI>{@link #block(Runnable)} runs any other blocking operation on a helper thread and
+ *     steps the process again when it has finished.</LI>
+ * </UL>
+ * When one of these returns <TT>false</TT>, <TT>step</TT> must return promptly, keeping
+ * whatever it needs to resume in fields of the process.  A process that returns from
+ * <TT>step</TT> without waiting in this way has simply <I>yielded</I>: it is stepped again
+ * after the other ready processes.  A process ends by calling {@link #terminate()}.
+ * <P>
+ * A process may occasionally be stepped when nothing it awaits has happened (for example,
+ * after an earlier timeout has expired).  <TT>await</TT> simply returns <TT>false</TT>
+ * again, so a <TT>step</TT> written as above needs no special care.  A <TT>write</TT>
+ * that returned <TT>false</TT>, however, is always complete by the next <TT>step</TT>.
+ * <H2>Interoperation</H2>
+ * Light processes use the ordinary channels made by {@link Channel} and
+ * {@link StandardChannelFactory}, and so talk freely to ordinary processes:
+ * <UL>
+ *   <LI>Any {@link Guard} except an {@link AltingBarrier} may be awaited: channel inputs
+ *     (of any kind), <I>CALL</I> channel accepts, {@link CSTimer}s (whose alarm is
+ *     served by the runtime's timer, or by the timing wheel if the timer
+ *     {@link CSTimer#setTimingWheel(boolean) uses} it) and {@link Skip}s.  An awaited
+ *     input is read with its usual <TT>read</TT> method, which will not block.</LI>
+ *   <LI>Writes to {@link Channel#one2oneLockFree() lock-free} <I>one-one</I> channels
+ *     suspend the writer without any thread.  Writes to any other channel are performed by
+ *     {@link #block(Runnable)} -- correct, but at the cost of a helper thread while the
+ *     write is outstanding.</LI>
+ *   <LI>Ordinary processes read and write those same channels with the usual blocking
+ *     methods.</LI>
+ *   <LI>A <TT>LightProcess</TT> is itself a <TT>CSProcess</TT>: its {@link #run()} starts
+ *     it on the {@link LightRuntime#getDefault() default runtime} and waits for it to
+ *     terminate, so it may be placed in a {@link Parallel} (though that spends a thread
+ *     on the waiting -- see {@link LightRuntime#run(LightProcess[])} for the cheap way).</LI>
+ * </UL>
+ * <H2>Example</H2>
+ * This doubles each number passing through it.  All of its state, other than the
+ * channel ends, lives in the position of the loop:
+ * <PRE>
+ * import jcsp.lang.*;
+ *
+ * public class LightDouble extends LightProcess {
+ *
+ *   private final AltingChannelInput in;
+ *   private final ChannelOutput out;
+ *
+ *   public LightDouble (final AltingChannelInput in, final ChannelOutput out) {
+ *     this.in = in;
+ *     this.out = out;
+ *   }
+ *
+ *   protected void step () {
+ *     while (await (in)) {                       // false: resumed when in is ready
+ *       final int n = ((Integer) in.read ()).intValue ();
+ *       if (!write (out, new Integer (2*n))) {
+ *         return;                                // resumed when the write has completed
+ *       }
+ *     }
+ *   }
+ *
+ * }
+ * </PRE>
+ * A pipeline of a million of these (connected by
+ * {@link Channel#one2oneLockFree() lock-free} channels) runs on the default
+ * runtime's workers with:
+ * <PRE>
+ *   LightRuntime.getDefault ().run (pipeline);
+ * </PRE>
+ * <H2>Warnings</H2>
+ * <TT>step</TT> must not block: a blocking call in <TT>step</TT> takes a worker away from
+ * every other light process.  In particular, the <TT>read</TT> of a channel input that
+ * has not been awaited, and the blocking methods of {@link CSTimer}, {@link Barrier} and
+ * friends, must be wrapped in {@link #block(Runnable)}.  A light process can only wait for
+ * one thing at a time; to wait for a choice of events, await each of them in the same
+ * <TT>step</TT> -- all that return <TT>false</TT> remain enabled until it is stepped again.
+ *
+ * @see LightRuntime
+ * @see CSProcess
+ *
+ * @author Kevin Chalmers
+ */
+
+public abstract class LightProcess implements CSProcess
+{
+    private static final int NEW = 0;
+    private static final int QUEUED = 1;
+    private static final int RUNNING = 2;
+    private static final int RUNNING_WOKEN = 3;
+    private static final int SUSPENDED = 4;
+    private static final int TERMINATED = 5;
+
+    private static final AtomicIntegerFieldUpdater statusUpdater =
+        AtomicIntegerFieldUpdater.newUpdater (LightProcess.class, "status");
+
+    /** The scheduling status of this process */
+    private volatile int status = NEW;
+
+    /**
+     * The monitor on which {@link #join()} waits (private, so that user code locking
+     * the process cannot block its termination or take its notification)
+     */
+    private final Object joinLock = new Object ();
+
+    /** The runtime on which this process is (or was last) started */
+    private LightRuntime runtime;
+
+    /** The Alternative through which awaited guards wake this process (made on demand) */
+    private Waker waker;
+
+    /** The guards enabled by the last step (disabled before the next one) */
+    private Guard[] enabled;
+
+    /** The number of entries of <TT>enabled</TT> in use */
+    private int nEnabled;
+
+    /** The channel of an outstanding {@link #write(ChannelOutput, Object)}, if any */
+    private LockFreeOne2OneChannelImpl pendingWrite;
+
+    /** Set while a {@link #block(Runnable)} operation is outstanding */
+    private volatile boolean blocked;
+
+    /** Set by any wait in the current step */
+    private boolean suspended;
+
+    /** Set by {@link #terminate()} */
+    private boolean terminating;
+
+    /** The next process in the runtime's run queue (guarded by the runtime) */
+    LightProcess next;
+
+    /** The timeout of this process (made on demand, guarded by the runtime) */
+    LightRuntime.Alarm alarm;
+
+    /**
+     * This is the body of the process.  It is called by a worker of the
+     * {@link LightRuntime} whenever the process may be able to make progress,
+     * and must return without blocking (see the class description).
+     */
+    protected abstract void step ();
+
+    /**
+     * Returns whether <TT>guard</TT> is ready.  If it is not, the process will be stepped
+     * again when it becomes ready (or earlier) and <TT>step</TT> must return.
+     * <P>
+     * Several guards may be awaited in one step: the process is stepped again when any
+     * of them becomes ready.
+     *
+     * @param guard a channel input, <I>CALL</I> channel accept, <TT>CSTimer</TT> or <TT>Skip</TT>.
+     * @return true if the guard is ready.
+     * @throws IllegalArgumentException if <TT>guard</TT> is an <TT>AltingBarrier</TT>.
+     */
+    protected final boolean await (final Guard guard) {
+      if (guard instanceof MultiwaySynchronisation) {
+        throw new IllegalArgumentException (
+          "*** A LightProcess cannot await an AltingBarrier\n"
+        );
+      }
+      if (waker == null) {
+        waker = new Waker (this);
+      }
+      if (guard.enable (waker)) {
+        guard.disable ();
+        return true;
+      }
+      if (enabled == null) {
+        enabled = new Guard[1];
+      } else if (nEnabled == enabled.length) {
+        final Guard[] g = new Guard[2*nEnabled];
+        System.arraycopy (enabled, 0, g, 0, nEnabled);
+        enabled = g;
+      }
+      enabled[nEnabled++] = guard;
+      suspended = true;
+      return false;
+    }
+
+    /**
+     * Writes <TT>value</TT> to <TT>out</TT>.  If the write has not completed on return,
+     * the process will be stepped again once it has, and <TT>step</TT> must return.
+     * <P>
+     * Only writes to {@link Channel#one2oneLockFree() lock-free} <I>one-one</I> channels
+     * suspend the process without the use of a thread.  Others are made by
+     * {@link #block(Runnable)}.
+     *
+     * @param out the channel to write to.
+     * @param value the object to write.
+     * @return true if the write has completed.
+     */
+    protected final boolean write (final ChannelOutput out, final Object value) {
+      if (out instanceof ChannelOutputImpl) {
+        final ChannelInternals channel = ((ChannelOutputImpl) out).getChannel ();
+        if (channel instanceof LockFreeOne2OneChannelImpl) {
+          final LockFreeOne2OneChannelImpl c = (LockFreeOne2OneChannelImpl) channel;
+          if (c.lightWrite (value, this)) {
+            return true;
+          }
+          pendingWrite = c;
+          suspended = true;
+          return false;
+        }
+      }
+      return block (new Runnable () {
+        public void run () {
+          out.write (value);
+        }
+      });
+    }
+
+    /**
+     * Runs a blocking operation on one of the runtime's helper threads.  The process
+     * will be stepped again once it has finished, and <TT>step</TT> must return.  Any
+     * exception thrown by the operation is reported and terminates the process.
+     *
+     * @param operation the operation to run.
+     * @return false, always.
+     */
+    protected final boolean block (final Runnable operation) {
+      blocked = true;
+      suspended = true;
+      runtime.block (new Runnable () {
+        public void run () {
+          try {
+            operation.run ();
+          }
+          catch (Throwable e) {
+            Parallel.uncaughtException ("jcsp.lang.LightProcess", e);
+            terminating = true;
+          }
+          finally {
+            blocked = false;
+            wake ();
+          }
+        }
+      });
+      return false;
+    }
+
+    /**
+     * Terminates the process: it will not be stepped again once the current
+     * <TT>step</TT> returns.
+     */
+    protected final void terminate () {
+      terminating = true;
+    }
+
+    /**
+     * Returns whether this process has terminated.
+     *
+     * @return true if the process has terminated.
+     */
+    public final boolean isTerminated () {
+      return status == TERMINATED;
+    }
+
+    /**
+     * Waits for this process to terminate.
+     */
+    public final void join () {
+      synchronized (joinLock) {
+        while (status != TERMINATED) {
+          try {
+            joinLock.wait ();
+          }
+          catch (InterruptedException e) {
+            throw new ProcessInterruptedException (
+              "*** Thrown from LightProcess.join ()\n" + e.toString ()
+            );
+          }
+        }
+      }
+    }
+
+    /**
+     * Runs this process on the {@link LightRuntime#getDefault() default runtime}
+     * and waits for it to terminate.
+     */
+    public void run () {
+      LightRuntime.getDefault ().start (this);
+      join ();
+    }
+
+    /**
+     * Binds this process to <TT>runtime</TT>, ready to be queued for its first step.
+     *
+     * @param runtime the runtime to run on.
+     */
+    final void bind (final LightRuntime runtime) {
+      final int s = status;
+      if (((s != NEW) && (s != TERMINATED)) || !statusUpdater.compareAndSet (this, s, QUEUED)) {
+        throw new IllegalStateException (
+          "*** Attempt to start a LightProcess that is already running\n"
+        );
+      }
+      this.runtime = runtime;
+      terminating = false;
+    }
+
+    /**
+     * Makes the process ready to be stepped.  Wakes to a process that is not
+     * suspended are remembered (if it is running) or ignored.
+     */
+    final void wake () {
+      while (true) {
+        final int s = status;
+        if (s == SUSPENDED) {
+          if (statusUpdater.compareAndSet (this, SUSPENDED, QUEUED)) {
+            runtime.enqueue (this);
+            return;
+          }
+        } else if (s == RUNNING) {
+          if (statusUpdater.compareAndSet (this, RUNNING, RUNNING_WOKEN)) {
+            return;
+          }
+        } else {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Called by a worker of the runtime to step this (queued) process.
+     */
+    final void resume () {
+      status = RUNNING;
+      if (blocked || ((pendingWrite != null) && !pendingWrite.lightWriteComplete ())) {
+        suspend ();                   // woken early: keep waiting
+        return;
+      }
+      pendingWrite = null;
+      for (int i = 0; i < nEnabled; i++) {
+        enabled[i].disable ();
+        enabled[i] = null;
+      }
+      nEnabled = 0;
+      runtime.cancelAlarm (this);
+      suspended = false;
+      if (!terminating) {
+        try {
+          step ();
+        }
+        catch (Throwable e) {
+          Parallel.uncaughtException ("jcsp.lang.LightProcess", e);
+          terminating = true;
+        }
+      }
+      if (terminating && !blocked && (pendingWrite == null)) {
+        for (int i = 0; i < nEnabled; i++) {
+          enabled[i].disable ();
+          enabled[i] = null;
+        }
+        nEnabled = 0;
+        runtime.cancelAlarm (this);
+        runtime.terminated (this);    // counted out before anyone joining returns
+        synchronized (joinLock) {
+          status = TERMINATED;
+          joinLock.notifyAll ();
+        }
+      } else if (suspended || terminating) {
+        suspend ();
+      } else {
+        status = QUEUED;              // yielded
+        runtime.enqueue (this);
+      }
+    }
+
+    /**
+     * Leaves the running state, re-queueing the process if it was woken meanwhile.
+     */
+    private void suspend () {
+      if (!statusUpdater.compareAndSet (this, RUNNING, SUSPENDED)) {
+        status = QUEUED;              // RUNNING_WOKEN
+        runtime.enqueue (this);
+      }
+    }
+
+    /**
+     * The Alternative through which awaited guards (and timeouts) wake the process.
+     * It is never used to select: guards only call back {@link #schedule()} and
+     * {@link #setTimeout(long)}.
+     */
+    private static final class Waker extends Alternative
+    {
+        private final LightProcess process;
+
+        Waker (final LightProcess process) {
+          super (new Guard[0]);
+          this.process = process;
+        }
+
+        void schedule () {
+          process.wake ();
+        }
+
+        void setTimeout (final long msecs) {
+          process.runtime.wakeAt (process, msecs);
+        }
+
+        void setTimeoutNanos (final long nanos, final long spin) {
+          // the runtime's timer works in milliseconds: round up
+          final long delay = nanos - System.nanoTime ();
+          process.runtime.wakeAt (process, System.currentTimeMillis () + (delay + 999999L) / 1000000L);
+        }
+    }
+}
@@ -0,0 +1,426 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This runs {@link LightProcess}es on a fixed set of worker threads.
+ * <H2>Description</H2>
+ * A <TT>LightRuntime</TT> keeps a queue of the light processes that are ready
+ * to make progress.  Each of its worker threads repeatedly takes a process from the
+ * queue and calls its {@link LightProcess#step() step}; a process that then has to
+ * wait is simply not re-queued until whatever it waits for -- a channel becoming
+ * ready, a write completing, a timeout, a {@link LightProcess#block(Runnable) blocking
+ * operation} finishing -- wakes it.  No thread is held by a waiting process.
+ * <P>
+ * The runtime also has (created on demand):
+ * <UL>
+ *   <LI>a timer thread, which wakes processes awaiting {@link CSTimer} guards;</LI>
+ *   <LI>a cached pool of helper threads, which run
+ *     {@link LightProcess#block(Runnable) blocking operations}.</LI>
+ * </UL>
+ * All of its threads are daemons.
+ * <P>
+ * Most programs need only the {@link #getDefault() default runtime}, which has one
+ * worker per available processor.  Light processes are started with
+ * {@link #start(LightProcess)} (which returns at once) or {@link #run(LightProcess[])}
+ * (which waits for them all to terminate).
+ *
+ * @see LightProcess
+ *
+ * @author Kevin Chalmers
+ */
+
+public final class LightRuntime
+{
+    /** The default runtime (created on demand) */
+    private static LightRuntime defaultRuntime;
+
+    /**
+     * Guards the run queue: the processes that are ready to be stepped, linked
+     * through their <TT>next</TT> fields (a process is never queued twice, so
+     * queueing one allocates nothing)
+     */
+    private final Object runLock = new Object ();
+
+    /** The head of the run queue (guarded by <TT>runLock</TT>) */
+    private LightProcess head;
+
+    /** The tail of the run queue (guarded by <TT>runLock</TT>) */
+    private LightProcess tail;
+
+    /** The number of workers waiting for the run queue (guarded by <TT>runLock</TT>) */
+    private int idle = 0;
+
+    /** The worker threads */
+    private final Thread[] workers;
+
+    /** The number of processes started and not yet terminated */
+    private final AtomicInteger live = new AtomicInteger ();
+
+    /** The number of steps taken by the workers */
+    private final AtomicLong steps = new AtomicLong ();
+
+    /** Pending timeouts, earliest first, at most one per process (guarded by itself) */
+    private final PriorityQueue alarms = new PriorityQueue ();
+
+    /** The timer thread (created on demand, guarded by <TT>alarms</TT>) */
+    private Thread timer;
+
+    /** The helper threads for blocking operations (created on demand) */
+    private ExecutorService helpers;
+
+    /** Set by {@link #shutdown()} */
+    private volatile boolean shutdown = false;
+
+    /**
+     * Constructs a runtime with one worker per available processor.
+     */
+    public LightRuntime () {
+      this (Runtime.getRuntime ().availableProcessors ());
+    }
+
+    /**
+     * Constructs a runtime with the given number of workers.
+     *
+     * @param nWorkers the number of worker threads.
+     */
+    public LightRuntime (final int nWorkers) {
+      if (nWorkers < 1) {
+        throw new IllegalArgumentException (
+          "*** Attempt to create a LightRuntime with no workers: " + nWorkers + "\n"
+        );
+      }
+      workers = new Thread[nWorkers];
+      for (int i = 0; i < nWorkers; i++) {
+        workers[i] = new Thread (new Worker (), "jcsp.lang.LightRuntime worker " + i);
+        workers[i].setDaemon (true);
+        workers[i].start ();
+      }
+    }
+
+    /**
+     * Returns the default runtime, creating it (with one worker per available
+     * processor) if necessary.
+     *
+     * @return the default runtime.
+     */
+    public static synchronized LightRuntime getDefault () {
+      if (defaultRuntime == null) {
+        defaultRuntime = new LightRuntime ();
+      }
+      return defaultRuntime;
+    }
+
+    /**
+     * Starts a light process on this runtime.  This returns at once.
+     *
+     * @param process the process to start.
+     * @throws IllegalStateException if the process is already running.
+     */
+    public void start (final LightProcess process) {
+      if (shutdown) {
+        throw new IllegalStateException (
+          "*** Attempt to start a LightProcess on a LightRuntime that has been shut down\n"
+        );
+      }
+      process.bind (this);
+      live.incrementAndGet ();
+      enqueue (process);
+    }
+
+    /**
+     * Starts light processes on this runtime.  This returns at once.
+     *
+     * @param processes the processes to start.
+     */
+    public void start (final LightProcess[] processes) {
+      for (int i = 0; i < processes.length; i++) {
+        start (processes[i]);
+      }
+    }
+
+    /**
+     * Starts light processes on this runtime and waits for them all to terminate.
+     * This is the light process equivalent of running a {@link Parallel}.
+     *
+     * @param processes the processes to run.
+     */
+    public void run (final LightProcess[] processes) {
+      start (processes);
+      for (int i = 0; i < processes.length; i++) {
+        processes[i].join ();
+      }
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the number of worker threads.
+     */
+    public int getWorkerCount () {
+      return workers.length;
+    }
+
+    /**
+     * Returns the number of processes started on this runtime that have not yet
+     * terminated.
+     *
+     * @return the number of live processes.
+     */
+    public int getLiveCount () {
+      return live.get ();
+    }
+
+    /**
+     * Returns the number of {@link LightProcess#step() steps} the workers have run.
+     * Workers publish their counts in batches, so this may lag by a few hundred
+     * steps per worker.
+     *
+     * @return the number of steps run.
+     */
+    public long getStepCount () {
+      return steps.get ();
+    }
+
+    /**
+     * Stops the workers, timer and helper threads once they are idle.  Processes that
+     * have not terminated are abandoned.  This may not be applied to the
+     * {@link #getDefault() default runtime}.
+     */
+    public void shutdown () {
+      synchronized (LightRuntime.class) {
+        if (this == defaultRuntime) {
+          throw new IllegalStateException (
+            "*** Attempt to shut down the default LightRuntime\n"
+          );
+        }
+      }
+      shutdown = true;
+      for (int i = 0; i < workers.length; i++) {
+        workers[i].interrupt ();
+      }
+      synchronized (alarms) {
+        if (timer != null) {
+          timer.interrupt ();
+        }
+        if (helpers != null) {
+          helpers.shutdown ();
+        }
+      }
+    }
+
+    /**
+     * Queues a process to be stepped.
+     */
+    void enqueue (final LightProcess process) {
+      synchronized (runLock) {
+        process.next = null;
+        if (tail == null) {
+          head = process;
+        } else {
+          tail.next = process;
+        }
+        tail = process;
+        if (idle > 0) {
+          runLock.notify ();
+        }
+      }
+    }
+
+    /**
+     * Takes the next process from the run queue, waiting if it is empty.
+     */
+    private LightProcess take () throws InterruptedException {
+      synchronized (runLock) {
+        while (head == null) {
+          idle++;
+          try {
+            runLock.wait ();
+          }
+          finally {
+            idle--;
+          }
+        }
+        final LightProcess process = head;
+        head = process.next;
+        if (head == null) {
+          tail = null;
+        }
+        process.next = null;
+        return process;
+      }
+    }
+
+    /**
+     * Called once when a process has terminated.
+     */
+    void terminated (final LightProcess process) {
+      live.decrementAndGet ();
+    }
+
+    /**
+     * Runs a blocking operation on a helper thread.
+     */
+    void block (final Runnable operation) {
+      synchronized (alarms) {
+        if (helpers == null) {
+          helpers = Executors.newCachedThreadPool (new ThreadFactory () {
+            private int n = 0;
+            public Thread newThread (final Runnable r) {
+              final Thread t = new Thread (r, "jcsp.lang.LightRuntime helper " + (n++));
+              t.setDaemon (true);
+              return t;
+            }
+          });
+        }
+      }
+      helpers.execute (operation);
+    }
+
+    /**
+     * Wakes <TT>process</TT> at (or shortly after) the absolute time <TT>msecs</TT>
+     * -- unless it already has an earlier alarm pending.  The alarm is cancelled
+     * (by {@link #cancelAlarm(LightProcess)}) when the process is next stepped.
+     */
+    void wakeAt (final LightProcess process, final long msecs) {
+      synchronized (alarms) {
+        Alarm alarm = process.alarm;
+        if (alarm == null) {
+          alarm = new Alarm (process);
+          process.alarm = alarm;
+        } else if (alarm.pending) {
+          if (alarm.msecs <= msecs) {
+            return;
+          }
+          alarms.remove (alarm);
+        }
+        alarm.msecs = msecs;
+        alarm.pending = true;
+        alarms.add (alarm);
+        if (timer == null) {
+          timer = new Thread (new Timer (), "jcsp.lang.LightRuntime timer");
+          timer.setDaemon (true);
+          timer.start ();
+        } else if (alarms.peek () == alarm) {
+          alarms.notify ();            // the new alarm is the earliest
+        }
+      }
+    }
+
+    /**
+     * Cancels the pending alarm of <TT>process</TT>, if any.  This is called by the
+     * process itself, before each step: whatever the alarm guarded is over.
+     */
+    void cancelAlarm (final LightProcess process) {
+      final Alarm alarm = process.alarm;
+      if ((alarm != null) && alarm.pending) {     // only the process itself makes it pending
+        synchronized (alarms) {
+          if (alarm.pending) {
+            alarms.remove (alarm);
+            alarm.pending = false;
+          }
+        }
+      }
+    }
+
+    /**
+     * The loop run by each worker thread.
+     */
+    private final class Worker implements Runnable
+    {
+        public void run () {
+          long n = 0;
+          while (!shutdown) {
+            final LightProcess process;
+            try {
+              process = take ();
+            }
+            catch (InterruptedException e) {
+              break;
+            }
+            process.resume ();
+            if ((++n & 0xff) == 0) {
+              steps.addAndGet (256);
+            }
+          }
+          steps.addAndGet (n & 0xff);
+        }
+    }
+
+    /**
+     * The loop run by the timer thread.
+     */
+    private final class Timer implements Runnable
+    {
+        public void run () {
+          while (!shutdown) {
+            final LightProcess process;
+            synchronized (alarms) {
+              final Alarm first = (Alarm) alarms.peek ();
+              final long delay =
+                (first == null) ? 0 : first.msecs - System.currentTimeMillis ();
+              if ((first == null) || (delay > 0)) {
+                try {
+                  alarms.wait (delay);
+                }
+                catch (InterruptedException e) {
+                  return;
+                }
+                continue;
+              }
+              alarms.poll ();
+              first.pending = false;
+              process = first.process;
+            }
+            process.wake ();
+          }
+        }
+    }
+
+    /**
+     * The timeout of a process (reused for each of its timeouts).
+     */
+    static final class Alarm implements Comparable
+    {
+        final LightProcess process;
+
+        /** The absolute time of the timeout (guarded by <TT>alarms</TT>) */
+        long msecs;
+
+        /** Whether the alarm is in <TT>alarms</TT> (only set under <TT>alarms</TT>) */
+        volatile boolean pending = false;
+
+        Alarm (final LightProcess process) {
+          this.process = process;
+        }
+
+        public int compareTo (final Object o) {
+          final long other = ((Alarm) o).msecs;
+          return (msecs < other) ? -1 : ((msecs == other) ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import jcsp.util.BufferSizeError;
+
+/**
+ * This implements an any-to-one object channel with a FIFO buffer, without a global lock.
+ * <H2>Description</H2>
+ * <TT>LockFreeBufferedAny2OneChannel</TT> is a FIFO-buffered channel that any number
+ * of writers may share.  The reading process may {@link Alternative <TT>ALT</TT>} on it
+ * and use the extended rendezvous, and each writer is committed.  A writer waits only
+ * while the buffer is full: it returns as soon as its object is buffered.  (This differs
+ * slightly from a {@link BufferedAny2OneChannel} with a {@link jcsp.util.Buffer}, whose
+ * writer waits <I>after</I> filling the buffer, holding up all the other writers meanwhile.)
+ * <P>
+ * <TT>BufferedAny2OneChannel</TT> passes every writer through a shared write monitor
+ * and then the channel's own monitor.  Here, a writer instead claims a <I>ticket</I>
+ * (the sequence number of its slot in a power-of-two ring) with a single compare-and-set,
+ * and deposits its object straight into that slot.  Writers therefore only contend on the
+ * ticket counter, and never wait for each other -- only for room in the buffer.
+ * The reader takes the slots in ticket order, so messages from any one writer stay in order.
+ * <P>
+ * The reader waits (spinning according to its {@link WaitStrategy}, then parking) only
+ * for the slot at the head of the ring.  It is woken only by the writer holding that ticket,
+ * with a targeted {@link LockSupport#unpark(Thread)} -- or, if it is <TT>ALT</TT>ing,
+ * through its {@link Alternative}, which is claimed with a compare-and-set so that it is
+ * never scheduled after it has finished its select.  No lock is involved.
+ * <P>
+ * A writer that finds the buffer full spins and then waits on a monitor that is used for
+ * nothing else.  The reader only touches that monitor when some writer is actually waiting,
+ * and then wakes just one writer for each slot it frees.
+ * <P>
+ * Channels of this kind are obtained from {@link Channel#any2oneLockFree(int)}.
+ *
+ * @see BufferedAny2OneChannel
+ * @see LockFreeBufferedOne2OneChannel
+ *
+ * @author Kevin Chalmers
+ */
+
+class LockFreeBufferedAny2OneChannel implements Any2OneChannel, ChannelInternals
+{
+    private static final int NO_ALT = 0;
+    private static final int ALT_ENABLED = 1;
+    private static final int ALT_SCHEDULING = 2;
+
+    private static final AtomicIntegerFieldUpdater altStateUpdater =
+        AtomicIntegerFieldUpdater.newUpdater (LockFreeBufferedAny2OneChannel.class, "altState");
+
+    private static final AtomicIntegerFieldUpdater waitingWritersUpdater =
+        AtomicIntegerFieldUpdater.newUpdater (LockFreeBufferedAny2OneChannel.class, "waitingWriters");
+
+    /** Stands in the ring for a <TT>null</TT> message (an empty slot is <TT>null</TT>) */
+    private static final Object NULL = new Object ();
+
+    /** The ring of buffered objects */
+    private final AtomicReferenceArray ring;
+
+    /** The ring length - 1 */
+    private final int mask;
+
+    /**
+     * The number of objects the ring may hold: one more than the buffer size, as
+     * for {@link LockFreeBufferedOne2OneChannel} (and {@link jcsp.util.Buffer})
+     */
+    private final int capacity;
+
+    /** The sequence number of the next object to be read (written by the reader) */
+    private final PaddedSequence head = new PaddedSequence ();
+
+    /** The next ticket to be claimed by a writer (claimed only if there is room for it) */
+    private final PaddedSequence tail = new PaddedSequence ();
+
+    /** The reader's thread, while it is (about to be) parked */
+    private volatile Thread parkedReader;
+
+    /** The Alternative of an ALTing reader */
+    private volatile Alternative alt;
+
+    /** Whether <TT>alt</TT> is enabled (or being scheduled by a writer) */
+    private volatile int altState = NO_ALT;
+
+    /** The number of writers waiting (or about to wait) on <TT>roomMonitor</TT> */
+    private volatile int waitingWriters = 0;
+
+    /** The monitor on which writers wait for room in the buffer */
+    private final Object roomMonitor = new Object ();
+
+    /** How the reader and writers wait */
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Constructs a channel with a buffer of the given size, using the default
+     * {@link WaitStrategy}.
+     *
+     * @param size the number of objects the buffer may hold.
+     */
+    LockFreeBufferedAny2OneChannel (final int size) {
+      this (size, WaitStrategy.getDefault ());
+    }
+
+    /**
+     * Constructs a channel with a buffer of the given size.
+     *
+     * @param size the number of objects the buffer may hold.
+     * @param waitStrategy how the reader and writers wait.
+     */
+    LockFreeBufferedAny2OneChannel (final int size, final WaitStrategy waitStrategy) {
+      if (size < 0) {
+        throw new BufferSizeError (
+          "\n*** Attempt to create a buffered channel with negative capacity"
+        );
+      }
+      capacity = size + 1;
+      int length = 1;
+      while (length < capacity) {
+        length <<= 1;
+      }
+      ring = new AtomicReferenceArray (length);
+      mask = length - 1;
+      this.waitStrategy = waitStrategy;
+    }
+
+    /*************Methods from Any2OneChannel******************************/
+
+    /**
+     * Returns the <code>AltingChannelInput</code> to use for this channel.
+     *
+     * @return the <code>AltingChannelInput</code> object to use for this
+     *          channel.
+     */
+    public AltingChannelInput in()
+    {
+        return new AltingChannelInputImpl(this,0);
+    }
+
+    /**
+     * Returns the <code>SharedChannelOutput</code> object to use for this channel.
+     *
+     * @return the <code>SharedChannelOutput</code> object to use for this
+     *          channel.
+     */
+    public SharedChannelOutput out()
+    {
+        return new SharedChannelOutputImpl(this,0);
+    }
+
+    /*************Methods from ChannelOutput*******************************/
+
+    /**
+     * Writes an <TT>Object</TT> to the channel.  This returns once the object is
+     * buffered, waiting first if the buffer is full.
+     *
+     * @param value the object to write to the channel.
+     */
+    public void write (final Object value) {
+      long t;
+      while (true) {
+        t = tail.value;
+        if (t - head.value >= capacity) {
+          awaitRoom ();
+        } else if (tail.compareAndSet (t, t + 1)) {
+          break;
+        }
+      }
+      ring.set ((int) t & mask, (value == null) ? NULL : value);
+      if (t == head.value) {
+        wakeReader ();
+      }
+    }
+
+    /**
+     * Returns whether the buffer is full (or has been claimed full).
+     */
+    private boolean full () {
+      return tail.value - head.value >= capacity;
+    }
+
+    /**
+     * Waits until the buffer is not full.  The room may have gone again by
+     * the time the caller tries to claim it.
+     */
+    private void awaitRoom () {
+      if (waitStrategy.spins ()) {
+        int i = 0;
+        while (full () && waitStrategy.idle (i)) {
+          i++;
+        }
+        if (!full ()) {
+          waitStrategy.recordSpinSuccess ();
+          return;
+        }
+        waitStrategy.recordBlock ();
+      }
+      waitingWritersUpdater.incrementAndGet (this);
+      try {
+        synchronized (roomMonitor) {
+          while (full ()) {
+            roomMonitor.wait ();
+          }
+        }
+      }
+      catch (InterruptedException e) {
+        throw new ProcessInterruptedException (
+          "*** Thrown from Any2OneChannel.write (Object)\n" + e.toString ()
+        );
+      }
+      finally {
+        waitingWritersUpdater.decrementAndGet (this);
+      }
+    }
+
+    /**
+     * Wakes the reader (or its Alternative) if it is waiting for data.
+     */
+    private void wakeReader () {
+      final Thread r = parkedReader;
+      if (r != null) {
+        LockSupport.unpark (r);
+      } else if (altState == ALT_ENABLED) {
+        final Alternative a = alt;
+        if (altStateUpdater.compareAndSet (this, ALT_ENABLED, ALT_SCHEDULING)) {
+          // the reader cannot finish disabling (and so cannot start another
+          // select) until we leave ALT_SCHEDULING
+          a.schedule ();
+          altState = NO_ALT;
+        }
+      }
+    }
+
+    /**
+     * Wakes one writer waiting for room, if there is one.  Each slot freed by the
+     * reader wakes one writer, and no more than one can claim the slot.
+     */
+    private void wakeWriter () {
+      if (waitingWriters > 0) {
+        synchronized (roomMonitor) {
+          roomMonitor.notify ();
+        }
+      }
+    }
+
+    /** ***********Methods from AltingChannelInput************************* */
+
+    /**
+     * Waits until the head slot has been filled.  Only called by the reader.
+     *
+     * @return the current <TT>head</TT>.
+     */
+    private long awaitData () {
+      final long h = head.value;
+      final int i = (int) h & mask;
+      if (ring.get (i) != null) {
+        return h;
+      }
+      if (waitStrategy.spins ()) {
+        int n = 0;
+        while ((ring.get (i) == null) && waitStrategy.idle (n)) {
+          n++;
+        }
+        if (ring.get (i) != null) {
+          waitStrategy.recordSpinSuccess ();
+          return h;
+        }
+        waitStrategy.recordBlock ();
+      }
+      parkedReader = Thread.currentThread ();
+      try {
+        while (ring.get (i) == null) {
+          LockSupport.park (this);
+          if (Thread.interrupted ()) {
+            throw new ProcessInterruptedException (
+              "*** Thrown from Any2OneChannel.read ()\n"
+            );
+          }
+        }
+      }
+      finally {
+        parkedReader = null;
+      }
+      return h;
+    }
+
+    /**
+     * Removes the object at the head of the ring.  Only called by the reader.
+     */
+    private Object take (final long h) {
+      final int i = (int) h & mask;
+      final Object value = ring.get (i);
+      ring.lazySet (i, null);
+      head.value = h + 1;           // also publishes the cleared slot
+      wakeWriter ();
+      return (value == NULL) ? null : value;
+    }
+
+    /**
+     * Reads an <TT>Object</TT> from the channel.
+     *
+     * @return the object read from the channel.
+     */
+    public Object read () {
+      return take (awaitData ());
+    }
+
+    /**
+     * Begins an extended rendezvous: the object stays in the buffer
+     * (and so counts against its capacity) until {@link #endRead()}.
+     *
+     * @return the object read from the channel.
+     */
+    public Object startRead () {
+      final Object value = ring.get ((int) awaitData () & mask);
+      return (value == NULL) ? null : value;
+    }
+
+    /**
+     * Ends an extended rendezvous, removing the object from the buffer.
+     */
+    public void endRead () {
+      take (head.value);
+    }
+
+    /**
+     * turns on Alternative selection for the channel. Returns true if the
+     * channel has data that can be read immediately.
+     * <P>
+     * <I>Note: this method should only be called by the Alternative class</I>
+     *
+     * @param alt the Alternative class which will control the selection
+     * @return true if the channel has data that can be read, else false
+     */
+    public boolean readerEnable (final Alternative alt) {
+      if (readerPending ()) {
+        return true;
+      }
+      this.alt = alt;
+      altState = ALT_ENABLED;
+      if (!readerPending ()) {
+        return false;
+      }
+      // the writer got in first: withdraw (or let its schedule finish)
+      if (!altStateUpdater.compareAndSet (this, ALT_ENABLED, NO_ALT)) {
+        while (altState == ALT_SCHEDULING) {
+          Thread.yield ();
+        }
+      }
+      this.alt = null;
+      return true;
+    }
+
+    /**
+     * turns off Alternative selection for the channel. Returns true if the
+     * channel contained data that can be read.
+     * <P>
+     * <I>Note: this method should only be called by the Alternative class</I>
+     *
+     * @return true if the channel has data that can be read, else false
+     */
+    public boolean readerDisable () {
+      if (!altStateUpdater.compareAndSet (this, ALT_ENABLED, NO_ALT)) {
+        while (altState == ALT_SCHEDULING) {
+          Thread.yield ();
+        }
+      }
+      alt = null;
+      return readerPending ();
+    }
+
+    /**
+     * Returns whether there is data pending on this channel.
+     * <P>
+     * <I>Note: if there is, it won't go away until you read it.  But if there
+     * isn't, there may be some by the time you check the result of this method.</I>
+     *
+     * @return state of the channel.
+     */
+    public boolean readerPending () {
+      return ring.get ((int) head.value & mask) != null;
+    }
+
+    //No poison in these channels:
+    public void writerPoison(int strength) {
+    }
+    public void readerPoison(int strength) {
+    }
+
+    /**
+     * Writes a batch of <TT>Object</TT>s to the channel, one at a time.  Objects
+     * from other writers may be interleaved with them.
+     *
+     * @param items the objects to write to the channel.
+     * @param off the index in <TT>items</TT> of the first object to write.
+     * @param len the number of objects to write.
+     */
+    public void write (final Object[] items, final int off, final int len) {
+      ChannelBatch.writeEach (this, items, off, len);
+    }
+
+    /**
+     * Reads one <TT>Object</TT> from the channel, waiting if necessary, then more
+     * (up to <TT>max</TT>) while the buffer holds them.
+     *
+     * @param dst the array into which the objects are read.
+     * @param max the most objects to read.
+     * @return the number of objects read.
+     */
+    public int read (final Object[] dst, final int max) {
+      return ChannelBatch.readPending (this, dst, max);
+    }
+}
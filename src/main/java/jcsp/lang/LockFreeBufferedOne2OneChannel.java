@@ -0,0 +1,451 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import jcsp.util.BufferSizeError;
+
+/**
+ * This implements a one-to-one object channel with a FIFO buffer, without a monitor.
+ * <H2>Description</H2>
+ * <TT>LockFreeBufferedOne2OneChannel</TT> has exactly the semantics of a
+ * {@link BufferedOne2OneChannel} using a {@link jcsp.util.Buffer} of the same size:
+ * the reading process may {@link Alternative <TT>ALT</TT>} on it and use the extended
+ * rendezvous, and the writing process is committed.
+ * <P>
+ * The buffer is a single-producer, single-consumer ring whose length is a power of two
+ * (more than the requested size), indexed by two ever-increasing sequence numbers:
+ * <TT>tail</TT> (written only by the writer) and <TT>head</TT> (written only by the reader).
+ * Each is kept in its own padded object so that the two processes do not contend for a cache
+ * line, and each party keeps a private copy of the other's sequence which it refreshes only
+ * when the buffer appears full (or empty).  While the buffer is neither empty nor full, a
+ * message therefore costs one array store, one array load and one volatile write on each
+ * side -- no lock is taken and nobody is woken.
+ * <P>
+ * Only at the boundaries does a process wait: after (optionally) spinning according to its
+ * {@link WaitStrategy}, it publishes its thread and parks.  Its partner wakes it with a
+ * targeted {@link LockSupport#unpark(Thread)} after its next move.  An <TT>ALT</TT>ing reader
+ * is woken through its {@link Alternative}, which is claimed with a compare-and-set so that
+ * it is never scheduled after it has finished its select.
+ * <P>
+ * Channels of this kind are obtained from {@link Channel#one2oneLockFree(int)}.
+ *
+ * @see BufferedOne2OneChannel
+ * @see LockFreeOne2OneChannelImpl
+ *
+ * @author Kevin Chalmers
+ */
+
+class LockFreeBufferedOne2OneChannel implements One2OneChannel, ChannelInternals
+{
+    private static final int NO_ALT = 0;
+    private static final int ALT_ENABLED = 1;
+    private static final int ALT_SCHEDULING = 2;
+
+    private static final AtomicIntegerFieldUpdater altStateUpdater =
+        AtomicIntegerFieldUpdater.newUpdater (LockFreeBufferedOne2OneChannel.class, "altState");
+
+    /** The ring of buffered objects */
+    private final Object[] ring;
+
+    /** <TT>ring.length - 1</TT> */
+    private final int mask;
+
+    /**
+     * The number of objects the ring may hold: one more than the buffer size, since
+     * (as with {@link jcsp.util.Buffer}) a writer blocks once it has filled the ring
+     */
+    private final int capacity;
+
+    /** The sequence number of the next object to be read (written by the reader) */
+    private final PaddedSequence head = new PaddedSequence ();
+
+    /** The sequence number of the next object to be written (written by the writer) */
+    private final PaddedSequence tail = new PaddedSequence ();
+
+    /** The writer's copy of <TT>head</TT> (refreshed when the buffer looks full) */
+    private long headCache = 0;
+
+    /** The reader's copy of <TT>tail</TT> (refreshed when the buffer looks empty) */
+    private long tailCache = 0;
+
+    /** The reader's thread, while it is (about to be) parked */
+    private volatile Thread parkedReader;
+
+    /** The writer's thread, while it is (about to be) parked */
+    private volatile Thread parkedWriter;
+
+    /** The Alternative of an ALTing reader */
+    private volatile Alternative alt;
+
+    /** Whether <TT>alt</TT> is enabled (or being scheduled by the writer) */
+    private volatile int altState = NO_ALT;
+
+    /** How the reader and writer wait for each other */
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Constructs a channel with a buffer of the given size, using the default
+     * {@link WaitStrategy}.
+     *
+     * @param size the number of objects the buffer may hold.
+     */
+    LockFreeBufferedOne2OneChannel (final int size) {
+      this (size, WaitStrategy.getDefault ());
+    }
+
+    /**
+     * Constructs a channel with a buffer of the given size.
+     *
+     * @param size the number of objects the buffer may hold.
+     * @param waitStrategy how the reader and writer wait for each other.
+     */
+    LockFreeBufferedOne2OneChannel (final int size, final WaitStrategy waitStrategy) {
+      if (size < 0) {
+        throw new BufferSizeError (
+          "\n*** Attempt to create a buffered channel with negative capacity"
+        );
+      }
+      capacity = size + 1;
+      int length = 1;
+      while (length < capacity) {
+        length <<= 1;
+      }
+      ring = new Object[length];
+      mask = length - 1;
+      this.waitStrategy = waitStrategy;
+    }
+
+    /*************Methods from One2OneChannel******************************/
+
+    /**
+     * Returns the <code>AltingChannelInput</code> to use for this channel.
+     *
+     * @return the <code>AltingChannelInput</code> object to use for this
+     *          channel.
+     */
+    public AltingChannelInput in()
+    {
+        return new AltingChannelInputImpl(this,0);
+    }
+
+    /**
+     * Returns the <code>ChannelOutput</code> object to use for this channel.
+     *
+     * @return the <code>ChannelOutput</code> object to use for this
+     *          channel.
+     */
+    public ChannelOutput out()
+    {
+        return new ChannelOutputImpl(this,0);
+    }
+
+    /*************Methods from ChannelOutput*******************************/
+
+    /**
+     * Writes an <TT>Object</TT> to the channel.  As with a {@link jcsp.util.Buffer},
+     * this returns once the object is buffered -- unless that has filled the buffer,
+     * in which case it waits until the reader has made room.
+     *
+     * @param value the object to write to the channel.
+     */
+    public void write (final Object value) {
+      final long t = tail.value;
+      ring[(int) t & mask] = value;
+      tail.value = t + 1;                              // publishes the object
+      wakeReader ();
+      if (t + 1 - headCache < capacity) {
+        return;
+      }
+      headCache = head.value;
+      if (t + 1 - headCache < capacity) {
+        return;
+      }
+      // the buffer is full: wait for the reader to take something
+      if (waitStrategy.spins ()) {
+        int i = 0;
+        while ((t + 1 - head.value >= capacity) && waitStrategy.idle (i)) {
+          i++;
+        }
+        if (t + 1 - head.value < capacity) {
+          waitStrategy.recordSpinSuccess ();
+          headCache = head.value;
+          return;
+        }
+        waitStrategy.recordBlock ();
+      }
+      parkedWriter = Thread.currentThread ();
+      try {
+        while (t + 1 - head.value >= capacity) {
+          LockSupport.park (this);
+          if (Thread.interrupted ()) {
+            throw new ProcessInterruptedException (
+              "*** Thrown from One2OneChannel.write (Object)\n"
+            );
+          }
+        }
+      }
+      finally {
+        parkedWriter = null;
+      }
+      headCache = head.value;
+    }
+
+    /**
+     * Wakes the reader (or its Alternative) if it is waiting for data.
+     */
+    private void wakeReader () {
+      final Thread r = parkedReader;
+      if (r != null) {
+        LockSupport.unpark (r);
+      } else if (altState == ALT_ENABLED) {
+        final Alternative a = alt;
+        if (altStateUpdater.compareAndSet (this, ALT_ENABLED, ALT_SCHEDULING)) {
+          // the reader cannot finish disabling (and so cannot start another
+          // select) until we leave ALT_SCHEDULING
+          a.schedule ();
+          altState = NO_ALT;
+        }
+      }
+    }
+
+    /**
+     * Wakes the writer if it is waiting for room.
+     */
+    private void wakeWriter () {
+      final Thread w = parkedWriter;
+      if (w != null) {
+        LockSupport.unpark (w);
+      }
+    }
+
+    /** ***********Methods from AltingChannelInput************************* */
+
+    /**
+     * Returns whether the buffer holds any data, refreshing <TT>tailCache</TT>
+     * if it appears not to.  Only called by the reader.
+     */
+    private boolean hasData (final long h) {
+      if (h != tailCache) {
+        return true;
+      }
+      tailCache = tail.value;
+      return h != tailCache;
+    }
+
+    /**
+     * Waits until the buffer holds some data.  Only called by the reader.
+     *
+     * @return the current <TT>head</TT>.
+     */
+    private long awaitData () {
+      final long h = head.value;
+      if (hasData (h)) {
+        return h;
+      }
+      if (waitStrategy.spins ()) {
+        int i = 0;
+        while ((h == tail.value) && waitStrategy.idle (i)) {
+          i++;
+        }
+        if (hasData (h)) {
+          waitStrategy.recordSpinSuccess ();
+          return h;
+        }
+        waitStrategy.recordBlock ();
+      }
+      parkedReader = Thread.currentThread ();
+      try {
+        while (!hasData (h)) {
+          LockSupport.park (this);
+          if (Thread.interrupted ()) {
+            throw new ProcessInterruptedException (
+              "*** Thrown from One2OneChannel.read ()\n"
+            );
+          }
+        }
+      }
+      finally {
+        parkedReader = null;
+      }
+      return h;
+    }
+
+    /**
+     * Reads an <TT>Object</TT> from the channel.
+     *
+     * @return the object read from the channel.
+     */
+    public Object read () {
+      final long h = awaitData ();
+      final int i = (int) h & mask;
+      final Object value = ring[i];
+      ring[i] = null;
+      head.value = h + 1;
+      wakeWriter ();
+      return value;
+    }
+
+    /**
+     * Begins an extended rendezvous: the object stays in the buffer
+     * (and so counts against its capacity) until {@link #endRead()}.
+     *
+     * @return the object read from the channel.
+     */
+    public Object startRead () {
+      return ring[(int) awaitData () & mask];
+    }
+
+    /**
+     * Ends an extended rendezvous, removing the object from the buffer.
+     */
+    public void endRead () {
+      final long h = head.value;
+      ring[(int) h & mask] = null;
+      head.value = h + 1;
+      wakeWriter ();
+    }
+
+    /**
+     * turns on Alternative selection for the channel. Returns true if the
+     * channel has data that can be read immediately.
+     * <P>
+     * <I>Note: this method should only be called by the Alternative class</I>
+     *
+     * @param alt the Alternative class which will control the selection
+     * @return true if the channel has data that can be read, else false
+     */
+    public boolean readerEnable (final Alternative alt) {
+      final long h = head.value;
+      if (hasData (h)) {
+        return true;
+      }
+      this.alt = alt;
+      altState = ALT_ENABLED;
+      if (!hasData (h)) {
+        return false;
+      }
+      // the writer got in first: withdraw (or let its schedule finish)
+      if (!altStateUpdater.compareAndSet (this, ALT_ENABLED, NO_ALT)) {
+        while (altState == ALT_SCHEDULING) {
+          Thread.yield ();
+        }
+      }
+      this.alt = null;
+      return true;
+    }
+
+    /**
+     * turns off Alternative selection for the channel. Returns true if the
+     * channel contained data that can be read.
+     * <P>
+     * <I>Note: this method should only be called by the Alternative class</I>
+     *
+     * @return true if the channel has data that can be read, else false
+     */
+    public boolean readerDisable () {
+      if (!altStateUpdater.compareAndSet (this, ALT_ENABLED, NO_ALT)) {
+        while (altState == ALT_SCHEDULING) {
+          Thread.yield ();
+        }
+      }
+      alt = null;
+      return hasData (head.value);
+    }
+
+    /**
+     * Returns whether there is data pending on this channel.
+     * <P>
+     * <I>Note: if there is, it won't go away until you read it.  But if there
+     * isn't, there may be some by the time you check the result of this method.</I>
+     *
+     * @return state of the channel.
+     */
+    public boolean readerPending () {
+      return hasData (head.value);
+    }
+
+    //No poison in these channels:
+    public void writerPoison(int strength) {
+    }
+    public void readerPoison(int strength) {
+    }
+
+    /**
+     * Writes a batch of <TT>Object</TT>s to the channel.  As many as there is room
+     * for are copied into the ring and published together, waking the reader once.
+     * As with a single write, this only returns once the buffer is not full.
+     *
+     * @param items the objects to write to the channel.
+     * @param off the index in <TT>items</TT> of the first object to write.
+     * @param len the number of objects to write.
+     */
+    public void write (final Object[] items, int off, int len) {
+      ChannelBatch.checkWrite (items, off, len);
+      while (len > 0) {
+        final long t = tail.value;
+        // leave the last slot for write (Object), which waits once it is filled
+        long room = capacity - 1 - (t - headCache);
+        if (room <= 0) {
+          headCache = head.value;
+          room = capacity - 1 - (t - headCache);
+        }
+        if (room <= 0) {
+          write (items[off]);
+          off++;
+          len--;
+          continue;
+        }
+        final int n = (int) Math.min (room, len);
+        for (int i = 0; i < n; i++) {
+          ring[(int) (t + i) & mask] = items[off + i];
+        }
+        tail.value = t + n;                            // publishes the objects
+        wakeReader ();
+        off += n;
+        len -= n;
+      }
+    }
+
+    /**
+     * Reads up to <TT>max</TT> <TT>Object</TT>s from the channel, waiting only
+     * if the buffer is empty.  They are removed from the ring together, waking
+     * the writer once.
+     *
+     * @param dst the array into which the objects are read.
+     * @param max the most objects to read.
+     * @return the number of objects read.
+     */
+    public int read (final Object[] dst, final int max) {
+      ChannelBatch.checkRead (dst, max);
+      final long h = awaitData ();
+      final int n = (int) Math.min (tailCache - h, max);
+      for (int i = 0; i < n; i++) {
+        final int j = (int) (h + i) & mask;
+        dst[i] = ring[j];
+        ring[j] = null;
+      }
+      head.value = h + n;
+      wakeWriter ();
+      return n;
+    }
+}
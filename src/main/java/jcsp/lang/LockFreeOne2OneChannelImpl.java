@@ -0,0 +1,436 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This implements a one-to-one object channel without a monitor.
+ * <H2>Description</H2>
+ * <TT>LockFreeOne2OneChannelImpl</TT> has exactly the same semantics as
+ * {@link One2OneChannelImpl}: it is zero-buffered and fully synchronised,
+ * the reading process may {@link Alternative <TT>ALT</TT>} on it and the
+ * writing process is committed.
+ * <P>
+ * Instead of a <TT>synchronized</TT> block with <TT>wait</TT>/<TT>notify</TT>,
+ * the rendezvous is driven by compare-and-set operations on a single state word.
+ * A process that has to wait parks itself with {@link LockSupport#park(Object)}
+ * and is released by a targeted {@link LockSupport#unpark(Thread)} from its partner.
+ * No lock is ever held, so a message costs one state transition in each direction
+ * and (at most) one wakeup of each party.
+ * <P>
+ * The state word moves through the following values:
+ * <PRE>
+ *   IDLE           nobody is committed to the channel
+ *   READER_WAITING the reader has arrived and is parked
+ *   READER_ALTING  the reader has enabled an Alternative on the channel
+ *   SCHEDULING     the writer has deposited data and is waking the Alternative
+ *   DATA           the writer has deposited data and is parked
+ *   TAKEN          the reader has claimed the data (and, in an extended
+ *                  rendezvous, has yet to end it)
+ * </PRE>
+ * Only the writer ever moves the state into <TT>SCHEDULING</TT> or <TT>DATA</TT>,
+ * and it is released as soon as the state leaves <TT>DATA</TT>/<TT>TAKEN</TT>.
+ * <P>
+ * Channels of this kind are obtained from {@link Channel#one2oneLockFree()}
+ * or from a {@link StandardChannelFactory} constructed to use them.
+ * They are also the channels on which a {@link LightProcess} can write
+ * without tying up a thread (see {@link #lightWrite(Object, LightProcess)}).
+ *
+ * @see One2OneChannelImpl
+ * @see Alternative
+ *
+ * @author Kevin Chalmers
+ */
+
+class LockFreeOne2OneChannelImpl implements One2OneChannel, ChannelInternals
+{
+    private static final int IDLE = 0;
+    private static final int READER_WAITING = 1;
+    private static final int READER_ALTING = 2;
+    private static final int SCHEDULING = 3;
+    private static final int DATA = 4;
+    private static final int TAKEN = 5;
+
+    private static final AtomicIntegerFieldUpdater stateUpdater =
+        AtomicIntegerFieldUpdater.newUpdater (LockFreeOne2OneChannelImpl.class, "state");
+
+    /** The rendezvous state of the channel (see the class description) */
+    private volatile int state = IDLE;
+
+    /** The (invisible-to-users) buffer used to store the data for the channel */
+    private Object hold;
+
+    /** The thread of the last (or current) reader -- the target of a writer's unpark */
+    private volatile Thread reader;
+
+    /** The thread of the last (or current) writer -- the target of a reader's unpark */
+    private volatile Thread writer;
+
+    /**
+     * The {@link LightProcess} of the current writer, if the write was made with
+     * {@link #lightWrite(Object, LightProcess)} -- woken instead of <TT>writer</TT>.
+     */
+    private volatile LightProcess lightWriter;
+
+    /** The Alternative class that controls the selection */
+    private volatile Alternative alt;
+
+    /** How the reader and writer wait for each other */
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Constructs a channel using the default {@link WaitStrategy}.
+     */
+    LockFreeOne2OneChannelImpl () {
+      this (WaitStrategy.getDefault ());
+    }
+
+    /**
+     * Constructs a channel using the given {@link WaitStrategy}.
+     *
+     * @param waitStrategy how the reader and writer wait for each other.
+     */
+    LockFreeOne2OneChannelImpl (WaitStrategy waitStrategy) {
+      this.waitStrategy = waitStrategy;
+    }
+
+    /*************Methods from One2OneChannel******************************/
+
+    /**
+     * Returns the <code>AltingChannelInput</code> to use for this channel.
+     *
+     * @return the <code>AltingChannelInput</code> object to use for this
+     *          channel.
+     */
+    public AltingChannelInput in()
+    {
+        return new AltingChannelInputImpl(this,0);
+    }
+
+    /**
+     * Returns the <code>ChannelOutput</code> object to use for this channel.
+     *
+     * @return the <code>ChannelOutput</code> object to use for this
+     *          channel.
+     */
+    public ChannelOutput out()
+    {
+        return new ChannelOutputImpl(this,0);
+    }
+
+    /*************Methods from ChannelOutput*******************************/
+
+    /**
+     * Writes an <TT>Object</TT> to the channel.
+     *
+     * @param value the object to write to the channel.
+     */
+    public void write (Object value) {
+      hold = value;
+      writer = Thread.currentThread ();
+      lightWriter = null;
+      deposit ();
+      if (waitStrategy.spins ()) {
+        int i = 0;
+        while (((state == DATA) || (state == TAKEN)) && waitStrategy.idle (i)) {
+          i++;
+        }
+        final int s = state;
+        if ((s != DATA) && (s != TAKEN)) {
+          waitStrategy.recordSpinSuccess ();
+          return;
+        }
+        waitStrategy.recordBlock ();
+      }
+      boolean interrupted = false;
+      while (true) {
+        final int s = state;
+        if ((s != DATA) && (s != TAKEN)) {
+          break;
+        }
+        LockSupport.park (this);
+        if (Thread.interrupted ()) {
+          if (stateUpdater.compareAndSet (this, DATA, IDLE)) {
+            hold = null;
+            throw new ProcessInterruptedException (
+              "*** Thrown from One2OneChannel.write (Object)\n"
+            );
+          }
+          interrupted = true;   // taken already -- finish the rendezvous
+        } else if (Spurious.logging && ((state == DATA) || (state == TAKEN))) {
+          SpuriousLog.record (SpuriousLog.One2OneChannelWrite);
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread ().interrupt ();
+      }
+    }
+
+    /**
+     * Deposits <TT>hold</TT> for the reader (waking it if it is waiting or
+     * <TT>ALT</TT>ing).  On return the state is <TT>DATA</TT>, or later.
+     */
+    private void deposit () {
+      while (true) {
+        final int s = state;
+        if (s == IDLE) {
+          if (stateUpdater.compareAndSet (this, IDLE, DATA)) {
+            break;
+          }
+        } else if (s == READER_WAITING) {
+          if (stateUpdater.compareAndSet (this, READER_WAITING, DATA)) {
+            LockSupport.unpark (reader);
+            break;
+          }
+        } else if (s == READER_ALTING) {
+          final Alternative a = alt;
+          if (stateUpdater.compareAndSet (this, READER_ALTING, SCHEDULING)) {
+            // the reader cannot complete its disable sequence (and so cannot
+            // start another select) until we leave SCHEDULING
+            a.schedule ();
+            state = DATA;
+            break;
+          }
+        } else {
+          throw new JCSP_InternalError (
+            "*** One2OneChannel.write: second writer detected (state = " + s + ")"
+          );
+        }
+      }
+    }
+
+    /**
+     * Writes an <TT>Object</TT> to the channel on behalf of a {@link LightProcess},
+     * without blocking.  If the rendezvous cannot complete at once, the process
+     * is {@link LightProcess#wake() woken} when the reader has taken the data
+     * (see {@link #lightWriteComplete()}).
+     *
+     * @param value the object to write to the channel.
+     * @param process the writing process.
+     * @return true if the rendezvous has already completed.
+     */
+    boolean lightWrite (Object value, LightProcess process) {
+      hold = value;
+      lightWriter = process;
+      deposit ();
+      return lightWriteComplete ();
+    }
+
+    /**
+     * Returns whether the reader has finished with data deposited by
+     * {@link #lightWrite(Object, LightProcess)}.
+     *
+     * @return true if the last write has completed.
+     */
+    boolean lightWriteComplete () {
+      final int s = state;
+      return (s != DATA) && (s != TAKEN) && (s != SCHEDULING);
+    }
+
+    /**
+     * Completes the rendezvous and releases the writer, whichever kind it is.
+     */
+    private void releaseWriter () {
+      final Thread w = writer;
+      final LightProcess lw = lightWriter;
+      state = IDLE;
+      if (lw != null) {
+        lw.wake ();
+      } else {
+        LockSupport.unpark (w);
+      }
+    }
+
+    /** ***********Methods from AltingChannelInput************************* */
+
+    /**
+     * Waits for the writer to deposit its data.  On return the state is
+     * <TT>DATA</TT>.
+     */
+    private void awaitData () {
+      if ((state == IDLE) && waitStrategy.spins ()) {
+        // the writer need not know we are here while we spin
+        int i = 0;
+        while ((state == IDLE) && waitStrategy.idle (i)) {
+          i++;
+        }
+        if (state == IDLE) {
+          waitStrategy.recordBlock ();
+        } else {
+          waitStrategy.recordSpinSuccess ();
+        }
+      }
+      while (true) {
+        final int s = state;
+        if (s == DATA) {
+          return;
+        } else if (s == IDLE) {
+          reader = Thread.currentThread ();
+          if (stateUpdater.compareAndSet (this, IDLE, READER_WAITING)) {
+            while (state == READER_WAITING) {
+              LockSupport.park (this);
+              if (Thread.interrupted ()) {
+                if (stateUpdater.compareAndSet (this, READER_WAITING, IDLE)) {
+                  throw new ProcessInterruptedException (
+                    "*** Thrown from One2OneChannel.read ()\n"
+                  );
+                }
+                Thread.currentThread ().interrupt ();   // data has arrived -- take it
+              } else if (Spurious.logging && (state == READER_WAITING)) {
+                SpuriousLog.record (SpuriousLog.One2OneChannelRead);
+              }
+            }
+          }
+        } else if (s == SCHEDULING) {
+          Thread.yield ();
+        } else {
+          throw new JCSP_InternalError (
+            "*** One2OneChannel.read: second reader detected (state = " + s + ")"
+          );
+        }
+      }
+    }
+
+    /**
+     * Claims the data deposited by the writer.  On return the state is
+     * <TT>TAKEN</TT>, so an interrupted writer can no longer withdraw it.
+     */
+    private void claim () {
+      do {
+        awaitData ();
+      } while (!stateUpdater.compareAndSet (this, DATA, TAKEN));
+    }
+
+    /**
+     * Reads an <TT>Object</TT> from the channel.
+     *
+     * @return the object read from the channel.
+     */
+    public Object read () {
+      claim ();
+      final Object value = hold;
+      hold = null;
+      releaseWriter ();
+      return value;
+    }
+
+    /**
+     * Begins an extended rendezvous: the writer stays blocked until
+     * {@link #endRead()} is called.
+     *
+     * @return the object read from the channel.
+     */
+    public Object startRead () {
+      claim ();
+      return hold;
+    }
+
+    /**
+     * Ends an extended rendezvous, releasing the writer.
+     */
+    public void endRead () {
+      hold = null;
+      releaseWriter ();
+    }
+
+    /**
+     * turns on Alternative selection for the channel. Returns true if the
+     * channel has data that can be read immediately.
+     * <P>
+     * <I>Note: this method should only be called by the Alternative class</I>
+     *
+     * @param alt the Alternative class which will control the selection
+     * @return true if the channel has data that can be read, else false
+     */
+    public boolean readerEnable (Alternative alt) {
+      this.alt = alt;
+      if (stateUpdater.compareAndSet (this, IDLE, READER_ALTING)) {
+        return false;
+      }
+      this.alt = null;
+      return true;     // the writer got there first
+    }
+
+    /**
+     * turns off Alternative selection for the channel. Returns true if the
+     * channel contained data that can be read.
+     * <P>
+     * <I>Note: this method should only be called by the Alternative class</I>
+     *
+     * @return true if the channel has data that can be read, else false
+     */
+    public boolean readerDisable () {
+      if (stateUpdater.compareAndSet (this, READER_ALTING, IDLE)) {
+        alt = null;
+        return false;
+      }
+      while (state == SCHEDULING) {
+        Thread.yield ();
+      }
+      alt = null;
+      return state == DATA;
+    }
+
+    /**
+     * Returns whether there is data pending on this channel.
+     * <P>
+     * <I>Note: if there is, it won't go away until you read it.  But if there
+     * isn't, there may be some by the time you check the result of this method.</I>
+     *
+     * @return state of the channel.
+     */
+    public boolean readerPending () {
+      final int s = state;
+      return (s == DATA) || (s == SCHEDULING);
+    }
+
+    //No poison in these channels:
+    public void writerPoison(int strength) {
+    }
+    public void readerPoison(int strength) {
+    }
+
+    /**
+     * Writes a batch of <TT>Object</TT>s to the channel.  With no buffer, each
+     * is a separate rendezvous with the reader.
+     *
+     * @param items the objects to write to the channel.
+     * @param off the index in <TT>items</TT> of the first object to write.
+     * @param len the number of objects to write.
+     */
+    public void write (Object[] items, int off, int len) {
+      ChannelBatch.writeEach (this, items, off, len);
+    }
+
+    /**
+     * Reads one <TT>Object</TT> from the channel, waiting if necessary, then more
+     * (up to <TT>max</TT>) while the writer is ready to send them.
+     *
+     * @param dst the array into which the objects are read.
+     * @param max the most objects to read.
+     * @return the number of objects read.
+     */
+    public int read (Object[] dst, int max) {
+      return ChannelBatch.readPending (this, dst, max);
+    }
+}
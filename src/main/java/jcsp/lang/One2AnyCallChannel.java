@@ -156,7 +156,7 @@ public abstract class One2AnyCallChannel implements ChannelAccept, Serializable
     /**
      * This is used to synchronise the calling and accepting process.
      */
-    final private One2OneChannelImpl c = new One2OneChannelImpl();
+    final private CallHandoff c = new CallHandoff();
 
     /**
      * This holds a reference to a <I>server</I> process so that a <I>client</I> may
@@ -193,8 +193,7 @@ public abstract class One2AnyCallChannel implements ChannelAccept, Serializable
     public synchronized int accept(CSProcess server)
     {
         this.server = server;
-        c.read(); // ready to ACCEPT the CALL
-        c.read(); // wait until the CALL is complete
+        c.accept(); // ACCEPT the CALL and wait until it is complete
         return selected;
     }
 
@@ -207,7 +206,7 @@ public abstract class One2AnyCallChannel implements ChannelAccept, Serializable
      */
     protected void join()
     {
-        c.write(null);
+        c.join();
     }
 
     /**
@@ -219,6 +218,6 @@ public abstract class One2AnyCallChannel implements ChannelAccept, Serializable
      */
     protected void fork()
     {
-        c.write(null);
+        c.fork();
     }
 }
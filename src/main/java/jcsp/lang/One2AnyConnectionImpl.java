@@ -45,8 +45,8 @@ class One2AnyConnectionImpl implements One2AnyConnection
     public One2AnyConnectionImpl()
     {
         super();
-        chanToServer = ConnectionServer.FACTORY.createOne2One(new Buffer(1));
-        chanFromServer = ConnectionServer.FACTORY.createOne2One(new Buffer(1));
+        chanToServer = AbstractConnectionImpl.createDataChannel();
+        chanFromServer = AbstractConnectionImpl.createDataChannel();
         chanSynch = ConnectionServer.FACTORY.createAny2One(new Buffer(1));
 
         //create the client and server objects
@@ -80,8 +80,11 @@ class One2AnyConnectionImpl implements One2AnyConnection
      */
     public SharedConnectionServer server()
     {
-        return new SharedConnectionServerImpl(chanToServer.in(),
-                                              chanToServer.in(), chanSynch.in(),
-                                              chanSynch.out(), this);
+        SharedConnectionServerImpl serverImpl =
+                new SharedConnectionServerImpl(chanToServer.in(),
+                                               chanToServer.in(), chanSynch.in(),
+                                               chanSynch.out(), this);
+        serverImpl.setReuseMessage(true);
+        return serverImpl;
     }
 }
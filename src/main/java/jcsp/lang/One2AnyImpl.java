@@ -57,6 +57,18 @@ package jcsp.lang;
 		}		
 	}
 
+	public int read(Object[] dst, int max) {
+		readMutex.claim();
+		try
+		{
+			return channel.read(dst, max);
+		}
+		finally
+		{
+			readMutex.release();
+		}
+	}
+
 	//begin never used:
 	public boolean readerDisable() {
 		return false;
@@ -97,6 +109,10 @@ package jcsp.lang;
 		channel.write(obj);
 	}
 
+	public void write(Object[] items, int off, int len) {
+		channel.write(items, off, len);
+	}
+
 	public void writerPoison(int strength) { 
 		channel.writerPoison(strength);
 	}
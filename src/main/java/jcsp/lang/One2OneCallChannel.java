@@ -316,7 +316,7 @@ public abstract class One2OneCallChannel extends AltingChannelAccept implements
     /**
      * This is used to synchronise the calling and accepting process.
      */
-    final private One2OneChannelImpl c = new One2OneChannelImpl();
+    final private CallHandoff c = new CallHandoff();
 
     /**
      * This holds a reference to a <I>server</I> process so that a <I>client</I> may
@@ -352,8 +352,7 @@ public abstract class One2OneCallChannel extends AltingChannelAccept implements
     public int accept(CSProcess server)
     {
         this.server = server;
-        c.read(); // ready to ACCEPT the CALL
-        c.read(); // wait until the CALL is complete
+        c.accept(); // ACCEPT the CALL and wait until it is complete
         return selected;
     }
 
@@ -366,7 +365,7 @@ public abstract class One2OneCallChannel extends AltingChannelAccept implements
      */
     protected void join()
     {
-        c.write(null);
+        c.join();
     }
 
     /**
@@ -378,7 +377,7 @@ public abstract class One2OneCallChannel extends AltingChannelAccept implements
      */
     protected void fork()
     {
-        c.write(null);
+        c.fork();
     }
 
     /**
@@ -386,7 +385,7 @@ public abstract class One2OneCallChannel extends AltingChannelAccept implements
      */
     boolean enable(Alternative alt)
     {
-        return c.readerEnable(alt);
+        return c.enable(alt);
     }
 
     /**
@@ -394,6 +393,6 @@ public abstract class One2OneCallChannel extends AltingChannelAccept implements
      */
     boolean disable()
     {
-        return c.readerDisable();
+        return c.disable();
     }
 }
@@ -64,14 +64,33 @@ class One2OneChannelImpl implements One2OneChannel, ChannelInternals
 	  /** The (invisible-to-users) buffer used to store the data for the channel */
 	  private Object hold;
 
-	  /** The synchronisation flag */
-	  private boolean empty = true;
+	  /** The synchronisation flag (volatile so that it may be polled by a spinning reader) */
+	  private volatile boolean empty = true;
 
 	  /** The Alternative class that controls the selection */
 	  private Alternative alt;
 
-	  /** Flag to deal with a spurious wakeup during a write */
-	  private boolean spuriousWakeUp = true;      
+	  /** Flag to deal with a spurious wakeup during a write (volatile so that it may be polled by a spinning writer) */
+	  private volatile boolean spuriousWakeUp = true;      
+
+	  /** How the reader and writer wait for each other */
+	  private final WaitStrategy waitStrategy;
+
+	  /**
+	   * Constructs a channel using the default {@link WaitStrategy}.
+	   */
+	  One2OneChannelImpl () {
+	    this (WaitStrategy.getDefault ());
+	  }
+
+	  /**
+	   * Constructs a channel using the given {@link WaitStrategy}.
+	   *
+	   * @param waitStrategy how the reader and writer wait for each other.
+	   */
+	  One2OneChannelImpl (WaitStrategy waitStrategy) {
+	    this.waitStrategy = waitStrategy;
+	  }
       
 	  /*************Methods from One2OneChannel******************************/
 
@@ -122,19 +141,63 @@ class One2OneChannelImpl implements One2OneChannel, ChannelInternals
         empty = true;
         rwMonitor.notify();
       }
+      if (!waitStrategy.spins ()) {
+        try {
+          rwMonitor.wait();        
+          while (spuriousWakeUp) {
+            if (Spurious.logging) {
+              SpuriousLog.record(SpuriousLog.One2OneChannelWrite);
+            }
+            rwMonitor.wait();
+          }        
+          spuriousWakeUp = true;        
+        } catch (InterruptedException e) {
+          throw new ProcessInterruptedException(
+              "*** Thrown from One2OneChannel.write (Object)\n" + e.toString());
+        }
+        return;
+      }
+    }
+    // spin (outside the monitor) for the reader to release us ...
+    int i = 0;
+    while (spuriousWakeUp && waitStrategy.idle (i)) {
+      i++;
+    }
+    if (!spuriousWakeUp) {
+      waitStrategy.recordSpinSuccess ();
+      spuriousWakeUp = true;      // the reader will not touch this until our next write
+      return;
+    }
+    waitStrategy.recordBlock ();
+    synchronized (rwMonitor) {
       try {
-        rwMonitor.wait();        
         while (spuriousWakeUp) {
-          if (Spurious.logging) {
-            SpuriousLog.record(SpuriousLog.One2OneChannelWrite);
-          }
           rwMonitor.wait();
-        }        
-        spuriousWakeUp = true;        
+        }
       } catch (InterruptedException e) {
         throw new ProcessInterruptedException(
             "*** Thrown from One2OneChannel.write (Object)\n" + e.toString());
       }
+      spuriousWakeUp = true;
+    }
+  }
+
+  /**
+   * Spins (outside the monitor) for a writer to arrive, if the wait strategy
+   * asks for it.  This does not commit the reader to anything: on return, the
+   * normal (monitor) protocol is followed.
+   */
+  private void spinForWriter () {
+    if (empty && waitStrategy.spins ()) {
+      int i = 0;
+      while (empty && waitStrategy.idle (i)) {
+        i++;
+      }
+      if (empty) {
+        waitStrategy.recordBlock ();
+      } else {
+        waitStrategy.recordSpinSuccess ();
+      }
     }
   }
 
@@ -146,6 +209,7 @@ class One2OneChannelImpl implements One2OneChannel, ChannelInternals
 	   * @return the object read from the channel.
 	   */
 	  public Object read () {
+	    spinForWriter ();
 	    synchronized (rwMonitor) {          
 	      if (empty) {
 	        empty = false;
@@ -172,6 +236,7 @@ class One2OneChannelImpl implements One2OneChannel, ChannelInternals
 	  }
 	  
 	  public Object startRead() {
+	    spinForWriter ();
 		    synchronized (rwMonitor) {              
 		      if (empty) {
 		        empty = false;
@@ -287,4 +352,28 @@ class One2OneChannelImpl implements One2OneChannel, ChannelInternals
 	  }
 	  public void readerPoison(int strength) {	  
 	  }
+
+	  /**
+	   * Writes a batch of <TT>Object</TT>s to the channel.  With no buffer, each
+	   * is a separate rendezvous with the reader.
+	   *
+	   * @param items the objects to write to the channel.
+	   * @param off the index in <TT>items</TT> of the first object to write.
+	   * @param len the number of objects to write.
+	   */
+	  public void write (Object[] items, int off, int len) {
+	    ChannelBatch.writeEach (this, items, off, len);
+	  }
+
+	  /**
+	   * Reads one <TT>Object</TT> from the channel, waiting if necessary, then more
+	   * (up to <TT>max</TT>) while the writer is ready to send them.
+	   *
+	   * @param dst the array into which the objects are read.
+	   * @param max the most objects to read.
+	   * @return the number of objects read.
+	   */
+	  public int read (Object[] dst, int max) {
+	    return ChannelBatch.readPending (this, dst, max);
+	  }
 }
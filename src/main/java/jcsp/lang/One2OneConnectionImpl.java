@@ -20,8 +20,6 @@
 
 package jcsp.lang;
 
-import jcsp.util.Buffer;
-
 /**
  * This class is an implementation of <code>One2OneConnection</code>.
  * Each end is safe to be used by one thread at a time.
@@ -43,16 +41,18 @@ class One2OneConnectionImpl extends AbstractConnectionImpl implements One2OneCon
     public One2OneConnectionImpl()
     {
         super();
-        One2OneChannel chanToServer = ConnectionServer.FACTORY.createOne2One(new Buffer(1));
-        One2OneChannel chanFromServer = ConnectionServer.FACTORY.createOne2One(new Buffer(1));
+        One2OneChannel chanToServer = createDataChannel();
+        One2OneChannel chanFromServer = createDataChannel();
 
         //create the client and server objects
         client = new AltingConnectionClientImpl(chanFromServer.in(),
                                                 chanToServer.out(),
                                                 chanToServer.out(),
                                                 chanFromServer.out());
-        server = new AltingConnectionServerImpl(chanToServer.in(),
-                                                chanToServer.in());
+        AltingConnectionServerImpl serverImpl =
+                new AltingConnectionServerImpl(chanToServer.in(), chanToServer.in());
+        serverImpl.setReuseMessage(true);
+        server = serverImpl;
     }
 
     /**
@@ -0,0 +1,390 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is a {@link Crew} lock whose readers do not need to communicate with a server.
+ * <H2>Description</H2>
+ * <TT>OptimisticCrew</TT> has the same methods, and grants access in the same order, as
+ * {@link Crew}: so code written for a <TT>Crew</TT> works unchanged with an
+ * <TT>OptimisticCrew</TT> in its place.  But where each <TT>Crew</TT> access is two
+ * channel communications with its <TT>CrewServer</TT> process (and a context switch),
+ * an <TT>OptimisticCrew</TT> reader that finds no writer present or waiting just
+ * increments a reader count with a single compare-and-set - and decrements it again in
+ * {@link #endRead()}.  Likewise, a writer that finds the lock free takes it with a single
+ * compare-and-set.  Only processes that must wait block, following the lock's
+ * {@link #setWaitStrategy(WaitStrategy) wait strategy}.
+ * <P>
+ * Fairness is that of the <TT>CrewServer</TT>.  Waiting processes queue in order of
+ * arrival and, once anyone is queued, newcomers join the queue too.  So a writer waits
+ * only for the readers (and writer) ahead of it, and readers arriving after a waiting
+ * writer do not overtake it - they go in (all together) once it has finished.
+ *
+ * <H3><A NAME="Optimistic">Optimistic Reads</H3>
+ * For very short reads, even the reader count may be too costly, since every reader
+ * updates it.  Each writer bumps a <I>version</I> stamp when it starts and finishes
+ * writing, so a reader can instead read with no synchronisation at all and check
+ * afterwards that no writer has been active in the meantime:
+ * <PRE>
+ *   long stamp = crew.tryOptimisticRead ();
+ *   int x = resource.x;                    // (volatile fields)
+ *   int y = resource.y;
+ *   if (!crew.validate (stamp)) {          // a writer got in, so read again safely
+ *     crew.startRead ();
+ *     try {
+ *       x = resource.x;
+ *       y = resource.y;
+ *     } finally {
+ *       crew.endRead ();
+ *     }
+ *   }
+ * </PRE>
+ * Optimistic readers never block writers and are never blocked.  But they may see
+ * inconsistent state before validation fails, so they must only copy fields
+ * (not follow references into structures that may be changing, nor loop on them) and
+ * must not act on anything they read until it is validated.  For the Java memory model
+ * to guarantee that a successful validation means the values are consistent, the fields
+ * read optimistically must be <TT>volatile</TT> (or <TT>final</TT>).
+ *
+ * <H2>Implementation Note</H2>
+ * The lock is one atomic word holding the number of readers, a <I>writer</I> bit and a
+ * <I>queued</I> bit, which is set whenever the wait queue is non-empty.  Readers may
+ * only enter without queueing when neither bit is set and writers only when the word is
+ * zero, so no one overtakes a queued process.  The queue itself is guarded by a
+ * private monitor, held only to enqueue and by the releasing process to grant the lock
+ * to the processes at the head of the queue: either one writer, or all the readers
+ * up to the next writer.
+ * <P>
+ * A process waiting for the lock is not interruptible: it keeps waiting, and
+ * re-asserts its interrupt status when it has the lock.
+ *
+ * @see Crew
+ *
+ * @author Kevin Chalmers
+ */
+
+public class OptimisticCrew extends Crew
+{
+    /** Set in <TT>state</TT> while a writer has the lock */
+    private static final int WRITER = 1 << 30;
+
+    /** Set in <TT>state</TT> while the wait queue is non-empty */
+    private static final int QUEUED = 1 << 29;
+
+    /** The reader count bits of <TT>state</TT> */
+    private static final int READERS = QUEUED - 1;
+
+    /** The reader count and the <TT>WRITER</TT> and <TT>QUEUED</TT> bits */
+    private final AtomicInteger state = new AtomicInteger();
+
+    /** Bumped when a writer starts (so is odd while writing) and when it finishes */
+    private volatile long version = 0;
+
+    /** Guards the wait queue */
+    private final Object queueLock = new Object();
+
+    /** The wait queue (in order of arrival) */
+    private Waiter head, tail;
+
+    private WaitStrategy waitStrategy = WaitStrategy.getDefault();
+
+    /**
+     * Construct a lock for CREW-guarded operations on a shared resource.
+     */
+    public OptimisticCrew()
+    {
+        super(null, false);
+    }
+
+    /**
+     * Construct a lock for CREW-guarded operations on a shared resource.
+     *
+     * @param shared the shared resource for which this lock is to be used (see
+     * {@link #getShared <TT>getShared</TT>}).
+     */
+    public OptimisticCrew(Object shared)
+    {
+        super(shared, false);
+    }
+
+    /**
+     * There is no server process to terminate.
+     */
+    protected void finalize() throws Throwable
+    {
+    }
+
+    /**
+     * This must be invoked <I>before</I> any read operations on the associated shared resource.
+     */
+    public void startRead()
+    {
+        if (!tryStart(false))
+        {
+            await(false);
+        }
+    }
+
+    /**
+     * This must be invoked <I>after</I> any read operations on the associated shared resource.
+     */
+    public void endRead()
+    {
+        if (state.decrementAndGet() == QUEUED)
+        {
+            // the last reader has gone (and there can be no writer while there were readers)
+            synchronized (queueLock)
+            {
+                grant();
+            }
+        }
+    }
+
+    /**
+     * This must be invoked <I>before</I> any write operations on the associated shared resource.
+     */
+    public void startWrite()
+    {
+        if (!tryStart(true))
+        {
+            await(true);
+        }
+        version++;
+    }
+
+    /**
+     * This must be invoked <I>after</I> any write operations on the associated shared resource.
+     */
+    public void endWrite()
+    {
+        version++;
+        int s;
+        do
+        {
+            s = state.get();
+        }
+        while (!state.compareAndSet(s, s & ~WRITER));
+        if ((s & QUEUED) != 0)
+        {
+            synchronized (queueLock)
+            {
+                grant();
+            }
+        }
+    }
+
+    /**
+     * Returns a stamp for an <A HREF="#Optimistic">optimistic read</A>, to be checked
+     * by {@link #validate(long)} after the read.  If a writer is currently writing,
+     * the stamp will never validate.
+     *
+     * @return the stamp.
+     */
+    public long tryOptimisticRead()
+    {
+        final long v = version;
+        return ((v & 1) == 0) ? v : -1;
+    }
+
+    /**
+     * Returns whether no writer has been active since <TT>stamp</TT> was obtained
+     * from {@link #tryOptimisticRead()}.  If so, the (<TT>volatile</TT>) fields read
+     * in between were a consistent snapshot.
+     *
+     * @param stamp the stamp returned by <TT>tryOptimisticRead</TT>.
+     * @return true if the optimistic read is valid.
+     */
+    public boolean validate(final long stamp)
+    {
+        return (stamp >= 0) && (version == stamp);
+    }
+
+    /**
+     * Sets the {@link WaitStrategy} used by processes waiting for this lock.
+     *
+     * @param waitStrategy the strategy.
+     */
+    public void setWaitStrategy(final WaitStrategy waitStrategy)
+    {
+        if (waitStrategy == null)
+        {
+            throw new IllegalArgumentException(
+                "*** Attempt to set a null WaitStrategy on an OptimisticCrew\n"
+            );
+        }
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Returns the {@link WaitStrategy} used by processes waiting for this lock.
+     *
+     * @return the strategy.
+     */
+    WaitStrategy getWaitStrategy()
+    {
+        return waitStrategy;
+    }
+
+    /**
+     * Takes the lock if no one is queued and it is free for a reader (no writer)
+     * or a writer (no one at all).
+     */
+    private boolean tryStart(final boolean writer)
+    {
+        if (writer)
+        {
+            return state.compareAndSet(0, WRITER);
+        }
+        int s;
+        while (((s = state.get()) & (WRITER | QUEUED)) == 0)
+        {
+            if (state.compareAndSet(s, s + 1))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the lock: spinning first (if the wait strategy says so), then queueing.
+     */
+    private void await(final boolean writer)
+    {
+        final WaitStrategy waitStrategy = this.waitStrategy;
+        int i = 0;
+        while (waitStrategy.idle(i))
+        {
+            i++;
+            if (tryStart(writer))
+            {
+                waitStrategy.recordSpinSuccess();
+                return;
+            }
+        }
+        if (i > 0)
+        {
+            waitStrategy.recordBlock();
+        }
+        final Waiter w = new Waiter(writer);
+        synchronized (queueLock)
+        {
+            if (tail == null)
+            {
+                head = w;
+            }
+            else
+            {
+                tail.next = w;
+            }
+            tail = w;
+            int s;
+            do
+            {
+                s = state.get();
+            }
+            while (!state.compareAndSet(s, s | QUEUED));
+            // the lock may have been released before QUEUED was set, with no one to grant it
+            grant();
+        }
+        boolean interrupted = false;
+        while (!w.granted)
+        {
+            LockSupport.park(this);
+            if (Thread.interrupted())
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Grants the lock to as many processes at the head of the queue as it allows.
+     * This must be called holding <TT>queueLock</TT>.  While the queue is non-empty,
+     * <TT>state</TT> only changes here or through readers and a writer leaving.
+     */
+    private void grant()
+    {
+        while (head != null)
+        {
+            final Waiter w = head;
+            final int queued = (w.next == null) ? 0 : QUEUED;
+            if (w.writer)
+            {
+                if (!state.compareAndSet(QUEUED, WRITER | queued))
+                {
+                    return;                       // readers or a writer still present
+                }
+            }
+            else
+            {
+                int s;
+                do
+                {
+                    s = state.get();
+                    if ((s & WRITER) != 0)
+                    {
+                        return;
+                    }
+                }
+                while (!state.compareAndSet(s, ((s & READERS) + 1) | queued));
+            }
+            head = w.next;
+            if (head == null)
+            {
+                tail = null;
+            }
+            w.granted = true;
+            LockSupport.unpark(w.thread);
+            if (w.writer)
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A process in the wait queue.
+     */
+    private static final class Waiter
+    {
+        final Thread thread = Thread.currentThread();
+
+        final boolean writer;
+
+        /** Set when this process has been given the lock */
+        volatile boolean granted;
+
+        /** The next in the queue */
+        Waiter next;
+
+        Waiter(final boolean writer)
+        {
+            this.writer = writer;
+        }
+    }
+}
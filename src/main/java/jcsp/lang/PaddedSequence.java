@@ -0,0 +1,63 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * This is a <TT>volatile long</TT> sequence number on a cache line of its own.
+ * <H2>Description</H2>
+ * The lock-free buffered channels index their rings with ever-increasing sequence
+ * numbers, one advanced by the writer(s) and one by the reader.  Were the two fields
+ * to share a cache line, every move by one side would evict the line from the other's
+ * cache (<I>false sharing</I>).  <TT>PaddedSequence</TT> surrounds its value with
+ * unused fields so that no other hot data can lie on the same line.
+ *
+ * @see LockFreeBufferedOne2OneChannel
+ * @see LockFreeBufferedAny2OneChannel
+ *
+ * @author Kevin Chalmers
+ */
+
+final class PaddedSequence
+{
+    private static final AtomicLongFieldUpdater valueUpdater =
+        AtomicLongFieldUpdater.newUpdater (PaddedSequence.class, "value");
+
+    long p1, p2, p3, p4, p5, p6, p7;
+
+    /** The sequence number */
+    volatile long value = 0;
+
+    long q1, q2, q3, q4, q5, q6, q7;
+
+    /**
+     * Atomically sets the sequence number to <TT>update</TT> if it is <TT>expect</TT>
+     * (for use where there is more than one process advancing it).
+     *
+     * @param expect the expected value.
+     * @param update the new value.
+     * @return true if successful.
+     */
+    boolean compareAndSet (final long expect, final long update) {
+      return valueUpdater.compareAndSet (this, expect, update);
+    }
+}
@@ -0,0 +1,136 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * This is the task used by {@link Parallel} and {@link ProcessManager} to run
+ * a process on a {@link ProcessExecutor} other than the dedicated-thread one.
+ *
+ * <H2>Description</H2>
+ * A <TT>ParTask</TT> plays the part of a {@link ParThread} when the thread is
+ * not ours to keep: it registers whatever thread it is given for {@link Parallel#destroy()},
+ * runs its process (at the requested priority, if any), reports any uncaught exception
+ * and counts down a latch when it has finished.  Waiting on that latch parks, rather
+ * than waits on a monitor, so it is also safe for virtual threads.
+ *
+ * @see ParThread
+ * @see ProcessExecutor
+ *
+ * @author Kevin Chalmers
+ */
+
+class ParTask implements Runnable
+{
+    /** Indicates that the thread priority is not to be changed. */
+    static final int NO_PRIORITY = -1;
+
+    /** the process to be executed */
+    private final CSProcess process;
+
+    /** counted down when the process has terminated */
+    private final CountDownLatch done;
+
+    /** the thread priority to run at (or NO_PRIORITY) */
+    private final int priority;
+
+    /** the caller name for uncaught exception reports */
+    private final String caller;
+
+    /** the thread running the process (null before it starts and after it finishes) */
+    private Thread thread;
+
+    /** guards thread, so that an interrupt cannot reach a thread that has moved on */
+    private final Object threadLock = new Object();
+
+    /**
+     * Construct a new ParTask.
+     *
+     * @param process the process to be executed
+     * @param done the latch to count down on termination
+     * @param priority the thread priority (or NO_PRIORITY)
+     * @param caller the caller name for uncaught exception reports
+     */
+    ParTask(CSProcess process, CountDownLatch done, int priority, String caller)
+    {
+        this.process = process;
+        this.done = done;
+        this.priority = priority;
+        this.caller = caller;
+    }
+
+    /**
+     * Interrupts the process, if it is running.  A pooled thread that has finished
+     * this task (and may be running another) is left alone.
+     */
+    void interrupt()
+    {
+        synchronized (threadLock)
+        {
+            if (thread != null)
+                thread.interrupt();
+        }
+    }
+
+    /**
+     * The main body of this task.
+     */
+    public void run()
+    {
+        final Thread current = Thread.currentThread();
+        final int oldPriority = current.getPriority();
+        try
+        {
+            Parallel.addToAllParThreads(current);
+            synchronized (threadLock)
+            {
+                thread = current;
+            }
+            if (priority != NO_PRIORITY)
+                current.setPriority(priority);
+            try
+            {
+                process.run();
+            }
+            finally
+            {
+                synchronized (threadLock)
+                {
+                    thread = null;
+                }
+                if (priority != NO_PRIORITY)
+                    current.setPriority(oldPriority);
+                Thread.interrupted();      // a pooled thread must not carry this on -- and
+                                           // no interrupt for this task can come after it
+                Parallel.removeFromAllParThreads(current);
+            }
+        }
+        catch (Throwable e)
+        {
+            Parallel.uncaughtException(caller, e);
+        }
+        finally
+        {
+            done.countDown();
+        }
+    }
+}
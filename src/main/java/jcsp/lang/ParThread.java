@@ -28,10 +28,13 @@ package jcsp.lang;
  * A <TT>ParThread</TT> is a <TT>Thread</TT> used by {@link Parallel} to run
  * all but one of its given processes.
  * <P>
- * The <TT>CSProcess</TT> to be executed can be changed using the
- * <TT>setProcess</TT> method providing the <TT>ParThread</TT> is not active.
+ * <TT>ParThread</TT>s are not owned by any one <TT>Parallel</TT>: they are
+ * borrowed from the {@link ParThreadPool} for each run and, when their process
+ * terminates, they return themselves to that pool and park until they are
+ * borrowed again (or time out).
  *
  * @see CSProcess
+ * @see ParThreadPool
  * @see jcsp.lang.ProcessManager
  * @see Parallel
  *
@@ -42,7 +45,7 @@ package jcsp.lang;
 
 class ParThread extends Thread
 {
-    /** the process to be executed */
+    /** the process to be executed (null when idle) */
     private CSProcess process;
 
     /** the barrier at the end of a PAR */
@@ -50,8 +53,11 @@ class ParThread extends Thread
 
     private boolean running = true;
 
-    /** parking barrier for this thread */
-    private Barrier park = new Barrier(2);
+    /** set when the process may be started */
+    private boolean released = false;
+
+    /** the lock for the above fields, on which an idle thread parks */
+    private final Object parkLock = new Object();
 
     /**
      * Construct a new ParThread.
@@ -75,8 +81,11 @@ class ParThread extends Thread
      */
     public void reset(CSProcess process, Barrier barrier)
     {
-        this.process = process;
-        this.barrier = barrier;
+        synchronized (parkLock)
+        {
+            this.process = process;
+            this.barrier = barrier;
+        }
         setName(process.toString());
     }
 
@@ -86,8 +95,11 @@ class ParThread extends Thread
      */
     public void terminate()
     {
-        running = false;
-        park.sync();
+        synchronized (parkLock)
+        {
+            running = false;
+            parkLock.notify();
+        }
     }
 
     /**
@@ -95,19 +107,93 @@ class ParThread extends Thread
      */
     public void release()
     {
-        park.sync();
+        synchronized (parkLock)
+        {
+            released = true;
+            parkLock.notify();
+        }
+    }
+
+    /**
+     * Interrupts the ParThread, but only if it is still running the given process
+     * (it may since have been returned to the {@link ParThreadPool} and borrowed
+     * by someone else).
+     *
+     * @param process the process that should be interrupted
+     */
+    void interruptIfRunning(CSProcess process)
+    {
+        synchronized (parkLock)
+        {
+            if (released && (this.process == process))
+                interrupt();
+        }
+    }
+
+    /**
+     * Returns whether this thread has no process to run.
+     *
+     * @return true if this thread is idle in the {@link ParThreadPool}
+     */
+    boolean isIdle()
+    {
+        synchronized (parkLock)
+        {
+            return process == null;
+        }
+    }
+
+    /**
+     * Waits to be released (or terminated).  An idle thread that times out, or is
+     * interrupted, terminates -- unless it has just been borrowed.
+     *
+     * @return true if released, false if this thread should terminate
+     */
+    private boolean awaitRelease()
+    {
+        synchronized (parkLock)
+        {
+            long timeout = ParThreadPool.idleTimeout();
+            while (running && !released)
+            {
+                boolean expired = false;
+                try
+                {
+                    if (timeout > 0)
+                    {
+                        final long start = System.currentTimeMillis();
+                        parkLock.wait(timeout);
+                        timeout -= System.currentTimeMillis() - start;
+                        expired = (timeout <= 0);
+                    }
+                    else
+                        parkLock.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    expired = true;      // Parallel.destroy() has been called
+                }
+                if (expired && !released)
+                {
+                    if (ParThreadPool.retire(this))
+                        return false;
+                    timeout = 0;         // just borrowed -- the release is imminent
+                }
+            }
+            return running;
+        }
     }
 
     /**
-     * The main body of this process.
-     * above.
+     * The main body of this process: run processes given to us by Parallels,
+     * returning to the {@link ParThreadPool} in between.
      */
     public void run()
     {
         try
         {
             Parallel.addToAllParThreads(this);
-            while (running)
+            while (awaitRelease())
             {
                 try
                 {
@@ -117,8 +203,20 @@ class ParThread extends Thread
                 {
                     Parallel.uncaughtException("jcsp.lang.Parallel", e);
                 }
-                barrier.resign();
-                park.sync();
+                final Barrier b;
+                synchronized (parkLock)
+                {
+                    b = barrier;
+                    process = null;
+                    barrier = null;
+                    released = false;
+                }
+                Thread.interrupted();       // do not carry an interrupt into the next PAR
+                setPriority(NORM_PRIORITY);
+                setName("jcsp.lang.ParThread (idle)");
+                b.resign();
+                if (!ParThreadPool.recycle(this))
+                    break;
             }
         }
         catch (Throwable t)
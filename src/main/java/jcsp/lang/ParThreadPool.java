@@ -0,0 +1,316 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+/**
+ * This is the JVM-wide pool of idle {@link ParThread}s shared by all
+ * {@link Parallel} objects.
+ * <H2>Description</H2>
+ * Each run of a <TT>Parallel</TT> borrows the threads it needs from this pool.
+ * When a process terminates, its thread returns itself to the pool and parks,
+ * ready for the next run of <I>any</I> <TT>Parallel</TT>.  So transient
+ * <TT>Parallel</TT>s (e.g. those built inside server loops, or by
+ * {@link jcsp.plugNplay.DynamicDelta} and {@link jcsp.plugNplay.Paraplex})
+ * do not pay for thread creation once the pool has warmed up, and no
+ * <TT>Parallel</TT> needs to hold on to threads between its runs.
+ * <P>
+ * The pool is controlled by two limits:
+ * <UL>
+ *   <LI>{@link #setMaxIdle(int) maxIdle} -- the maximum number of idle threads kept.
+ *     A thread finishing its process when the pool is full terminates instead.
+ *     Setting this to zero disables re-use.</LI>
+ *   <LI>{@link #setIdleTimeout(long) idleTimeout} -- how long (in milliseconds) a thread
+ *     stays idle before it terminates.  Zero means for ever.</LI>
+ * </UL>
+ * There is no limit on the number of threads <I>running</I> processes: a <TT>Parallel</TT>
+ * always gets all the threads it needs (anything else would risk deadlock).
+ * <P>
+ * The pool keeps simple statistics: the number of threads created, the number of
+ * borrows satisfied by an idle thread, the number of threads retired and the number
+ * currently idle.  They are available individually or as a {@link #getStatistics() summary}.
+ * <P>
+ * Idle threads are stacked: the most recently returned thread is the next borrowed,
+ * so that the oldest ones are the ones left to time out.
+ *
+ * @see Parallel
+ * @see ParThread
+ *
+ * @author Kevin Chalmers
+ */
+
+public final class ParThreadPool
+{
+  /** The default maximum number of idle threads. */
+  public static final int DEFAULT_MAX_IDLE = 1024;
+
+  /** The default idle timeout (milliseconds). */
+  public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+  /** The lock for all the fields below. */
+  private static final Object lock = new Object ();
+
+  /** The idle threads (a stack). */
+  private static ParThread[] idle = new ParThread[16];
+
+  /** The number of idle threads. */
+  private static int nIdle = 0;
+
+  /** The maximum number of idle threads. */
+  private static int maxIdle = DEFAULT_MAX_IDLE;
+
+  /** The idle timeout (milliseconds, or zero for none). */
+  private static long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+  /** The number of threads created. */
+  private static long created = 0;
+
+  /** The number of borrows satisfied from the idle stack. */
+  private static long reused = 0;
+
+  /** The number of threads retired (on timeout, overflow or shrinking). */
+  private static long retired = 0;
+
+  /**
+   * Private constructor to stop users from instantiating this class.
+   */
+  private ParThreadPool () {
+  }
+
+  /**
+   * Returns a thread ready to run the given process -- either an idle one or a new one.
+   * The thread does not start the process until it is {@link ParThread#release() released}.
+   *
+   * @param process the process to run.
+   * @param barrier the barrier to resign from when it terminates.
+   * @return the thread.
+   */
+  static ParThread borrow (final CSProcess process, final Barrier barrier) {
+    ParThread thread = null;
+    synchronized (lock) {
+      if (nIdle > 0) {
+        nIdle--;
+        thread = idle[nIdle];
+        idle[nIdle] = null;
+        reused++;
+      } else {
+        created++;
+      }
+    }
+    if (thread == null) {
+      thread = new ParThread (process, barrier);
+      thread.start ();
+    } else {
+      thread.reset (process, barrier);
+    }
+    return thread;
+  }
+
+  /**
+   * Offers a thread whose process has terminated back to the pool.
+   *
+   * @param thread the thread.
+   * @return true if it has been taken back, false if it should terminate.
+   */
+  static boolean recycle (final ParThread thread) {
+    synchronized (lock) {
+      if (nIdle >= maxIdle) {
+        retired++;
+        return false;
+      }
+      if (nIdle == idle.length) {
+        final ParThread[] tmp = idle;
+        idle = new ParThread[2 * nIdle];
+        System.arraycopy (tmp, 0, idle, 0, nIdle);
+      }
+      idle[nIdle] = thread;
+      nIdle++;
+      return true;
+    }
+  }
+
+  /**
+   * Removes an idle thread from the pool (because it has timed out or been interrupted).
+   *
+   * @param thread the thread.
+   * @return true if it was idle (and should now terminate), false if it has just been
+   *   borrowed (and should wait for its release).
+   */
+  static boolean retire (final ParThread thread) {
+    synchronized (lock) {
+      for (int i = nIdle - 1; i >= 0; i--) {
+        if (idle[i] == thread) {
+          nIdle--;
+          System.arraycopy (idle, i + 1, idle, i, nIdle - i);
+          idle[nIdle] = null;
+          retired++;
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Returns the idle timeout currently in force.
+   *
+   * @return the timeout (milliseconds, or zero for none).
+   */
+  static long idleTimeout () {
+    synchronized (lock) {
+      return idleTimeout;
+    }
+  }
+
+  /**
+   * Sets the maximum number of idle threads kept.  If there are more than this now,
+   * the excess are terminated.
+   *
+   * @param maxIdle the new maximum (zero disables re-use).
+   */
+  public static void setMaxIdle (final int maxIdle) {
+    if (maxIdle < 0) {
+      throw new IllegalArgumentException (
+        "*** Attempt to set a negative maximum idle size on the ParThread pool\n"
+      );
+    }
+    final ParThread[] excess;
+    synchronized (lock) {
+      ParThreadPool.maxIdle = maxIdle;
+      if (nIdle <= maxIdle) {
+        return;
+      }
+      // the oldest are at the bottom of the stack
+      excess = new ParThread[nIdle - maxIdle];
+      System.arraycopy (idle, 0, excess, 0, excess.length);
+      System.arraycopy (idle, excess.length, idle, 0, maxIdle);
+      for (int i = maxIdle; i < nIdle; i++) {
+        idle[i] = null;
+      }
+      nIdle = maxIdle;
+      retired += excess.length;
+    }
+    for (int i = 0; i < excess.length; i++) {
+      excess[i].terminate ();
+    }
+  }
+
+  /**
+   * @return the maximum number of idle threads kept.
+   */
+  public static int getMaxIdle () {
+    synchronized (lock) {
+      return maxIdle;
+    }
+  }
+
+  /**
+   * Sets how long a thread may stay idle before it terminates.  This applies to threads
+   * becoming idle after the call.
+   *
+   * @param idleTimeout the timeout in milliseconds (zero for no timeout).
+   */
+  public static void setIdleTimeout (final long idleTimeout) {
+    if (idleTimeout < 0) {
+      throw new IllegalArgumentException (
+        "*** Attempt to set a negative idle timeout on the ParThread pool\n"
+      );
+    }
+    synchronized (lock) {
+      ParThreadPool.idleTimeout = idleTimeout;
+    }
+  }
+
+  /**
+   * @return the idle timeout (milliseconds, or zero for none).
+   */
+  public static long getIdleTimeout () {
+    return idleTimeout ();
+  }
+
+  /**
+   * Terminates all idle threads.
+   */
+  public static void clear () {
+    final int max = getMaxIdle ();
+    setMaxIdle (0);
+    setMaxIdle (max);
+  }
+
+  /**
+   * @return the number of threads currently idle in the pool.
+   */
+  public static int getIdleCount () {
+    synchronized (lock) {
+      return nIdle;
+    }
+  }
+
+  /**
+   * @return the number of threads created for the pool.
+   */
+  public static long getCreatedCount () {
+    synchronized (lock) {
+      return created;
+    }
+  }
+
+  /**
+   * @return the number of borrows satisfied by an idle thread.
+   */
+  public static long getReusedCount () {
+    synchronized (lock) {
+      return reused;
+    }
+  }
+
+  /**
+   * @return the number of threads that have terminated (timed out, or not taken back
+   *   because the pool was full).
+   */
+  public static long getRetiredCount () {
+    synchronized (lock) {
+      return retired;
+    }
+  }
+
+  /**
+   * Sets all the statistics counters to zero.
+   */
+  public static void resetStatistics () {
+    synchronized (lock) {
+      created = 0;
+      reused = 0;
+      retired = 0;
+    }
+  }
+
+  /**
+   * @return a one-line summary of the pool's limits and statistics.
+   */
+  public static String getStatistics () {
+    synchronized (lock) {
+      return "ParThreadPool [idle = " + nIdle + ", maxIdle = " + maxIdle +
+             ", idleTimeout = " + idleTimeout + "ms, created = " + created +
+             ", reused = " + reused + ", retired = " + retired + "]";
+    }
+  }
+
+}
@@ -21,6 +21,7 @@
 package jcsp.lang;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * This process constructor taks an array of <TT>CSProcess</TT>es
@@ -252,21 +253,22 @@ public class Parallel implements CSProcess
     /** The number of processes in this <TT>Parallel</TT> */
     private int nProcesses = 0;
 
-    /** A pool of ParThreads */
+    /** The ParThreads borrowed from the {@link ParThreadPool} for the current run */
     private ParThread[] parThreads;
 
-    /** The number of threads created so far by this <TT>Parallel</TT> */
+    /** The number of threads borrowed for the current run */
     private int nThreads = 0;
 
     // invariant : (0 <= nProcesses <= processes.length)
     // invariant : (0 <= nThreads <= parThreads.length)
 
     /** Used to synchronise the termination of processes in each run of <TT>Parallel</TT> */
-    private Barrier barrier = new Barrier();
+    private Barrier barrier = treeBarrierDefault ? new TreeBarrier() : new Barrier();
 
     private boolean priority;
 
-    private boolean processesChanged;
+    /** The executor for the processes (null for the global default) */
+    private ProcessExecutor executor;
 
     /**
      * The threads created by <I>all</I> <TT>Parallel</TT> and {@link ProcessManager} objects.
@@ -304,6 +306,19 @@ public class Parallel implements CSProcess
         }
     }
 
+    /**
+     * Returns the threads currently in the <code>allParThreads</code> collection.
+     *
+     * @return a copy of the collection.
+     */
+    static Thread[] getAllParThreads()
+    {
+        synchronized (allParThreads)
+        {
+            return (Thread[]) allParThreads.toArray(new Thread[allParThreads.size()]);
+        }
+    }
+
     /**
      * Stops all threads created by <I>all</I> <TT>Parallel</TT> and {@link ProcessManager} objects. No new threads can be
      * created until the <TT>resetDestroy</TT> method gets called.
@@ -410,7 +425,6 @@ public class Parallel implements CSProcess
             this.processes = new CSProcess[0];
             parThreads = new ParThread[0];
         }
-        processesChanged = true;
         this.priority = false;
     }
 
@@ -437,7 +451,6 @@ public class Parallel implements CSProcess
             this.processes = new CSProcess[0];
             parThreads = new ParThread[0];
         }
-        processesChanged = true;
         this.priority = priority;
     }
 
@@ -462,7 +475,6 @@ public class Parallel implements CSProcess
                 }
                 processes[nProcesses] = process;
                 nProcesses = targetProcesses;
-                processesChanged = true;
             }
         }
     }
@@ -490,7 +502,6 @@ public class Parallel implements CSProcess
                 }
                 System.arraycopy(newProcesses, 0, processes, nProcesses, extra);
                 nProcesses = targetProcesses;
-                processesChanged = true;
             }
         }
     }
@@ -528,7 +539,6 @@ public class Parallel implements CSProcess
                 }
                 processes[index] = process;
                 nProcesses = targetProcesses;
-                processesChanged = true;
             }
         }
     }
@@ -552,7 +562,6 @@ public class Parallel implements CSProcess
                                          nProcesses - (i + 1));
                     nProcesses--;
                     processes[nProcesses] = null;
-                    processesChanged = true;
                     return;
                 }
             }
@@ -569,33 +578,41 @@ public class Parallel implements CSProcess
                 processes[i] = null;
             }
             nProcesses = 0;
-            processesChanged = true;
         }
     }
 
     /**
-     * System finalizer. When this object falls out of scope it will release all of the threads that it
-     * has allocated.
+     * Release all threads saved by the <TT>Parallel</TT> object for future runs.
+     * <P>
+     * A <TT>Parallel</TT> no longer holds threads between its runs: they are returned
+     * to the JVM-wide {@link ParThreadPool} as each process terminates (and that pool
+     * limits and times out its idle threads).  So this method now has nothing to do.
+     * To terminate idle threads, use {@link ParThreadPool#clear()}.
      */
-    protected void finalize() throws Throwable {
-        releaseAllThreads();
+    public void releaseAllThreads() {
     }
 
     /**
-     * Release all threads saved by the <TT>Parallel</TT> object for future runs -
-     * the threads all terminate and release their associated workspaces.
-     * This should only be executed when the <TT>Parallel</TT> object is not running.
-     * If this <TT>Parallel</TT> object is run again, the necessary threads will be
-     * recreated.
+     * Sets the {@link ProcessExecutor} used to run the processes of this <TT>Parallel</TT>.
+     * This takes effect from the next <TT>run()</TT>.  If this is never set (or is set to
+     * <TT>null</TT>), the {@link ProcessExecutor#getDefault() global default} at the time of
+     * each run is used.
+     *
+     * @param executor the executor (or null).
      */
-    public void releaseAllThreads() {
+    public void setProcessExecutor(ProcessExecutor executor) {
         synchronized (sync) {
-            for (int i = 0; i < nThreads; i++) {
-                parThreads[i].terminate();
-                parThreads[i] = null;
-            }
-            nThreads = 0;
-            processesChanged = true;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * @return the {@link ProcessExecutor} set for this <TT>Parallel</TT> (or null,
+     *   if it uses the global default).
+     */
+    public ProcessExecutor getProcessExecutor() {
+        synchronized (sync) {
+            return executor;
         }
     }
 
@@ -615,13 +632,34 @@ public class Parallel implements CSProcess
      * <TT>Parallel</TT> object.  It terminates when, and only when, all its component
      * processes terminate.
      * </P>
-     * <P><I>Implementation note: In its first </I>run<I>, only
-     * (numProcesses - 1) Threads are created to run the processes --
+     * <P><I>Implementation note: In each </I>run<I>, only
+     * (numProcesses - 1) Threads are used to run the processes --
      * the last process is executed in the invoking Thread.
-     * Sunsequent </I>run<I>s reuse these Threads (so the overhead
-     * of thread creation happens only once).</I></P>
+     * These Threads are borrowed from the JVM-wide {@link ParThreadPool}
+     * and return to it as their processes terminate (so the overhead
+     * of thread creation is only paid when the pool has no idle threads).</I></P>
+     * <P><I>If a {@link ProcessExecutor} other than the dedicated-thread one is in force,
+     * the (numProcesses - 1) processes are handed to that executor instead and the
+     * invoking Thread waits for them without a monitor.</I></P>
      */
     public void run() {
+        final Object e = Events.events.beginParallel();
+        runProcesses();
+        if (e != null) {
+            Events.events.endParallel(e, nProcesses);
+        }
+    }
+
+    private void runProcesses() {
+
+        final ProcessExecutor runExecutor;
+        synchronized (sync) {
+            runExecutor = (executor == null) ? ProcessExecutor.getDefault() : executor;
+        }
+        if (! runExecutor.usesParThreads()) {
+            runOnExecutor(runExecutor);
+            return;
+        }
 
         boolean emptyRun = true;
 
@@ -649,50 +687,18 @@ public class Parallel implements CSProcess
 
                 barrier.reset(nProcesses);
                 myProcess = processes[nProcesses - 1];
-                if (processesChanged) {
-                    if (nThreads < nProcesses - 1) {
-                        if (parThreads.length < nProcesses - 1) {
-                            final ParThread[] tmp = parThreads;
-                            parThreads = new ParThread[processes.length];
-                            System.arraycopy(tmp, 0, parThreads, 0, nThreads);
-                        }
-                        for (int i = 0; i < nThreads; i++) {
-                            parThreads[i].reset(processes[i], barrier);
-                            if (priority) {
-                                parThreads[i].setPriority(Math.max(
-                                        currentPriority, maxPriority - i));
-                            }
-                            parThreads[i].release();
-                        }
-                        for (int i = nThreads; i < nProcesses - 1; i++) {
-                            parThreads[i] = new ParThread(processes[i], barrier);
-                            if (priority) {
-                                parThreads[i].setPriority(Math.max(
-                                        currentPriority, maxPriority - i));
-                            }
-                            parThreads[i].start();
-                        }
-                        nThreads = nProcesses - 1;
-                    } else {
-                        for (int i = 0; i < nProcesses - 1; i++) {
-                            parThreads[i].reset(processes[i], barrier);
-                            if (priority) {
-                                parThreads[i].setPriority(Math.max(
-                                        currentPriority, maxPriority - i));
-                            }
-                            parThreads[i].release();
-                        }
-                    }
-                    processesChanged = false;
-                } else {
-                    for (int i = 0; i < nProcesses - 1; i++) {
-                        if (priority) {
-                            parThreads[i].setPriority(Math.max(currentPriority,
-                                    maxPriority - i));
-                        }
-                        parThreads[i].release();
+                if (parThreads.length < nProcesses - 1) {
+                    parThreads = new ParThread[processes.length];
+                }
+                for (int i = 0; i < nProcesses - 1; i++) {
+                    parThreads[i] = ParThreadPool.borrow(processes[i], barrier);
+                    if (priority) {
+                        parThreads[i].setPriority(Math.max(
+                                currentPriority, maxPriority - i));
                     }
+                    parThreads[i].release();
                 }
+                nThreads = nProcesses - 1;
             }
 
         }   // end synchronized block
@@ -708,7 +714,7 @@ public class Parallel implements CSProcess
                 synchronized (sync) {     // PHW: why synchronize?
                     for (int i = 0; i < nThreads; i++) {
                         try {
-                            parThreads[i].interrupt();
+                            parThreads[i].interruptIfRunning(processes[i]);
                         } catch (Throwable t) {
                             System.out.println(
                                     "*** jcsp.lang.Parallel: couldn't stop thread "
@@ -723,9 +729,96 @@ public class Parallel implements CSProcess
 
             barrier.sync();
 
+            synchronized (sync) {     // the threads are back in the pool
+                for (int i = 0; i < nThreads; i++) {
+                    parThreads[i] = null;
+                }
+                nThreads = 0;
+            }
+
+        }
+    }
+
+    /**
+     * Run the processes by handing all but the last to the given executor.
+     *
+     * @param runExecutor the executor to use.
+     */
+    private void runOnExecutor(final ProcessExecutor runExecutor) {
+
+        final CSProcess[] runProcesses;
+        final CountDownLatch done;
+        final ParTask[] tasks;
+
+        synchronized (sync) {
+
+            if (nProcesses == 0) {
+                return;
+            }
+
+            int currentPriority = 0;
+            int maxPriority = 0;
+            if (priority)
+            {
+                Thread thread = Thread.currentThread();
+                currentPriority = thread.getPriority();
+                maxPriority = Math.min(
+                    currentPriority + nProcesses - 1,
+                    Math.min(Thread.MAX_PRIORITY,
+                        thread.getThreadGroup().getMaxPriority()
+                    )
+                );
+            }
+
+            runProcesses = new CSProcess[nProcesses];
+            System.arraycopy(processes, 0, runProcesses, 0, nProcesses);
+            done = new CountDownLatch(nProcesses - 1);
+            tasks = new ParTask[nProcesses - 1];
+            for (int i = 0; i < nProcesses - 1; i++) {
+                tasks[i] = new ParTask(runProcesses[i], done,
+                    priority ? Math.max(currentPriority, maxPriority - i) : ParTask.NO_PRIORITY,
+                    "jcsp.lang.Parallel");
+            }
+        }   // end synchronized block
+
+        for (int i = 0; i < tasks.length; i++) {
+            runExecutor.execute(tasks[i]);
+        }
+
+        try {
+            runProcesses[runProcesses.length - 1].run();
+        } catch (ProcessInterruptedException e) {
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i].interrupt();
+            }
+        } catch (Throwable e) {
+            uncaughtException("jcsp.lang.Parallel", e);
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            throw new ProcessInterruptedException(
+                "*** Thrown from Parallel.run ()\n" + e.toString());
         }
     }
 
+    /**
+     * TRUE iff new <TT>Parallel</TT>s are to use a {@link TreeBarrier}.
+     */
+    private static volatile boolean treeBarrierDefault = false;
+
+    /**
+     * Sets whether <TT>Parallel</TT>s constructed from now on synchronise the termination of
+     * their processes with a {@link TreeBarrier} (rather than a {@link Barrier}).  This may
+     * help a <TT>Parallel</TT> of hundreds of processes.  Initially, they do not.
+     *
+     * @param enable whether new <TT>Parallel</TT>s use a <TT>TreeBarrier</TT>.
+     */
+    public static void setTreeBarrierDefault(final boolean enable) {
+        treeBarrierDefault = enable;
+    }
+
     /**
      * TRUE iff uncaught exceptions are to be displayed.
      */
@@ -25,6 +25,6 @@ import jcsp.util.ints.ChannelDataStoreInt;
 class PoisonableBufferedAny2AnyChannelInt extends Any2AnyIntImpl
 {
 	PoisonableBufferedAny2AnyChannelInt(ChannelDataStoreInt _data, int _immunity) {
-		super(new PoisonableBufferedAny2AnyChannelInt(_data,_immunity));
+		super(new PoisonableBufferedOne2OneChannelInt(_data,_immunity));
 	}
 }
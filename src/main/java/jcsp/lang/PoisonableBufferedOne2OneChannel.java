@@ -124,6 +124,37 @@ public Object read () {
   }
 }
 
+/**
+ * Reads up to <TT>max</TT> <TT>Object</TT>s from the channel, waiting only
+ * if the buffer is empty.  They are drained from the buffer in a single
+ * acquisition of the monitor.
+ *
+ * @param dst the array into which the objects are read.
+ * @param max the most objects to read.
+ * @return the number of objects read.
+ */
+public int read (Object[] dst, int max) {
+  ChannelBatch.checkRead (dst, max);
+  synchronized (rwMonitor) {
+    try {
+      while (data.getState () == ChannelDataStore.EMPTY) {
+        //Reader only sees poison if buffer is empty:
+        if (isPoisoned()) {
+          throw new PoisonException(poisonStrength);
+        }
+        rwMonitor.wait ();
+      }
+    }
+    catch (InterruptedException e) {
+      throw new ProcessInterruptedException(
+        "*** Thrown from One2OneChannel.read (Object[], int)\n" + e.toString ()
+      );
+    }
+    rwMonitor.notify ();
+    return data.drainTo (dst, 0, max);
+  }
+}
+
 public Object startRead() {
   synchronized (rwMonitor) {
 	  
@@ -205,6 +236,52 @@ public void write (Object value) {
   }
 }
 
+/**
+ * Writes a batch of <TT>Object</TT>s to the channel.  As many as fit are put
+ * into the buffer at each acquisition of the monitor, waking the reader once
+ * for each such group.  As with a single write, this only returns once the
+ * buffer is not full.
+ *
+ * @param items the objects to write to the channel.
+ * @param off the index in <TT>items</TT> of the first object to write.
+ * @param len the number of objects to write.
+ */
+public void write (Object[] items, int off, int len) {
+  ChannelBatch.checkWrite (items, off, len);
+  if (len == 0) {
+    return;
+  }
+  synchronized (rwMonitor) {
+    try {
+      while (true) {
+        while (data.getState () == ChannelDataStore.FULL && !isPoisoned()) {
+          rwMonitor.wait ();
+        }
+        //Writer always sees poison:
+        if (isPoisoned()) {
+          throw new PoisonException(poisonStrength);
+        }
+        if (len == 0) {
+          return;
+        }
+        final int n = data.putAll (items, off, len);
+        off += n;
+        len -= n;
+        if (alt != null) {
+          alt.schedule ();
+        } else {
+          rwMonitor.notify ();
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      throw new ProcessInterruptedException(
+        "*** Thrown from One2OneChannel.write (Object[], int, int)\n" + e.toString ()
+      );
+    }
+  }
+}
+
 /**
  * turns on Alternative selection for the channel. Returns true if the
  * channel has data that can be read immediately.
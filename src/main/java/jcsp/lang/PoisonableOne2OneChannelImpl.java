@@ -370,4 +370,28 @@ class PoisonableOne2OneChannelImpl implements One2OneChannel, Serializable, Chan
 			  }
 		  }
 	  }
+
+	  /**
+	   * Writes a batch of <TT>Object</TT>s to the channel.  With no buffer, each
+	   * is a separate rendezvous with the reader.
+	   *
+	   * @param items the objects to write to the channel.
+	   * @param off the index in <TT>items</TT> of the first object to write.
+	   * @param len the number of objects to write.
+	   */
+	  public void write (Object[] items, int off, int len) {
+	    ChannelBatch.writeEach (this, items, off, len);
+	  }
+
+	  /**
+	   * Reads one <TT>Object</TT> from the channel, waiting if necessary, then more
+	   * (up to <TT>max</TT>) while the writer is ready to send them.
+	   *
+	   * @param dst the array into which the objects are read.
+	   * @param max the most objects to read.
+	   * @return the number of objects read.
+	   */
+	  public int read (Object[] dst, int max) {
+	    return ChannelBatch.readPending (this, dst, max);
+	  }
 }
@@ -38,6 +38,11 @@ package jcsp.lang;
  * the spawning process, the higher requested priorities will be truncated
  * to that maximum.  Also, the semantics of priority will be that implemented
  * by the JVM being used.
+ * <P>
+ * Processes run by a {@link ProcessExecutor} other than the dedicated-thread one
+ * have their thread's priority set for the duration of the process (and restored
+ * afterwards, so that pooled threads are not left at raised priorities).
+ * Virtual threads ignore priorities.
  *
  * @author P.D. Austin
  */
@@ -0,0 +1,339 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This decides which threads run the processes spawned by {@link Parallel},
+ * {@link PriParallel} and {@link ProcessManager}.
+ * <H2>Description</H2>
+ * By default, JCSP gives every process its own (platform) <TT>Thread</TT>:
+ * a <TT>Parallel</TT> of <I>n</I> processes runs <I>n-1</I> of them in
+ * {@link ParThread}s (re-using them on later runs) and the last in the invoking
+ * thread; a <TT>ProcessManager</TT> starts a fresh thread.  For networks of
+ * tens of thousands of processes, that means tens of thousands of OS threads
+ * and their stacks.
+ * <P>
+ * A <TT>ProcessExecutor</TT> is the service-provider interface through which
+ * that choice can be changed.  The following implementations are provided:
+ * <UL>
+ *   <LI>{@link #dedicatedThreads()} -- the classical model described above.
+ *     This is the initial default.</LI>
+ *   <LI>{@link #pool(int)} -- a bounded pool of platform threads.</LI>
+ *   <LI>{@link #virtualThreads()} -- one virtual thread per process, on JDKs that have
+ *     them (they are detected reflectively, so this class still loads on older JDKs --
+ *     see {@link #virtualThreadsAvailable()}).</LI>
+ *   <LI>{@link #fromExecutor(Executor)} -- any <TT>java.util.concurrent.Executor</TT>.</LI>
+ * </UL>
+ * Other implementations may override {@link #execute(Runnable)}.
+ * <P>
+ * The executor is chosen globally with {@link #setDefault(ProcessExecutor)}, or at
+ * startup with the system property <TT>jcsp.processExecutor</TT> (one of
+ * <TT>dedicated</TT>, <TT>virtual</TT>, <TT>pool:</TT><I>n</I> or the name of a
+ * <TT>ProcessExecutor</TT> subclass with a public no-arg constructor).  It may be
+ * overridden for an individual {@link Parallel#setProcessExecutor(ProcessExecutor) Parallel}
+ * or {@link ProcessManager#ProcessManager(CSProcess, ProcessExecutor) ProcessManager}.
+ * <H2>Warnings</H2>
+ * CSP processes block.  An executor that can run no more than <I>k</I> processes at
+ * once will deadlock any network needing more than <I>k</I> of them to make progress.
+ * The {@link #pool(int) pool} executor is only safe if it is at least as large as the
+ * number of processes that may be alive at the same time.
+ * <P>
+ * A virtual thread that blocks in a monitor <TT>wait</TT> occupies (<I>pins</I>) its
+ * carrier thread on JDKs before 24.  When the default executor {@link #prefersParking()
+ * prefers parking}, unbuffered <I>one-one</I> channels built by {@link Channel} and
+ * {@link StandardChannelFactory} use the park-based {@link Channel#one2oneLockFree()
+ * lock-free} implementation, and <TT>Parallel</TT> and <TT>ProcessManager</TT> wait for their
+ * processes without a monitor.  The remaining primitives are still monitor-based: they
+ * remain correct (the JDK compensates for blocking <TT>Object.wait</TT> calls), but cost a
+ * carrier thread while blocked.
+ *
+ * @see Parallel
+ * @see ProcessManager
+ *
+ * @author Kevin Chalmers
+ */
+
+public abstract class ProcessExecutor
+{
+  /** The name of the system property from which the initial default is taken. */
+  public static final String PROPERTY = "jcsp.processExecutor";
+
+  /** The shared dedicated-thread executor. */
+  private static final ProcessExecutor dedicated = new DedicatedThreads ();
+
+  /** The global default. */
+  private static volatile ProcessExecutor defaultExecutor = fromProperty ();
+
+  /**
+   * Runs the given task in some thread other than the invoking one.  The
+   * task will block (it is a CSP process) and must not be run in the
+   * invoking thread.
+   *
+   * @param task the task to run.
+   */
+  public abstract void execute (Runnable task);
+
+  /**
+   * Returns whether processes run by this executor should avoid monitor waits
+   * (because they run on virtual threads).  The default is <TT>false</TT>.
+   *
+   * @return true if blocking should be done by parking.
+   */
+  public boolean prefersParking () {
+    return false;
+  }
+
+  /**
+   * Releases any threads held by this executor.  Processes already running are
+   * not affected.  The default does nothing.
+   */
+  public void shutdown () {
+  }
+
+  /**
+   * Returns whether this is the classical model, in which <TT>Parallel</TT>
+   * manages its own {@link ParThread}s.
+   */
+  boolean usesParThreads () {
+    return false;
+  }
+
+  /**
+   * Returns the global default executor.
+   *
+   * @return the default executor.
+   */
+  public static ProcessExecutor getDefault () {
+    return defaultExecutor;
+  }
+
+  /**
+   * Sets the global default executor.  This affects <TT>Parallel</TT>s run (and
+   * <TT>ProcessManager</TT>s constructed) after the call.
+   *
+   * @param executor the new default.
+   */
+  public static void setDefault (final ProcessExecutor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException (
+        "*** Attempt to set a null default ProcessExecutor\n"
+      );
+    }
+    defaultExecutor = executor;
+  }
+
+  /**
+   * Returns the executor that gives each process its own platform thread.
+   *
+   * @return the dedicated-thread executor.
+   */
+  public static ProcessExecutor dedicatedThreads () {
+    return dedicated;
+  }
+
+  /**
+   * Returns a new executor that runs processes on a pool of at most
+   * <TT>nThreads</TT> (daemon) platform threads.  See the warning in the
+   * class description.
+   *
+   * @param nThreads the maximum number of threads.
+   * @return the pool executor.
+   */
+  public static ProcessExecutor pool (final int nThreads) {
+    if (nThreads <= 0) {
+      throw new IllegalArgumentException (
+        "*** Attempt to create a ProcessExecutor pool with " + nThreads + " threads\n"
+      );
+    }
+    return new Concurrent (Executors.newFixedThreadPool (nThreads, new DaemonThreadFactory ()), false);
+  }
+
+  /**
+   * Returns whether this JDK supports virtual threads.
+   *
+   * @return true if {@link #virtualThreads()} may be used.
+   */
+  public static boolean virtualThreadsAvailable () {
+    return virtualFactory () != null;
+  }
+
+  /**
+   * Returns a new executor that runs each process in its own virtual thread.
+   *
+   * @return the virtual-thread executor.
+   * @throws UnsupportedOperationException if this JDK does not have virtual threads.
+   */
+  public static ProcessExecutor virtualThreads () {
+    final Method factory = virtualFactory ();
+    if (factory == null) {
+      throw new UnsupportedOperationException (
+        "*** Virtual threads are not supported by this JVM (" +
+        System.getProperty ("java.version") + ")\n"
+      );
+    }
+    try {
+      return new Concurrent ((ExecutorService) factory.invoke (null, new Object[0]), true);
+    }
+    catch (Exception e) {
+      throw new UnsupportedOperationException (
+        "*** Virtual threads could not be created\n" + e.toString ()
+      );
+    }
+  }
+
+  /**
+   * Returns an executor that hands processes to the given
+   * <TT>java.util.concurrent.Executor</TT>.  See the warning in the class description.
+   *
+   * @param executor the underlying executor.
+   * @return the process executor.
+   */
+  public static ProcessExecutor fromExecutor (final Executor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException (
+        "*** Attempt to create a ProcessExecutor from a null Executor\n"
+      );
+    }
+    return new Concurrent (executor, false);
+  }
+
+  /**
+   * Returns <TT>Executors.newVirtualThreadPerTaskExecutor</TT>, if this JDK has it.
+   */
+  private static Method virtualFactory () {
+    try {
+      return Executors.class.getMethod ("newVirtualThreadPerTaskExecutor", new Class[0]);
+    }
+    catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the executor named by the {@link #PROPERTY} system property
+   * (or the dedicated-thread executor).
+   */
+  private static ProcessExecutor fromProperty () {
+    String name = null;
+    try {
+      name = System.getProperty (PROPERTY);
+    }
+    catch (SecurityException e) {
+      // fall through to the default
+    }
+    if ((name == null) || (name.length () == 0) || name.equals ("dedicated")) {
+      return dedicated;
+    }
+    try {
+      if (name.equals ("virtual")) {
+        return virtualThreads ();
+      }
+      if (name.startsWith ("pool:")) {
+        return pool (Integer.parseInt (name.substring (5)));
+      }
+      return (ProcessExecutor) Class.forName (name).getDeclaredConstructor ().newInstance ();
+    }
+    catch (Exception e) {
+      System.err.println ("*** jcsp.lang.ProcessExecutor: ignoring " + PROPERTY + "=" + name +
+                          " (" + e + ")");
+      return dedicated;
+    }
+  }
+
+  /**
+   * The classical model: one new platform thread per task.  <TT>Parallel</TT>
+   * recognises this executor and uses its own re-usable {@link ParThread}s instead.
+   */
+  private static class DedicatedThreads extends ProcessExecutor {
+
+    public void execute (final Runnable task) {
+      final Thread thread = new Thread (task);
+      thread.setDaemon (true);
+      thread.start ();
+    }
+
+    boolean usesParThreads () {
+      return true;
+    }
+
+    public String toString () {
+      return "ProcessExecutor [dedicated threads]";
+    }
+
+  }
+
+  /**
+   * Hands tasks to a <TT>java.util.concurrent.Executor</TT>.
+   */
+  private static class Concurrent extends ProcessExecutor {
+
+    private final Executor executor;
+
+    private final boolean virtual;
+
+    Concurrent (final Executor executor, final boolean virtual) {
+      this.executor = executor;
+      this.virtual = virtual;
+    }
+
+    public void execute (final Runnable task) {
+      executor.execute (task);
+    }
+
+    public boolean prefersParking () {
+      return virtual;
+    }
+
+    public void shutdown () {
+      if (executor instanceof ExecutorService) {
+        ((ExecutorService) executor).shutdown ();
+      }
+    }
+
+    public String toString () {
+      return "ProcessExecutor [" + (virtual ? "virtual threads" : executor.toString ()) + "]";
+    }
+
+  }
+
+  /**
+   * Makes daemon threads, so that pooled processes do not keep the JVM alive
+   * (just like {@link ParThread}s).
+   */
+  private static class DaemonThreadFactory implements ThreadFactory {
+
+    private final ThreadFactory factory = Executors.defaultThreadFactory ();
+
+    public Thread newThread (final Runnable r) {
+      final Thread thread = factory.newThread (r);
+      thread.setDaemon (true);
+      return thread;
+    }
+
+  }
+
+}
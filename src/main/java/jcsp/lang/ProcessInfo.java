@@ -0,0 +1,180 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+/**
+ * This is a snapshot, taken by the {@link ProcessInspector}, of one running process.
+ * <H2>Description</H2>
+ * A <TT>ProcessInfo</TT> describes the thread running a process of a {@link Parallel}
+ * or {@link ProcessManager}: what it is doing (its {@link #getState() state}), what
+ * it is blocked on and how much CPU time it has used.  It does not change once taken.
+ *
+ * @see ProcessInspector
+ *
+ * @author Kevin Chalmers
+ */
+
+public final class ProcessInfo
+{
+    /** The state of a process that is running (or ready to run). */
+    public static final String RUNNING = "running";
+
+    /** The state of a process blocked reading a channel. */
+    public static final String READ = "read";
+
+    /** The state of a process blocked writing a channel. */
+    public static final String WRITE = "write";
+
+    /** The state of a process blocked in an {@link Alternative}. */
+    public static final String ALT = "alt";
+
+    /** The state of a process blocked on a barrier (or bucket). */
+    public static final String BARRIER = "barrier";
+
+    /** The state of a process blocked on a <I>CALL</I> channel or a connection. */
+    public static final String CALL = "call";
+
+    /** The state of a process blocked on a lock (e.g. a {@link Crew}). */
+    public static final String LOCK = "lock";
+
+    /** The state of a process sleeping on a {@link CSTimer}. */
+    public static final String TIMER = "timer";
+
+    /** The state of a process waiting for the processes of a {@link Parallel} it runs. */
+    public static final String PAR = "par";
+
+    /** The state of a process waiting on something unknown to JCSP. */
+    public static final String WAITING = "waiting";
+
+    /** The state of a pooled thread with no process to run. */
+    public static final String IDLE = "idle";
+
+    private final String name;
+
+    private final long threadId;
+
+    private final String state;
+
+    private final String operation;
+
+    private final String blockedOn;
+
+    private final long cpuTime;
+
+    private final long blockedTime;
+
+    ProcessInfo(final String name, final long threadId, final String state, final String operation,
+                final String blockedOn, final long cpuTime, final long blockedTime)
+    {
+        this.name = name;
+        this.threadId = threadId;
+        this.state = state;
+        this.operation = operation;
+        this.blockedOn = blockedOn;
+        this.cpuTime = cpuTime;
+        this.blockedTime = blockedTime;
+    }
+
+    /**
+     * Returns the name of the process (that of its thread, which is set from the
+     * process's <TT>toString</TT> by {@link Parallel}).
+     *
+     * @return the name.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the id of the thread running the process.
+     *
+     * @return the thread id.
+     */
+    public long getThreadId()
+    {
+        return threadId;
+    }
+
+    /**
+     * Returns the state of the process: one of the constants of this class
+     * ({@link #RUNNING}, {@link #READ}, {@link #WRITE}, {@link #ALT}, ...).
+     *
+     * @return the state.
+     */
+    public String getState()
+    {
+        return state;
+    }
+
+    /**
+     * Returns the JCSP operation the process is in (e.g.
+     * <TT>"AltingChannelInputImpl.read"</TT>), or null if it is not in one.
+     *
+     * @return the operation.
+     */
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    /**
+     * Returns a description of the object the process is blocked on (its class and
+     * identity), or null if it is not blocked.
+     *
+     * @return the description.
+     */
+    public String getBlockedOn()
+    {
+        return blockedOn;
+    }
+
+    /**
+     * Returns the CPU time used by the thread of the process, in nanoseconds,
+     * or -1 if the JVM cannot measure it.
+     *
+     * @return the CPU time.
+     */
+    public long getCpuTime()
+    {
+        return cpuTime;
+    }
+
+    /**
+     * Returns the time the thread of the process has spent blocked or waiting,
+     * in milliseconds, or -1 if the JVM cannot measure it.  This is counted from
+     * the call of {@link ProcessInspector#enableContentionMonitoring()}, and is -1
+     * before it.
+     *
+     * @return the blocked time.
+     */
+    public long getBlockedTime()
+    {
+        return blockedTime;
+    }
+
+    public String toString()
+    {
+        return name + " [" + state + ((operation == null) ? "" : " in " + operation) +
+               ((blockedOn == null) ? "" : " on " + blockedOn) + "] cpu " +
+               ((cpuTime < 0) ? "?" : (cpuTime/1000000) + " ms") + ", blocked " +
+               ((blockedTime < 0) ? "?" : blockedTime + " ms");
+    }
+}
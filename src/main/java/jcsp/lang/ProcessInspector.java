@@ -0,0 +1,402 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This reports what every process of the JCSP system is doing.
+ * <H2>Description</H2>
+ * The processes inspected are those run by {@link Parallel} (all but the last of each
+ * <TT>Parallel</TT>, which runs in the invoking thread) and {@link ProcessManager}.
+ * For each, a {@link ProcessInfo} gives its state (running, or blocked on a channel
+ * <I>read</I> or <I>write</I>, an <TT>ALT</TT>, a barrier, ...), the object it is
+ * blocked on, and its CPU and blocked times.
+ * <P>
+ * {@link #snapshot()} returns the <TT>ProcessInfo</TT>s; {@link #dump(PrintStream)}
+ * prints them, with a count of the processes in each state; and
+ * {@link #startSampler(long, int, PrintStream)} prints, every so often, the processes
+ * that used the most CPU in the last period - like <TT>top</TT>:
+ * <PRE>
+ *   ProcessInspector.startSampler (5000, 20, System.err);   // every 5s, the busiest 20
+ * </PRE>
+ * Nothing is recorded while the processes run: the state is deduced when a snapshot is
+ * taken, from each thread's stack and the object it is parked or waiting on.  The stacks
+ * of all the threads are taken together: a snapshot of 2000 processes takes about
+ * 100 milliseconds.
+ * <P>
+ * CPU and blocked times are measured by the JVM (and are <TT>-1</TT> if it cannot).
+ * Blocked times need the JVM's thread contention monitoring, which adds a little to
+ * every contended lock in the program, so they are <TT>-1</TT> until it is switched on
+ * by {@link #enableContentionMonitoring()} (and are counted from then).
+ *
+ * @see ProcessInfo
+ * @see ChannelRegistry
+ *
+ * @author Kevin Chalmers
+ */
+
+public class ProcessInspector
+{
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private static final boolean cpuTimes;
+
+    static
+    {
+        boolean cpu = false;
+        try
+        {
+            cpu = threads.isThreadCpuTimeSupported();
+            if (cpu && !threads.isThreadCpuTimeEnabled())
+                threads.setThreadCpuTimeEnabled(true);
+        }
+        catch (SecurityException e)
+        {
+            // measure what we are allowed to
+        }
+        cpuTimes = cpu;
+    }
+
+    /** How much of each stack to fetch: enough to get out of JCSP */
+    private static final int STACK_DEPTH = 32;
+
+    /** The running sampler (or null) */
+    private static Thread sampler = null;
+
+    private static final Comparator byName = new Comparator()
+    {
+        public int compare(final Object a, final Object b)
+        {
+            return ((ProcessInfo) a).getName().compareTo(((ProcessInfo) b).getName());
+        }
+    };
+
+    private ProcessInspector()
+    {
+    }
+
+    /**
+     * Switches on the JVM's thread contention monitoring, so that snapshots give the
+     * time each process has spent blocked or waiting from now on.
+     *
+     * @return true if the blocked times are measured (false if the JVM cannot, or
+     *         is not allowed to, measure them).
+     */
+    public static boolean enableContentionMonitoring()
+    {
+        try
+        {
+            if (!threads.isThreadContentionMonitoringSupported())
+                return false;
+            if (!threads.isThreadContentionMonitoringEnabled())
+                threads.setThreadContentionMonitoringEnabled(true);
+            return true;
+        }
+        catch (SecurityException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the state of every process, in order of name.
+     *
+     * @return the processes.
+     */
+    public static ProcessInfo[] snapshot()
+    {
+        final Thread[] all = Parallel.getAllParThreads();
+        final long[] ids = new long[all.length];
+        for (int i = 0; i < all.length; i++)
+            ids[i] = all[i].getId();
+        ThreadInfo[] infos;
+        try
+        {
+            infos = threads.getThreadInfo(ids, STACK_DEPTH);
+        }
+        catch (SecurityException e)
+        {
+            infos = new ThreadInfo[all.length];
+        }
+        final ProcessInfo[] processes = new ProcessInfo[all.length];
+        for (int i = 0; i < all.length; i++)
+            processes[i] = inspect(all[i], infos[i]);
+        Arrays.sort(processes, byName);
+        return processes;
+    }
+
+    /**
+     * Prints the state of every process, with a count of the processes in each state.
+     *
+     * @param out where to print.
+     */
+    public static void dump(final PrintStream out)
+    {
+        final ProcessInfo[] processes = snapshot();
+        final StringBuffer s = new StringBuffer(summary(processes));
+        s.append('\n');
+        for (int i = 0; i < processes.length; i++)
+            s.append("  ").append(processes[i]).append('\n');
+        out.print(s);
+        out.flush();
+    }
+
+    /**
+     * Returns the state of every process, as printed by {@link #dump(PrintStream)}.
+     *
+     * @return the text.
+     */
+    public static String dump()
+    {
+        final java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        dump(new PrintStream(bytes));
+        return bytes.toString();
+    }
+
+    /**
+     * Starts printing, every <TT>period</TT> milliseconds, a count of the processes in each
+     * state and the <TT>lines</TT> processes that used the most CPU time in the period.
+     * Any sampler already running is stopped.
+     *
+     * @param period the sampling period in milliseconds.
+     * @param lines the number of processes to print each time.
+     * @param out where to print.
+     */
+    public static synchronized void startSampler(final long period, final int lines,
+                                                 final PrintStream out)
+    {
+        if (period <= 0)
+            throw new IllegalArgumentException(
+                "*** Attempt to start a ProcessInspector sampler with a period of " + period + "\n"
+            );
+        stopSampler();
+        sampler = new Thread("jcsp.lang.ProcessInspector")
+        {
+            public void run()
+            {
+                Map previous = new HashMap();
+                try
+                {
+                    while (true)
+                    {
+                        Thread.sleep(period);
+                        previous = top(previous, period, lines, out);
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // stopped
+                }
+            }
+        };
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    /**
+     * Stops the sampler started by {@link #startSampler(long, int, PrintStream)}, if any.
+     */
+    public static synchronized void stopSampler()
+    {
+        if (sampler != null)
+        {
+            sampler.interrupt();
+            sampler = null;
+        }
+    }
+
+    /**
+     * Prints one sample: the processes sorted by the CPU time used since the
+     * <TT>previous</TT> sample (thread id to CPU time), which is returned for the next.
+     */
+    private static Map top(final Map previous, final long period, final int lines,
+                           final PrintStream out)
+    {
+        final ProcessInfo[] processes = snapshot();
+        final Map current = new HashMap();
+        final long[] used = new long[processes.length];
+        final Integer[] order = new Integer[processes.length];
+        for (int i = 0; i < processes.length; i++)
+        {
+            final Long id = Long.valueOf(processes[i].getThreadId());
+            final long cpu = processes[i].getCpuTime();
+            final Long before = (Long) previous.get(id);
+            used[i] = (cpu < 0) ? 0 : cpu - ((before == null) ? 0 : before.longValue());
+            current.put(id, Long.valueOf(cpu));
+            order[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(order, new Comparator()
+        {
+            public int compare(final Object a, final Object b)
+            {
+                final long ua = used[((Integer) a).intValue()];
+                final long ub = used[((Integer) b).intValue()];
+                return (ua > ub) ? -1 : ((ua < ub) ? 1 : 0);
+            }
+        });
+        final StringBuffer s = new StringBuffer(summary(processes));
+        s.append("\n   CPU%  process\n");
+        for (int i = 0; (i < lines) && (i < order.length); i++)
+        {
+            final int p = order[i].intValue();
+            final long percent = (used[p]/10000)/period;
+            s.append((percent < 10) ? "     " : ((percent < 100) ? "    " : "   "));
+            s.append(percent).append("  ").append(processes[p]).append('\n');
+        }
+        out.print(s);
+        out.flush();
+        return current;
+    }
+
+    /**
+     * Returns a line counting the processes in each state.
+     */
+    private static String summary(final ProcessInfo[] processes)
+    {
+        final String[] states = {
+            ProcessInfo.RUNNING, ProcessInfo.READ, ProcessInfo.WRITE, ProcessInfo.ALT,
+            ProcessInfo.BARRIER, ProcessInfo.CALL, ProcessInfo.LOCK, ProcessInfo.TIMER,
+            ProcessInfo.PAR, ProcessInfo.WAITING, ProcessInfo.IDLE
+        };
+        final int[] counts = new int[states.length];
+        for (int i = 0; i < processes.length; i++)
+        {
+            for (int j = 0; j < states.length; j++)
+            {
+                if (states[j] == processes[i].getState())
+                {
+                    counts[j]++;
+                    break;
+                }
+            }
+        }
+        final StringBuffer s = new StringBuffer("jcsp: " + processes.length + " processes");
+        String separator = " - ";
+        for (int j = 0; j < states.length; j++)
+        {
+            if (counts[j] > 0)
+            {
+                s.append(separator).append(counts[j]).append(' ').append(states[j]);
+                separator = ", ";
+            }
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns the state of the process run by <TT>t</TT>.
+     */
+    private static ProcessInfo inspect(final Thread t, final ThreadInfo info)
+    {
+        final Object blocker = LockSupport.getBlocker(t);
+        final Thread.State threadState = (info == null) ? t.getState() : info.getThreadState();
+        final StackTraceElement[] stack = (info == null) ? t.getStackTrace() : info.getStackTrace();
+
+        // skip the JVM's frames to the innermost JCSP frame, then find the outermost
+        // JCSP frame before the process's own code -- its entry to JCSP
+        int i = 0;
+        while ((i < stack.length) && !stack[i].getClassName().startsWith("jcsp.lang."))
+            i++;
+        final int inner = i;
+        while ((i < stack.length) && stack[i].getClassName().startsWith("jcsp.lang.") &&
+               !stack[i].getMethodName().equals("run"))
+            i++;
+        StackTraceElement entry = (i > inner) ? stack[i - 1] : null;
+        if ((i < stack.length) && stack[i].getClassName().equals("jcsp.lang.Parallel"))
+            entry = stack[i];           // waiting for its processes at the end of the PAR
+
+        String state = (entry == null) ? ProcessInfo.WAITING : classify(entry);
+        String blockedOn = null;
+        if (threadState == Thread.State.RUNNABLE)
+            state = ProcessInfo.RUNNING;
+        else if (blocker != null)
+            blockedOn = describe(blocker);
+        else if ((info != null) && (info.getLockName() != null))
+            blockedOn = ((inner < stack.length) ? simpleName(stack[inner].getClassName()) + " " : "") +
+                        "(" + info.getLockName() + ")";
+
+        long cpu = -1;
+        long blocked = -1;
+        try
+        {
+            if (cpuTimes)
+                cpu = threads.getThreadCpuTime(t.getId());
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // not for this thread
+        }
+        if ((info != null) && (info.getBlockedTime() >= 0))
+            blocked = info.getBlockedTime() + info.getWaitedTime();
+
+        return new ProcessInfo(
+            t.getName(), t.getId(), state,
+            (entry == null) ? null : simpleName(entry.getClassName()) + "." + entry.getMethodName(),
+            blockedOn, cpu, blocked
+        );
+    }
+
+    /**
+     * Returns the state of a process blocked in the given JCSP method.
+     */
+    private static String classify(final StackTraceElement entry)
+    {
+        final String c = simpleName(entry.getClassName());
+        final String m = entry.getMethodName();
+        if (c.indexOf("Alternative") >= 0)
+            return ProcessInfo.ALT;
+        if ((c.indexOf("Barrier") >= 0) || (c.indexOf("Bucket") >= 0))
+            return ProcessInfo.BARRIER;
+        if ((c.indexOf("Call") >= 0) || (c.indexOf("Accept") >= 0) || (c.indexOf("Connection") >= 0))
+            return ProcessInfo.CALL;
+        if ((c.indexOf("Crew") >= 0) || (c.indexOf("Mutex") >= 0))
+            return ProcessInfo.LOCK;
+        if (c.indexOf("Timer") >= 0)
+            return ProcessInfo.TIMER;
+        if (c.startsWith("ParThread") || c.equals("ParTask"))
+            return ProcessInfo.IDLE;
+        if (c.equals("Parallel") || c.equals("ProcessManager"))
+            return ProcessInfo.PAR;
+        if (m.startsWith("read") || m.equals("startRead") || (c.indexOf("Input") >= 0))
+            return ProcessInfo.READ;
+        if (m.startsWith("write") || (c.indexOf("Output") >= 0))
+            return ProcessInfo.WRITE;
+        return ProcessInfo.WAITING;
+    }
+
+    private static String describe(final Object o)
+    {
+        return simpleName(o.getClass().getName()) + "@" + Integer.toHexString(System.identityHashCode(o));
+    }
+
+    private static String simpleName(final String className)
+    {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+}
@@ -20,6 +20,8 @@
 
 package jcsp.lang;
 
+import java.util.concurrent.CountDownLatch;
+
     /**
  * This enables a {@link CSProcess} to be spawned
  * <I>concurrently</I> with the process doing the spawning.
@@ -134,6 +136,13 @@ package jcsp.lang;
  * through a notion of <i>poisoning</i> synchoronisation objects (e.g. channels)
  * &ndash; see {@link Poisonable}.
  *
+ * <H3>Executors</H3>
+ *
+ * By default, the managed process is given its own thread.  It may instead be
+ * run by any {@link ProcessExecutor} (for example, on a virtual thread) &ndash; either
+ * by setting the {@link ProcessExecutor#setDefault global default} or by using
+ * the {@link #ProcessManager(CSProcess, ProcessExecutor) two-argument constructor}.
+ *
  * @see CSProcess
  * @see Parallel
  * @see jcsp.awt.ActiveApplet
@@ -165,15 +174,46 @@ public class ProcessManager implements CSProcess
     /** The CSProcess to be executed by this ProcessManager */
     private final CSProcess process;
 
-    /** The thread supporting the CSProcess being executed by this ProcessManager */
+    /** The thread supporting the CSProcess being executed by this ProcessManager
+        (null if it is run by some other {@link ProcessExecutor}) */
     private Thread thread;
 
+    /** The executor running the CSProcess (null if it has its own thread) */
+    private final ProcessExecutor executor;
+
+    /** The task running the CSProcess on the executor (null until started) */
+    private ParTask task;
+
+    /** Counted down when the task has terminated */
+    private final CountDownLatch done;
+
+    /** The priority for the CSProcess when run by an executor */
+    private int priority;
+
     /**
      * @param proc the {@link CSProcess} to be executed by this ProcessManager
      */
     public ProcessManager(CSProcess proc)
+    {
+        this(proc, ProcessExecutor.getDefault());
+    }
+
+    /**
+     * @param proc the {@link CSProcess} to be executed by this ProcessManager
+     * @param executor the {@link ProcessExecutor} that will run it
+     */
+    public ProcessManager(CSProcess proc, ProcessExecutor executor)
     {
         this.process = proc;
+        if (! executor.usesParThreads())
+        {
+            this.executor = executor;
+            this.done = new CountDownLatch(1);
+            this.priority = Thread.currentThread().getPriority();
+            return;
+        }
+        this.executor = null;
+        this.done = null;
         thread = new Thread()
         {
             public void run()
@@ -204,6 +244,17 @@ public class ProcessManager implements CSProcess
      */
     public void start()
     {
+        if (executor != null)
+        {
+            synchronized (this)
+            {
+                if (task != null)
+                    throw new IllegalThreadStateException("*** ProcessManager already started");
+                task = new ParTask(process, done, priority, "jcsp.lang.ProcessManager");
+            }
+            executor.execute(task);
+            return;
+        }
         thread.start();
     }
 
@@ -221,7 +272,7 @@ public class ProcessManager implements CSProcess
      */
     public void start(int priority)
     {
-        thread.setPriority(priority);
+        setPriority(priority);
         start();
     }
 
@@ -243,6 +294,17 @@ public class ProcessManager implements CSProcess
      */
     public void interrupt()
     {
+        if (executor != null)
+        {
+            final ParTask t;
+            synchronized (this)
+            {
+                t = task;
+            }
+            if (t != null)
+                t.interrupt();
+            return;
+        }
         thread.interrupt();
     }
 
@@ -253,7 +315,10 @@ public class ProcessManager implements CSProcess
     {
         try
         {
-            thread.join();
+            if (executor != null)
+                done.await();
+            else
+                thread.join();
         }
         catch (InterruptedException e)
         {
@@ -277,7 +342,7 @@ public class ProcessManager implements CSProcess
     public void run()
     {
         int oldPriority = Thread.currentThread().getPriority();
-        Thread.currentThread().setPriority(thread.getPriority());
+        Thread.currentThread().setPriority(getPriority());
         process.run();
         Thread.currentThread().setPriority(oldPriority);
     }
@@ -296,6 +361,16 @@ public class ProcessManager implements CSProcess
      */
     public void setPriority(int priority)
     {
+        if (executor != null)
+        {
+            if ((priority < Thread.MIN_PRIORITY) || (priority > Thread.MAX_PRIORITY))
+                throw new IllegalArgumentException("*** Illegal priority " + priority);
+            synchronized (this)
+            {
+                this.priority = priority;
+            }
+            return;
+        }
         thread.setPriority(priority);
     }
 
@@ -310,6 +385,13 @@ public class ProcessManager implements CSProcess
      */
     public int getPriority()
     {
+        if (executor != null)
+        {
+            synchronized (this)
+            {
+                return priority;
+            }
+        }
         return thread.getPriority();
     }
 }
@@ -0,0 +1,524 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+/**
+ * This is an {@link Alternative} for very large guard arrays, whose selections
+ * cost in proportion to the number of <I>ready</I> guards rather than the number of guards.
+ * <H2>Description</H2>
+ * An <TT>Alternative</TT> enables every guard at the start of each select and disables
+ * them all again at the end.  For a server <TT>ALT</TT>ing over thousands of client
+ * channels, that is thousands of channel locks per message, even when only one client
+ * has anything to say.
+ * <P>
+ * A <TT>ReadySetAlternative</TT> leaves its guards enabled <I>between</I> selects.  Each
+ * guard is enabled with its own trigger, so that when it becomes ready (and its channel
+ * {@link Alternative#schedule() schedules} the trigger) the guard's index is pushed onto
+ * a <I>ready queue</I>.  A select then only has to:
+ * <UL>
+ *   <LI>re-enable the guards that the previous select disabled (the one it selected and
+ *     any others it found ready);</LI>
+ *   <LI>wait, if necessary, for the ready queue to become non-empty;</LI>
+ *   <LI>disable the guards on the ready queue, to confirm that they are still ready, and
+ *     choose between them.</LI>
+ * </UL>
+ * Guards that were ready but not chosen are re-enabled (and found ready at once) by the
+ * next select.  {@link CSTimer} and {@link Skip} guards are enabled and disabled by every
+ * select, as they are by an <TT>Alternative</TT>.  (Nanosecond alarms are waited for with
+ * <TT>Object.wait</TT>, so have only the resolution that it gives, and no spin.)
+ * <P>
+ * The select methods have the same semantics as those of <TT>Alternative</TT>, including
+ * the <TT>preCondition</TT> variants: {@link #priSelect()} chooses the ready guard with
+ * the lowest index and {@link #fairSelect()} gives the last guard serviced the lowest
+ * priority next time around.
+ * <H2>Restrictions</H2>
+ * Since guards stay enabled between selects, the channels of a <TT>ReadySetAlternative</TT>
+ * must only be read <I>after</I> they have been selected (which is how a server loop
+ * normally uses them).  To use them in any other way, first call {@link #release()}, which
+ * disables all the guards.  {@link AltingBarrier}s (and symmetric channel ends) cannot be
+ * guards, since they need every enabling process to take part in each select.
+ *
+ * @see Alternative
+ * @see Guard
+ *
+ * @author Kevin Chalmers
+ */
+
+public class ReadySetAlternative
+{
+    private static final Guard[] NO_GUARDS = new Guard[0];
+
+    /** The array of guard events from which we are selecting */
+    private final Guard[] guard;
+
+    /** The trigger with which each guard is enabled */
+    private final Trigger[] trigger;
+
+    /** Whether each guard is enabled (only used by the selecting process) */
+    private final boolean[] enabled;
+
+    /** Whether each guard is on the ready queue (guarded by <TT>monitor</TT>) */
+    private final boolean[] queued;
+
+    /** The ready queue, a ring holding each index at most once (guarded by <TT>monitor</TT>) */
+    private final int[] readyQueue;
+
+    /** The position of the head of the ready queue (guarded by <TT>monitor</TT>) */
+    private int readyHead = 0;
+
+    /** The length of the ready queue (guarded by <TT>monitor</TT>) */
+    private int readyCount = 0;
+
+    /** Whether the selecting process is waiting on <TT>monitor</TT> */
+    private boolean waiting = false;
+
+    /** The guards that are not enabled, to be enabled by the next select */
+    private final int[] idle;
+
+    /** The number of entries in <TT>idle</TT> */
+    private int idleCount;
+
+    /** The candidates for this select: guards that are (or have been reported) ready */
+    private final int[] candidate;
+
+    /** Whether each guard is in <TT>candidate</TT> */
+    private final boolean[] isCandidate;
+
+    /** The enabled timer guards */
+    private final int[] timed;
+
+    /** The number of entries in <TT>timed</TT> */
+    private int timedCount = 0;
+
+    /** Whether any enabled timer guard has a millisecond alarm */
+    private boolean timedMsecs = false;
+
+    /** The earliest millisecond timeout of the enabled timer guards */
+    private long msecs;
+
+    /** The index of the timer guard with the earliest millisecond timeout */
+    private int timeIndex;
+
+    /** Whether any enabled timer guard has a nanosecond alarm */
+    private boolean timedNanos = false;
+
+    /** The earliest nanosecond timeout of the enabled timer guards */
+    private long nanos;
+
+    /** The index of the timer guard with the earliest nanosecond timeout */
+    private int nanoTimeIndex;
+
+    /** Set by a trigger's setTimeout call-back while its guard is being enabled */
+    private boolean timeoutSet;
+
+    /** The index of the guard with highest priority for the next fair select */
+    private int favourite = 0;
+
+    /** The monitor synchronising the triggers and the selecting process */
+    private final Object monitor = new Object ();
+
+    /**
+     * Constructs a <TT>ReadySetAlternative</TT> operating on the {@link Guard} array
+     * of events.  Any guard supported by {@link Alternative}, other than an
+     * {@link AltingBarrier} (or a symmetric channel end), may be used.
+     *
+     * @param guard the event guards over which the select operations will be made.
+     * @throws IllegalArgumentException if one of the guards is a barrier.
+     */
+    public ReadySetAlternative (final Guard[] guard) {
+      final int n = guard.length;
+      this.guard = guard;
+      trigger = new Trigger[n];
+      enabled = new boolean[n];
+      queued = new boolean[n];
+      readyQueue = new int[n];
+      idle = new int[n];
+      candidate = new int[n];
+      isCandidate = new boolean[n];
+      timed = new int[n];
+      for (int i = 0; i < n; i++) {
+        if (guard[i] instanceof MultiwaySynchronisation) {
+          throw new IllegalArgumentException (
+            "*** A ReadySetAlternative cannot select on an AltingBarrier (guard " + i + ")\n"
+          );
+        }
+        trigger[i] = new Trigger (i);
+        idle[i] = i;
+      }
+      idleCount = n;
+    }
+
+    /**
+     * Returns the index of one of the ready guards. The method will block
+     * until one of the guards becomes ready.  If more than one is ready,
+     * an <I>arbitrary</I> choice is made.
+     *
+     * @return the index of the selected guard.
+     */
+    public final int select () {
+      return fairSelect ();  // a legal implementation of arbitrary choice!
+    }
+
+    /**
+     * Returns the index of one of the ready guards. The method will block
+     * until one of the guards becomes ready.  If more than one is ready,
+     * the one with the lowest index is selected.
+     *
+     * @return the index of the selected guard.
+     */
+    public final int priSelect () {
+      return doSelect (null, false);
+    }
+
+    /**
+     * Returns the index of one of the ready guards. The method will block
+     * until one of the guards becomes ready.  Consecutive invocations will
+     * service the guards `fairly' in the case when many guards are always
+     * ready.  <I>Implementation note: the last guard serviced has the lowest
+     * priority next time around.</I>
+     *
+     * @return the index of the selected guard.
+     */
+    public final int fairSelect () {
+      return doSelect (null, true);
+    }
+
+    /**
+     * Returns the index of one of the ready guards whose <code>preCondition</code>
+     * index is true. The method will block until one of these guards becomes
+     * ready.  If more than one is ready, an <I>arbitrary</I> choice is made.
+     *
+     * @param preCondition the guards from which to select.
+     * @return the index of the selected guard.
+     */
+    public final int select (final boolean[] preCondition) {
+      return fairSelect (preCondition);  // a legal implementation of arbitrary choice!
+    }
+
+    /**
+     * Returns the index of one of the ready guards whose <code>preCondition</code>
+     * index is true. The method will block until one of these guards becomes
+     * ready.  If more than one is ready, the one with the lowest index is selected.
+     *
+     * @param preCondition the guards from which to select.
+     * @return the index of the selected guard.
+     */
+    public final int priSelect (final boolean[] preCondition) {
+      checkPreCondition (preCondition);
+      return doSelect (preCondition, false);
+    }
+
+    /**
+     * Returns the index of one of the ready guards whose <code>preCondition</code>
+     * index is true. The method will block until one of these guards becomes
+     * ready.  Consecutive invocations will service the guards `fairly' in the case
+     * when many guards are always ready.
+     *
+     * @param preCondition the guards from which to select.
+     * @return the index of the selected guard.
+     */
+    public final int fairSelect (final boolean[] preCondition) {
+      checkPreCondition (preCondition);
+      return doSelect (preCondition, true);
+    }
+
+    /**
+     * Disables all the guards that are left enabled between selects.  This must be
+     * called before any of the guards is used other than through this
+     * <TT>ReadySetAlternative</TT> -- for instance, before reading from a channel that
+     * has not been selected, or before passing a channel end to another process.
+     * The next select enables them all again.
+     */
+    public void release () {
+      for (int i = 0; i < guard.length; i++) {
+        if (enabled[i]) {
+          guard[i].disable ();
+          enabled[i] = false;
+          idle[idleCount++] = i;
+        }
+      }
+    }
+
+    private void checkPreCondition (final boolean[] preCondition) {
+      if (preCondition.length != guard.length) {
+        throw new IllegalArgumentException (
+          "*** jcsp.lang.ReadySetAlternative.select called with a preCondition array\n" +
+          "*** whose length does not match its guard array"
+        );
+      }
+    }
+
+    /**
+     * The select algorithm shared by all the select methods.
+     */
+    private int doSelect (final boolean[] preCondition, final boolean fair) {
+      int nCandidates = 0;
+      while (true) {
+        nCandidates = enableIdle (preCondition, nCandidates);
+        boolean timedOut = false;
+        synchronized (monitor) {
+          if ((readyCount == 0) && (nCandidates == 0)) {
+            timedOut = await ();
+          }
+          while (readyCount > 0) {
+            final int i = readyQueue[readyHead];
+            readyHead = (readyHead + 1 == readyQueue.length) ? 0 : readyHead + 1;
+            readyCount--;
+            queued[i] = false;
+            if (enabled[i] && !isCandidate[i]) {
+              isCandidate[i] = true;
+              candidate[nCandidates++] = i;
+            }
+          }
+        }
+        final int selected = disableCandidates (preCondition, nCandidates, fair, timedOut);
+        nCandidates = 0;
+        if (selected >= 0) {
+          if (fair) {
+            favourite = (selected + 1 == guard.length) ? 0 : selected + 1;
+          }
+          return selected;
+        }
+        // every candidate turned out not to be ready: try again
+      }
+    }
+
+    /**
+     * Enables the idle guards whose pre-conditions hold.  Those found ready at once
+     * become candidates.  Timer guards are remembered, along with the earliest timeout.
+     *
+     * @return the new number of candidates.
+     */
+    private int enableIdle (final boolean[] preCondition, int nCandidates) {
+      int kept = 0;
+      for (int k = 0; k < idleCount; k++) {
+        final int i = idle[k];
+        if ((preCondition != null) && !preCondition[i]) {
+          idle[kept++] = i;
+          continue;
+        }
+        timeoutSet = false;
+        final boolean ready = guard[i].enable (trigger[i]);
+        enabled[i] = true;
+        if (timeoutSet || (guard[i] instanceof CSTimer)) {
+          // (a timer using the timing wheel sets no timeout, but its alarm
+          // may have been changed by the next select)
+          timed[timedCount++] = i;
+        }
+        if (ready && !isCandidate[i]) {
+          isCandidate[i] = true;
+          candidate[nCandidates++] = i;
+        }
+      }
+      idleCount = kept;
+      return nCandidates;
+    }
+
+    /**
+     * Waits (holding <TT>monitor</TT>) until the ready queue is non-empty or the
+     * earliest timeout has expired.
+     *
+     * @return whether the earliest timeout expired.
+     */
+    private boolean await () {
+      waiting = true;
+      try {
+        while (readyCount == 0) {
+          if (timedNanos) {
+            // Object.wait takes nanoseconds, but may round them up to milliseconds
+            long remaining = nanos - System.nanoTime ();
+            if (timedMsecs) {
+              remaining = Math.min (remaining, (msecs - System.currentTimeMillis ()) * 1000000L);
+            }
+            if (remaining <= 0) {
+              return true;
+            }
+            monitor.wait (remaining / 1000000L, (int) (remaining % 1000000L));
+          } else if (timedMsecs) {
+            final long delay = msecs - System.currentTimeMillis ();
+            if (delay <= Spurious.earlyTimeout) {
+              if ((delay > 0) && Spurious.logging) {
+                SpuriousLog.incEarlyTimeouts ();
+              }
+              return true;
+            }
+            monitor.wait (delay);
+          } else {
+            monitor.wait ();
+          }
+        }
+        return false;
+      }
+      catch (InterruptedException e) {
+        throw new ProcessInterruptedException (
+          "*** Thrown from ReadySetAlternative.select ()\n" + e.toString ()
+        );
+      }
+      finally {
+        waiting = false;
+      }
+    }
+
+    /**
+     * Disables the candidates and the timer guards, returning them to the idle set,
+     * and chooses between those that are ready and whose pre-conditions hold.
+     *
+     * @return the index of the selected guard, or -1 if none was ready.
+     */
+    private int disableCandidates (final boolean[] preCondition, final int nCandidates,
+                                   final boolean fair, final boolean timedOut) {
+      int selected = -1;
+      int best = Integer.MAX_VALUE;
+      final int n = guard.length;
+      for (int k = 0; k < nCandidates; k++) {
+        final int i = candidate[k];
+        isCandidate[i] = false;
+        if (enabled[i]) {
+          final boolean ready = guard[i].disable ();
+          enabled[i] = false;
+          idle[idleCount++] = i;
+          if (ready && ((preCondition == null) || preCondition[i])) {
+            final int rank = fair ? ((i - favourite + n) % n) : i;
+            if (rank < best) {
+              best = rank;
+              selected = i;
+            }
+          }
+        }
+      }
+      for (int k = 0; k < timedCount; k++) {
+        final int i = timed[k];
+        if (enabled[i]) {
+          final boolean ready = guard[i].disable ();
+          enabled[i] = false;
+          idle[idleCount++] = i;
+          if (ready) {
+            final int rank = fair ? ((i - favourite + n) % n) : i;
+            if (rank < best) {
+              best = rank;
+              selected = i;
+            }
+          }
+        }
+      }
+      if ((selected < 0) && timedOut) {
+        // NOTE: as in Alternative, this is a work-around for Java
+        // wait-with-timeouts sometimes returning early.
+        selected = earliestTimer ();
+      }
+      timedCount = 0;
+      timedMsecs = false;
+      timedNanos = false;
+      return selected;
+    }
+
+    /**
+     * Returns the index of the timer guard with the earliest timeout.  When there are
+     * both millisecond and nanosecond timeouts, the millisecond one is converted to the
+     * {@link System#nanoTime()} clock to compare them (as in <TT>Alternative</TT>).
+     */
+    private int earliestTimer () {
+      if (!timedNanos) {
+        return timeIndex;
+      }
+      if (!timedMsecs) {
+        return nanoTimeIndex;
+      }
+      final long d = System.nanoTime () + ((msecs - System.currentTimeMillis ()) * 1000000L);
+      return (d - nanos < 0) ? timeIndex : nanoTimeIndex;
+    }
+
+    /**
+     * This is the call-back from a guard becoming ready.  It is in the flow of
+     * control of the process writing to an enabled channel guard.
+     */
+    private void ready (final int i) {
+      synchronized (monitor) {
+        if (!queued[i]) {
+          queued[i] = true;
+          int tail = readyHead + readyCount;
+          if (tail >= readyQueue.length) {
+            tail -= readyQueue.length;
+          }
+          readyQueue[tail] = i;
+          readyCount++;
+          if (waiting) {
+            monitor.notify ();
+          }
+        }
+      }
+    }
+
+    /**
+     * This is the call-back from enabling a CSTimer guard.  It is still in the
+     * flow of control of the selecting process.
+     */
+    private void setTimeout (final int i, final long msecs) {
+      if ((!timedMsecs) || (msecs < this.msecs)) {
+        this.msecs = msecs;
+        timeIndex = i;
+      }
+      timedMsecs = true;
+      timeoutSet = true;
+    }
+
+    /**
+     * This is the call-back from enabling a CSTimer guard with a nanosecond alarm.
+     * It is still in the flow of control of the selecting process.
+     */
+    private void setTimeoutNanos (final int i, final long nanos) {
+      if ((!timedNanos) || (nanos - this.nanos < 0)) {
+        this.nanos = nanos;
+        nanoTimeIndex = i;
+      }
+      timedNanos = true;
+      timeoutSet = true;
+    }
+
+    /**
+     * The {@link Alternative} with which a single guard is enabled: its call-backs
+     * report to the owning <TT>ReadySetAlternative</TT> with the guard's index.
+     */
+    private final class Trigger extends Alternative
+    {
+        private final int index;
+
+        Trigger (final int index) {
+          super (NO_GUARDS);
+          this.index = index;
+        }
+
+        void schedule () {
+          ready (index);
+        }
+
+        void setTimeout (final long msecs) {
+          ReadySetAlternative.this.setTimeout (index, msecs);
+        }
+
+        void setTimeoutNanos (final long nanos, final long spin) {
+          ReadySetAlternative.this.setTimeoutNanos (index, nanos);
+        }
+
+        boolean isTiming () {
+          return timedCount > 0;
+        }
+    }
+}
@@ -200,19 +200,20 @@ package jcsp.lang;
  * the sequential code.
  *
  * <H3>Two Important Modifications on <TT>parMultiply</TT></H3>
- * The first time it is <TT>run</TT>, the JCSP {@link Parallel} process
- * creates a new {@link Thread} for all but one of its component processes,
- * running its last component in the thread invoking the <TT>run</TT>.
- * When (and if) all those component processes terminate, the <TT>Parallel</TT>
- * <TT>run</TT> terminates but leaves the newly created threads parked for later use.
- * Subsequent <TT>run</TT>s of the <TT>Parallel</TT> process resuse those parked threads.
- * So the overhead of thread creation occurs only for the <I>first</I> run.
+ * Each time it is <TT>run</TT>, the JCSP {@link Parallel} process
+ * runs all but one of its component processes in threads borrowed from the
+ * JVM-wide {@link ParThreadPool}, running its last component in the thread invoking
+ * the <TT>run</TT>.  As each component terminates, its thread returns to the pool
+ * and is parked for later use by <I>any</I> <TT>Parallel</TT>.
+ * So the overhead of thread creation occurs only when the pool has no idle threads.
  * <P>
- * In <A HREF="#parMultiply"><TT>parMultiply</TT></A>, however, the <TT>Parallel</TT>
+ * In <A HREF="#parMultiply"><TT>parMultiply</TT></A>, the <TT>Parallel</TT>
  * process is anonymous and local to the method and so can never be used again.
- * Worse, the threads it created and parked are left parked - wasting space for
- * the remainder of the program.  Repeated invocations of <TT>parMultiply</TT>,
- * therefore, will leak memory.
+ * That costs nothing extra: the threads it borrowed are already back in the pool
+ * when its <TT>run</TT> returns.  In earlier versions of JCSP, however, each
+ * <TT>Parallel</TT> kept its own parked threads, so repeated invocations of
+ * <TT>parMultiply</TT> would leak memory.  The two fixes below were needed then;
+ * they are harmless (but unnecessary) now.
  * <P>
  * There are two ways to fix this.  The first is to accept that the <TT>Parallel</TT>
  * process created by <TT>parMultiply</TT> remains local to it (and, hence, un-reusable)
@@ -36,11 +36,36 @@ package jcsp.lang;
 	}
 
 	public Object read() {
-		return channel.read();
+		final Object e = Events.events.beginRead();
+		try {
+			return channel.read();
+		} finally {
+			if (e != null) {
+				Events.events.end(e, channel);
+			}
+		}
+	}
+
+	public int read(Object[] dst, int max) {
+		final Object e = Events.events.beginRead();
+		try {
+			return channel.read(dst, max);
+		} finally {
+			if (e != null) {
+				Events.events.end(e, channel);
+			}
+		}
 	}
 
 	public Object startRead() {
-		return channel.startRead();
+		final Object e = Events.events.beginRead();
+		try {
+			return channel.startRead();
+		} finally {
+			if (e != null) {
+				Events.events.end(e, channel);
+			}
+		}
 	}
 
 	public void poison(int strength) {
@@ -31,7 +31,14 @@ package jcsp.lang;
 	}
 
 	public void write(int object) {
-		channel.write(object);
+		final Object e = Events.events.beginWrite();
+		try {
+			channel.write(object);
+		} finally {
+			if (e != null) {
+				Events.events.end(e, channel);
+			}
+		}
 
 	}
 
@@ -46,6 +46,14 @@ public class SharedConnectionServerImpl implements SharedConnectionServer
         this.parent = parent;
     }
 
+    /**
+     * See {@link AltingConnectionServerImpl#setReuseMessage(boolean)}.
+     */
+    void setReuseMessage(boolean reuseMessage)
+    {
+        connectionServerToUse.setReuseMessage(reuseMessage);
+    }
+
     public Object request()
     {
         if (connectionServerToUse.getServerState() == AltingConnectionServerImpl.SERVER_STATE_CLOSED)
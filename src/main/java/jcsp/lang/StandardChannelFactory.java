@@ -43,12 +43,67 @@ public class StandardChannelFactory
 {
     private static StandardChannelFactory defaultInstance = new StandardChannelFactory();
 
+    /** Whether unbuffered one-one channels are built without a monitor. */
+    private final boolean lockFree;
+
+    /** The wait strategy for the channels built, or null for the global default. */
+    private final WaitStrategy waitStrategy;
+
     /**
      * Constructs a new factory.
      */
     public StandardChannelFactory()
+    {
+        this(false, null);
+    }
+
+    /**
+     * Constructs a new factory whose <code>One2OneChannel</code>s (buffered and
+     * unbuffered) wait for each other according to the given strategy.
+     *
+     * @param waitStrategy how the reader and writer of each channel wait.
+     */
+    public StandardChannelFactory(WaitStrategy waitStrategy)
+    {
+        this(false, waitStrategy);
+    }
+
+    /**
+     * Constructs a new factory.
+     *
+     * @param lockFree if <code>true</code>, the unbuffered <code>One2OneChannel</code>s
+     *          built by this factory use the lock-free (park/unpark) rendezvous of
+     *          {@link Channel#one2oneLockFree()}; otherwise they are the standard
+     *          monitor-based channels.
+     */
+    public StandardChannelFactory(boolean lockFree)
+    {
+        this(lockFree, null);
+    }
+
+    /**
+     * Constructs a new factory.
+     *
+     * @param lockFree if <code>true</code>, the unbuffered <code>One2OneChannel</code>s
+     *          built by this factory use the lock-free (park/unpark) rendezvous of
+     *          {@link Channel#one2oneLockFree()}.
+     * @param waitStrategy how the reader and writer of each <code>One2OneChannel</code>
+     *          (buffered and unbuffered) wait for each other, or <code>null</code>
+     *          for the {@link WaitStrategy#getDefault() global default}.
+     */
+    public StandardChannelFactory(boolean lockFree, WaitStrategy waitStrategy)
     {
         super();
+        this.lockFree = lockFree;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Returns the wait strategy for a new channel.
+     */
+    private WaitStrategy waitStrategy()
+    {
+        return (waitStrategy == null) ? WaitStrategy.getDefault() : waitStrategy;
     }
 
     /**
@@ -62,13 +117,18 @@ public class StandardChannelFactory
     /**
      * Constructs and returns a <code>One2OneChannel</code> object.
      *
+     * <p>If the default {@link ProcessExecutor} prefers parking, the channel is
+     * always a lock-free one.</p>
+     *
      * @return the channel object.
      *
      * @see ChannelFactory#createOne2One()
      */
     public One2OneChannel createOne2One()
     {
-        return new One2OneChannelImpl();
+        if (lockFree || ProcessExecutor.getDefault().prefersParking())
+            return new LockFreeOne2OneChannelImpl(waitStrategy());
+        return new One2OneChannelImpl(waitStrategy());
     }
 
     /**
@@ -191,7 +251,7 @@ public class StandardChannelFactory
      */
     public One2OneChannel createOne2One(ChannelDataStore buffer)
     {
-        return new BufferedOne2OneChannel(buffer);
+        return new BufferedOne2OneChannel(buffer, waitStrategy());
     }
 
     /**
@@ -0,0 +1,393 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is the shared timer service used by {@link CSTimer}s that have been
+ * {@link CSTimer#setTimingWheel(boolean) asked} to use it.
+ * <H2>Description</H2>
+ * Pending alarms are kept in a hierarchical timing wheel with a tick of one
+ * millisecond: <TT>LEVELS</TT> wheels of <TT>SLOTS</TT> slots each, where a slot of
+ * level <TT>L</TT> spans <TT>SLOTS<SUP>L</SUP></TT> ticks.  An alarm is put in the
+ * lowest level whose span reaches its deadline, and is moved down a level each time
+ * the wheel turns onto its slot.  Each slot is a doubly-linked list, so linking and
+ * unlinking an alarm are <I>O(1)</I>, and each tick costs <I>O(1)</I> plus the alarms
+ * it fires or moves.  Alarms fire in order of deadline.  Those with the same deadline
+ * fire on the same tick, and in the order they were added if each was added less than
+ * <TT>SLOTS</TT> ticks before it.
+ * <P>
+ * A single daemon thread turns the wheel, and is the only thread that touches it.
+ * It ticks once per millisecond while any alarm is pending and parks when there are
+ * none.  An expired alarm either {@link Alternative#schedule() schedules} the
+ * {@link Alternative} that enabled the timer, or unparks the thread waiting in
+ * {@link CSTimer#after(long)}.
+ * <H2>Implementation Note</H2>
+ * With thousands of timers, a lock around the wheel becomes a convoy: if a process
+ * holding it is descheduled, every other timer (and the wheel's thread) waits for it.
+ * So {@link #add(Entry, long)} and {@link #cancel(Entry)} take no lock.  Each entry has
+ * a <TT>state</TT> word holding a generation number (bumped by every <TT>add</TT>) and
+ * a phase (<TT>IDLE</TT>, <TT>ARMED</TT> or <TT>FIRING</TT>):
+ * <UL>
+ *   <LI><TT>add</TT> arms a new generation and pushes the entry on to a lock-free
+ *     <I>inbox</I>, from which the wheel's thread links it into the wheel;</LI>
+ *   <LI><TT>cancel</TT> returns the entry to <TT>IDLE</TT> with a single CAS, and
+ *     pushes it on to the inbox too, so that the wheel's thread unlinks it (and can
+ *     park as soon as no armed alarm is left);</LI>
+ *   <LI>the wheel's thread only fires an entry if it can CAS the generation it linked
+ *     from <TT>ARMED</TT> to <TT>FIRING</TT>.</LI>
+ * </UL>
+ * So once <TT>cancel</TT> returns (it waits for a <TT>FIRING</TT> entry to finish),
+ * the entry can not fire late and wake an <TT>Alternative</TT> in a later select.
+ *
+ * @author Kevin Chalmers
+ */
+
+final class TimingWheel implements Runnable
+{
+    /** The number of bits of the tick count resolved by each level */
+    private static final int BITS = 6;
+
+    /** The number of slots in each level */
+    private static final int SLOTS = 1 << BITS;
+
+    /**
+     * The number of levels.  These span 2<SUP>24</SUP> ticks (about 4.66 hours): alarms
+     * further off wait in the <TT>overflow</TT> list, which is re-placed each time the top
+     * level turns all the way round.
+     */
+    private static final int LEVELS = 4;
+
+    /** The phases of an entry (the low two bits of its state) */
+    private static final int IDLE = 0, ARMED = 1, FIRING = 2, PHASE = 3;
+
+    /** The shared instance (created on demand) */
+    private static TimingWheel instance;
+
+    /** Entries added (or re-added) since the wheel's thread last looked */
+    private final AtomicReference inbox = new AtomicReference ();
+
+    /** The slots (each the sentinel of a circular list), indexed by level then slot */
+    private final Entry[][] wheel = new Entry[LEVELS][SLOTS];
+
+    /** Alarms beyond the reach of the top level */
+    private final Entry overflow = Entry.sentinel ();
+
+    /** The last tick processed (an absolute time in msecs) */
+    private long current;
+
+    /** The number of entries linked into the wheel */
+    private int linked = 0;
+
+    /** The thread turning the wheel */
+    private final Thread thread;
+
+    private TimingWheel () {
+      for (int level = 0; level < LEVELS; level++) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+          wheel[level][slot] = Entry.sentinel ();
+        }
+      }
+      current = System.currentTimeMillis ();
+      thread = new Thread (this, "jcsp.lang.TimingWheel");
+      thread.setDaemon (true);
+      thread.start ();
+    }
+
+    /**
+     * Returns the shared timer service, starting it if necessary.
+     */
+    static synchronized TimingWheel getInstance () {
+      if (instance == null) {
+        instance = new TimingWheel ();
+      }
+      return instance;
+    }
+
+    /**
+     * Arranges for <TT>entry</TT> to fire at (or shortly after) the absolute time
+     * <TT>msecs</TT>.  The entry must not be armed (it must be new, have fired or
+     * have been cancelled).  This must only be called by the entry's owner.
+     */
+    void add (final Entry entry, final long msecs) {
+      entry.msecs = msecs;
+      entry.fired = false;
+      entry.state = ((entry.state & ~PHASE) + (PHASE + 1)) | ARMED;
+      if (post (entry)) {
+        LockSupport.unpark (thread);
+      }
+    }
+
+    /**
+     * Cancels <TT>entry</TT>, if it is armed.  Once this returns, the entry will not
+     * fire.  This must only be called by the entry's owner.
+     */
+    void cancel (final Entry entry) {
+      final int state = entry.state;
+      if ((state & PHASE) == ARMED) {
+        if (Entry.STATE.compareAndSet (entry, state, state & ~PHASE)) {
+          // the entry is linked (or in the inbox), so the wheel's thread is ticking
+          // and will drain the inbox within a tick: there is no need to unpark it
+          post (entry);
+          return;
+        }
+      }
+      while ((entry.state & PHASE) == FIRING) {
+        Thread.yield ();                  // it is only ever a moment
+      }
+    }
+
+    /**
+     * Pushes <TT>entry</TT> on to the inbox, unless it is there already.  This must
+     * only be called by the entry's owner.
+     *
+     * @return true if the inbox was empty (so the wheel's thread may be parked).
+     */
+    private boolean post (final Entry entry) {
+      if (entry.inInbox) {
+        // the wheel's thread has yet to clear inInbox, so will see the new state and msecs
+        return false;
+      }
+      entry.inInbox = true;
+      Entry head;
+      do {
+        head = (Entry) inbox.get ();
+        entry.nextAdded = head;
+      } while (!inbox.compareAndSet (head, entry));
+      return head == null;
+    }
+
+    /**
+     * Links the entries in the inbox into the wheel (or fires them, if they have expired),
+     * in the order they were posted.  Those that have been cancelled are unlinked.
+     */
+    private void drainInbox () {
+      Entry entry = (Entry) inbox.getAndSet (null);
+      if ((entry != null) && (linked == 0)) {
+        // nothing is linked, so the wheel may skip the ticks it spent idle
+        current = Math.max (current, System.currentTimeMillis () - 1);
+      }
+      Entry reversed = null;              // the inbox is a stack: turn it into a queue
+      while (entry != null) {
+        final Entry next = entry.nextAdded;
+        entry.nextAdded = reversed;
+        reversed = entry;
+        entry = next;
+      }
+      entry = reversed;
+      while (entry != null) {
+        final Entry next = entry.nextAdded;
+        entry.nextAdded = null;
+        entry.inInbox = false;            // (before reading state and msecs)
+        final int state = entry.state;
+        if (entry.next != null) {
+          entry.unlink ();
+          linked--;
+        }
+        if ((state & PHASE) == ARMED) {
+          entry.linkedState = state;
+          if (entry.msecs - current <= 0) {
+            fire (entry);
+          } else {
+            place (entry);
+            linked++;
+          }
+        }
+        entry = next;
+      }
+    }
+
+    /**
+     * Links <TT>entry</TT> (whose deadline is after the current tick) into the
+     * lowest level that reaches it.
+     */
+    private void place (final Entry entry) {
+      final long msecs = entry.msecs;
+      for (int level = 0; level < LEVELS; level++) {
+        final int shift = BITS * level;
+        if ((msecs >>> shift) - (current >>> shift) < SLOTS) {
+          entry.linkBefore (wheel[level][(int) (msecs >>> shift) & (SLOTS - 1)]);
+          return;
+        }
+      }
+      entry.linkBefore (overflow);
+    }
+
+    /**
+     * Advances the wheel by one tick: moves down the alarms of each level whose
+     * slot the wheel has turned onto, then fires those of this tick.
+     */
+    private void tick () {
+      current++;
+      int level = 1;
+      while ((level < LEVELS) && ((current & ((1L << (BITS * level)) - 1)) == 0)) {
+        level++;
+      }
+      // levels 1 .. (level - 1) have turned onto a new slot, highest first
+      // (the overflow when the top level has turned all the way round)
+      if ((current & ((1L << (BITS * LEVELS)) - 1)) == 0) {
+        cascade (overflow);
+      }
+      for (int l = level - 1; l > 0; l--) {
+        cascade (wheel[l][(int) (current >>> (BITS * l)) & (SLOTS - 1)]);
+      }
+      final Entry head = wheel[0][(int) current & (SLOTS - 1)];
+      while (head.next != head) {
+        final Entry entry = head.next;
+        entry.unlink ();
+        linked--;
+        fire (entry);
+      }
+    }
+
+    /**
+     * Re-places (or fires) all the alarms in the list headed by <TT>head</TT>.
+     * Those that have been cancelled are dropped.
+     */
+    private void cascade (final Entry head) {
+      Entry entry = head.next;
+      head.next = head;
+      head.prev = head;
+      while (entry != head) {
+        final Entry next = entry.next;
+        entry.next = null;
+        entry.prev = null;
+        if (entry.state != entry.linkedState) {
+          linked--;
+        } else if (entry.msecs - current <= 0) {
+          linked--;
+          fire (entry);
+        } else {
+          place (entry);
+        }
+        entry = next;
+      }
+    }
+
+    /**
+     * Fires <TT>entry</TT>, unless it has been cancelled (or re-armed) since it
+     * was linked.
+     */
+    private void fire (final Entry entry) {
+      final int state = entry.linkedState;
+      if (Entry.STATE.compareAndSet (entry, state, (state & ~PHASE) | FIRING)) {
+        final Alternative alt = entry.alt;
+        if (alt != null) {
+          entry.fired = true;
+          alt.schedule ();
+          entry.state = state & ~PHASE;
+        } else {
+          // nothing can go stale here, so let the waiter go without finding it FIRING
+          final Thread waiter = entry.thread;
+          entry.state = state & ~PHASE;
+          entry.fired = true;
+          if (waiter != null) {
+            LockSupport.unpark (waiter);
+          }
+        }
+      }
+    }
+
+    /**
+     * The loop run by the wheel's thread.
+     */
+    public void run () {
+      while (true) {
+        drainInbox ();
+        final long now = System.currentTimeMillis ();
+        if (now - current > 0) {
+          while ((now - current > 0) && (linked > 0)) {
+            tick ();
+          }
+        } else if (inbox.get () == null) {
+          LockSupport.parkNanos (this, 1000000L);
+        }
+        if ((linked == 0) && (inbox.get () == null)) {
+          LockSupport.park (this);        // until the next add
+        }
+        Thread.interrupted ();            // the wheel is shared, so is never stopped
+      }
+    }
+
+    /**
+     * An alarm.  Each {@link CSTimer} using the wheel has one, which it re-uses for
+     * every alarm.
+     */
+    static final class Entry
+    {
+        /** Updates <TT>state</TT> */
+        static final AtomicIntegerFieldUpdater STATE =
+          AtomicIntegerFieldUpdater.newUpdater (Entry.class, "state");
+
+        /** The generation (in the high bits) and phase (in the low two bits) */
+        volatile int state = IDLE;
+
+        /** The absolute time at which this fires */
+        volatile long msecs;
+
+        /** The <TT>Alternative</TT> to schedule, or null */
+        volatile Alternative alt;
+
+        /** The thread to unpark (if <TT>alt</TT> is null) */
+        volatile Thread thread;
+
+        /** Set when this fires (for the benefit of {@link CSTimer#after(long)}) */
+        volatile boolean fired;
+
+        /** Set while this is in the inbox */
+        volatile boolean inInbox;
+
+        /** The next entry in the inbox */
+        Entry nextAdded;
+
+        /** The state when this was linked into the wheel (wheel's thread only) */
+        int linkedState;
+
+        /** The neighbours in its slot's list (null when not linked; wheel's thread only) */
+        Entry next, prev;
+
+        /**
+         * Constructs a list sentinel.
+         */
+        static Entry sentinel () {
+          final Entry head = new Entry ();
+          head.next = head;
+          head.prev = head;
+          return head;
+        }
+
+        void linkBefore (final Entry head) {
+          next = head;
+          prev = head.prev;
+          prev.next = this;
+          head.prev = this;
+        }
+
+        void unlink () {
+          prev.next = next;
+          next.prev = prev;
+          next = null;
+          prev = null;
+        }
+    }
+}
@@ -0,0 +1,376 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This is a {@link Barrier} for large enrolments.
+ * <H2>Description</H2>
+ * A <TT>TreeBarrier</TT> has exactly the semantics of a <TT>Barrier</TT> -- {@link #sync()},
+ * {@link #enroll()}, {@link #resign()} and {@link #reset(int)} behave identically -- and
+ * may be used wherever one is.  It differs in how the processes are released:
+ * <UL>
+ *   <LI>A <TT>Barrier</TT> takes its monitor for every <TT>sync</TT> and releases the
+ *     waiting processes with a single <TT>notifyAll</TT>.  With hundreds of processes,
+ *     they all contend for that monitor on arrival, and again on waking.</LI>
+ *   <LI>A <TT>TreeBarrier</TT> takes no lock.  An arriving process is counted with a
+ *     single compare-and-set.  The last to arrive releases only <TT>4</TT> waiting
+ *     processes; each process released releases <TT>4</TT> more, and so on down a tree.
+ *     So <TT>n</TT> waiting processes are released in <TT>O(log n)</TT> steps, with no
+ *     process doing more than a constant amount of work.</LI>
+ * </UL>
+ * A waiting process first follows the barrier's {@link #setWaitStrategy(WaitStrategy)
+ * wait strategy}, spinning (if it allows) on a field written only when the barrier
+ * completes.  For data-parallel code whose processes each have a core of their own,
+ * {@link WaitStrategy#spinYieldPark()} lets most syncs complete without blocking at all.
+ * <P>
+ * {@link Parallel} can be asked to use <TT>TreeBarrier</TT>s for its own termination
+ * with {@link Parallel#setTreeBarrierDefault(boolean)}.
+ * <H2>Implementation Note</H2>
+ * The number enrolled, the number arrived in the current cycle and the cycle number
+ * are packed into a single <TT>long</TT>, changed only by compare-and-set.  Each waiting
+ * process publishes its thread in a slot indexed by its order of arrival, then parks
+ * until the cycle number (republished by the releasing process in a separate field)
+ * has moved on.  A released process then unparks the processes in its child slots.
+ * (The slots are double-buffered by the parity of the cycle, since a released process
+ * may still be releasing others when its siblings have started the next cycle.)
+ * <P>
+ * The arrival count is not itself distributed over a tree: since processes may
+ * {@link #enroll()} and {@link #resign()} at any time, and call <TT>sync</TT> without
+ * identifying themselves, no process has a fixed place in a tree.  One compare-and-set
+ * per arrival is far cheaper than a contended monitor, though, and it is the wake-up
+ * that dominates the cost of a large barrier.
+ * <P>
+ * At most <TT>16777215</TT> processes may be enrolled.
+ *
+ * @see Barrier
+ * @see Parallel#setTreeBarrierDefault(boolean)
+ *
+ * @author Kevin Chalmers
+ */
+
+public class TreeBarrier extends Barrier
+{
+  /** The number of processes released by each released process. */
+  private static final int FAN_OUT = 4;
+
+  /** The number of bits for each count in <TT>state</TT>. */
+  private static final int BITS = 24;
+
+  /** The mask for a count in <TT>state</TT>. */
+  private static final long MASK = (1L << BITS) - 1;
+
+  /** The mask for the cycle number (in <TT>state</TT> and <TT>cycle</TT>). */
+  private static final int CYCLE_MASK = 0xffff;
+
+  /**
+   * The cycle number (bits 48..63), the number enrolled (bits 24..47) and
+   * the number arrived in this cycle (bits 0..23).
+   */
+  private final AtomicLong state = new AtomicLong ();
+
+  /**
+   * The number of the current cycle, republished (after <TT>state</TT>) for the
+   * benefit of waiting processes.
+   */
+  private volatile int cycle = 0;
+
+  /** The number of processes waiting in each cycle (indexed by its parity). */
+  private final int[] waiting = new int[2];
+
+  /** The waiting threads (indexed by cycle parity, then order of arrival). */
+  private transient volatile AtomicReferenceArray[] slots;
+
+  /**
+   * Construct a barrier initially associated with no processes.
+   */
+  public TreeBarrier () {
+    this (0);
+  }
+
+  /**
+   * Construct a barrier (initially) associated with <TT>nEnrolled</TT> processes.
+   *
+   * @param nEnrolled the number of processes (initially) associated with this barrier.
+   *
+   * @throws IllegalArgumentException if <tt>nEnrolled</tt> < <tt>0</tt>
+   *   (or is too large).
+   */
+  public TreeBarrier (final int nEnrolled) {
+    checkEnrollment (nEnrolled);
+    grow (nEnrolled);
+    state.set (pack (0, nEnrolled, 0));
+  }
+
+  /**
+   * Reset this barrier to be associated with <TT>nEnrolled</TT> processes.
+   * This must only be done at a time when no processes are active on the barrier.
+   *
+   * @param nEnrolled the number of processes reset to this barrier.
+   *
+   * @throws IllegalArgumentException if <tt>nEnrolled</tt> < <tt>0</tt>
+   *   (or is too large).
+   */
+  public void reset (final int nEnrolled) {
+    checkEnrollment (nEnrolled);
+    grow (nEnrolled);
+    long s;
+    do {
+      s = state.get ();
+    } while (!state.compareAndSet (s, pack (cycleOf (s), nEnrolled, 0)));
+  }
+
+  /**
+   * Synchronise the invoking process on this barrier.
+   * <I>Any</I> process synchronising on this barrier will be blocked until <I>all</I>
+   * processes associated with the barrier have synchronised (or resigned).
+   */
+  public void sync () {
+    final Object e = Events.events.beginSync ();
+    doSync ();
+    if (e != null) {
+      Events.events.end (e, this);
+    }
+  }
+
+  private void doSync () {
+    long s;
+    int arrived, enrolled;
+    do {
+      s = state.get ();
+      arrived = arrivedOf (s);
+      enrolled = enrolledOf (s);
+      if (arrived + 1 >= enrolled) {
+        if (state.compareAndSet (s, pack (cycleOf (s) + 1, enrolled, 0))) {
+          release (cycleOf (s), arrived);
+          return;
+        }
+      } else if (state.compareAndSet (s, s + 1)) {
+        break;
+      }
+    } while (true);
+    await (cycleOf (s), arrived);
+  }
+
+  /**
+   * A process may enroll only if it is resigned.
+   * See {@link Barrier#enroll()}.
+   */
+  public void enroll () {
+    long s;
+    int enrolled;
+    do {
+      s = state.get ();
+      enrolled = enrolledOf (s);
+      if (enrolled == MASK) {
+        throw new BarrierError (
+          "*** Attempt to enroll more than " + MASK + " processes on a TreeBarrier\n"
+        );
+      }
+      grow (enrolled + 1);
+    } while (!state.compareAndSet (s, pack (cycleOf (s), enrolled + 1, arrivedOf (s))));
+  }
+
+  /**
+   * A process may resign only if it is enrolled.
+   * See {@link Barrier#resign()}.
+   *
+   * @throws BarrierError if not enrolled <i>(but this is not always detected)</i>.
+   */
+  public void resign () {
+    long s;
+    int arrived, enrolled;
+    do {
+      s = state.get ();
+      arrived = arrivedOf (s);
+      enrolled = enrolledOf (s) - 1;
+      if (arrived > enrolled) {
+        throw new BarrierError (
+          "*** A process has resigned on a barrier without first enrolling\n"
+        );
+      }
+      if (arrived == enrolled) {
+        if (state.compareAndSet (s, pack (cycleOf (s) + 1, enrolled, 0))) {
+          release (cycleOf (s), arrived);
+          return;
+        }
+      } else if (state.compareAndSet (s, pack (cycleOf (s), enrolled, arrived))) {
+        return;
+      }
+    } while (true);
+  }
+
+  /**
+   * Completes cycle <TT>c</TT>, in which <TT>n</TT> processes are waiting.
+   */
+  private void release (final int c, final int n) {
+    waiting[c & 1] = n;
+    cycle = (c + 1) & CYCLE_MASK;          // (publishes waiting[c & 1])
+    wake (c, -1);
+  }
+
+  /**
+   * Waits for cycle <TT>c</TT> to complete, having been the <TT>index</TT>'th
+   * process to arrive in it.  Then releases this process's children.
+   * <P>
+   * An interrupt does not end the wait: this process has been counted in the cycle,
+   * and its children can only be released through it.  It is remembered, and reported
+   * (as by {@link Barrier#sync()}) once the cycle has completed and the children have
+   * been released.
+   *
+   * @throws ProcessInterruptedException if this process was interrupted while waiting.
+   */
+  private void await (final int c, final int index) {
+    final WaitStrategy waitStrategy = getWaitStrategy ();
+    int i = 0;
+    while (!completed (c) && waitStrategy.idle (i)) {
+      i++;
+    }
+    if (i > 0) {
+      if (completed (c)) {
+        waitStrategy.recordSpinSuccess ();
+      } else {
+        waitStrategy.recordBlock ();
+      }
+    }
+    final int parity = c & 1;
+    final Thread me = Thread.currentThread ();
+    AtomicReferenceArray[] published = null;
+    boolean interrupted = false;
+    while (!completed (c)) {
+      final AtomicReferenceArray[] current = slots;
+      if (current != published) {
+        // (re-)publish, then re-check before parking -- see grow
+        current[parity].set (index, me);
+        published = current;
+        continue;
+      }
+      LockSupport.park (this);
+      if (Thread.interrupted ()) {
+        interrupted = true;
+      }
+    }
+    if (published != null) {
+      published[parity].set (index, null);
+    }
+    wake (c, index);
+    if (interrupted) {
+      throw new ProcessInterruptedException ("*** Thrown from TreeBarrier.sync ()\n");
+    }
+  }
+
+  /**
+   * Returns whether cycle <TT>c</TT> has completed.
+   */
+  private boolean completed (final int c) {
+    // cycle may lag behind state, but never by more than one
+    return (short) (cycle - c) > 0;
+  }
+
+  /**
+   * Unparks the children of the <TT>index</TT>'th process to arrive in cycle
+   * <TT>c</TT> (the releasing process has index -1).
+   */
+  private void wake (final int c, final int index) {
+    final int parity = c & 1;
+    final int n = waiting[parity];
+    final AtomicReferenceArray threads = slots[parity];
+    final int first = FAN_OUT*(index + 1);
+    for (int k = first; (k < first + FAN_OUT) && (k < n); k++) {
+      final Thread t = (Thread) threads.get (k);
+      if (t != null) {
+        LockSupport.unpark (t);
+      }
+      // else it has yet to park, so will find the cycle complete first
+    }
+  }
+
+  /**
+   * Makes sure there are slots for <TT>n</TT> waiting processes.  When the slots
+   * are replaced, every waiting process is unparked so that it re-publishes itself.
+   */
+  private void grow (final int n) {
+    AtomicReferenceArray[] old = slots;
+    if ((old != null) && (old[0].length () >= n)) {
+      return;
+    }
+    synchronized (waiting) {
+      old = slots;
+      final int length = (old == null) ? 0 : old[0].length ();
+      if ((old != null) && (length >= n)) {
+        return;
+      }
+      final int capacity = Math.max (n, Math.max (16, 2*length));
+      final AtomicReferenceArray[] grown = new AtomicReferenceArray[2];
+      for (int parity = 0; parity < 2; parity++) {
+        grown[parity] = new AtomicReferenceArray (capacity);
+        for (int k = 0; k < length; k++) {
+          grown[parity].set (k, old[parity].get (k));
+        }
+      }
+      slots = grown;
+      for (int parity = 0; (old != null) && (parity < 2); parity++) {
+        for (int k = 0; k < length; k++) {
+          final Thread t = (Thread) old[parity].get (k);
+          if (t != null) {
+            LockSupport.unpark (t);
+          }
+        }
+      }
+    }
+  }
+
+  private static void checkEnrollment (final int nEnrolled) {
+    if ((nEnrolled < 0) || (nEnrolled > MASK)) {
+      throw new IllegalArgumentException (
+        "*** Attempt to set an enrollment of " + nEnrolled + " on a TreeBarrier\n"
+      );
+    }
+  }
+
+  private static long pack (final int cycle, final int enrolled, final int arrived) {
+    return (((long) (cycle & CYCLE_MASK)) << (2*BITS)) | (((long) enrolled) << BITS) | arrived;
+  }
+
+  private static int cycleOf (final long s) {
+    return (int) (s >>> (2*BITS)) & CYCLE_MASK;
+  }
+
+  private static int enrolledOf (final long s) {
+    return (int) ((s >>> BITS) & MASK);
+  }
+
+  private static int arrivedOf (final long s) {
+    return (int) (s & MASK);
+  }
+
+  /**
+   * Restores the (transient) slots after deserialisation.
+   */
+  private void readObject (final java.io.ObjectInputStream in)
+    throws java.io.IOException, ClassNotFoundException {
+    in.defaultReadObject ();
+    grow (enrolledOf (state.get ()));
+  }
+
+}
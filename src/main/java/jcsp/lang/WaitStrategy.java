@@ -0,0 +1,236 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.lang;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This defines how a process waits at a JCSP blocking point.
+ * <H2>Description</H2>
+ * Every blocking point in <TT>jcsp.lang</TT> (channel reads and writes,
+ * {@link Alternative} selects, {@link Barrier#sync()}, {@link Bucket#fallInto()})
+ * waits for some condition to be established by another process.  A
+ * <TT>WaitStrategy</TT> decides what the waiting process does <I>before</I>
+ * it gives up its processor and blocks:
+ * <UL>
+ *   <LI>{@link #busySpin()} -- re-check the condition in a tight loop, never block.
+ *     This avoids the scheduler entirely, but only makes sense for processes pinned
+ *     to dedicated cores.</LI>
+ *   <LI>{@link #spinYieldPark()} -- spin for a short while, then {@link Thread#yield()}
+ *     for a while, then block.</LI>
+ *   <LI>{@link #park()} -- block immediately.  This is the CPU-friendly
+ *     behaviour that JCSP has always had and is the initial {@link #getDefault() default}.</LI>
+ * </UL>
+ * Other policies may be obtained with {@link #WaitStrategy(int, int)} or by overriding
+ * {@link #idle(int)}.
+ * <P>
+ * The strategy is chosen per channel (through the constructor of
+ * {@link StandardChannelFactory}) or per {@link Alternative}, {@link Barrier} or
+ * {@link Bucket} (through their <TT>setWaitStrategy</TT> methods).  Anything not
+ * given its own strategy uses the global {@link #setDefault(WaitStrategy) default},
+ * as it was when that object was constructed.
+ * <P>
+ * Each strategy keeps counters of how many waits were satisfied during the
+ * spin/yield phase and how many fell through to blocking.  These are only
+ * maintained for waits that actually had to wait (a condition found true on
+ * the first check is not counted).
+ * <H2>Implementation Note</H2>
+ * Blocking points only spin <I>outside</I> their monitors, re-checking a volatile
+ * copy of the condition; the blocking phase is unchanged.  So the choice of strategy
+ * never affects the semantics of the primitives -- only their latency and CPU usage.
+ *
+ * @see StandardChannelFactory#StandardChannelFactory(boolean, WaitStrategy)
+ * @see Alternative#setWaitStrategy(WaitStrategy)
+ * @see Barrier#setWaitStrategy(WaitStrategy)
+ * @see Bucket#setWaitStrategy(WaitStrategy)
+ *
+ * @author Kevin Chalmers
+ */
+
+public class WaitStrategy
+{
+  /** Use this for an unlimited number of spins (or yields). */
+  public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  /** The number of times to spin before yielding. */
+  private final int spins;
+
+  /** The number of times to yield (after spinning) before blocking. */
+  private final int yields;
+
+  /** Waits satisfied during the spin/yield phase. */
+  private final AtomicLong spinSuccesses = new AtomicLong ();
+
+  /** Waits that fell through to blocking. */
+  private final AtomicLong blocks = new AtomicLong ();
+
+  /** The global default strategy. */
+  private static volatile WaitStrategy defaultStrategy = new WaitStrategy (0, 0);
+
+  /**
+   * Construct a strategy that spins <TT>spins</TT> times, then yields <TT>yields</TT>
+   * times, then blocks.  If either is {@link #UNBOUNDED}, the strategy never blocks.
+   *
+   * @param spins the number of re-checks of the condition before yielding.
+   * @param yields the number of yields before blocking.
+   */
+  public WaitStrategy (final int spins, final int yields) {
+    if ((spins < 0) || (yields < 0)) {
+      throw new IllegalArgumentException (
+        "*** Attempt to create a WaitStrategy with a negative spin or yield count\n"
+      );
+    }
+    this.spins = spins;
+    this.yields = yields;
+  }
+
+  /**
+   * Returns a new strategy that spins until the condition holds and never blocks.
+   *
+   * @return the strategy.
+   */
+  public static WaitStrategy busySpin () {
+    return new WaitStrategy (UNBOUNDED, 0);
+  }
+
+  /**
+   * Returns a new strategy that spins 100 times, yields 10 times and then blocks.
+   *
+   * @return the strategy.
+   */
+  public static WaitStrategy spinYieldPark () {
+    return new WaitStrategy (100, 10);
+  }
+
+  /**
+   * Returns a new strategy that blocks immediately.
+   *
+   * @return the strategy.
+   */
+  public static WaitStrategy park () {
+    return new WaitStrategy (0, 0);
+  }
+
+  /**
+   * Returns the global default strategy.
+   *
+   * @return the default strategy.
+   */
+  public static WaitStrategy getDefault () {
+    return defaultStrategy;
+  }
+
+  /**
+   * Sets the global default strategy.  This affects channels, alternatives,
+   * barriers and buckets constructed after the call.
+   *
+   * @param strategy the new default.
+   */
+  public static void setDefault (final WaitStrategy strategy) {
+    if (strategy == null) {
+      throw new IllegalArgumentException (
+        "*** Attempt to set a null default WaitStrategy\n"
+      );
+    }
+    defaultStrategy = strategy;
+  }
+
+  /**
+   * Returns whether this strategy does anything before blocking.  Blocking points
+   * skip their spin phase entirely when this is false.
+   *
+   * @return true if there is a spin or yield phase.
+   */
+  public boolean spins () {
+    return (spins > 0) || (yields > 0);
+  }
+
+  /**
+   * Called repeatedly by a waiting process whose condition does not yet hold.
+   * This spins or yields once and returns <TT>true</TT> (the caller re-checks its
+   * condition), or returns <TT>false</TT> to tell the caller to block.
+   *
+   * @param attempt the number of previous calls in this wait (starting from zero).
+   * @return true to re-check, false to block.
+   */
+  public boolean idle (final int attempt) {
+    if ((attempt < spins) || (spins == UNBOUNDED)) {
+      return true;
+    }
+    if (((attempt - spins) < yields) || (yields == UNBOUNDED)) {
+      Thread.yield ();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Records that a wait was satisfied during the spin/yield phase.
+   */
+  void recordSpinSuccess () {
+    spinSuccesses.incrementAndGet ();
+  }
+
+  /**
+   * Records that a wait fell through to blocking.
+   */
+  void recordBlock () {
+    blocks.incrementAndGet ();
+  }
+
+  /**
+   * Returns the number of waits satisfied during the spin/yield phase.
+   *
+   * @return the count.
+   */
+  public long getSpinSuccesses () {
+    return spinSuccesses.get ();
+  }
+
+  /**
+   * Returns the number of waits that fell through to blocking.
+   *
+   * @return the count.
+   */
+  public long getBlocks () {
+    return blocks.get ();
+  }
+
+  /**
+   * Resets both counters to zero.
+   */
+  public void resetCounters () {
+    spinSuccesses.set (0);
+    blocks.set (0);
+  }
+
+  /**
+   * Returns a description of the strategy and its counters.
+   *
+   * @return the description.
+   */
+  public String toString () {
+    return "WaitStrategy [spins = " + ((spins == UNBOUNDED) ? "unbounded" : String.valueOf (spins)) +
+           ", yields = " + ((yields == UNBOUNDED) ? "unbounded" : String.valueOf (yields)) +
+           ", spinSuccesses = " + spinSuccesses.get () + ", blocks = " + blocks.get () + "]";
+  }
+
+}
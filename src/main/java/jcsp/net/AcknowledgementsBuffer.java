@@ -252,4 +252,50 @@ class AcknowledgementsBuffer implements ChannelDataStore, Serializable
 	   lastIndex = 0;	   
 	   acks = null;
    }
-}
\ No newline at end of file
+
+   /**
+    * Returns the number of <TT>Object</TT>s held by the <TT>AcknowledgementsBuffer</TT>.
+    *
+    * @return the number of <TT>Object</TT>s held.
+    */
+   public int size()
+   {
+       return counter;
+   }
+
+   /**
+    * Puts <TT>Object</TT>s from <TT>items[off]</TT> onwards into the <TT>AcknowledgementsBuffer</TT>,
+    * expanding as necessary to take all <TT>len</TT> of them.
+    *
+    * @param items the Objects to put into the AcknowledgementsBuffer
+    * @param off the index in <TT>items</TT> of the first Object to put
+    * @param len the most Objects to put
+    * @return the number of Objects taken from <TT>items</TT>
+    */
+   public int putAll(Object[] items, int off, int len)
+   {
+       int n = 0;
+       while (n < len) {
+           put(items[off + n++]);
+       }
+       return n;
+   }
+
+   /**
+    * Gets (and removes) up to <TT>max</TT> of the oldest <TT>Object</TT>s from the
+    * <TT>AcknowledgementsBuffer</TT> into <TT>dst[off]</TT> onwards.
+    *
+    * @param dst the array into which the Objects are got
+    * @param off the index in <TT>dst</TT> of the first Object got
+    * @param max the most Objects to get
+    * @return the number of Objects got
+    */
+   public int drainTo(Object[] dst, int off, int max)
+   {
+       int n = 0;
+       while ((n < max) && (counter > 0)) {
+           dst[off + n++] = get();
+       }
+       return n;
+   }
+}
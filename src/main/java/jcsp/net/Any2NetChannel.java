@@ -106,6 +106,22 @@ class Any2NetChannel implements NetSharedChannelOutput, Serializable
          impl.write(data);
       }
    }
+
+   /**
+    * Output a batch of data to this channel, without other writers'
+    * data interleaved.
+    *
+    * @param items the data to send over the channel.
+    * @param off the index in <CODE>items</CODE> of the first item to send.
+    * @param len the number of items to send.
+    */
+   public void write(Object[] items, int off, int len)
+   {
+      synchronized (impl)
+      {
+         impl.write(items, off, len);
+      }
+   }
    
    /**
     * Public accessor for obtaining the location of the read
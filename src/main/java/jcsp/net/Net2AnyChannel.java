@@ -129,6 +129,19 @@ class Net2AnyChannel implements NetSharedChannelInput, Networked
    {
       return ch.in().read();
    }
+
+   /**
+    * Read a batch of data from this channel.  This can safely be called by
+    * multiple readers.
+    *
+    * @param dst the array into which the objects are read.
+    * @param max the most objects to read.
+    * @return the number of objects read.
+    */
+   public int read(Object[] dst, int max)
+   {
+      return ch.in().read(dst, max);
+   }
    
    public Object startRead()
    {
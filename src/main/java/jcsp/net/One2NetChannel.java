@@ -374,6 +374,22 @@ class One2NetChannel implements NetChannelOutput, Serializable
       }
       // Done!
    }
+
+   /**
+    * Output a batch of data to this channel, one item at a time.
+    *
+    * @param items the data to send over the channel.
+    * @param off the index in <CODE>items</CODE> of the first item to send.
+    * @param len the number of items to send.
+    */
+   public synchronized void write(Object[] items, int off, int len)
+   {
+      if ((off < 0) || (len < 0) || (off > items.length - len))
+         throw new IndexOutOfBoundsException();
+      // each item needs its own acknowledgement, so there is no saving to be had here
+      for (int i = off; i < off + len; i++)
+         write(items[i]);
+   }
    
    /**
     * Returns a clone of the <code>NetChannelLocation</code> object
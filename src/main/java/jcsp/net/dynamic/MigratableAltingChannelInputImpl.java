@@ -128,6 +128,25 @@ class MigratableAltingChannelInputImpl extends MigratableAltingChannelInput
       Object o = filteredIn.read();
       return o;
    }
+
+   /**
+    * Reads a batch of objects from the underlying channel.
+    *
+    * @param dst the array into which the objects are read.
+    * @param max the most objects to read.
+    * @return the number of objects read.
+    */
+   public int read(Object[] dst, int max)
+   {
+      if (max < 1 || max > dst.length)
+         throw new IllegalArgumentException("*** Batch read of up to " + max + " items into an array of length " + dst.length);
+      // the first read connects (and filters) the channel
+      dst[0] = read();
+      int n = 1;
+      while (n < max && pending())
+         dst[n++] = filteredIn.read();
+      return n;
+   }
    
    /**
     * @see ReadFiltered#addReadFilter(Filter)
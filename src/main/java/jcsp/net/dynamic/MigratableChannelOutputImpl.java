@@ -128,6 +128,17 @@ class MigratableChannelOutputImpl implements MigratableChannelOutput
       }
       filteredOut.write(object);
    }
+
+   /**
+    * @see jcsp.lang.ChannelOutput#write(Object[], int, int)
+    */
+   public void write(Object[] items, int off, int len)
+   {
+      if ((off < 0) || (len < 0) || (off > items.length - len))
+         throw new IndexOutOfBoundsException();
+      for (int i = off; i < off + len; i++)
+         write(items[i]);
+   }
    
    /**
     * @see jcsp.net.Networked#getChannelLocation()
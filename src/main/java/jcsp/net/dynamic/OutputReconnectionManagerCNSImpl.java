@@ -126,6 +126,14 @@ class OutputReconnectionManagerCNSImpl implements OutputReconnectionManager
                      dealWithWriteError(value, e);
                   }
                }
+
+               public void write(Object[] items, int off, int len)
+               {
+                  if ((off < 0) || (len < 0) || (off > items.length - len))
+                     throw new IndexOutOfBoundsException();
+                  for (int i = off; i < off + len; i++)
+                     write(items[i]);
+               }
          
                public NetChannelLocation getChannelLocation()
                {
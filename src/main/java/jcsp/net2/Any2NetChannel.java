@@ -114,6 +114,29 @@ final class Any2NetChannel
         }
     }
 
+    /**
+     * Writes a batch of objects to the underlying channel, without other writers' objects interleaved.
+     * 
+     * @param items
+     *            The objects to write to the channel
+     * @param off
+     *            The index in items of the first object to write
+     * @param len
+     *            The number of objects to write
+     * @throws JCSPNetworkException
+     *             Thrown if something happens in the underlying architecture
+     * @throws PoisonException
+     *             Thrown if the channel has been poisoned.
+     */
+    public void write(Object[] items, int off, int len)
+        throws JCSPNetworkException, PoisonException
+    {
+        synchronized (this)
+        {
+            this.chan.write(items, off, len);
+        }
+    }
+
     /**
      * Writes asynchronously to the underlying channel.
      * 
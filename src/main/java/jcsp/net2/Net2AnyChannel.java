@@ -191,6 +191,40 @@ final class Net2AnyChannel
         }
     }
 
+    /**
+     * Reads a batch of messages from the channel. One message is waited for, then more are taken while they are
+     * pending.
+     * 
+     * @param dst
+     *            The array into which the messages are read
+     * @param max
+     *            The most messages to read
+     * @return The number of messages read
+     * @throws JCSPNetworkException
+     *             Thrown if something goes wrong in the underlying architecture
+     * @throws IllegalStateException
+     *             Thrown if the channel is in an extended read state
+     * @throws NetworkPoisonException
+     *             Thrown if the channel has been poisoned
+     */
+    public int read(Object[] dst, int max)
+        throws JCSPNetworkException, IllegalStateException, NetworkPoisonException
+    {
+        // As with a single read, claim the read lock and then exclusive access to the underlying channel
+        this.mutex.claim();
+        synchronized (this)
+        {
+            try
+            {
+                return this.actualChannel.read(dst, max);
+            }
+            finally
+            {
+                this.mutex.release();
+            }
+        }
+    }
+
     /**
      * Begins an extended read operation on the channel
      * 
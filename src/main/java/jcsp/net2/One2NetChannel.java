@@ -462,6 +462,30 @@ final class One2NetChannel
         }
     }
 
+    /**
+     * Writes a batch of objects to the channel. Each object is sent and acknowledged separately.
+     * 
+     * @param items
+     *            The objects to send to the input end
+     * @param off
+     *            The index in items of the first object to send
+     * @param len
+     *            The number of objects to send
+     * @throws JCSPNetworkException
+     *             Thrown if something goes wrong in the network architecture
+     * @throws PoisonException
+     *             Thrown if the channel has been poisoned
+     */
+    public void write(Object[] items, int off, int len)
+        throws JCSPNetworkException, PoisonException
+    {
+        if ((off < 0) || (len < 0) || (off > items.length - len))
+            throw new IndexOutOfBoundsException("Batch of " + len + " objects from offset " + off
+                                                + " of an array of length " + items.length);
+        for (int i = off; i < off + len; i++)
+            this.write(items[i]);
+    }
+
     /**
      * Asynchronously writes an object to the channel
      * 
@@ -87,6 +87,16 @@ public final class MobileChannelInput
         return toReturn;
     }
 
+    public int read(Object[] dst, int max)
+    {
+        if (max < 1 || max > dst.length)
+            throw new IllegalArgumentException("*** Batch read of up to " + max + " items into an array of length "
+                                               + dst.length);
+        // Each message has to be requested from the message box, so read just one
+        dst[0] = this.read();
+        return 1;
+    }
+
     public Object startRead()
     {
         MobileChannelMessage msg = new MobileChannelMessage();
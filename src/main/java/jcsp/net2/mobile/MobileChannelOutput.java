@@ -60,6 +60,11 @@ public final class MobileChannelOutput
         this.actualOut.write(object);
     }
 
+    public void write(Object[] items, int off, int len)
+    {
+        this.actualOut.write(items, off, len);
+    }
+
     public void destroy()
     {
         this.actualOut.destroy();
@@ -0,0 +1,209 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.plugNplay;
+
+import jcsp.lang.*;
+
+/**
+ * This process groups the objects arriving on its input channel into batches,
+ * output as arrays.
+ *
+ * <H2>Process Diagram</H2>
+ * <PRE>
+ *     in    ________________________   out
+ *   --->---|                        |-->--
+ *          | Batch (size, timeout)  |
+ *          |________________________|
+ * </PRE>
+ * <H2>Description</H2>
+ * The Batch reads objects from <TT>in</TT> and outputs them, in the order read,
+ * as an <TT>Object[]</TT> of <TT>size</TT> objects - or of fewer, if <TT>timeout</TT>
+ * microseconds pass after the first object of a batch arrives before the batch is
+ * full.  So no object waits in a Batch longer than <TT>timeout</TT> (plus the time
+ * to output the batch), and a busy stream goes out in full batches.  An empty batch
+ * is never output.  With no <TT>timeout</TT>, a batch is only output when full.
+ * <P>
+ * Each batch is a new array, which the Batch does not touch again.  A downstream
+ * process may take the batch apart with an {@link Unbatch}.
+ * <P>
+ * <I>Implementation note: the objects are read with the batch
+ * {@link ChannelInput#read(Object[], int) read}, which takes all those waiting in
+ * a buffered <TT>in</TT> at once.  The timeout is a {@link CSTimer} nanosecond
+ * alarm, with priority over <TT>in</TT> in an {@link Alternative}.</I>
+ * <H2>Channel Protocols</H2>
+ * <TABLE BORDER="2">
+ *   <TR>
+ *     <TH COLSPAN="3">Input Channels</TH>
+ *   </TR>
+ *   <TR>
+ *     <TH>in</TH>
+ *     <TD>java.lang.Object</TD>
+ *     <TD>
+ *       The in Channel can accept data of any Class.
+ *     </TD>
+ *   </TR>
+ *   <TR>
+ *     <TH COLSPAN="3">Output Channels</TH>
+ *   </TR>
+ *   <TR>
+ *     <TH>out</TH>
+ *     <TD>java.lang.Object[]</TD>
+ *     <TD>
+ *       The batches: between 1 and <TT>size</TT> objects each.
+ *     </TD>
+ *   </TR>
+ * </TABLE>
+ * <H2>Poison</H2>
+ * If <TT>in</TT> is poisoned, the Batch outputs what it holds as a last
+ * (short) batch, and then poisons both channels (with the same strength).
+ * If <TT>out</TT> is poisoned, the Batch poisons both channels straight away.
+ *
+ * @see Unbatch
+ * @see jcsp.plugNplay.ints.BatchInt
+ *
+ * @author Kevin Chalmers
+ */
+public final class Batch implements CSProcess
+{
+   /** The input Channel */
+   private final AltingChannelInput in;
+
+   /** The output Channel */
+   private final ChannelOutput out;
+
+   /** The number of objects in a full batch */
+   private final int size;
+
+   /** The longest wait (in microseconds) for a batch to fill, or 0 for no limit */
+   private final long timeout;
+
+   /**
+    * Construct a new Batch process that only outputs full batches
+    * (but for the last, if <TT>in</TT> is poisoned).
+    *
+    * @param in the input Channel.
+    * @param out the output Channel (of batches).
+    * @param size the number of objects in a batch (at least 1).
+    */
+   public Batch(AltingChannelInput in, ChannelOutput out, int size)
+   {
+      this(in, out, size, 0);
+   }
+
+   /**
+    * Construct a new Batch process.
+    *
+    * @param in the input Channel.
+    * @param out the output Channel (of batches).
+    * @param size the most objects in a batch (at least 1).
+    * @param timeout the longest time (in microseconds) from the first object of a
+    *    batch arriving to the batch being output, or 0 for no limit.
+    */
+   public Batch(AltingChannelInput in, ChannelOutput out, int size, long timeout)
+   {
+      if (size < 1)
+         throw new IllegalArgumentException
+            ("*** Attempt to batch with size = " + size + ": must be at least 1");
+      if (timeout < 0)
+         throw new IllegalArgumentException
+            ("*** Attempt to batch with a negative timeout: " + timeout);
+      this.in = in;
+      this.out = out;
+      this.size = size;
+      this.timeout = timeout;
+   }
+
+   /**
+    * The main body of this process.
+    */
+   public void run()
+   {
+      final CSTimer tim = new CSTimer();
+      final Guard[] guards = {tim, in};            // <i>prioritised order</i>
+      final int TIM = 0;                           // <i>index into guards</i>
+      final int IN = 1;                            // <i>index into guards</i>
+      final boolean[] pre = {false, true};
+      final Alternative alt = new Alternative(guards);
+
+      Object[] batch = new Object[size];
+      final Object[] got = new Object[size];
+      int n = 0;                                   // <i>objects in batch</i>
+      try
+      {
+         while (true)
+         {
+            pre[TIM] = (n > 0) && (timeout > 0);
+            switch (alt.priSelect(pre))
+            {
+               case TIM:
+                  out.write(trim(batch, n));
+                  n = 0;
+               break;
+               case IN:
+                  final int k;
+                  try
+                  {
+                     k = in.read(got, size - n);
+                  }
+                  catch (PoisonException p)
+                  {
+                     if (n > 0)
+                        out.write(trim(batch, n));
+                     throw p;
+                  }
+                  if ((n == 0) && (timeout > 0))
+                     tim.setAlarmNanos(tim.readNanos() + timeout*1000);
+                  System.arraycopy(got, 0, batch, n, k);
+                  for (int i = 0; i < k; i++)
+                     got[i] = null;
+                  n += k;
+                  if (n == size)
+                  {
+                     out.write(batch);
+                     batch = new Object[size];
+                     n = 0;
+                  }
+               break;
+            }
+         }
+      }
+      catch (PoisonException p)
+      {
+         int strength = p.getStrength();   // <i>use same strength of poison</i>
+         in.poison(strength);
+         out.poison(strength);
+      }
+   }
+
+   /**
+    * Returns the first <TT>n</TT> objects of <TT>batch</TT> in a new array, and
+    * clears them from <TT>batch</TT>.
+    */
+   private static Object[] trim(final Object[] batch, final int n)
+   {
+      final Object[] b = new Object[n];
+      System.arraycopy(batch, 0, b, 0, n);
+      for (int i = 0; i < n; i++)
+         batch[i] = null;
+      return b;
+   }
+
+}
@@ -32,7 +32,13 @@ import jcsp.lang.*;
  * The Delta class is a process which has an infinite loop that waits
  * for Objects of any type to be sent down the in Channel. The process then
  * writes the reference to the Object in parallel down each of the Channels
- * in the out array.
+ * in the out array.  It reads the next Object only when all those writes are complete.
+ * <P>
+ * <I>Implementation note: the broadcast is through a (poisonable, synchronising)
+ * {@link BroadcastChannel}, one of whose readers forwards to each output Channel.
+ * A message is handed over once to all of them, rather than by running a
+ * {@link Parallel} of writes.  With just one output Channel, the Delta writes to it
+ * directly.</I>
  * <P>
  * <H2>Channel Protocols</H2>
  * <TABLE BORDER="2">
@@ -88,27 +94,45 @@ public final class Delta implements CSProcess
     */
    public void run()
    {
-      try {
-         ProcessWrite[] procs = new ProcessWrite[out.length];
-         for (int i = 0; i < out.length; i++)
-            procs[i] = new ProcessWrite(out[i]);
-         Parallel par = new Parallel(procs);
-      
-         while (true)
+      if (out.length == 1)
+      {
+         try
          {
-            Object value = in.read();
-            for (int i = 0; i < out.length; i++)
-               procs[i].value = value;
-            par.run();
+            while (true)
+               out[0].write(in.read());
          }
-      } catch (PoisonException p) {
-         // <i>don't know which channel was posioned ... so, poison them all!</i>
-         int strength = p.getStrength ();   // <i>use same strength of poison</i>
-         in.poison (strength);
-         for  (int i = 0; i < out.length; i++) {
-            out[i].poison (strength);
+         catch (PoisonException p)
+         {
+            int strength = p.getStrength();
+            in.poison(strength);
+            out[0].poison(strength);
          }
+         return;
       }
+      final BroadcastChannel broadcast = Channel.broadcast(0, 0);
+      final CSProcess[] procs = new CSProcess[out.length + 1];
+      procs[0] = new CSProcess()
+      {
+         public void run()
+         {
+            final ChannelOutput b = broadcast.out();
+            try
+            {
+               while (true)
+                  b.write(in.read());
+            }
+            catch (PoisonException p)
+            {
+               // <i>poison the input and every forwarder (and so every output)</i>
+               int strength = p.getStrength();   // <i>use same strength of poison</i>
+               in.poison(strength);
+               b.poison(strength);
+            }
+         }
+      };
+      for (int i = 0; i < out.length; i++)
+         procs[i + 1] = new Forward(broadcast, out[i]);
+      new Parallel(procs).run();
    }
 
 }
@@ -45,6 +45,11 @@ import jcsp.lang.*;
  * else is discarded.  If the delivered <TT>ChannelOutput</TT> channel is <I>not</I>
  * one of the channels already in the output array, it is added -- otherwise it is removed.
  * <P>
+ * <I>Implementation note: the broadcast is through a (synchronising)
+ * {@link BroadcastChannel}.  Each output channel has its own process forwarding from a
+ * subscription to the broadcast, so that adding or removing a channel is just a
+ * subscription and nothing is re-built or searched for each message.</I>
+ * <P>
  * <P>
  * <H2>Channel Protocols</H2>
  * <TABLE BORDER="2">
@@ -85,8 +90,9 @@ public final class DynamicDelta implements CSProcess
    private AltingChannelInput in;
    private AltingChannelInput config;
    
+   /** The output channels, each mapped to the process forwarding the broadcast to it */
    private Hashtable hash;
-   private Parallel par;
+   private BroadcastChannel broadcast;
    
    /**
     * Construct a new <TT>DynamicDelta</TT> process with the input channel <TT>in</TT> and
@@ -113,12 +119,12 @@ public final class DynamicDelta implements CSProcess
    public DynamicDelta(AltingChannelInput in, AltingChannelInput config, ChannelOutput[] out)
    {
       this.in  = in;
-      par = new Parallel();
+      broadcast = Channel.broadcast();
       if (out != null)
       {
          hash = new Hashtable(out.length);
          for (int i = 0; i < out.length; i++)
-            addOutputChannel(out[i]);
+            hash.put(out[i], new Forward(broadcast, out[i]));
       }
       else
          hash = new Hashtable();
@@ -130,6 +136,10 @@ public final class DynamicDelta implements CSProcess
     */
    public void run()
    {
+      Enumeration initial = hash.elements();
+      while (initial.hasMoreElements())
+         new ProcessManager((Forward) initial.nextElement()).start();
+      ChannelOutput out = broadcast.out();
       AltingChannelInput[] chans = {config, in};
       Alternative alt = new Alternative(chans);
       while (true)
@@ -147,11 +157,7 @@ public final class DynamicDelta implements CSProcess
                }
                break;
             case 1:
-               Object message = in.read();
-               Enumeration hashChans = hash.elements();
-               while (hashChans.hasMoreElements())
-                  ((ProcessWrite) hashChans.nextElement()).value = message;
-               par.run();
+               out.write(in.read());
                break;
          }
       }
@@ -164,9 +170,9 @@ public final class DynamicDelta implements CSProcess
     */
    private void addOutputChannel(ChannelOutput c)
    {
-      ProcessWrite p = new ProcessWrite(c);
-      par.addProcess(p);
-      hash.put(c, p);
+      Forward f = new Forward(broadcast, c);
+      hash.put(c, f);
+      new ProcessManager(f).start();
    }
    
    /**
@@ -176,8 +182,7 @@ public final class DynamicDelta implements CSProcess
     */
    private void removeOutputChannel(ChannelOutput c)
    {
-      ProcessWrite p = (ProcessWrite) hash.get(c);
-      par.removeProcess(p);
-      hash.remove(c);
+      Forward f = (Forward) hash.remove(c);
+      f.remove();
    }
 }
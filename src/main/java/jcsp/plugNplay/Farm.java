@@ -0,0 +1,355 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.plugNplay;
+
+import jcsp.lang.*;
+import jcsp.util.Buffer;
+
+/**
+ * This process farms out objects arriving on its input channel to an array of
+ * worker processes, and outputs their results.
+ *
+ * <H2>Process Diagram</H2>
+ * <PRE>
+ *             ___________________________________
+ *     in     |                                   |  out
+ *   ---->----|   Farm (maxInFlight)              |--->---
+ *            |___________________________________|
+ *               |   |   ...   |      ^   ^   ^
+ *      toWorker |   |         |      |   |   | fromWorker
+ *               v   v         v      |   |   |
+ *              ____________________________________
+ *             |  worker 0  |  worker 1  | ...      |
+ *             |____________|____________|__________|
+ * </PRE>
+ * <H2>Description</H2>
+ * The Farm reads a job from <TT>in</TT> and writes it to the worker that has
+ * the fewest jobs outstanding (ties are broken in rotation).  Worker <TT>i</TT>
+ * reads its jobs from <TT>toWorker[i]</TT> and must write <I>exactly one</I> result
+ * for each, in the order it read them, to <TT>fromWorker[i]</TT>.  The Farm
+ * outputs each result on <TT>out</TT> as soon as it arrives - so the results of
+ * jobs taking different times may be output in a different order to the jobs.
+ * (An {@link OrderedFarm} outputs them in the order of the jobs.)
+ * <P>
+ * No worker is given more than <TT>maxInFlight</TT> jobs at a time: when all
+ * workers have that many, the Farm stops reading <TT>in</TT> until a result arrives.
+ * With the default of <TT>1</TT>, a job is only ever written to an idle worker.
+ * A larger value keeps a queue of up to <TT>maxInFlight - 1</TT> jobs ready for
+ * each worker, which hides the round trip through the Farm when jobs are short.
+ * <P>
+ * The worker channels are {@link One2OneChannel}s (one for each direction, for
+ * each worker) and <TT>fromWorker</TT> must be {@link AltingChannelInput}s.
+ * <P>
+ * <I>Implementation note: results and jobs are taken through an
+ * {@link Alternative} whose <TT>in</TT> guard is only enabled while there is
+ * room for another job.  With <TT>maxInFlight</TT> greater than 1, each worker is
+ * fed from a buffered channel of that size by a small process, so the Farm
+ * never blocks writing a job to a busy worker.</I>
+ * <H2>Channel Protocols</H2>
+ * <TABLE BORDER="2">
+ *   <TR>
+ *     <TH COLSPAN="3">Input Channels</TH>
+ *   </TR>
+ *   <TR>
+ *     <TH>in</TH>
+ *     <TD>java.lang.Object</TD>
+ *     <TD>
+ *       The jobs, of any Class.
+ *     </TD>
+ *   </TR>
+ *   <TR>
+ *     <TH>fromWorker[]</TH>
+ *     <TD>java.lang.Object</TD>
+ *     <TD>
+ *       The results, of any Class: one for each job, in the order of the jobs.
+ *     </TD>
+ *   </TR>
+ *   <TR>
+ *     <TH COLSPAN="3">Output Channels</TH>
+ *   </TR>
+ *   <TR>
+ *     <TH>toWorker[]</TH>
+ *     <TD>java.lang.Object</TD>
+ *     <TD>
+ *       The jobs given to each worker.
+ *     </TD>
+ *   </TR>
+ *   <TR>
+ *     <TH>out</TH>
+ *     <TD>java.lang.Object</TD>
+ *     <TD>
+ *       The results from all the workers.
+ *     </TD>
+ *   </TR>
+ * </TABLE>
+ * <H2>Poison</H2>
+ * If <TT>in</TT> is poisoned, the Farm stops taking jobs, waits for and outputs
+ * the results of those it has given out, and then poisons every channel (with
+ * the same strength).  If any other channel is poisoned, the Farm poisons every
+ * channel straight away.  So a worker should, on poison, poison both its channels.
+ *
+ * @see OrderedFarm
+ * @see jcsp.plugNplay.ints.FarmInt
+ *
+ * @author Kevin Chalmers
+ */
+public final class Farm implements CSProcess
+{
+   /** The input Channel */
+   private final AltingChannelInput in;
+
+   /** The Channels to the workers */
+   private final ChannelOutput[] toWorker;
+
+   /** The Channels from the workers */
+   private final AltingChannelInput[] fromWorker;
+
+   /** The output Channel */
+   private final ChannelOutput out;
+
+   /** The most jobs given to any one worker at a time */
+   private final int maxInFlight;
+
+   /** Whether results are output in the order of the jobs */
+   private final boolean ordered;
+
+   /**
+    * Construct a new Farm process that gives each worker one job at a time.
+    *
+    * @param in the input Channel (of jobs).
+    * @param toWorker the Channels to the workers (of jobs).
+    * @param fromWorker the Channels from the workers (of results).
+    * @param out the output Channel (of results).
+    */
+   public Farm(AltingChannelInput in, ChannelOutput[] toWorker,
+               AltingChannelInput[] fromWorker, ChannelOutput out)
+   {
+      this(in, toWorker, fromWorker, out, 1, false);
+   }
+
+   /**
+    * Construct a new Farm process.
+    *
+    * @param in the input Channel (of jobs).
+    * @param toWorker the Channels to the workers (of jobs).
+    * @param fromWorker the Channels from the workers (of results).
+    * @param out the output Channel (of results).
+    * @param maxInFlight the most jobs given to any one worker at a time (at least 1).
+    */
+   public Farm(AltingChannelInput in, ChannelOutput[] toWorker,
+               AltingChannelInput[] fromWorker, ChannelOutput out, int maxInFlight)
+   {
+      this(in, toWorker, fromWorker, out, maxInFlight, false);
+   }
+
+   Farm(AltingChannelInput in, ChannelOutput[] toWorker,
+        AltingChannelInput[] fromWorker, ChannelOutput out, int maxInFlight, boolean ordered)
+   {
+      if (toWorker.length == 0 || toWorker.length != fromWorker.length)
+         throw new IllegalArgumentException
+            ("*** Attempt to farm to " + toWorker.length + " worker(s), but with " +
+             fromWorker.length + " result Channel(s)");
+      if (maxInFlight < 1)
+         throw new IllegalArgumentException
+            ("*** Attempt to farm with maxInFlight = " + maxInFlight + ": must be at least 1");
+      this.in = in;
+      this.toWorker = toWorker;
+      this.fromWorker = fromWorker;
+      this.out = out;
+      this.maxInFlight = maxInFlight;
+      this.ordered = ordered;
+   }
+
+   /**
+    * The main body of this process.
+    */
+   public void run()
+   {
+      if (maxInFlight == 1)
+      {
+         farm(toWorker);
+         return;
+      }
+      final int n = toWorker.length;
+      final One2OneChannel[] queue = Channel.one2oneArray(n, new Buffer(maxInFlight), 0);
+      final ChannelOutput[] dispatch = new ChannelOutput[n];
+      final CSProcess[] procs = new CSProcess[n + 1];
+      for (int i = 0; i < n; i++)
+      {
+         dispatch[i] = queue[i].out();
+         procs[i + 1] = new Feed(queue[i].in(), toWorker[i]);
+      }
+      procs[0] = new CSProcess()
+      {
+         public void run()
+         {
+            farm(dispatch);
+         }
+      };
+      new Parallel(procs).run();
+   }
+
+   /**
+    * The farmer: gives out jobs on <TT>dispatch</TT> and collects the results.
+    */
+   private void farm(final ChannelOutput[] dispatch)
+   {
+      final int n = fromWorker.length;
+      final int window = n*maxInFlight;            // <i>the most jobs outstanding</i>
+      final int[] load = new int[n];               // <i>jobs given to each worker</i>
+      int outstanding = 0;                         // <i>jobs whose results are not yet output</i>
+
+      // <i>for the reorder buffer: a job's place is its sequence number modulo window</i>
+      final int[][] place = ordered ? new int[n][maxInFlight] : null;   // <i>of each worker's jobs</i>
+      final int[] first = new int[n];              // <i>index in place[i] of worker i's oldest job</i>
+      final Object[] result = ordered ? new Object[window] : null;
+      final boolean[] done = ordered ? new boolean[window] : null;
+      int nextIn = 0;                              // <i>place of the next job</i>
+      int nextOut = 0;                             // <i>place of the next result to output</i>
+
+      final Guard[] guards = new Guard[n + 1];
+      System.arraycopy(fromWorker, 0, guards, 0, n);
+      final int IN = n;                            // <i>index into guards</i>
+      guards[IN] = in;
+      final boolean[] pre = new boolean[n + 1];
+      final Alternative alt = new Alternative(guards);
+
+      boolean draining = false;
+      int strength = 0;
+      int next = 0;                                // <i>the first worker to try</i>
+      try
+      {
+         while (!draining || outstanding > 0)
+         {
+            for (int i = 0; i < n; i++)
+               pre[i] = load[i] > 0;
+            pre[IN] = !draining && outstanding < window;
+            final int i = alt.fairSelect(pre);
+            if (i == IN)
+            {
+               final Object job;
+               try
+               {
+                  job = in.read();
+               }
+               catch (PoisonException p)
+               {
+                  draining = true;
+                  strength = p.getStrength();
+                  continue;
+               }
+               int w = next;
+               for (int j = 1; j < n && load[w] > 0; j++)
+               {
+                  final int k = (next + j) % n;
+                  if (load[k] < load[w])
+                     w = k;
+               }
+               dispatch[w].write(job);
+               if (ordered)
+               {
+                  place[w][(first[w] + load[w]) % maxInFlight] = nextIn;
+                  nextIn = (nextIn + 1) % window;
+               }
+               load[w]++;
+               outstanding++;
+               next = (w + 1) % n;
+            }
+            else
+            {
+               final Object r = fromWorker[i].read();
+               load[i]--;
+               if (!ordered)
+               {
+                  outstanding--;
+                  out.write(r);
+               }
+               else
+               {
+                  final int k = place[i][first[i]];
+                  first[i] = (first[i] + 1) % maxInFlight;
+                  result[k] = r;
+                  done[k] = true;
+                  while (done[nextOut])
+                  {
+                     out.write(result[nextOut]);
+                     result[nextOut] = null;
+                     done[nextOut] = false;
+                     nextOut = (nextOut + 1) % window;
+                     outstanding--;
+                  }
+               }
+            }
+         }
+      }
+      catch (PoisonException p)
+      {
+         strength = p.getStrength();
+      }
+      poison(dispatch, strength);
+   }
+
+   /**
+    * Poisons every channel, with the same strength.
+    */
+   private void poison(final ChannelOutput[] dispatch, final int strength)
+   {
+      in.poison(strength);
+      for (int i = 0; i < toWorker.length; i++)
+      {
+         dispatch[i].poison(strength);
+         toWorker[i].poison(strength);
+         fromWorker[i].poison(strength);
+      }
+      out.poison(strength);
+   }
+
+   /**
+    * Forwards the jobs queued for one worker.
+    */
+   private static final class Feed implements CSProcess
+   {
+      private final ChannelInput queue;
+      private final ChannelOutput toWorker;
+
+      Feed(ChannelInput queue, ChannelOutput toWorker)
+      {
+         this.queue = queue;
+         this.toWorker = toWorker;
+      }
+
+      public void run()
+      {
+         try
+         {
+            while (true)
+               toWorker.write(queue.read());
+         }
+         catch (PoisonException p)
+         {
+            int strength = p.getStrength();
+            queue.poison(strength);
+            toWorker.poison(strength);
+         }
+      }
+   }
+
+}
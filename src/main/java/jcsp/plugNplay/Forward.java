@@ -0,0 +1,108 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+package jcsp.plugNplay;
+
+import jcsp.lang.*;
+
+/**
+ * Forwards each message from a reader end of a {@link BroadcastChannel} to an output
+ * channel: one of these per output channel of {@link Delta} and {@link DynamicDelta}.
+ * <H2>Description</H2>
+ * Each message is taken with an extended rendezvous, so that the broadcast of a
+ * synchronising channel completes only when every <TT>Forward</TT> has written it on.
+ * <P>
+ * If poisoned on either side, a <TT>Forward</TT> poisons both (with the same strength)
+ * and terminates.  It also terminates, quietly, once it has been {@link #remove removed}.
+ * Either way, it leaves the broadcast.
+ *
+ * @author Kevin Chalmers
+ */
+final class Forward implements CSProcess
+{
+   /** The broadcast */
+   private final BroadcastChannel broadcast;
+
+   /** The subscription to the broadcast */
+   private final AltingChannelInput in;
+
+   /** The output Channel */
+   private final ChannelOutput out;
+
+   /** Set when this is removed from the broadcast */
+   private volatile boolean removed = false;
+
+   /**
+    * Construct a new Forward process, subscribing it to <TT>broadcast</TT>.
+    *
+    * @param broadcast the broadcast channel
+    * @param out the output Channel
+    */
+   Forward(BroadcastChannel broadcast, ChannelOutput out)
+   {
+      this.broadcast = broadcast;
+      this.in = broadcast.subscribe();
+      this.out = out;
+   }
+
+   /**
+    * Unsubscribes this process from the broadcast: it terminates if it is running.
+    */
+   void remove()
+   {
+      removed = true;
+      broadcast.unsubscribe(in);
+   }
+
+   /**
+    * The main body of this process.
+    */
+   public void run()
+   {
+      try
+      {
+         while (true)
+         {
+            final Object value = in.startRead();
+            try
+            {
+               out.write(value);
+            }
+            finally
+            {
+               in.endRead();
+            }
+         }
+      }
+      catch (PoisonException p)
+      {
+         in.poison(p.getStrength());
+         out.poison(p.getStrength());
+      }
+      catch (IllegalStateException e)
+      {
+         if (!removed)
+            throw e;
+      }
+      finally
+      {
+         broadcast.unsubscribe(in);
+      }
+   }
+}
@@ -0,0 +1,91 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.plugNplay;
+
+import jcsp.lang.*;
+
+/**
+ * This process farms out objects arriving on its input channel to an array of
+ * worker processes, and outputs their results in the order of the jobs.
+ *
+ * <H2>Process Diagram</H2>
+ * As for {@link Farm}.
+ * <H2>Description</H2>
+ * The OrderedFarm is a {@link Farm} whose results come out in the order in which
+ * their jobs went in, whichever workers they were given to and however long each took.
+ * A result that arrives early is held in a reorder buffer until the results of
+ * all earlier jobs have been output.
+ * <P>
+ * The buffer has a place for each job that may be outstanding,
+ * <TT>toWorker.length*maxInFlight</TT> of them, and the OrderedFarm stops reading
+ * <TT>in</TT> while it is full.  So a slow job holds up the output of the jobs
+ * after it and, once the buffer is full, the other workers too.
+ * <P>
+ * The workers, channel protocols and poisoning are as for {@link Farm}.
+ *
+ * @see Farm
+ * @see jcsp.plugNplay.ints.OrderedFarmInt
+ *
+ * @author Kevin Chalmers
+ */
+public final class OrderedFarm implements CSProcess
+{
+   /** The farm, in ordered mode */
+   private final Farm farm;
+
+   /**
+    * Construct a new OrderedFarm process that gives each worker one job at a time.
+    *
+    * @param in the input Channel (of jobs).
+    * @param toWorker the Channels to the workers (of jobs).
+    * @param fromWorker the Channels from the workers (of results).
+    * @param out the output Channel (of results, in the order of the jobs).
+    */
+   public OrderedFarm(AltingChannelInput in, ChannelOutput[] toWorker,
+                      AltingChannelInput[] fromWorker, ChannelOutput out)
+   {
+      this(in, toWorker, fromWorker, out, 1);
+   }
+
+   /**
+    * Construct a new OrderedFarm process.
+    *
+    * @param in the input Channel (of jobs).
+    * @param toWorker the Channels to the workers (of jobs).
+    * @param fromWorker the Channels from the workers (of results).
+    * @param out the output Channel (of results, in the order of the jobs).
+    * @param maxInFlight the most jobs given to any one worker at a time (at least 1).
+    */
+   public OrderedFarm(AltingChannelInput in, ChannelOutput[] toWorker,
+                      AltingChannelInput[] fromWorker, ChannelOutput out, int maxInFlight)
+   {
+      farm = new Farm(in, toWorker, fromWorker, out, maxInFlight, true);
+   }
+
+   /**
+    * The main body of this process.
+    */
+   public void run()
+   {
+      farm.run();
+   }
+
+}
@@ -0,0 +1,136 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.plugNplay;
+
+import java.util.Collection;
+
+import jcsp.lang.*;
+
+/**
+ * This process takes apart the batches arriving on its input channel, outputting
+ * their objects one at a time.
+ *
+ * <H2>Process Diagram</H2>
+ * <PRE>
+ *     in    _________   out
+ *   --->---|         |-->--
+ *          | Unbatch |
+ *          |_________|
+ * </PRE>
+ * <H2>Description</H2>
+ * The Unbatch reads a batch - an <TT>Object[]</TT> (such as those output by a
+ * {@link Batch}) or a <TT>java.util.Collection</TT> - from <TT>in</TT>, and writes each
+ * of its objects to <TT>out</TT>, in order, before reading the next.
+ * <P>
+ * <I>Implementation note: the objects of a batch are written with the batch
+ * {@link ChannelOutput#write(Object[], int, int) write}, which puts as many as fit
+ * into a buffered <TT>out</TT> at once.</I>
+ * <H2>Channel Protocols</H2>
+ * <TABLE BORDER="2">
+ *   <TR>
+ *     <TH COLSPAN="3">Input Channels</TH>
+ *   </TR>
+ *   <TR>
+ *     <TH>in</TH>
+ *     <TD>java.lang.Object[]<BR>java.util.Collection</TD>
+ *     <TD>
+ *       The batches, of objects of any Class.
+ *     </TD>
+ *   </TR>
+ *   <TR>
+ *     <TH COLSPAN="3">Output Channels</TH>
+ *   </TR>
+ *   <TR>
+ *     <TH>out</TH>
+ *     <TD>java.lang.Object</TD>
+ *     <TD>
+ *       The objects from the batches.
+ *     </TD>
+ *   </TR>
+ * </TABLE>
+ * <H2>Poison</H2>
+ * If either channel is poisoned, the Unbatch poisons both (with the same strength).
+ * <P>
+ * Anything else read from <TT>in</TT> (including <TT>null</TT>) is not a batch: the
+ * Unbatch poisons both channels (with the greatest strength, <TT>Integer.MAX_VALUE</TT>)
+ * and then throws an <TT>IllegalArgumentException</TT> saying what it read.
+ *
+ * @see Batch
+ * @see jcsp.plugNplay.ints.UnbatchInt
+ *
+ * @author Kevin Chalmers
+ */
+public final class Unbatch implements CSProcess
+{
+   /** The input Channel */
+   private final ChannelInput in;
+
+   /** The output Channel */
+   private final ChannelOutput out;
+
+   /**
+    * Construct a new Unbatch process.
+    *
+    * @param in the input Channel (of batches).
+    * @param out the output Channel.
+    */
+   public Unbatch(ChannelInput in, ChannelOutput out)
+   {
+      this.in = in;
+      this.out = out;
+   }
+
+   /**
+    * The main body of this process.
+    */
+   public void run()
+   {
+      try
+      {
+         while (true)
+         {
+            final Object batch = in.read();
+            final Object[] items;
+            if (batch instanceof Object[])
+               items = (Object[]) batch;
+            else if (batch instanceof Collection)
+               items = ((Collection) batch).toArray();
+            else
+            {
+               in.poison(Integer.MAX_VALUE);
+               out.poison(Integer.MAX_VALUE);
+               throw new IllegalArgumentException
+                  ("*** Unbatch read " + ((batch == null) ? "null" : "a " + batch.getClass().getName()) +
+                   ": a batch must be an Object[] or a Collection");
+            }
+            if (items.length > 0)
+               out.write(items, 0, items.length);
+         }
+      }
+      catch (PoisonException p)
+      {
+         int strength = p.getStrength();   // <i>use same strength of poison</i>
+         in.poison(strength);
+         out.poison(strength);
+      }
+   }
+
+}
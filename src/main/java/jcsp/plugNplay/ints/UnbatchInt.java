@@ -0,0 +1,126 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.plugNplay.ints;
+
+import jcsp.lang.*;
+
+/**
+ * This process takes apart the batches arriving on its input channel, outputting
+ * their integers one at a time.
+ *
+ * <H2>Process Diagram</H2>
+ * <PRE>
+ *     in    ____________   out
+ *   --->---|            |-->--
+ *          | UnbatchInt |
+ *          |____________|
+ * </PRE>
+ * <H2>Description</H2>
+ * The UnbatchInt reads a batch - an <TT>int[]</TT>, such as those output by a
+ * {@link BatchInt} - from <TT>in</TT>, and writes each of its integers to <TT>out</TT>,
+ * in order, before reading the next.
+ * <H2>Channel Protocols</H2>
+ * <TABLE BORDER="2">
+ *   <TR>
+ *     <TH COLSPAN="3">Input Channels</TH>
+ *   </TR>
+ *   <TR>
+ *     <TH>in</TH>
+ *     <TD>int[]</TD>
+ *     <TD>
+ *       The batches.
+ *     </TD>
+ *   </TR>
+ *   <TR>
+ *     <TH COLSPAN="3">Output Channels</TH>
+ *   </TR>
+ *   <TR>
+ *     <TH>out</TH>
+ *     <TD>int</TD>
+ *     <TD>
+ *       The integers from the batches.
+ *     </TD>
+ *   </TR>
+ * </TABLE>
+ * <H2>Poison</H2>
+ * If either channel is poisoned, the UnbatchInt poisons both (with the same strength).
+ * <P>
+ * Anything but an <TT>int[]</TT> read from <TT>in</TT> (including <TT>null</TT>) is not
+ * a batch: the UnbatchInt poisons both channels (with the greatest strength,
+ * <TT>Integer.MAX_VALUE</TT>) and then throws an <TT>IllegalArgumentException</TT>.
+ *
+ * @see BatchInt
+ * @see jcsp.plugNplay.Unbatch
+ *
+ * @author Kevin Chalmers
+ */
+public final class UnbatchInt implements CSProcess
+{
+   /** The input Channel */
+   private final ChannelInput in;
+
+   /** The output Channel */
+   private final ChannelOutputInt out;
+
+   /**
+    * Construct a new UnbatchInt process.
+    *
+    * @param in the input Channel (of batches).
+    * @param out the output Channel.
+    */
+   public UnbatchInt(ChannelInput in, ChannelOutputInt out)
+   {
+      this.in = in;
+      this.out = out;
+   }
+
+   /**
+    * The main body of this process.
+    */
+   public void run()
+   {
+      try
+      {
+         while (true)
+         {
+            final Object o = in.read();
+            if (!(o instanceof int[]))
+            {
+               in.poison(Integer.MAX_VALUE);
+               out.poison(Integer.MAX_VALUE);
+               throw new IllegalArgumentException
+                  ("*** UnbatchInt read " + ((o == null) ? "null" : "a " + o.getClass().getName()) +
+                   ": a batch must be an int[]");
+            }
+            final int[] batch = (int[]) o;
+            for (int i = 0; i < batch.length; i++)
+               out.write(batch[i]);
+         }
+      }
+      catch (PoisonException p)
+      {
+         int strength = p.getStrength();   // <i>use same strength of poison</i>
+         in.poison(strength);
+         out.poison(strength);
+      }
+   }
+
+}
@@ -160,4 +160,43 @@ public interface ChannelDataStore extends Cloneable
      */
     
     public abstract void removeAll();
+
+    /**
+     * Returns the number of <TT>Object</TT>s held by the <TT>ChannelDataStore</TT>
+     * -- the number of <TT>get</TT>s that can be made before it becomes <TT>EMPTY</TT>.
+     *
+     * @return the number of <TT>Object</TT>s held.
+     */
+    public abstract int size();
+
+    /**
+     * Puts <TT>Object</TT>s from <TT>items[off]</TT> onwards into the <TT>ChannelDataStore</TT>,
+     * as if by successive calls of {@link #put <code>put</code>}, stopping after <TT>len</TT>
+     * of them or as soon as it becomes <TT>FULL</TT>.  A buffered channel uses this to deal with
+     * a batch of writes in one go (see {@link jcsp.lang.ChannelOutput#write(Object[], int, int)}).
+     * <P>
+     * <I>Pre-condition</I>: <TT>getState</TT> must not currently return <TT>FULL</TT>.
+     *
+     * @param items the Objects to put into the ChannelDataStore.
+     * @param off the index in <TT>items</TT> of the first Object to put.
+     * @param len the most Objects to put.
+     * @return the number of Objects taken from <TT>items</TT> (including any an overwriting
+     *   or overflowing store has discarded) -- at least one, if <TT>len</TT> is positive.
+     */
+    public abstract int putAll(Object[] items, int off, int len);
+
+    /**
+     * Gets <TT>Object</TT>s from the <TT>ChannelDataStore</TT> into <TT>dst[off]</TT> onwards,
+     * as if by successive calls of {@link #get <code>get</code>}, stopping after <TT>max</TT>
+     * of them or as soon as it becomes <TT>EMPTY</TT>.  A buffered channel uses this to deal with
+     * a batch of reads in one go (see {@link jcsp.lang.ChannelInput#read(Object[], int)}).
+     * <P>
+     * <I>Pre-condition</I>: <TT>getState</TT> must not currently return <TT>EMPTY</TT>.
+     *
+     * @param dst the array into which the Objects are got.
+     * @param off the index in <TT>dst</TT> of the first Object got.
+     * @param max the most Objects to get.
+     * @return the number of Objects got -- at least one, if <TT>max</TT> is positive.
+     */
+    public abstract int drainTo(Object[] dst, int off, int max);
 }
@@ -136,4 +136,48 @@ public class ZeroBuffer implements ChannelDataStore, Serializable
     	state = EMPTY;
     	value = null;
     }
+
+    /**
+     * Returns the number of <TT>Object</TT>s held by the <TT>ZeroBuffer</TT> (0 or 1).
+     *
+     * @return the number of <TT>Object</TT>s held.
+     */
+    public int size()
+    {
+        return (state == FULL) ? 1 : 0;
+    }
+
+    /**
+     * Puts the <TT>Object</TT> <TT>items[off]</TT> (if <TT>len</TT> is positive)
+     * into the <TT>ZeroBuffer</TT>, which then becomes <TT>FULL</TT>.
+     *
+     * @param items the Objects to put into the ZeroBuffer
+     * @param off the index in <TT>items</TT> of the Object to put
+     * @param len the most Objects to put
+     * @return the number of Objects taken from <TT>items</TT> (0 or 1)
+     */
+    public int putAll(Object[] items, int off, int len)
+    {
+        if (len <= 0)
+            return 0;
+        put(items[off]);
+        return 1;
+    }
+
+    /**
+     * Gets the <TT>Object</TT> held by the <TT>ZeroBuffer</TT> (if <TT>max</TT>
+     * is positive) into <TT>dst[off]</TT>, leaving it <TT>EMPTY</TT>.
+     *
+     * @param dst the array into which the Object is got
+     * @param off the index in <TT>dst</TT> of the Object got
+     * @param max the most Objects to get
+     * @return the number of Objects got (0 or 1)
+     */
+    public int drainTo(Object[] dst, int off, int max)
+    {
+        if ((max <= 0) || (state == EMPTY))
+            return 0;
+        dst[off] = get();
+        return 1;
+    }
 }
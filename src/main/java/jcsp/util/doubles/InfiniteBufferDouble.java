@@ -0,0 +1,192 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.util.doubles;
+
+import java.io.Serializable;
+
+/**
+ * This is used to create a buffered double channel that always accepts and
+ * never loses any input.
+ * <H2>Description</H2>
+ * <TT>InfiniteBufferDouble</TT> is an implementation of <TT>ChannelDataStoreDouble</TT> that yields
+ * a <I>FIFO</I> buffered semantics for a channel.  When empty, the channel blocks readers.
+ * However, its capacity is <I>infinite</I> (expanding to whatever is needed so far as
+ * the underlying memory system will permit).  So, it <I>never</I> gets full and blocks
+ * a writer.
+ * See the <tt>static</tt> construction methods of {@link jcsp.lang.Channel}
+ * ({@link jcsp.lang.Channel#one2oneDouble(jcsp.util.doubles.ChannelDataStoreDouble)} etc.).
+ * <P>
+ * The <TT>getState</TT> method returns <TT>EMPTY</TT> or <TT>NONEMPTYFULL</TT>, but
+ * never <TT>FULL</TT>.
+ * <P>
+ * An initial size for the buffer can be specified during construction.
+ *
+ * @see ZeroBufferDouble
+ * @see BufferDouble
+ * @see jcsp.util.doubles.OverWriteOldestBufferDouble
+ * @see jcsp.util.doubles.OverWritingBufferDouble
+ * @see jcsp.util.doubles.OverFlowingBufferDouble
+ * @see jcsp.lang.ChannelDouble
+ *
+ * @author P.D. Austin
+ */
+//}}}
+
+public class InfiniteBufferDouble implements ChannelDataStoreDouble, Serializable
+{
+    /** The default size of the buffer */
+    private static final int DEFAULT_SIZE = 8;
+
+    /** The initial size of the buffer */
+    private int initialSize;
+
+    /** The storage for the buffered doubles */
+    private double[] buffer;
+
+    /** The number of doubles stored in the InfiniteBufferDouble */
+    private int counter = 0;
+
+    /** The index of the oldest element (when counter > 0) */
+    private int firstIndex = 0;
+
+    /** The index of the next free element (when counter < buffer.length) */
+    private int lastIndex = 0;
+
+    /**
+     * Construct a new <TT>InfiniteBufferDouble</TT> with the default size (of 8).
+     */
+    public InfiniteBufferDouble()
+    {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Construct a new <TT>InfiniteBufferDouble</TT> with the specified initial size.
+     *
+     * @param initialSize the number of ints
+     * the <TT>InfiniteBufferDouble</TT> can initially  store.
+     * @throws BufferDoubleSizeError if <TT>initialSize</TT> is zero or negative.  Note: no action
+     * should be taken to <TT>try</TT>/<TT>catch</TT> this exception
+     * - application code generating it is in error and needs correcting.
+     */
+    public InfiniteBufferDouble(int initialSize)
+    {
+        if (initialSize <= 0)
+            throw new BufferDoubleSizeError
+                    ("\n*** Attempt to create a buffered channel with an initially negative or zero capacity");
+        this.initialSize = initialSize;
+        buffer = new double[initialSize];
+    }
+
+    /**
+     * Returns the oldest <TT>double</TT> from the <TT>InfiniteBufferDouble</TT> and removes it.
+     * <P>
+     * <I>Pre-condition</I>: <TT>getState</TT> must not currently return <TT>EMPTY</TT>.
+     *
+     * @return the oldest <TT>double</TT> from the <TT>InfiniteBufferDouble</TT>
+     */
+    public double get()
+    {
+        double value = buffer[firstIndex];
+        firstIndex = (firstIndex + 1) % buffer.length;
+        counter--;
+        return value;
+    }
+    
+    /**
+     * Returns the oldest double from the buffer but does not remove it.
+     * 
+     * <I>Pre-condition</I>: <TT>getState</TT> must not currently return <TT>EMPTY</TT>.
+     *
+     * @return the oldest <TT>double</TT> from the <TT>Buffer</TT>
+     */
+    public double startGet()
+    {
+      return buffer[firstIndex];
+    }
+    
+    /**
+     * Removes the oldest double from the buffer.     
+     */
+    public void endGet()
+    {      
+      firstIndex = (firstIndex + 1) % buffer.length;
+      counter--;
+    }
+
+    /**
+     * Puts a new <TT>double</TT> into the <TT>InfiniteBufferDouble</TT>.
+     * <P>
+     * <I>Implementation note:</I> if <TT>InfiniteBufferDouble</TT> is full, a new internal
+     * buffer with double the capacity is constructed and the old data copied across.
+     *
+     * @param value the double to put into the InfiniteBufferDouble
+     */
+    public void put(double value)
+    {
+        if (counter == buffer.length)
+        {
+            double[] temp = buffer;
+            buffer = new double[buffer.length * 2];
+            System.arraycopy(temp, firstIndex, buffer, 0, temp.length - firstIndex);
+            System.arraycopy(temp, 0, buffer, temp.length - firstIndex, firstIndex);
+            firstIndex = 0;
+            lastIndex = temp.length;
+        }
+        buffer[lastIndex] = value;
+        lastIndex = (lastIndex + 1) % buffer.length;
+        counter++;
+    }
+
+    /**
+     * Returns the current state of the <TT>InfiniteBufferDouble</TT>.
+     *
+     * @return the current state of the <TT>InfiniteBufferDouble</TT> (<TT>EMPTY</TT> or
+     * <TT>NONEMPTYFULL</TT>)
+     */
+    public int getState()
+    {
+        if (counter == 0)
+            return EMPTY;
+        else
+            return NONEMPTYFULL;
+    }
+
+    /**
+     * Returns a new (and <TT>EMPTY</TT>) <TT>InfiniteBufferDouble</TT> with the same
+     * creation parameters as this one.
+     * <P>
+     * <I>Note: Only the initial size and structure of the </I><TT>InfiniteBufferDouble</TT><I>
+     * is cloned, not any stored data.</I>
+     *
+     * @return the cloned instance of this <TT>InfiniteBufferDouble</TT>.
+     */
+    public Object clone()
+    {
+        return new InfiniteBufferDouble(initialSize);
+    }
+    
+    public void removeAll() {
+  	  counter = 0;
+  	  firstIndex = 0;
+  	  lastIndex = 0;
+    }
+}
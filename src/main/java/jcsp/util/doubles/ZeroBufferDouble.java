@@ -0,0 +1,132 @@
+
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  JCSP ("CSP for Java") Libraries                                 //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+package jcsp.util.doubles;
+
+import java.io.Serializable;
+
+/**
+ * This is used to create a zero-buffered double channel that never loses data.
+ * <H2>Description</H2>
+ * <TT>ZeroBufferDouble</TT> is an implementation of <TT>ChannelDataStoreDouble</TT> that yields
+ * the standard <I><B>CSP</B></I> semantics for a channel -- that is zero buffered with
+ * direct synchronisation between reader and writer.  Unless specified otherwise,
+ * this is the default behaviour for channels.
+ * See the <tt>static</tt> construction methods of {@link jcsp.lang.Channel}
+ * ({@link jcsp.lang.Channel#one2oneDouble(jcsp.util.doubles.ChannelDataStoreDouble)} etc.).
+ * <P>
+ * The <TT>getState</TT> method will return <TT>FULL</TT> if there is an output
+ * waiting on the channel and <TT>EMPTY</TT> if there is not.
+ *
+ * @see BufferDouble
+ * @see jcsp.util.doubles.OverWriteOldestBufferDouble
+ * @see jcsp.util.doubles.OverWritingBufferDouble
+ * @see jcsp.util.doubles.OverFlowingBufferDouble
+ * @see jcsp.util.doubles.InfiniteBufferDouble
+ * @see jcsp.lang.ChannelDouble
+ *
+ * @author P.D. Austin
+ */
+//}}}
+
+public class ZeroBufferDouble implements ChannelDataStoreDouble, Serializable
+{
+    /** The current state */
+    private int state = EMPTY;
+
+    /** The double */
+    private double value;
+
+    /**
+     * Returns the <TT>double</TT> from the <TT>ZeroBufferDouble</TT>.
+     * <P>
+     * <I>Pre-condition</I>: <TT>getState</TT> must not currently return <TT>EMPTY</TT>.
+     *
+     * @return the <TT>double</TT> from the <TT>ZeroBufferDouble</TT>
+     */
+    public double get()
+    {
+        state = EMPTY;
+        double o = value;
+        return o;
+    }
+    
+    /**
+     * Begins an extended rendezvous - simply returns the next double in the buffer.  
+     * This function does not remove the double.
+     * 
+     * <I>Pre-condition</I>: <TT>getState</TT> must not currently return <TT>EMPTY</TT>.
+     * 
+     * @return The double in the buffer. 
+     */
+    public double startGet() {
+      return value;     
+    }
+    
+    /**
+     * Ends the extended rendezvous by clearing the buffer.
+     */
+    public void endGet() {      
+      state = EMPTY;      
+    }
+
+    /**
+     * Puts a new <TT>double</TT> into the <TT>ZeroBufferDouble</TT>.
+     * <P>
+     * <I>Pre-condition</I>: <TT>getState</TT> must not currently return <TT>FULL</TT>.
+     *
+     * @param value the double to put into the ZeroBufferDouble
+     */
+    public void put(double value)
+    {
+        state = FULL;
+        this.value = value;
+    }
+
+    /**
+     * Returns the current state of the <TT>ZeroBufferDouble</TT>.
+     *
+     * @return the current state of the <TT>ZeroBufferDouble</TT> (<TT>EMPTY</TT>
+     * or <TT>FULL</TT>)
+     */
+    public int getState()
+    {
+        return state;
+    }
+
+    /**
+     * Returns a new (and <TT>EMPTY</TT>) <TT>ZeroBufferDouble</TT> with the same
+     * creation parameters as this one.
+     * <P>
+     * <I>Note: Only the size and structure of the </I><TT>ZeroBufferDouble</TT><I> is
+     * cloned, not any stored data.</I>
+     *
+     * @return the cloned instance of this <TT>ZeroBufferDouble</TT>.
+     */
+    public Object clone()
+    {
+        return new ZeroBufferDouble();
+    }
+    
+    public void removeAll()
+    {
+    	state = EMPTY;
+    }    
+}
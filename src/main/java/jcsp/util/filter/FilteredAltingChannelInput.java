@@ -57,6 +57,15 @@ public class FilteredAltingChannelInput
         return toFilter;
     }
 
+    public int read(Object[] dst, int max)
+    {
+        int n = super.read(dst, max);
+        for (int j = 0; j < n; j++)
+            for (int i = 0; filters != null && i < filters.getFilterCount(); i++)
+                dst[j] = filters.getFilter(i).filter(dst[j]);
+        return n;
+    }
+
     public void addReadFilter(Filter filter)
     {
         if (filters == null)
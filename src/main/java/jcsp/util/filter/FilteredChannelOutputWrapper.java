@@ -53,6 +53,14 @@ class FilteredChannelOutputWrapper
         super.write(data);
     }
 
+    public void write(Object[] items, int off, int len)
+    {
+        if ((off < 0) || (len < 0) || (off > items.length - len))
+            throw new IndexOutOfBoundsException();
+        for (int i = off; i < off + len; i++)
+            write(items[i]);
+    }
+
     public void addWriteFilter(Filter filter)
     {
         if (filters == null)
@@ -58,6 +58,14 @@ public class FilteredSharedChannelInputWrapper
         }
     }
 
+    public int read(Object[] dst, int max)
+    {
+        synchronized (synchObject)
+        {
+            return super.read(dst, max);
+        }
+    }
+
     public void addReadFilter(Filter filter)
     {
         synchronized (synchObject)
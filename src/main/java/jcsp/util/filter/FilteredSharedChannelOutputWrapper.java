@@ -59,6 +59,14 @@ public class FilteredSharedChannelOutputWrapper
         }
     }
 
+    public void write(Object[] items, int off, int len)
+    {
+        synchronized (synchObject)
+        {
+            super.write(items, off, len);
+        }
+    }
+
     public void addWriteFilter(Filter filter)
     {
         synchronized (synchObject)
@@ -0,0 +1,191 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package alting;
+
+import jcsp.lang.*;
+import jcsp.util.Buffer;
+import junit.framework.TestCase;
+
+public class TestReadySetAlternative extends TestCase {
+
+  private One2OneChannel[] buffered(int n) {
+    One2OneChannel[] c = new One2OneChannel[n];
+    for (int i = 0;i < n;i++) {
+      c[i] = Channel.one2one(new Buffer(1));
+    }
+    return c;
+  }
+
+  private Guard[] inputs(One2OneChannel[] c, int extra) {
+    Guard[] g = new Guard[c.length + extra];
+    for (int i = 0;i < c.length;i++) {
+      g[i] = c[i].in();
+    }
+    return g;
+  }
+
+  /**
+   * Waits (for up to ten seconds) until <TT>t</TT> is waiting.
+   */
+  private void awaitBlocked(Thread t) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (t.getState() != Thread.State.WAITING) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  public void testPriSelectLowestReady() {
+    /*
+     * Of the ready guards, priSelect takes the lowest; the other stays ready
+     * for the next select
+     */
+    One2OneChannel[] c = buffered(200);
+    ReadySetAlternative alt = new ReadySetAlternative(inputs(c,0));
+    c[170].out().write("a");
+    c[30].out().write("b");
+    assertEquals(30,alt.priSelect());
+    assertEquals("b",c[30].in().read());
+    assertEquals(170,alt.priSelect());
+    assertEquals("a",c[170].in().read());
+  }
+
+  public void testWaitsForWriter() {
+    /*
+     * A select with nothing ready waits until a guard becomes ready
+     */
+    final One2OneChannel[] c = new One2OneChannel[100];
+    for (int i = 0;i < c.length;i++) {
+      c[i] = Channel.one2one();
+    }
+    final ReadySetAlternative alt = new ReadySetAlternative(inputs(c,0));
+    final int[] selected = {-1};
+    Thread selector = new Thread() {
+      public void run() {
+        for (int k = 0;k < 3;k++) {
+          selected[0] = alt.select();
+          c[selected[0]].in().read();
+        }
+      }
+    };
+    selector.setDaemon(true);
+    selector.start();
+    for (int k = 0;k < 3;k++) {
+      awaitBlocked(selector);
+      c[57 + k].out().write(Integer.valueOf(k));
+      assertEquals(57 + k,selected[0]);
+    }
+  }
+
+  public void testFairSelectRotates() {
+    /*
+     * With every guard always ready, fairSelect serves them in turn
+     */
+    ReadySetAlternative alt = new ReadySetAlternative(new Guard[] {new Skip(),new Skip(),new Skip()});
+    for (int k = 0;k < 9;k++) {
+      assertEquals(k % 3,alt.fairSelect());
+    }
+  }
+
+  public void testPreCondition() {
+    /*
+     * A ready guard whose pre-condition is false is not selected (and is still
+     * ready once the pre-condition holds)
+     */
+    One2OneChannel[] c = buffered(3);
+    ReadySetAlternative alt = new ReadySetAlternative(inputs(c,0));
+    c[0].out().write("a");
+    c[2].out().write("b");
+    assertEquals(2,alt.priSelect(new boolean[] {false,true,true}));
+    assertEquals("b",c[2].in().read());
+    assertEquals(0,alt.priSelect(new boolean[] {true,true,true}));
+    assertEquals("a",c[0].in().read());
+  }
+
+  public void testRelease() {
+    /*
+     * After release, an unselected channel may be read directly; the next select
+     * enables it again
+     */
+    One2OneChannel[] c = buffered(2);
+    ReadySetAlternative alt = new ReadySetAlternative(inputs(c,0));
+    c[0].out().write("a");
+    assertEquals(0,alt.priSelect());
+    c[0].in().read();
+    alt.release();
+    c[1].out().write("b");
+    assertEquals("b",c[1].in().read());
+    c[1].out().write("c");
+    assertEquals(1,alt.priSelect());
+    assertEquals("c",c[1].in().read());
+  }
+
+  public void testTimeout() {
+    /*
+     * With no channel ready, the timer guard is selected once its alarm has passed
+     */
+    One2OneChannel[] c = buffered(10);
+    Guard[] g = inputs(c,1);
+    CSTimer tim = new CSTimer();
+    g[10] = tim;
+    ReadySetAlternative alt = new ReadySetAlternative(g);
+    for (int k = 0;k < 3;k++) {
+      long alarm = tim.read() + 20;
+      tim.setAlarm(alarm);
+      assertEquals(10,alt.priSelect());
+      assertTrue(tim.read() >= alarm);
+    }
+  }
+
+  public void testEarliestOfMillisecondAndNanosecondTimers() {
+    /*
+     * With a millisecond and a nanosecond timer both enabled, the one with the
+     * earlier alarm is selected, whichever clock it is on
+     */
+    One2OneChannel[] c = buffered(2);
+    Guard[] g = inputs(c,2);
+    CSTimer msecs = new CSTimer();
+    CSTimer nanos = new CSTimer();
+    g[2] = msecs;
+    g[3] = nanos;
+    ReadySetAlternative alt = new ReadySetAlternative(g);
+    msecs.setAlarm(msecs.read() + 10000);
+    nanos.setAlarmNanos(nanos.readNanos() + 20000000L);
+    assertEquals(3,alt.priSelect());
+    msecs.setAlarm(msecs.read() + 20);
+    nanos.setAlarmNanos(nanos.readNanos() + 10000000000L);
+    assertEquals(2,alt.priSelect());
+  }
+
+  public void testRejectsAltingBarrier() {
+    /*
+     * An AltingBarrier cannot be one of the guards
+     */
+    try {
+      new ReadySetAlternative(new Guard[] {new Skip(),AltingBarrier.create(1)[0]});
+      fail("barrier accepted");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+}
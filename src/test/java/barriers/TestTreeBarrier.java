@@ -0,0 +1,226 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package barriers;
+
+import jcsp.lang.*;
+import junit.framework.TestCase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestTreeBarrier extends TestCase {
+
+  /**
+   * Starts a thread that syncs on the barrier <TT>cycles</TT> times, counting each
+   * completed sync in <TT>done</TT> (or recording what it threw in <TT>failure</TT>).
+   */
+  private Thread syncer(final Barrier barrier, final int cycles, final AtomicInteger done, final Throwable[] failure) {
+    Thread t = new Thread() {
+      public void run() {
+        try {
+          for (int i = 0;i < cycles;i++) {
+            barrier.sync();
+            done.incrementAndGet();
+          }
+        } catch (Throwable e) {
+          failure[0] = e;
+        }
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+    return t;
+  }
+
+  private void join(Thread t) {
+    try {
+      t.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(t.isAlive());
+  }
+
+  /**
+   * Waits (for up to ten seconds) until <TT>t</TT> is parked.
+   */
+  private void awaitBlocked(Thread t) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (t.getState() != Thread.State.WAITING) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  public void testLockStep() {
+    /*
+     * Many processes (enough that most are woken by others, not by the last to arrive)
+     * sync over many cycles: none may get more than one cycle ahead of any other
+     */
+    final int n = 50;
+    final int cycles = 200;
+    final TreeBarrier barrier = new TreeBarrier(n);
+    final AtomicInteger[] arrived = new AtomicInteger[cycles];
+    for (int i = 0;i < cycles;i++) {
+      arrived[i] = new AtomicInteger();
+    }
+    final Throwable[] failure = new Throwable[1];
+    Thread[] threads = new Thread[n];
+    for (int k = 0;k < n;k++) {
+      threads[k] = new Thread() {
+        public void run() {
+          try {
+            for (int i = 0;i < cycles;i++) {
+              arrived[i].incrementAndGet();
+              barrier.sync();
+              if (arrived[i].get() != n) {
+                throw new IllegalStateException("released early from cycle " + i);
+              }
+            }
+          } catch (Throwable e) {
+            failure[0] = e;
+          }
+        }
+      };
+      threads[k].start();
+    }
+    for (int k = 0;k < n;k++) {
+      join(threads[k]);
+    }
+    assertNull(String.valueOf(failure[0]),failure[0]);
+  }
+
+  public void testResignReleases() {
+    /*
+     * The last enrolled process to resign completes the cycle for those waiting
+     */
+    final TreeBarrier barrier = new TreeBarrier(21);
+    final AtomicInteger done = new AtomicInteger();
+    final Throwable[] failure = new Throwable[1];
+    Thread[] threads = new Thread[20];
+    for (int k = 0;k < 20;k++) {
+      threads[k] = syncer(barrier,1,done,failure);
+    }
+    for (int k = 0;k < 20;k++) {
+      awaitBlocked(threads[k]);
+    }
+    assertEquals(0,done.get());
+    barrier.resign();
+    for (int k = 0;k < 20;k++) {
+      join(threads[k]);
+    }
+    assertEquals(20,done.get());
+    assertNull(String.valueOf(failure[0]),failure[0]);
+  }
+
+  public void testEnrollWhileWaiting() {
+    /*
+     * Enrolling more processes than there are slots while one waits moves the
+     * waiting process to the new slots: it must still be released
+     */
+    final TreeBarrier barrier = new TreeBarrier(2);
+    final AtomicInteger done = new AtomicInteger();
+    final Throwable[] failure = new Throwable[1];
+    Thread first = syncer(barrier,1,done,failure);
+    awaitBlocked(first);
+    final int extra = 40;
+    Thread[] threads = new Thread[extra];
+    for (int k = 0;k < extra;k++) {
+      barrier.enroll();
+      threads[k] = syncer(barrier,1,done,failure);
+    }
+    for (int k = 0;k < extra;k++) {
+      awaitBlocked(threads[k]);
+    }
+    assertEquals(0,done.get());
+    barrier.sync();
+    join(first);
+    for (int k = 0;k < extra;k++) {
+      join(threads[k]);
+    }
+    assertEquals(extra + 1,done.get());
+    assertNull(String.valueOf(failure[0]),failure[0]);
+  }
+
+  public void testResignWithoutEnrolling() {
+    TreeBarrier barrier = new TreeBarrier(0);
+    try {
+      barrier.resign();
+      fail("resigned without enrolling");
+    } catch (BarrierError e) {
+      // expected
+    }
+  }
+
+  public void testInterruptWhileWaiting() {
+    /*
+     * An interrupted process stays in the cycle (it has been counted), so it must go on
+     * waiting and release its children in the tree; the interrupt is reported only
+     * when the cycle completes, and the barrier is usable afterwards
+     */
+    final int n = 10;
+    final TreeBarrier barrier = new TreeBarrier(n + 1);
+    final AtomicInteger done = new AtomicInteger();
+    final Throwable[] failure = new Throwable[1];
+    final boolean[] interrupted = new boolean[1];
+    Thread first = new Thread() {
+      public void run() {
+        try {
+          try {
+            barrier.sync();
+          } catch (ProcessInterruptedException e) {
+            interrupted[0] = true;
+          }
+          done.incrementAndGet();
+          barrier.sync();
+          done.incrementAndGet();
+        } catch (Throwable e) {
+          failure[0] = e;
+        }
+      }
+    };
+    first.start();
+    awaitBlocked(first);
+    // these arrive after first, so some are first's children in the wake-up tree
+    Thread[] threads = new Thread[n - 1];
+    for (int k = 0;k < n - 1;k++) {
+      threads[k] = syncer(barrier,2,done,failure);
+      awaitBlocked(threads[k]);
+    }
+    first.interrupt();
+    try {
+      Thread.sleep(100);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertTrue(first.isAlive());
+    assertEquals(0,done.get());
+    barrier.sync();
+    barrier.sync();
+    join(first);
+    for (int k = 0;k < n - 1;k++) {
+      join(threads[k]);
+    }
+    assertNull(String.valueOf(failure[0]),failure[0]);
+    assertTrue(interrupted[0]);
+    assertEquals(2*n,done.get());
+  }
+
+}
@@ -0,0 +1,307 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package callChannel;
+
+import jcsp.lang.*;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class TestCallChannel extends TestCase {
+
+  private static interface Echo {
+    public int echo(int x);
+  }
+
+  private static class One2OneEchoChannel extends One2OneCallChannel implements Echo {
+    public int echo(int x) {
+      join();
+      int result = ((Echo) server).echo(x);
+      fork();
+      return result;
+    }
+  }
+
+  private static class Any2OneEchoChannel extends Any2OneCallChannel implements Echo {
+    public int echo(int x) {
+      join();
+      int result = ((Echo) server).echo(x);
+      fork();
+      return result;
+    }
+  }
+
+  /**
+   * A server that echoes its argument (and records it).
+   */
+  private static class EchoServer implements CSProcess, Echo {
+    final List calls = new ArrayList();
+    public synchronized int echo(int x) {
+      calls.add(new Integer(x));
+      return x;
+    }
+    public void run() {
+    }
+  }
+
+  /**
+   * Starts a thread that calls <TT>echo(x)</TT>, recording in <TT>result</TT> what it
+   * returned (or what it threw).
+   */
+  private Thread caller(final Echo channel, final int x, final Object[] result) {
+    Thread t = new Thread() {
+      public void run() {
+        try {
+          result[0] = new Integer(channel.echo(x));
+        } catch (Throwable e) {
+          result[0] = e;
+        }
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+    return t;
+  }
+
+  private void join(Thread t) {
+    try {
+      t.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(t.isAlive());
+  }
+
+  /**
+   * Waits (for up to ten seconds) until <TT>t</TT> is parked (or waiting on a timeout).
+   */
+  private void awaitBlocked(Thread t) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while ((t.getState() != Thread.State.WAITING) && (t.getState() != Thread.State.TIMED_WAITING)) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  public void testOne2OneCalls() {
+    final One2OneEchoChannel c = new One2OneEchoChannel();
+    final EchoServer server = new EchoServer();
+    final int n = 10000;
+    final Object[] result = new Object[1];
+    Thread client = new Thread() {
+      public void run() {
+        int sum = 0;
+        for (int i = 0;i < n;i++) {
+          sum += c.echo(i);
+        }
+        result[0] = new Integer(sum);
+      }
+    };
+    client.start();
+    for (int i = 0;i < n;i++) {
+      c.accept(server);
+    }
+    join(client);
+    assertEquals(new Integer(n*(n - 1)/2), result[0]);
+    assertEquals(n, server.calls.size());
+  }
+
+  public void testClientsAcceptedInOrder() {
+    Any2OneEchoChannel c = new Any2OneEchoChannel();
+    EchoServer server = new EchoServer();
+    Thread[] clients = new Thread[5];
+    Object[][] results = new Object[5][1];
+    for (int i = 0;i < 5;i++) {
+      clients[i] = caller(c, i, results[i]);
+      awaitBlocked(clients[i]);
+    }
+    for (int i = 0;i < 5;i++) {
+      c.accept(server);
+    }
+    for (int i = 0;i < 5;i++) {
+      join(clients[i]);
+      assertEquals(new Integer(i), results[i][0]);
+      assertEquals(new Integer(i), server.calls.get(i));
+    }
+  }
+
+  public void testAltOnWaitingClient() {
+    /*
+     * A client already waiting makes the guard ready
+     */
+    Any2OneEchoChannel c = new Any2OneEchoChannel();
+    EchoServer server = new EchoServer();
+    Object[] result = new Object[1];
+    Thread client = caller(c, 42, result);
+    awaitBlocked(client);
+    Alternative alt = new Alternative(new Guard[] {c, new Skip()});
+    assertEquals(0, alt.priSelect());
+    c.accept(server);
+    join(client);
+    assertEquals(new Integer(42), result[0]);
+  }
+
+  public void testAltWokenByArrivingClient() {
+    /*
+     * A client arriving while the server is ALTing wakes it
+     */
+    final Any2OneEchoChannel c = new Any2OneEchoChannel();
+    final EchoServer server = new EchoServer();
+    final Object[] selected = new Object[1];
+    Thread serverThread = new Thread() {
+      public void run() {
+        CSTimer tim = new CSTimer();
+        tim.setAlarm(tim.read() + 10000);
+        Alternative alt = new Alternative(new Guard[] {c, tim});
+        int i = alt.select();
+        selected[0] = new Integer(i);
+        if (i == 0) {
+          c.accept(server);
+        }
+      }
+    };
+    serverThread.start();
+    awaitBlocked(serverThread);
+    Object[] result = new Object[1];
+    Thread client = caller(c, 7, result);
+    join(serverThread);
+    join(client);
+    assertEquals(new Integer(0), selected[0]);
+    assertEquals(new Integer(7), result[0]);
+  }
+
+  public void testAltNotReadyWithoutClient() {
+    Any2OneEchoChannel c = new Any2OneEchoChannel();
+    Alternative alt = new Alternative(new Guard[] {c, new Skip()});
+    assertEquals(1, alt.priSelect());
+  }
+
+  public void testInterruptWaitingClient() {
+    /*
+     * A client interrupted before any server accepts it withdraws, and a later
+     * accept takes the next client instead
+     */
+    Any2OneEchoChannel c = new Any2OneEchoChannel();
+    EchoServer server = new EchoServer();
+    Object[] first = new Object[1];
+    Thread withdrawn = caller(c, 1, first);
+    awaitBlocked(withdrawn);
+    Object[] second = new Object[1];
+    Thread client = caller(c, 2, second);
+    awaitBlocked(client);
+    withdrawn.interrupt();
+    join(withdrawn);
+    assertTrue(String.valueOf(first[0]), first[0] instanceof ProcessInterruptedException);
+    c.accept(server);
+    join(client);
+    assertEquals(new Integer(2), second[0]);
+    assertEquals(1, server.calls.size());
+    assertEquals(new Integer(2), server.calls.get(0));
+  }
+
+  public void testInterruptAcceptingServer() {
+    /*
+     * A server interrupted while no client has joined backs out of the accept,
+     * and the channel can still be used
+     */
+    final One2OneEchoChannel c = new One2OneEchoChannel();
+    final EchoServer server = new EchoServer();
+    final Object[] outcome = new Object[1];
+    Thread serverThread = new Thread() {
+      public void run() {
+        try {
+          c.accept(server);
+          outcome[0] = "accepted";
+        } catch (ProcessInterruptedException e) {
+          outcome[0] = e;
+        }
+      }
+    };
+    serverThread.start();
+    awaitBlocked(serverThread);
+    serverThread.interrupt();
+    join(serverThread);
+    assertTrue(String.valueOf(outcome[0]), outcome[0] instanceof ProcessInterruptedException);
+
+    Object[] result = new Object[1];
+    Thread client = caller(c, 3, result);
+    awaitBlocked(client);
+    c.accept(server);
+    join(client);
+    assertEquals(new Integer(3), result[0]);
+  }
+
+  public void testInterruptServerInCall() {
+    /*
+     * A server interrupted once a client has joined waits for the call to finish,
+     * and returns with its interrupt status set
+     */
+    final One2OneEchoChannel c = new One2OneEchoChannel();
+    final CountDownLatch inCall = new CountDownLatch(1);
+    final CountDownLatch gate = new CountDownLatch(1);
+    final EchoServer server = new EchoServer() {
+      public int echo(int x) {
+        inCall.countDown();
+        try {
+          gate.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        return super.echo(x);
+      }
+    };
+    final Object[] outcome = new Object[1];
+    Thread serverThread = new Thread() {
+      public void run() {
+        try {
+          c.accept(server);
+          outcome[0] = Boolean.valueOf(Thread.currentThread().isInterrupted());
+        } catch (Throwable e) {
+          outcome[0] = e;
+        }
+      }
+    };
+    serverThread.start();
+    Object[] result = new Object[1];
+    Thread client = caller(c, 5, result);
+    try {
+      inCall.await();
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    awaitBlocked(serverThread);
+    serverThread.interrupt();
+    try {
+      Thread.sleep(50);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertTrue(serverThread.isAlive());
+    gate.countDown();
+    join(client);
+    join(serverThread);
+    assertEquals(new Integer(5), result[0]);
+    assertEquals(Boolean.TRUE, outcome[0]);
+  }
+
+}
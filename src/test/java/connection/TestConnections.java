@@ -0,0 +1,216 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package connection;
+
+import jcsp.lang.*;
+import junit.framework.TestCase;
+
+public class TestConnections extends TestCase {
+
+  /**
+   * Serves requests (Integers) with their successors.  Requests 0 .. <TT>keep</TT>-1 of
+   * each connection keep it open; the next closes it.  Serves <TT>n</TT> connections.
+   */
+  private Thread server(final ConnectionServer server, final int n, final int keep, final Throwable[] failure) {
+    Thread t = new Thread() {
+      public void run() {
+        try {
+          for (int c = 0;c < n;c++) {
+            for (int k = 0;k <= keep;k++) {
+              Integer x = (Integer) server.request();
+              server.reply(Integer.valueOf(x.intValue() + 1),k == keep);
+            }
+          }
+        } catch (Throwable e) {
+          failure[0] = e;
+        }
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+    return t;
+  }
+
+  /**
+   * Opens <TT>n</TT> connections, making <TT>keep</TT>+1 requests on each, and checks each
+   * reply is the successor of its own request (and whether the connection is open).
+   */
+  private Thread client(final ConnectionClient client, final int id, final int n, final int keep, final Throwable[] failure) {
+    Thread t = new Thread() {
+      public void run() {
+        try {
+          for (int c = 0;c < n;c++) {
+            for (int k = 0;k <= keep;k++) {
+              int x = (id * n + c) * (keep + 1) + k;
+              client.request(Integer.valueOf(x));
+              Object y = client.reply();
+              if (!Integer.valueOf(x + 1).equals(y)) {
+                throw new IllegalStateException("client " + id + " sent " + x + ", got " + y);
+              }
+              if (client.isOpen() != (k < keep)) {
+                throw new IllegalStateException("client " + id + " open " + client.isOpen() + " after " + k);
+              }
+            }
+          }
+        } catch (Throwable e) {
+          failure[0] = e;
+        }
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+    return t;
+  }
+
+  private void join(Thread t) {
+    try {
+      t.join(30000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(t.isAlive());
+  }
+
+  public void testOne2One() {
+    /*
+     * Single-request connections and connections kept open for several requests
+     */
+    for (int keep = 0;keep < 3;keep++) {
+      One2OneConnection c = Connection.createOne2One();
+      Throwable[] failure = new Throwable[1];
+      Thread s = server(c.server(),1000,keep,failure);
+      Thread k = client(c.client(),0,1000,keep,failure);
+      join(s);
+      join(k);
+      assertNull(String.valueOf(failure[0]),failure[0]);
+    }
+  }
+
+  public void testRequestDoesNotWaitForServer() {
+    /*
+     * The data channels hold one message, so a request (and a reply) is written
+     * without waiting for the other side to read it
+     */
+    One2OneConnection c = Connection.createOne2One();
+    AltingConnectionClient client = c.client();
+    AltingConnectionServer server = c.server();
+    client.request("ping");
+    assertEquals("ping",server.request());
+    server.reply("pong");
+    assertEquals("pong",client.reply());
+    assertTrue(client.isOpen());
+    client.request("bye");
+    assertEquals("bye",server.request());
+    server.replyAndClose("done");
+    assertEquals("done",client.reply());
+    assertFalse(client.isOpen());
+  }
+
+  public void testAny2OneRepliesNotMixedUp() {
+    /*
+     * Many clients open and close connections to one server, which re-uses its reply
+     * message: each client must get the reply to its own request
+     */
+    Any2OneConnection c = Connection.createAny2One();
+    int clients = 8;
+    int n = 2000;
+    Throwable[] failure = new Throwable[1];
+    Thread s = server(c.server(),clients * n,0,failure);
+    Thread[] k = new Thread[clients];
+    for (int i = 0;i < clients;i++) {
+      k[i] = client(c.client(),i,n,0,failure);
+    }
+    for (int i = 0;i < clients;i++) {
+      join(k[i]);
+    }
+    join(s);
+    assertNull(String.valueOf(failure[0]),failure[0]);
+  }
+
+  public void testAny2AnyKeptOpen() {
+    /*
+     * Many clients and two servers, with each connection kept open for three requests
+     */
+    Any2AnyConnection c = Connection.createAny2Any();
+    int clients = 6;
+    int n = 500;
+    Throwable[] failure = new Throwable[1];
+    Thread s0 = server(c.server(),clients * n / 2,2,failure);
+    Thread s1 = server(c.server(),clients * n / 2,2,failure);
+    Thread[] k = new Thread[clients];
+    for (int i = 0;i < clients;i++) {
+      k[i] = client(c.client(),i,n,2,failure);
+    }
+    for (int i = 0;i < clients;i++) {
+      join(k[i]);
+    }
+    join(s0);
+    join(s1);
+    assertNull(String.valueOf(failure[0]),failure[0]);
+  }
+
+  public void testOne2AnyServers() {
+    /*
+     * One client and two shared servers
+     */
+    One2AnyConnection c = Connection.createOne2Any();
+    Throwable[] failure = new Throwable[1];
+    Thread s0 = server(c.server(),500,1,failure);
+    Thread s1 = server(c.server(),500,1,failure);
+    Thread k = client(c.client(),0,1000,1,failure);
+    join(k);
+    join(s0);
+    join(s1);
+    assertNull(String.valueOf(failure[0]),failure[0]);
+  }
+
+  public void testAltingServer() {
+    /*
+     * A server ALTing over its connection and a timeout sees each request, and
+     * times out when there is none
+     */
+    final Any2OneConnection c = Connection.createAny2One();
+    final AltingConnectionServer server = c.server();
+    final CSTimer tim = new CSTimer();
+    Throwable[] failure = new Throwable[1];
+    Thread k = client(c.client(),0,200,0,failure);
+    Alternative alt = new Alternative(new Guard[] {server,tim});
+    int served = 0;
+    int timeouts = 0;
+    while (served < 200) {
+      tim.setAlarm(tim.read() + 5000);
+      if (alt.priSelect() == 0) {
+        Integer x = (Integer) server.request();
+        server.replyAndClose(Integer.valueOf(x.intValue() + 1));
+        served++;
+      } else {
+        timeouts++;
+      }
+    }
+    join(k);
+    assertNull(String.valueOf(failure[0]),failure[0]);
+    assertEquals(0,timeouts);
+    tim.setAlarm(tim.read() + 20);
+    assertEquals(1,alt.priSelect());
+  }
+
+}
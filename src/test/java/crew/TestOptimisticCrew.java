@@ -0,0 +1,262 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+package crew;
+
+import jcsp.lang.*;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class TestOptimisticCrew extends TestCase {
+
+  /** The names of the processes in the order they got the lock */
+  private final List entered = new ArrayList();
+
+  /**
+   * A process that takes the lock, records that it has, and holds the lock until released.
+   */
+  private class Holder extends Thread {
+
+    private final OptimisticCrew crew;
+    private final boolean writer;
+    private final CountDownLatch release = new CountDownLatch(1);
+    boolean interruptedInside;
+
+    Holder(String name, OptimisticCrew crew, boolean writer) {
+      super(name);
+      this.crew = crew;
+      this.writer = writer;
+      setDaemon(true);
+    }
+
+    public void run() {
+      if (writer) {
+        crew.startWrite();
+      } else {
+        crew.startRead();
+      }
+      interruptedInside = Thread.interrupted();
+      synchronized (entered) {
+        entered.add(getName());
+      }
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+      if (writer) {
+        crew.endWrite();
+      } else {
+        crew.endRead();
+      }
+    }
+
+    /** Lets this process give up the lock, and waits for it to finish */
+    void finish() {
+      release.countDown();
+      try {
+        join(10000);
+      } catch (InterruptedException e) {
+        fail(e.toString());
+      }
+      assertFalse(isAlive());
+    }
+  }
+
+  private Holder start(String name, OptimisticCrew crew, boolean writer) {
+    Holder h = new Holder(name, crew, writer);
+    h.start();
+    return h;
+  }
+
+  /**
+   * Waits (for up to ten seconds) until the names entered are exactly <TT>names</TT>.
+   */
+  private void awaitEntered(String[] names) {
+    List expected = Arrays.asList(names);
+    long deadline = System.currentTimeMillis() + 10000;
+    while (true) {
+      synchronized (entered) {
+        if (entered.equals(expected)) {
+          return;
+        }
+        assertTrue("entered " + entered + ", expected " + expected,
+                   System.currentTimeMillis() < deadline);
+      }
+      Thread.yield();
+    }
+  }
+
+  private int enteredCount() {
+    synchronized (entered) {
+      return entered.size();
+    }
+  }
+
+  /**
+   * Waits (for up to ten seconds) until <TT>t</TT> is parked in the lock's queue.
+   */
+  private void awaitQueued(Thread t) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (t.getState() != Thread.State.WAITING) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  /**
+   * Checks that nothing more gets the lock for a while.
+   */
+  private void assertStillEntered(String[] names) {
+    try {
+      Thread.sleep(50);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    awaitEntered(names);
+  }
+
+  public void testReadersShare() {
+    OptimisticCrew crew = new OptimisticCrew();
+    Holder r1 = start("r1", crew, false);
+    awaitEntered(new String[] {"r1"});
+    Holder r2 = start("r2", crew, false);
+    awaitEntered(new String[] {"r1", "r2"});
+    r1.finish();
+    r2.finish();
+  }
+
+  public void testWriterExcludesReaders() {
+    OptimisticCrew crew = new OptimisticCrew();
+    Holder w = start("w", crew, true);
+    awaitEntered(new String[] {"w"});
+    Holder r = start("r", crew, false);
+    awaitQueued(r);
+    assertStillEntered(new String[] {"w"});
+    w.finish();
+    awaitEntered(new String[] {"w", "r"});
+    r.finish();
+  }
+
+  public void testReadersDoNotOvertakeWaitingWriter() {
+    /*
+     * A reader arriving after a waiting writer must wait for it, even though
+     * the lock is held only by readers
+     */
+    OptimisticCrew crew = new OptimisticCrew();
+    Holder r1 = start("r1", crew, false);
+    awaitEntered(new String[] {"r1"});
+    Holder w = start("w", crew, true);
+    awaitQueued(w);
+    Holder r2 = start("r2", crew, false);
+    awaitQueued(r2);
+    assertStillEntered(new String[] {"r1"});
+    r1.finish();
+    awaitEntered(new String[] {"r1", "w"});
+    assertStillEntered(new String[] {"r1", "w"});
+    w.finish();
+    awaitEntered(new String[] {"r1", "w", "r2"});
+    r2.finish();
+  }
+
+  public void testQueueGrantedInOrder() {
+    /*
+     * Queued processes are granted the lock in order of arrival: one writer at a
+     * time, or all the readers up to the next writer together
+     */
+    OptimisticCrew crew = new OptimisticCrew();
+    Holder w0 = start("w0", crew, true);
+    awaitEntered(new String[] {"w0"});
+    Holder w1 = start("w1", crew, true);
+    awaitQueued(w1);
+    Holder r1 = start("r1", crew, false);
+    awaitQueued(r1);
+    Holder r2 = start("r2", crew, false);
+    awaitQueued(r2);
+    Holder w2 = start("w2", crew, true);
+    awaitQueued(w2);
+    Holder r3 = start("r3", crew, false);
+    awaitQueued(r3);
+
+    w0.finish();
+    awaitEntered(new String[] {"w0", "w1"});
+    assertStillEntered(new String[] {"w0", "w1"});
+    w1.finish();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (enteredCount() < 4) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+    synchronized (entered) {
+      assertEquals(4, entered.size());
+      assertTrue(entered.subList(2, 4).containsAll(Arrays.asList(new String[] {"r1", "r2"})));
+    }
+    r1.finish();
+    assertStillEntered((String[]) entered.toArray(new String[0]));
+    r2.finish();
+    awaitEntered(new String[] {"w0", "w1", (String) entered.get(2), (String) entered.get(3), "w2"});
+    w2.finish();
+    assertEquals("r3", entered.get(5));
+    r3.finish();
+  }
+
+  public void testInterruptedWaiterKeepsWaiting() {
+    /*
+     * A waiting process is not interruptible: it gets the lock in its turn,
+     * with its interrupt status set
+     */
+    OptimisticCrew crew = new OptimisticCrew();
+    Holder w = start("w", crew, true);
+    awaitEntered(new String[] {"w"});
+    Holder r = start("r", crew, false);
+    awaitQueued(r);
+    r.interrupt();
+    assertStillEntered(new String[] {"w"});
+    w.finish();
+    awaitEntered(new String[] {"w", "r"});
+    r.finish();
+    assertTrue(r.interruptedInside);
+  }
+
+  public void testOptimisticRead() {
+    OptimisticCrew crew = new OptimisticCrew();
+    long stamp = crew.tryOptimisticRead();
+    assertTrue(crew.validate(stamp));
+
+    crew.startRead();
+    assertTrue(crew.validate(stamp));
+    crew.endRead();
+    assertTrue(crew.validate(stamp));
+
+    crew.startWrite();
+    assertFalse(crew.validate(stamp));
+    assertFalse(crew.validate(crew.tryOptimisticRead()));
+    crew.endWrite();
+    assertFalse(crew.validate(stamp));
+
+    stamp = crew.tryOptimisticRead();
+    assertTrue(crew.validate(stamp));
+  }
+
+}
@@ -0,0 +1,196 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package deadlock;
+
+import jcsp.lang.*;
+import junit.framework.TestCase;
+
+public class TestDeadlockDetector extends TestCase {
+
+  private boolean enabled;
+
+  private InstrumentedChannelFactory factory;
+
+  protected void setUp() {
+    enabled = ChannelRegistry.isEnabled();
+    ChannelRegistry.setEnabled(true);
+    factory = new InstrumentedChannelFactory();
+  }
+
+  protected void tearDown() {
+    ChannelRegistry.setEnabled(enabled);
+  }
+
+  /**
+   * Starts a thread with the given name running <TT>body</TT>, which ends quietly
+   * when the thread is interrupted.
+   */
+  private static Thread start(String name, final Runnable body) {
+    Thread t = new Thread(name) {
+      public void run() {
+        try {
+          body.run();
+        } catch (ProcessInterruptedException e) {
+          // stopped by the test
+        }
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+    return t;
+  }
+
+  /**
+   * Waits (for up to ten seconds) until <TT>t</TT> is waiting.
+   */
+  private void awaitBlocked(Thread t) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (t.getState() != Thread.State.WAITING) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  /**
+   * Waits (for up to ten seconds) until the detector reports all the given names.
+   */
+  private String awaitReport(String[] names) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (true) {
+      String report = DeadlockDetector.check();
+      boolean all = (report != null);
+      for (int i = 0;all && (i < names.length);i++) {
+        all = report.indexOf(names[i]) >= 0;
+      }
+      if (all) {
+        return report;
+      }
+      assertTrue("" + report,System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  private void stop(Thread[] threads) throws InterruptedException {
+    for (int i = 0;i < threads.length;i++) {
+      threads[i].interrupt();
+    }
+    for (int i = 0;i < threads.length;i++) {
+      threads[i].join(10000);
+      assertFalse(threads[i].isAlive());
+    }
+  }
+
+  /**
+   * Starts two processes that exchange a message each way, then each write again.
+   */
+  private Thread[] cycle(String p, String q) {
+    final One2OneChannel x = factory.createOne2One(p + "-x");
+    final One2OneChannel y = factory.createOne2One(q + "-y");
+    return new Thread[] {
+      start(p,new Runnable() {
+        public void run() {
+          x.out().write("a");
+          y.in().read();
+          x.out().write("b");
+        }
+      }),
+      start(q,new Runnable() {
+        public void run() {
+          x.in().read();
+          y.out().write("c");
+          y.out().write("d");
+        }
+      })
+    };
+  }
+
+  /**
+   * Starts a process ALTing over a channel no one writes and, if <TT>timer</TT>
+   * is not null, an alarm a minute off.
+   */
+  private Thread alt(String name, final CSTimer timer) {
+    final One2OneChannel c = factory.createOne2One(name + "-c");
+    return start(name,new Runnable() {
+      public void run() {
+        Guard[] guards;
+        if (timer == null) {
+          guards = new Guard[] {c.in()};
+        } else {
+          timer.setAlarm(timer.read() + 60000);
+          guards = new Guard[] {c.in(),timer};
+        }
+        new Alternative(guards).select();
+      }
+    });
+  }
+
+  public void testCycle() throws InterruptedException {
+    /*
+     * Two processes each writing to the other are deadlocked
+     */
+    Thread[] t = cycle("dd-cycle-P","dd-cycle-Q");
+    awaitReport(new String[] {
+      "processes deadlocked",
+      "dd-cycle-P blocked writing \"dd-cycle-P-x\" (last read by dd-cycle-Q)",
+      "dd-cycle-Q blocked writing \"dd-cycle-Q-y\" (last read by dd-cycle-P)"
+    });
+    stop(t);
+  }
+
+  public void testUntimedAltStarved() throws InterruptedException {
+    /*
+     * A process ALTing only over a channel no one writes is starved
+     */
+    Thread t = alt("dd-untimed",null);
+    awaitBlocked(t);
+    awaitReport(new String[] {" starved","dd-untimed blocked reading"});
+    stop(new Thread[] {t});
+  }
+
+  public void testTimedAltWithCycle() throws InterruptedException {
+    /*
+     * A process ALTing with a timeout is not stuck, even when its timer is on the
+     * timing wheel and so it waits without a timeout; a real cycle is still reported
+     */
+    CSTimer wheel = new CSTimer();
+    wheel.setTimingWheel(true);
+    Thread[] t = {
+      alt("dd-timed",new CSTimer()),
+      alt("dd-wheel",wheel),
+      null,
+      null
+    };
+    Thread[] c = cycle("dd-timed-P","dd-timed-Q");
+    t[2] = c[0];
+    t[3] = c[1];
+    awaitBlocked(t[1]);
+    String report = awaitReport(new String[] {
+      "processes deadlocked",
+      "dd-timed-P blocked writing \"dd-timed-P-x\" (last read by dd-timed-Q)",
+      "dd-timed-Q blocked writing \"dd-timed-Q-y\" (last read by dd-timed-P)"
+    });
+    assertTrue(report,report.indexOf("dd-timed ") < 0);
+    assertTrue(report,report.indexOf("dd-wheel") < 0);
+    stop(t);
+  }
+
+}
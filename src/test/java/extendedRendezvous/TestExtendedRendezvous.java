@@ -23,9 +23,12 @@ package extendedRendezvous;
 import jcsp.lang.*;
 import jcsp.util.Buffer;
 import jcsp.util.OverFlowingBuffer;
+import jcsp.util.doubles.BufferDouble;
 import jcsp.util.ints.BufferInt;
+import jcsp.util.longs.BufferLong;
 import junit.framework.TestCase;
 
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -52,6 +55,22 @@ public class TestExtendedRendezvous extends TestCase {
 	    }     
 	  }
   
+  public void assertArraysEqual(long[] a,long[] b) {
+    assertEquals(a.length,b.length);
+
+    for (int i = 0;i < a.length;i++) {
+      assertEquals(a[i],b[i]);
+    }
+  }
+
+  public void assertArraysEqual(double[] a,double[] b) {
+    assertEquals(a.length,b.length);
+
+    for (int i = 0;i < a.length;i++) {
+      assertEquals(a[i],b[i],0.0);
+    }
+  }
+
   public void helper_testChannelOneWriter(ChannelInput in, ChannelOutput out) {
     
     /*
@@ -119,6 +138,117 @@ public class TestExtendedRendezvous extends TestCase {
 	  helper_testChannelOneWriter(chan.in(), chan.out());
   }
 
+  public void testNormalOne2OneChannelLockFree() {
+	  One2OneChannel chan = Channel.one2oneLockFree();
+	  helper_testChannelOneWriter(chan.in(), chan.out());
+  }
+
+  /**
+   * Interrupts the writer over and over while it writes, and checks that the reader gets
+   * exactly the messages whose writes completed: an interrupted write either withdraws its
+   * message (and throws) or is committed to the reader (and completes).
+   */
+  public void helper_testInterruptedWriter(final ChannelInput in, final ChannelOutput out, final boolean extended) {
+    final int n = 50000;
+    final Object stop = new Object();
+    final java.util.List written = new java.util.ArrayList();
+    final java.util.List read = new java.util.ArrayList();
+    final Throwable[] failure = new Throwable[1];
+
+    Thread writer = new Thread() {
+      public void run() {
+        try {
+          for (int i = 0;i < n;i++) {
+            Integer value = new Integer(i);
+            try {
+              out.write(value);
+              written.add(value);
+            } catch (ProcessInterruptedException e) {
+              // withdrawn
+            }
+            Thread.interrupted();
+          }
+          out.write(stop);
+        } catch (Throwable t) {
+          failure[0] = t;
+        }
+      }
+    };
+    Thread reader = new Thread() {
+      public void run() {
+        try {
+          while (true) {
+            Object value;
+            if (extended) {
+              value = in.startRead();
+              in.endRead();
+            } else {
+              value = in.read();
+            }
+            if (value == stop) {
+              return;
+            }
+            read.add(value);
+          }
+        } catch (Throwable t) {
+          failure[0] = t;
+        }
+      }
+    };
+
+    reader.start();
+    writer.start();
+    while (writer.isAlive()) {
+      writer.interrupt();
+      Thread.yield();
+    }
+    try {
+      reader.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertNull(String.valueOf(failure[0]),failure[0]);
+    assertFalse(reader.isAlive());
+    assertEquals(written,read);
+  }
+
+  public void testInterruptedWriterOne2OneChannelLockFree() {
+	  One2OneChannel chan = Channel.one2oneLockFree();
+	  helper_testInterruptedWriter(chan.in(), chan.out(), false);
+	  chan = Channel.one2oneLockFree();
+	  helper_testInterruptedWriter(chan.in(), chan.out(), true);
+  }
+
+  public void testInterruptedWriterInExtendedRendezvousOne2OneChannelLockFree() throws InterruptedException {
+    /*
+     * A writer interrupted while the reader is in an extended rendezvous must stay blocked
+     * (without spinning) until the rendezvous ends, and then return with its interrupt status set
+     */
+    final One2OneChannel chan = Channel.one2oneLockFree();
+    final boolean[] interrupted = new boolean[1];
+    Thread writer = new Thread() {
+      public void run() {
+        chan.out().write("x");
+        interrupted[0] = Thread.currentThread().isInterrupted();
+      }
+    };
+    writer.start();
+    assertEquals("x",chan.in().startRead());
+    writer.interrupt();
+
+    java.lang.management.ThreadMXBean threads = java.lang.management.ManagementFactory.getThreadMXBean();
+    long before = threads.getThreadCpuTime(writer.getId());
+    Thread.sleep(200);
+    long used = threads.getThreadCpuTime(writer.getId()) - before;
+    assertTrue("writer used " + (used / 1000000) + " ms of CPU while blocked",used < 50000000L);
+    assertTrue(writer.isAlive());
+
+    chan.in().endRead();
+    writer.join(10000);
+    assertFalse(writer.isAlive());
+    assertTrue(interrupted[0]);
+  }
+
   public void helper_testIntChannelOneWriter(ChannelInputInt in, ChannelOutputInt out) {
 
 	    /*
@@ -252,6 +382,28 @@ public class TestExtendedRendezvous extends TestCase {
 	    Any2AnyChannel chan1 = Channel.any2any(new Buffer(1));
 	    helper_testFIFOChannelOneWriter(chan1.in(), chan1.out());
 	  }
+
+  public void testFIFO_One2OneChannelLockFree() {
+    One2OneChannel chan4 = Channel.one2oneLockFree(4);
+    helper_testFIFOChannelOneWriter(chan4.in(), chan4.out());
+
+    One2OneChannel chan1 = Channel.one2oneLockFree(1);
+    helper_testFIFOChannelOneWriter(chan1.in(), chan1.out());
+
+    One2OneChannel chan0 = Channel.one2oneLockFree(0);
+    helper_testFIFOChannelOneWriter(chan0.in(), chan0.out());
+  }
+
+  public void testFIFO_Any2OneChannelLockFree() {
+    Any2OneChannel chan4 = Channel.any2oneLockFree(4);
+    helper_testFIFOChannelOneWriter(chan4.in(), chan4.out());
+
+    Any2OneChannel chan1 = Channel.any2oneLockFree(1);
+    helper_testFIFOChannelOneWriter(chan1.in(), chan1.out());
+
+    Any2OneChannel chan0 = Channel.any2oneLockFree(0);
+    helper_testFIFOChannelOneWriter(chan0.in(), chan0.out());
+  }
   
   //The given channel should be using a FIFO buffer (of any size >= 1)
   public void helper_testFIFOChannelOneWriterInt(ChannelInputInt in, ChannelOutputInt out) {
@@ -315,6 +467,438 @@ public class TestExtendedRendezvous extends TestCase {
 		  }
   
   
+  public void helper_testLongChannelOneWriter(ChannelInputLong in, ChannelOutputLong out) {
+
+    /*
+     * As helper_testChannelOneWriter: the events should be in lock-step
+     * read,write,read,write...
+     */
+
+    AltingBarrier[] terminateEvent = AltingBarrier.create(2);
+
+    AltingBarrier[] writeEvent = AltingBarrier.create(2);
+    AltingBarrier[] readEvent = AltingBarrier.create(2);
+
+    EventRecorder recorder;
+
+    new Parallel( new CSProcess[] {
+        recorder = new EventRecorder(new Guard[] {writeEvent[0],readEvent[0],terminateEvent[0]},2),
+        new Sequence(new CSProcess[] {
+            new Parallel( new CSProcess[] {
+                new WriterProcessLong(out,new long[100],writeEvent[1]),
+                new ExtendedReaderSyncLong(readEvent[1],in,100)
+            }),
+            new BarrierSyncer(terminateEvent[1])
+        })
+    }).run();
+
+    Guard[] expectedEvents = new Guard[201];
+
+    for (int i = 0;i < 100;i++) {
+      expectedEvents[i*2 + 0] = readEvent[0];
+      expectedEvents[i*2 + 1] = writeEvent[0];
+    }
+
+    expectedEvents[200] = terminateEvent[0];
+
+    assertArraysEqual(expectedEvents,recorder.getObservedEvents());
+  }
+
+  public void testNormalOne2OneChannelLong() {
+    One2OneChannelLong chan = Channel.one2oneLong();
+    helper_testLongChannelOneWriter(chan.in(), chan.out());
+  }
+
+  public void testNormalAny2OneChannelLong() {
+    Any2OneChannelLong chan = Channel.any2oneLong();
+    helper_testLongChannelOneWriter(chan.in(), chan.out());
+  }
+
+  public void testNormalOne2AnyChannelLong() {
+    One2AnyChannelLong chan = Channel.one2anyLong();
+    helper_testLongChannelOneWriter(chan.in(), chan.out());
+  }
+
+  public void testNormalAny2AnyChannelLong() {
+    Any2AnyChannelLong chan = Channel.any2anyLong();
+    helper_testLongChannelOneWriter(chan.in(), chan.out());
+  }
+
+  //The given channel should be using a FIFO buffer (of any size >= 1)
+  public void helper_testFIFOChannelOneWriterLong(ChannelInputLong in, ChannelOutputLong out) {
+
+    /*
+     * As helper_testFIFOChannelOneWriter: all the data must flow in write order,
+     * even when the reader is slower than the writer
+     */
+
+    AltingBarrier[] delayEvent = AltingBarrier.create(2);
+
+    ExtendedReaderSyncLong reader;
+
+    long[] values = new long[100];
+
+    for (int i = 0;i < 100;i++) {
+      values[i] = (1L << 40) + i;
+    }
+
+    new Parallel( new CSProcess[] {
+        new DelaySyncer(delayEvent[0],5,100),
+        new WriterProcessLong(out,values,(AltingBarrier)null),
+        reader = new ExtendedReaderSyncLong(delayEvent[1],in,100)
+    }).run();
+
+    assertArraysEqual(values,reader.getValuesRead());
+  }
+
+  public void testFIFO_One2OneChannelLong() {
+    One2OneChannelLong chan4 = Channel.one2oneLong(new BufferLong(4));
+    helper_testFIFOChannelOneWriterLong(chan4.in(), chan4.out());
+
+    One2OneChannelLong chan1 = Channel.one2oneLong(new BufferLong(1));
+    helper_testFIFOChannelOneWriterLong(chan1.in(), chan1.out());
+  }
+
+  public void testFIFO_Any2OneChannelLong() {
+    Any2OneChannelLong chan4 = Channel.any2oneLong(new BufferLong(4));
+    helper_testFIFOChannelOneWriterLong(chan4.in(), chan4.out());
+
+    Any2OneChannelLong chan1 = Channel.any2oneLong(new BufferLong(1));
+    helper_testFIFOChannelOneWriterLong(chan1.in(), chan1.out());
+  }
+
+  public void testFIFO_One2AnyChannelLong() {
+    One2AnyChannelLong chan4 = Channel.one2anyLong(new BufferLong(4));
+    helper_testFIFOChannelOneWriterLong(chan4.in(), chan4.out());
+
+    One2AnyChannelLong chan1 = Channel.one2anyLong(new BufferLong(1));
+    helper_testFIFOChannelOneWriterLong(chan1.in(), chan1.out());
+  }
+
+  public void testFIFO_Any2AnyChannelLong() {
+    Any2AnyChannelLong chan4 = Channel.any2anyLong(new BufferLong(4));
+    helper_testFIFOChannelOneWriterLong(chan4.in(), chan4.out());
+
+    Any2AnyChannelLong chan1 = Channel.any2anyLong(new BufferLong(1));
+    helper_testFIFOChannelOneWriterLong(chan1.in(), chan1.out());
+  }
+
+  public void helper_testDoubleChannelOneWriter(ChannelInputDouble in, ChannelOutputDouble out) {
+
+    /*
+     * As helper_testChannelOneWriter: the events should be in lock-step
+     * read,write,read,write...
+     */
+
+    AltingBarrier[] terminateEvent = AltingBarrier.create(2);
+
+    AltingBarrier[] writeEvent = AltingBarrier.create(2);
+    AltingBarrier[] readEvent = AltingBarrier.create(2);
+
+    EventRecorder recorder;
+
+    new Parallel( new CSProcess[] {
+        recorder = new EventRecorder(new Guard[] {writeEvent[0],readEvent[0],terminateEvent[0]},2),
+        new Sequence(new CSProcess[] {
+            new Parallel( new CSProcess[] {
+                new WriterProcessDouble(out,new double[100],writeEvent[1]),
+                new ExtendedReaderSyncDouble(readEvent[1],in,100)
+            }),
+            new BarrierSyncer(terminateEvent[1])
+        })
+    }).run();
+
+    Guard[] expectedEvents = new Guard[201];
+
+    for (int i = 0;i < 100;i++) {
+      expectedEvents[i*2 + 0] = readEvent[0];
+      expectedEvents[i*2 + 1] = writeEvent[0];
+    }
+
+    expectedEvents[200] = terminateEvent[0];
+
+    assertArraysEqual(expectedEvents,recorder.getObservedEvents());
+  }
+
+  public void testNormalOne2OneChannelDouble() {
+    One2OneChannelDouble chan = Channel.one2oneDouble();
+    helper_testDoubleChannelOneWriter(chan.in(), chan.out());
+  }
+
+  public void testNormalAny2OneChannelDouble() {
+    Any2OneChannelDouble chan = Channel.any2oneDouble();
+    helper_testDoubleChannelOneWriter(chan.in(), chan.out());
+  }
+
+  public void testNormalOne2AnyChannelDouble() {
+    One2AnyChannelDouble chan = Channel.one2anyDouble();
+    helper_testDoubleChannelOneWriter(chan.in(), chan.out());
+  }
+
+  public void testNormalAny2AnyChannelDouble() {
+    Any2AnyChannelDouble chan = Channel.any2anyDouble();
+    helper_testDoubleChannelOneWriter(chan.in(), chan.out());
+  }
+
+  //The given channel should be using a FIFO buffer (of any size >= 1)
+  public void helper_testFIFOChannelOneWriterDouble(ChannelInputDouble in, ChannelOutputDouble out) {
+
+    /*
+     * As helper_testFIFOChannelOneWriter: all the data must flow in write order,
+     * even when the reader is slower than the writer
+     */
+
+    AltingBarrier[] delayEvent = AltingBarrier.create(2);
+
+    ExtendedReaderSyncDouble reader;
+
+    double[] values = new double[100];
+
+    for (int i = 0;i < 100;i++) {
+      values[i] = i + 0.5;
+    }
+
+    new Parallel( new CSProcess[] {
+        new DelaySyncer(delayEvent[0],5,100),
+        new WriterProcessDouble(out,values,(AltingBarrier)null),
+        reader = new ExtendedReaderSyncDouble(delayEvent[1],in,100)
+    }).run();
+
+    assertArraysEqual(values,reader.getValuesRead());
+  }
+
+  public void testFIFO_One2OneChannelDouble() {
+    One2OneChannelDouble chan4 = Channel.one2oneDouble(new BufferDouble(4));
+    helper_testFIFOChannelOneWriterDouble(chan4.in(), chan4.out());
+
+    One2OneChannelDouble chan1 = Channel.one2oneDouble(new BufferDouble(1));
+    helper_testFIFOChannelOneWriterDouble(chan1.in(), chan1.out());
+  }
+
+  public void testFIFO_Any2OneChannelDouble() {
+    Any2OneChannelDouble chan4 = Channel.any2oneDouble(new BufferDouble(4));
+    helper_testFIFOChannelOneWriterDouble(chan4.in(), chan4.out());
+
+    Any2OneChannelDouble chan1 = Channel.any2oneDouble(new BufferDouble(1));
+    helper_testFIFOChannelOneWriterDouble(chan1.in(), chan1.out());
+  }
+
+  public void testFIFO_One2AnyChannelDouble() {
+    One2AnyChannelDouble chan4 = Channel.one2anyDouble(new BufferDouble(4));
+    helper_testFIFOChannelOneWriterDouble(chan4.in(), chan4.out());
+
+    One2AnyChannelDouble chan1 = Channel.one2anyDouble(new BufferDouble(1));
+    helper_testFIFOChannelOneWriterDouble(chan1.in(), chan1.out());
+  }
+
+  public void testFIFO_Any2AnyChannelDouble() {
+    Any2AnyChannelDouble chan4 = Channel.any2anyDouble(new BufferDouble(4));
+    helper_testFIFOChannelOneWriterDouble(chan4.in(), chan4.out());
+
+    Any2AnyChannelDouble chan1 = Channel.any2anyDouble(new BufferDouble(1));
+    helper_testFIFOChannelOneWriterDouble(chan1.in(), chan1.out());
+  }
+
+  public void testNormalInstrumentedChannels() {
+    InstrumentedChannelFactory factory = new InstrumentedChannelFactory();
+
+    One2OneChannel one2one = factory.createOne2One("TestExtendedRendezvous.one2one");
+    helper_testChannelOneWriter(one2one.in(), one2one.out());
+    Any2OneChannel any2one = factory.createAny2One("TestExtendedRendezvous.any2one");
+    helper_testChannelOneWriter(any2one.in(), any2one.out());
+    One2AnyChannel one2any = factory.createOne2Any("TestExtendedRendezvous.one2any");
+    helper_testChannelOneWriter(one2any.in(), one2any.out());
+    Any2AnyChannel any2any = factory.createAny2Any("TestExtendedRendezvous.any2any");
+    helper_testChannelOneWriter(any2any.in(), any2any.out());
+
+    ChannelMetrics metrics = ChannelRegistry.get("TestExtendedRendezvous.any2any");
+    assertNotNull(metrics);
+    assertEquals(100,metrics.getWrites());
+    assertEquals(100,metrics.getReads());
+  }
+
+  public void testNormalInstrumentedChannelsInt() {
+    InstrumentedChannelIntFactory factory = new InstrumentedChannelIntFactory();
+
+    One2OneChannelInt one2one = factory.createOne2One("TestExtendedRendezvous.one2oneInt");
+    helper_testIntChannelOneWriter(one2one.in(), one2one.out());
+    Any2OneChannelInt any2one = factory.createAny2One("TestExtendedRendezvous.any2oneInt");
+    helper_testIntChannelOneWriter(any2one.in(), any2one.out());
+    One2AnyChannelInt one2any = factory.createOne2Any("TestExtendedRendezvous.one2anyInt");
+    helper_testIntChannelOneWriter(one2any.in(), one2any.out());
+    Any2AnyChannelInt any2any = factory.createAny2Any("TestExtendedRendezvous.any2anyInt");
+    helper_testIntChannelOneWriter(any2any.in(), any2any.out());
+
+    ChannelMetrics metrics = ChannelRegistry.get("TestExtendedRendezvous.one2oneInt");
+    assertNotNull(metrics);
+    assertEquals(100,metrics.getWrites());
+    assertEquals(100,metrics.getReads());
+  }
+
+  public void testFIFO_InstrumentedChannels() {
+    InstrumentedChannelFactory factory = new InstrumentedChannelFactory();
+
+    One2OneChannel chan4 = factory.createOne2One(new Buffer(4), "TestExtendedRendezvous.one2oneFIFO");
+    helper_testFIFOChannelOneWriter(chan4.in(), chan4.out());
+
+    Any2AnyChannel chan1 = factory.createAny2Any(new Buffer(1), "TestExtendedRendezvous.any2anyFIFO");
+    helper_testFIFOChannelOneWriter(chan1.in(), chan1.out());
+
+    ChannelMetrics metrics = ChannelRegistry.get("TestExtendedRendezvous.one2oneFIFO");
+    assertNotNull(metrics);
+    assertTrue(metrics.isBuffered());
+    assertEquals(100,metrics.getWrites());
+    assertEquals(100,metrics.getReads());
+  }
+
+  public void testFIFO_InstrumentedChannelsInt() {
+    InstrumentedChannelIntFactory factory = new InstrumentedChannelIntFactory();
+
+    One2OneChannelInt chan4 = factory.createOne2One(new BufferInt(4), "TestExtendedRendezvous.one2oneFIFOInt");
+    helper_testFIFOChannelOneWriterInt(chan4.in(), chan4.out());
+
+    Any2AnyChannelInt chan1 = factory.createAny2Any(new BufferInt(1), "TestExtendedRendezvous.any2anyFIFOInt");
+    helper_testFIFOChannelOneWriterInt(chan1.in(), chan1.out());
+  }
+
+  public void testNormalBroadcastChannel() {
+    BroadcastChannel chan = Channel.broadcast();
+    helper_testChannelOneWriter(chan.subscribe(), chan.out());
+  }
+
+  public void testFIFO_BroadcastChannel() {
+    BroadcastChannel chan4 = Channel.broadcast(4);
+    helper_testFIFOChannelOneWriter(chan4.subscribe(), chan4.out());
+
+    BroadcastChannel chan1 = Channel.broadcast(1);
+    helper_testFIFOChannelOneWriter(chan1.subscribe(), chan1.out());
+  }
+
+  //Every subscriber should get every message, in order, however far behind it is
+  public void helper_testBroadcastChannelSubscribers(BroadcastChannel chan) {
+    AltingBarrier[] delayEvent = AltingBarrier.create(2);
+
+    Object[] values = new Object[100];
+
+    for (int i = 0;i < 100;i++) {
+      values[i] = new Object();
+    }
+
+    ExtendedReaderSync slow, fast1, fast2;
+
+    new Parallel( new CSProcess[] {
+        new DelaySyncer(delayEvent[0],5,100),
+        new WriterProcess(chan.out(),Arrays.asList(values),(AltingBarrier)null),
+        slow = new ExtendedReaderSync(delayEvent[1],chan.subscribe(),100),
+        fast1 = new ExtendedReaderSync((AltingBarrier)null,chan.subscribe(),100),
+        fast2 = new ExtendedReaderSync((AltingBarrier)null,chan.subscribe(),100)
+    }).run();
+
+    assertArraysEqual(values,slow.getValuesRead());
+    assertArraysEqual(values,fast1.getValuesRead());
+    assertArraysEqual(values,fast2.getValuesRead());
+  }
+
+  public void testBroadcastChannelSubscribers() {
+    helper_testBroadcastChannelSubscribers(Channel.broadcast());
+    helper_testBroadcastChannelSubscribers(Channel.broadcast(4));
+  }
+
+  public void testReaderPoisonBroadcastChannel() {
+    /*
+     * Poison from one reader must reach a reader waiting on another subscription
+     */
+    final BroadcastChannel chan = Channel.broadcast(0,0);
+    final AltingChannelInput poisoner = chan.subscribe();
+    final AltingChannelInput waiter = chan.subscribe();
+    final Throwable[] thrown = new Throwable[1];
+    Thread reader = new Thread() {
+      public void run() {
+        try {
+          waiter.read();
+        } catch (Throwable t) {
+          thrown[0] = t;
+        }
+      }
+    };
+    reader.start();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (reader.getState() != Thread.State.WAITING) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+    poisoner.poison(1);
+    try {
+      reader.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(reader.isAlive());
+    assertTrue(String.valueOf(thrown[0]),thrown[0] instanceof PoisonException);
+  }
+
+  public void testPoisonedBroadcastChannelTail() {
+    /*
+     * Readers of a buffered broadcast channel poisoned just after some writes take
+     * those messages before seeing the poison, whether they read or ALT
+     */
+    BroadcastChannel chan = Channel.broadcast(4,0);
+    AltingChannelInput reader = chan.subscribe();
+    AltingChannelInput alter = chan.subscribe();
+    ChannelOutput out = chan.out();
+    out.write("x");
+    out.write("y");
+    out.write("z");
+    out.poison(1);
+    try {
+      out.write("w");
+      fail();
+    } catch (PoisonException e) {
+    }
+    assertEquals("x",reader.read());
+    assertEquals("y",reader.read());
+    assertEquals("z",reader.read());
+    try {
+      reader.read();
+      fail();
+    } catch (PoisonException e) {
+    }
+    Alternative alt = new Alternative(new Guard[] {alter});
+    String[] expected = {"x","y","z"};
+    for (int i = 0;i < expected.length;i++) {
+      assertTrue(alter.pending());
+      assertEquals(0,alt.select());
+      assertEquals(expected[i],alter.read());
+    }
+    assertEquals(0,alt.select());
+    try {
+      alter.read();
+      fail();
+    } catch (PoisonException e) {
+    }
+  }
+
+  public void testBroadcastChannelReleasesMessages() throws InterruptedException {
+    /*
+     * A message is held only until every reader has taken it
+     */
+    BroadcastChannel chan = Channel.broadcast(4);
+    AltingChannelInput fast = chan.subscribe();
+    AltingChannelInput slow = chan.subscribe();
+    Object message = new Object();
+    WeakReference ref = new WeakReference(message);
+    chan.out().write(message);
+    message = null;
+    assertSame(ref.get(),fast.read());
+    assertNotNull(ref.get());
+    assertSame(ref.get(),slow.read());
+    for (int i = 0;(i < 50) && (ref.get() != null);i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(ref.get());
+  }
+
   public void testOverflowingFIFOOne2OneChannel() {
     /*
      * This test checks that the buffer does overflow if  the reader is in the middle
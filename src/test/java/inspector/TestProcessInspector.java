@@ -0,0 +1,224 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package inspector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+
+import jcsp.lang.*;
+import junit.framework.TestCase;
+
+public class TestProcessInspector extends TestCase {
+
+  /**
+   * A process that runs <TT>body</TT>, named <TT>name</TT> (which names its thread).
+   */
+  private static CSProcess named(final String name, final Runnable body) {
+    return new CSProcess() {
+      public void run() {
+        body.run();
+      }
+
+      public String toString() {
+        return name;
+      }
+    };
+  }
+
+  /**
+   * Starts <TT>p</TT> in a PAR of its own (which runs it in a thread named after it).
+   */
+  private static ProcessManager start(CSProcess p) {
+    ProcessManager manager = new ProcessManager(new Parallel(new CSProcess[] {p,new Skip()}));
+    manager.start();
+    return manager;
+  }
+
+  private static ProcessInfo find(String name) {
+    ProcessInfo[] all = ProcessInspector.snapshot();
+    for (int i = 0;i < all.length;i++) {
+      if (all[i].getName().equals(name)) {
+        return all[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Waits (for up to ten seconds) until the named process is in the given state.
+   */
+  private ProcessInfo await(String name, String state) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (true) {
+      ProcessInfo p = find(name);
+      if ((p != null) && (p.getState() == state)) {
+        return p;
+      }
+      assertTrue("" + p,System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  public void testReadAndWrite() {
+    /*
+     * Processes blocked on a channel are reported reading or writing it, with the
+     * channel they are blocked on; the PAR running them waits for them
+     */
+    final One2OneChannel a = Channel.one2one();
+    final One2OneChannel b = Channel.one2one();
+    ProcessManager manager = new ProcessManager(new Parallel(new CSProcess[] {
+      named("inspector-reader",new Runnable() {
+        public void run() {
+          a.in().read();
+        }
+      }),
+      named("inspector-writer",new Runnable() {
+        public void run() {
+          b.out().write("x");
+        }
+      }),
+      new Skip()
+    }));
+    manager.start();
+    ProcessInfo reader = await("inspector-reader",ProcessInfo.READ);
+    assertNotNull(reader.getBlockedOn());
+    assertTrue(reader.getOperation(),reader.getOperation().endsWith(".read"));
+    ProcessInfo writer = await("inspector-writer",ProcessInfo.WRITE);
+    assertNotNull(writer.getBlockedOn());
+    a.out().write("y");
+    assertEquals("x",b.in().read());
+    manager.join();
+    assertNull(find("inspector-reader"));
+  }
+
+  public void testAltAndBarrier() {
+    /*
+     * Processes blocked in an ALT or on a barrier are reported so
+     */
+    final One2OneChannel a = Channel.one2one();
+    final Barrier bar = new Barrier(2);
+    ProcessManager manager = new ProcessManager(new Parallel(new CSProcess[] {
+      named("inspector-alt",new Runnable() {
+        public void run() {
+          new Alternative(new Guard[] {a.in()}).select();
+          a.in().read();
+        }
+      }),
+      named("inspector-barrier",new Runnable() {
+        public void run() {
+          bar.sync();
+        }
+      }),
+      new Skip()
+    }));
+    manager.start();
+    await("inspector-alt",ProcessInfo.ALT);
+    await("inspector-barrier",ProcessInfo.BARRIER);
+    a.out().write("y");
+    bar.sync();
+    manager.join();
+  }
+
+  public void testBlockedTimeNeedsContentionMonitoring() {
+    /*
+     * Blocked times are only measured once contention monitoring is switched on,
+     * which the inspector does not do by itself
+     */
+    final One2OneChannel a = Channel.one2one();
+    ProcessManager manager = start(named("inspector-blocked",new Runnable() {
+      public void run() {
+        a.in().read();
+      }
+    }));
+    boolean before = ManagementFactory.getThreadMXBean().isThreadContentionMonitoringEnabled();
+    ProcessInfo p = await("inspector-blocked",ProcessInfo.READ);
+    if (!before) {
+      assertEquals(-1,p.getBlockedTime());
+      assertFalse(ManagementFactory.getThreadMXBean().isThreadContentionMonitoringEnabled());
+    }
+    if (ProcessInspector.enableContentionMonitoring()) {
+      assertTrue(ManagementFactory.getThreadMXBean().isThreadContentionMonitoringEnabled());
+      assertTrue(find("inspector-blocked").getBlockedTime() >= 0);
+    }
+    a.out().write("y");
+    manager.join();
+  }
+
+  public void testDump() {
+    /*
+     * The dump counts the processes in each state and lists them
+     */
+    final One2OneChannel a = Channel.one2one();
+    ProcessManager manager = start(named("inspector-dumped",new Runnable() {
+      public void run() {
+        a.in().read();
+      }
+    }));
+    await("inspector-dumped",ProcessInfo.READ);
+    String dump = ProcessInspector.dump();
+    assertTrue(dump,dump.startsWith("jcsp: "));
+    assertTrue(dump,dump.indexOf(" read") > 0);
+    assertTrue(dump,dump.indexOf("inspector-dumped") > 0);
+    a.out().write("y");
+    manager.join();
+  }
+
+  public void testSampler() throws InterruptedException {
+    /*
+     * The sampler prints the busiest processes every period until stopped
+     */
+    final One2OneChannel a = Channel.one2one();
+    ProcessManager manager = start(named("inspector-sampled",new Runnable() {
+      public void run() {
+        a.in().read();
+      }
+    }));
+    await("inspector-sampled",ProcessInfo.READ);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream(bytes);
+    ProcessInspector.startSampler(50,100,out);
+    long deadline = System.currentTimeMillis() + 10000;
+    while (bytes.toString().indexOf("inspector-sampled") < 0) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.sleep(10);
+    }
+    ProcessInspector.stopSampler();
+    Thread.sleep(200);
+    int size = bytes.size();
+    Thread.sleep(200);
+    assertEquals(size,bytes.size());
+    assertTrue(bytes.toString().indexOf("CPU%") > 0);
+    a.out().write("y");
+    manager.join();
+  }
+
+  public void testSamplerPeriod() {
+    try {
+      ProcessInspector.startSampler(0,10,System.out);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("***"));
+    }
+  }
+
+}
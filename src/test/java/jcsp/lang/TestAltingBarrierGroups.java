@@ -0,0 +1,197 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package jcsp.lang;
+
+import junit.framework.TestCase;
+
+/**
+ * White-box tests of the partitioning of {@link AltingBarrier}s into groups by
+ * {@link AltingBarrierCoordinate} (which is package-private, so these live in its
+ * package).  A test holds a group's coordinate as though an ALT were in the middle
+ * of an enable sequence, and checks who has to wait for it.
+ */
+public class TestAltingBarrierGroups extends TestCase {
+
+  /**
+   * Starts a thread that selects <TT>cycles</TT> times over <TT>guards</TT>
+   * (recording anything it throws in <TT>failure</TT>).
+   */
+  private Thread alter(final Guard[] guards, final int cycles, final Throwable[] failure) {
+    Thread t = new Thread() {
+      public void run() {
+        try {
+          Alternative alt = new Alternative(guards);
+          for (int i = 0;i < cycles;i++) {
+            alt.select();
+          }
+        } catch (Throwable e) {
+          failure[0] = e;
+        }
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+    return t;
+  }
+
+  private void join(Thread t) {
+    try {
+      t.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(t.isAlive());
+  }
+
+  /**
+   * Waits (for up to ten seconds) until <TT>t</TT> is waiting.
+   */
+  private void awaitBlocked(Thread t) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (t.getState() != Thread.State.WAITING) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  public void testDisjointGroupsProgressIndependently() {
+    /*
+     * While one group is in an enable sequence, ALTs on a disjoint group complete;
+     * an ALT on the held group waits for it
+     */
+    AltingBarrier[] a = AltingBarrier.create(2);
+    AltingBarrier[] b = AltingBarrier.create(2);
+    AltingBarrierCoordinate groupA = AltingBarrierCoordinate.of(a[0]);
+    assertNotSame(groupA.find(),AltingBarrierCoordinate.of(b[0]).find());
+    AltingBarrierCoordinate held = AltingBarrierCoordinate.startEnable(groupA);
+    Throwable[] failure = new Throwable[1];
+    Thread a0 = alter(new Guard[] {a[0]},1,failure);
+    Thread b0 = alter(new Guard[] {b[0]},100,failure);
+    Thread b1 = alter(new Guard[] {b[1]},100,failure);
+    join(b0);
+    join(b1);
+    awaitBlocked(a0);
+    held.finishEnable();
+    Thread a1 = alter(new Guard[] {a[1]},1,failure);
+    join(a0);
+    join(a1);
+    assertNull(String.valueOf(failure[0]),failure[0]);
+  }
+
+  public void testAltSpanningGroupsMergesThem() {
+    /*
+     * An ALT offering barriers of two groups merges them: holding one then holds up
+     * the other, and the three parties keep in step
+     */
+    AltingBarrier[] a = AltingBarrier.create(2);
+    AltingBarrier[] b = AltingBarrier.create(2);
+    AltingBarrier[] c = AltingBarrier.create(2);
+    new Alternative(new Guard[] {a[0],b[0]});
+    AltingBarrierCoordinate groupA = AltingBarrierCoordinate.of(a[0]);
+    AltingBarrierCoordinate groupB = AltingBarrierCoordinate.of(b[0]);
+    assertSame(groupA.find(),groupB.find());
+    assertNotSame(groupA.find(),AltingBarrierCoordinate.of(c[0]).find());
+    AltingBarrierCoordinate held = AltingBarrierCoordinate.startEnable(groupA);
+    Throwable[] failure = new Throwable[1];
+    Thread b1 = alter(new Guard[] {b[1]},1,failure);
+    Thread c0 = alter(new Guard[] {c[0]},100,failure);
+    Thread c1 = alter(new Guard[] {c[1]},100,failure);
+    join(c0);
+    join(c1);
+    awaitBlocked(b1);
+    held.finishEnable();
+    Thread ab = alter(new Guard[] {a[1],b[0]},1,failure);
+    join(b1);
+    join(ab);
+    assertNull(String.valueOf(failure[0]),failure[0]);
+  }
+
+  public void testMergedGroupsInStep() {
+    /*
+     * A process offering barriers of two groups, and one process on each barrier:
+     * every cycle completes one barrier or the other, and none is lost
+     */
+    final AltingBarrier[] a = AltingBarrier.create(2);
+    final AltingBarrier[] b = AltingBarrier.create(2);
+    final int cycles = 200;
+    final int[] chosen = new int[2];
+    final Throwable[] failure = new Throwable[1];
+    Thread both = new Thread() {
+      public void run() {
+        try {
+          Alternative alt = new Alternative(new Guard[] {a[0],b[0]});
+          for (int i = 0;i < 2 * cycles;i++) {
+            chosen[alt.select()]++;
+          }
+        } catch (Throwable e) {
+          failure[0] = e;
+        }
+      }
+    };
+    both.start();
+    Thread onA = alter(new Guard[] {a[1]},cycles,failure);
+    Thread onB = alter(new Guard[] {b[1]},cycles,failure);
+    join(both);
+    join(onA);
+    join(onB);
+    assertNull(String.valueOf(failure[0]),failure[0]);
+    assertEquals(cycles,chosen[0]);
+    assertEquals(cycles,chosen[1]);
+  }
+
+  public void testMergeWaitsForSequence() {
+    /*
+     * Constructing an Alternative that merges groups waits until neither is in an
+     * enable sequence, and may be interrupted while it does
+     */
+    final AltingBarrier[] a = AltingBarrier.create(2);
+    final AltingBarrier[] b = AltingBarrier.create(2);
+    AltingBarrierCoordinate held = AltingBarrierCoordinate.startEnable(AltingBarrierCoordinate.of(b[0]));
+    final Throwable[] thrown = new Throwable[1];
+    Thread merger = new Thread() {
+      public void run() {
+        try {
+          new Alternative(new Guard[] {a[0],b[0]});
+        } catch (Throwable e) {
+          thrown[0] = e;
+        }
+      }
+    };
+    merger.start();
+    awaitBlocked(merger);
+    assertNotSame(AltingBarrierCoordinate.of(a[0]).find(),AltingBarrierCoordinate.of(b[0]).find());
+    merger.interrupt();
+    join(merger);
+    assertTrue(String.valueOf(thrown[0]),thrown[0] instanceof ProcessInterruptedException);
+    merger = new Thread() {
+      public void run() {
+        new Alternative(new Guard[] {a[0],b[0]});
+      }
+    };
+    merger.start();
+    awaitBlocked(merger);
+    held.finishEnable();
+    join(merger);
+    assertSame(AltingBarrierCoordinate.of(a[0]).find(),AltingBarrierCoordinate.of(b[0]).find());
+  }
+
+}
@@ -0,0 +1,188 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package jcsp.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * White-box tests of the {@link TimingWheel} (which is package-private, so these
+ * live in its package).  Each alarm schedules a {@link Recorder}, which notes the
+ * order and time at which it fired.
+ */
+public class TestTimingWheel extends TestCase {
+
+  private final List fired = new ArrayList();
+
+  private final List firedAt = new ArrayList();
+
+  private class Recorder extends Alternative {
+    private final int id;
+
+    Recorder(int id) {
+      super(new Guard[0]);
+      this.id = id;
+    }
+
+    void schedule() {
+      synchronized (fired) {
+        fired.add(Integer.valueOf(id));
+        firedAt.add(Long.valueOf(System.currentTimeMillis()));
+        fired.notifyAll();
+      }
+    }
+  }
+
+  private TimingWheel.Entry entry(int id) {
+    TimingWheel.Entry entry = new TimingWheel.Entry();
+    entry.alt = new Recorder(id);
+    return entry;
+  }
+
+  /**
+   * Waits (for up to <TT>msecs</TT> milliseconds) until <TT>n</TT> alarms have fired.
+   */
+  private void awaitFired(int n, long msecs) {
+    long deadline = System.currentTimeMillis() + msecs;
+    synchronized (fired) {
+      while (fired.size() < n) {
+        long wait = deadline - System.currentTimeMillis();
+        assertTrue("only " + fired.size() + " of " + n + " fired",wait > 0);
+        try {
+          fired.wait(wait);
+        } catch (InterruptedException e) {
+          fail(e.toString());
+        }
+      }
+    }
+  }
+
+  private int firedCount() {
+    synchronized (fired) {
+      return fired.size();
+    }
+  }
+
+  public void testCascadeAcrossLevels() {
+    /*
+     * Alarms placed in levels 0, 1 and 2 (added out of order) fire in order of deadline,
+     * none before its deadline
+     */
+    long[] delays = {4200, 3, 700, 70, 130, 4100};
+    int[] order = {1, 3, 4, 2, 5, 0};
+    TimingWheel wheel = TimingWheel.getInstance();
+    long start = System.currentTimeMillis();
+    long[] deadline = new long[delays.length];
+    for (int i = 0;i < delays.length;i++) {
+      deadline[i] = start + delays[i];
+      wheel.add(entry(i),deadline[i]);
+    }
+    awaitFired(delays.length,10000);
+    for (int k = 0;k < order.length;k++) {
+      int i = order[k];
+      assertEquals(i,((Integer) fired.get(k)).intValue());
+      long at = ((Long) firedAt.get(k)).longValue();
+      assertTrue("fired " + (deadline[i] - at) + " ms early",at >= deadline[i]);
+      assertTrue("fired " + (at - deadline[i]) + " ms late",at - deadline[i] < 500);
+    }
+  }
+
+  public void testCancelBeforeFire() {
+    /*
+     * A cancelled alarm does not fire, and its entry may be added again
+     */
+    TimingWheel wheel = TimingWheel.getInstance();
+    TimingWheel.Entry entry = entry(0);
+    wheel.add(entry,System.currentTimeMillis() + 50);
+    wheel.cancel(entry);
+    TimingWheel.Entry other = entry(1);
+    wheel.add(other,System.currentTimeMillis() + 100);
+    awaitFired(1,5000);
+    assertEquals(1,((Integer) fired.get(0)).intValue());
+    assertFalse(entry.fired);
+    wheel.add(entry,System.currentTimeMillis() + 20);
+    awaitFired(2,5000);
+    assertEquals(0,((Integer) fired.get(1)).intValue());
+    assertTrue(entry.fired);
+  }
+
+  public void testCancelRacingFire() {
+    /*
+     * An alarm cancelled around its deadline may or may not have fired, but never
+     * fires after cancel has returned
+     */
+    TimingWheel wheel = TimingWheel.getInstance();
+    TimingWheel.Entry entry = entry(0);
+    for (int k = 0;k < 200;k++) {
+      wheel.add(entry,System.currentTimeMillis() + 1);
+      long spin = System.nanoTime() + (k % 20) * 100000L;
+      while (System.nanoTime() - spin < 0) {
+        Thread.yield();
+      }
+      wheel.cancel(entry);
+      int n = firedCount();
+      assertEquals(n,entry.fired ? 1 : 0);
+      try {
+        Thread.sleep(3);
+      } catch (InterruptedException e) {
+        fail(e.toString());
+      }
+      assertEquals(n,firedCount());
+      synchronized (fired) {
+        fired.clear();
+        firedAt.clear();
+      }
+    }
+  }
+
+  public void testEqualDeadlinesInOrderAdded() {
+    /*
+     * Alarms with the same deadline fire on the same tick, in the order they were added
+     */
+    TimingWheel wheel = TimingWheel.getInstance();
+    long deadline = System.currentTimeMillis() + 40;
+    for (int i = 0;i < 20;i++) {
+      wheel.add(entry(i),deadline);
+      if (i == 9) {
+        try {
+          Thread.sleep(5);                // (so that these go in another batch)
+        } catch (InterruptedException e) {
+          fail(e.toString());
+        }
+      }
+    }
+    TimingWheel.Entry later = entry(20);
+    wheel.add(later,deadline + 1);
+    TimingWheel.Entry earlier = entry(21);
+    wheel.add(earlier,deadline - 1);
+    awaitFired(22,5000);
+    assertEquals(21,((Integer) fired.get(0)).intValue());
+    for (int i = 0;i < 20;i++) {
+      assertEquals(i,((Integer) fired.get(i + 1)).intValue());
+      assertTrue(((Long) firedAt.get(i + 1)).longValue() >= deadline);
+    }
+    assertEquals(20,((Integer) fired.get(21)).intValue());
+  }
+
+}
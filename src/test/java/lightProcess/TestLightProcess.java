@@ -0,0 +1,297 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package lightProcess;
+
+import jcsp.lang.*;
+import junit.framework.TestCase;
+
+public class TestLightProcess extends TestCase {
+
+  private LightRuntime runtime;
+
+  protected void setUp() {
+    runtime = new LightRuntime(2);
+  }
+
+  protected void tearDown() {
+    runtime.shutdown();
+  }
+
+  /**
+   * Doubles each Integer from <TT>in</TT> to <TT>out</TT>, <TT>n</TT> times.
+   */
+  private static class Doubler extends LightProcess {
+    private final AltingChannelInput in;
+    private final ChannelOutput out;
+    private int n;
+
+    Doubler(AltingChannelInput in, ChannelOutput out, int n) {
+      this.in = in;
+      this.out = out;
+      this.n = n;
+    }
+
+    protected void step() {
+      while (n > 0 && await(in)) {
+        int x = ((Integer) in.read()).intValue();
+        n--;
+        if (!write(out, Integer.valueOf(2 * x))) {
+          return;
+        }
+      }
+      if (n == 0) {
+        terminate();
+      }
+    }
+  }
+
+  /**
+   * Copies objects from <TT>in</TT> to <TT>out</TT>; on poison, poisons <TT>out</TT> and terminates.
+   */
+  private static class Forwarder extends LightProcess {
+    private final AltingChannelInput in;
+    private final ChannelOutput out;
+
+    Forwarder(AltingChannelInput in, ChannelOutput out) {
+      this.in = in;
+      this.out = out;
+    }
+
+    protected void step() {
+      try {
+        while (await(in)) {
+          if (!write(out, in.read())) {
+            return;
+          }
+        }
+      } catch (PoisonException e) {
+        out.poison(1);
+        terminate();
+      }
+    }
+  }
+
+  private Thread writer(final ChannelOutput out, final int n, final boolean poison) {
+    Thread t = new Thread() {
+      public void run() {
+        for (int i = 0;i < n;i++) {
+          out.write(Integer.valueOf(i));
+        }
+        if (poison) {
+          out.poison(1);
+        }
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+    return t;
+  }
+
+  private void join(final LightProcess p) {
+    Thread t = new Thread() {
+      public void run() {
+        p.join();
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+    try {
+      t.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(t.isAlive());
+    assertTrue(p.isTerminated());
+  }
+
+  public void testRun() {
+    /*
+     * Ordinary processes talk to a light process through lock-free channels
+     */
+    One2OneChannel in = Channel.one2oneLockFree();
+    One2OneChannel out = Channel.one2oneLockFree();
+    Doubler doubler = new Doubler(in.in(),out.out(),100);
+    runtime.start(doubler);
+    writer(in.out(),100,false);
+    for (int i = 0;i < 100;i++) {
+      assertEquals(2 * i,((Integer) out.in().read()).intValue());
+    }
+    join(doubler);
+    assertEquals(0,runtime.getLiveCount());
+  }
+
+  public void testRunInParallel() {
+    /*
+     * A light process placed in a Parallel runs on the default runtime
+     * and the Parallel finishes when it terminates
+     */
+    final One2OneChannel in = Channel.one2one();
+    final One2OneChannel out = Channel.one2one();
+    final Doubler doubler = new Doubler(in.in(),out.out(),10);
+    final int[] sum = new int[1];
+    new Parallel(new CSProcess[] {
+      doubler,
+      new CSProcess() {
+        public void run() {
+          for (int i = 0;i < 10;i++) {
+            in.out().write(Integer.valueOf(i));
+            sum[0] += ((Integer) out.in().read()).intValue();
+          }
+        }
+      }
+    }).run();
+    assertEquals(90,sum[0]);
+    assertTrue(doubler.isTerminated());
+  }
+
+  public void testJoinWaits() {
+    /*
+     * join blocks until the process terminates
+     */
+    One2OneChannel in = Channel.one2oneLockFree();
+    One2OneChannel out = Channel.one2oneLockFree();
+    final Doubler doubler = new Doubler(in.in(),out.out(),1);
+    runtime.start(doubler);
+    Thread joiner = new Thread() {
+      public void run() {
+        doubler.join();
+      }
+    };
+    joiner.setDaemon(true);
+    joiner.start();
+    long deadline = System.currentTimeMillis() + 10000;
+    while (joiner.getState() != Thread.State.WAITING) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+    assertFalse(doubler.isTerminated());
+    writer(in.out(),1,false);
+    assertEquals(0,((Integer) out.in().read()).intValue());
+    join(doubler);
+  }
+
+  public void testJoinIgnoresUserLock() {
+    /*
+     * A process terminates, and can be joined, while user code holds its monitor
+     */
+    One2OneChannel in = Channel.one2oneLockFree();
+    One2OneChannel out = Channel.one2oneLockFree();
+    Doubler doubler = new Doubler(in.in(),out.out(),1);
+    synchronized (doubler) {
+      runtime.start(doubler);
+      writer(in.out(),1,false);
+      assertEquals(0,((Integer) out.in().read()).intValue());
+      join(doubler);
+    }
+  }
+
+  public void testRestartAfterTermination() {
+    /*
+     * A terminated process may be started again
+     */
+    One2OneChannel in = Channel.one2oneLockFree();
+    One2OneChannel out = Channel.one2oneLockFree();
+    Doubler doubler = new Doubler(in.in(),out.out(),1);
+    runtime.start(doubler);
+    writer(in.out(),1,false);
+    out.in().read();
+    join(doubler);
+    doubler.n = 1;
+    runtime.start(doubler);
+    writer(in.out(),1,false);
+    out.in().read();
+    join(doubler);
+    try {
+      doubler.n = 1;
+      runtime.start(doubler);
+      runtime.start(doubler);
+      fail("started twice");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  public void testPoisonPropagates() {
+    /*
+     * Poison reaches a light process through an awaited input, and the light
+     * process passes it on to an ordinary reader
+     */
+    One2OneChannel in = Channel.one2one(0);
+    One2OneChannel out = Channel.one2one(0);
+    Forwarder forwarder = new Forwarder(in.in(),out.out());
+    runtime.start(forwarder);
+    writer(in.out(),5,true);
+    for (int i = 0;i < 5;i++) {
+      assertEquals(i,((Integer) out.in().read()).intValue());
+    }
+    try {
+      out.in().read();
+      fail("no poison");
+    } catch (PoisonException e) {
+      // expected
+    }
+    join(forwarder);
+  }
+
+  public void testStepExceptionTerminates() {
+    /*
+     * An exception thrown by step is reported and terminates the process
+     */
+    LightProcess thrower = new LightProcess() {
+      protected void step() {
+        throw new IllegalStateException("expected by the test");
+      }
+    };
+    Parallel.setUncaughtExceptionDisplay(false);
+    try {
+      runtime.start(thrower);
+      join(thrower);
+    } finally {
+      Parallel.setUncaughtExceptionDisplay(true);
+    }
+    assertEquals(0,runtime.getLiveCount());
+  }
+
+  public void testBlockExceptionTerminates() {
+    /*
+     * An exception thrown by a blocking operation is reported and terminates the process
+     */
+    LightProcess blocker = new LightProcess() {
+      protected void step() {
+        block(new Runnable() {
+          public void run() {
+            throw new IllegalStateException("expected by the test");
+          }
+        });
+      }
+    };
+    Parallel.setUncaughtExceptionDisplay(false);
+    try {
+      runtime.start(blocker);
+      join(blocker);
+    } finally {
+      Parallel.setUncaughtExceptionDisplay(true);
+    }
+    assertEquals(0,runtime.getLiveCount());
+  }
+
+}
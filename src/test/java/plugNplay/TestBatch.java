@@ -0,0 +1,233 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package plugNplay;
+
+import java.util.Arrays;
+
+import jcsp.lang.*;
+import jcsp.plugNplay.Batch;
+import jcsp.plugNplay.Unbatch;
+import jcsp.plugNplay.ints.BatchInt;
+import jcsp.plugNplay.ints.UnbatchInt;
+import jcsp.util.Buffer;
+import junit.framework.TestCase;
+
+public class TestBatch extends TestCase {
+
+  /**
+   * Runs <TT>p</TT> in a thread of its own, recording anything it throws in
+   * <TT>thrown[0]</TT> (if <TT>thrown</TT> is not null).
+   */
+  private static Thread start(final CSProcess p, final Throwable[] thrown) {
+    Thread t = new Thread() {
+      public void run() {
+        try {
+          p.run();
+        } catch (RuntimeException e) {
+          if (thrown == null) {
+            throw e;
+          }
+          thrown[0] = e;
+        }
+      }
+    };
+    t.start();
+    return t;
+  }
+
+  private void join(Thread t) {
+    try {
+      t.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(t.isAlive());
+  }
+
+  /**
+   * Returns the next message on <TT>c</TT>, or null if there is none within
+   * <TT>ms</TT> milliseconds.
+   */
+  private static Object poll(AltingChannelInput c, long ms) {
+    CSTimer tim = new CSTimer();
+    tim.setAlarm(tim.read() + ms);
+    return (new Alternative(new Guard[] {c,tim}).priSelect() == 0) ? c.read() : null;
+  }
+
+  private static void assertBatch(Object[] expected, Object batch) {
+    assertNotNull(batch);
+    assertEquals(Arrays.asList(expected),Arrays.asList((Object[]) batch));
+  }
+
+  private static void assertPoisoned(ChannelInput c) {
+    try {
+      c.read();
+      fail();
+    } catch (PoisonException e) {
+    }
+  }
+
+  private static void assertPoisoned(ChannelInputInt c) {
+    try {
+      c.read();
+      fail();
+    } catch (PoisonException e) {
+    }
+  }
+
+  public void testFullBatches() {
+    /*
+     * Without a timeout, objects go out in batches of size, and a partial batch
+     * waits for more
+     */
+    One2OneChannel in = Channel.one2one(new Buffer(10),0);
+    One2OneChannel out = Channel.one2one(0);
+    Thread t = start(new Batch(in.in(),out.out(),3),null);
+    for (int i = 0;i < 7;i++) {
+      in.out().write("x" + i);
+    }
+    assertBatch(new Object[] {"x0","x1","x2"},poll(out.in(),10000));
+    assertBatch(new Object[] {"x3","x4","x5"},poll(out.in(),10000));
+    assertNull(poll(out.in(),100));
+    in.out().write("x7");
+    in.out().write("x8");
+    assertBatch(new Object[] {"x6","x7","x8"},poll(out.in(),10000));
+    in.out().poison(1);
+    assertPoisoned(out.in());
+    join(t);
+  }
+
+  public void testPartialBatchOnTimeout() {
+    /*
+     * A batch not filled within the timeout of its first object goes out as it is
+     */
+    One2OneChannel in = Channel.one2one(0);
+    One2OneChannel out = Channel.one2one(0);
+    Thread t = start(new Batch(in.in(),out.out(),10,200000),null);
+    in.out().write("a");
+    in.out().write("b");
+    assertBatch(new Object[] {"a","b"},poll(out.in(),10000));
+    in.out().write("c");
+    assertBatch(new Object[] {"c"},poll(out.in(),10000));
+    in.out().poison(1);
+    assertPoisoned(out.in());
+    join(t);
+  }
+
+  public void testPartialBatchOnPoison() {
+    /*
+     * Poisoned input: what is held goes out as a last batch, then the output is poisoned
+     */
+    One2OneChannel in = Channel.one2one(0);
+    One2OneChannel out = Channel.one2one(0);
+    Thread t = start(new Batch(in.in(),out.out(),10),null);
+    in.out().write("a");
+    in.out().write("b");
+    in.out().poison(1);
+    assertBatch(new Object[] {"a","b"},poll(out.in(),10000));
+    assertPoisoned(out.in());
+    join(t);
+  }
+
+  public void testUnbatch() {
+    /*
+     * Arrays and collections are output one object at a time, in order
+     */
+    One2OneChannel in = Channel.one2one(0);
+    One2OneChannel out = Channel.one2one(0);
+    Thread t = start(new Unbatch(in.in(),out.out()),null);
+    in.out().write(new Object[] {"a","b"});
+    assertEquals("a",out.in().read());
+    assertEquals("b",out.in().read());
+    in.out().write(Arrays.asList(new String[] {"c","d"}));
+    assertEquals("c",out.in().read());
+    assertEquals("d",out.in().read());
+    in.out().write(new String[0]);
+    in.out().write(new String[] {"e"});
+    assertEquals("e",out.in().read());
+    in.out().poison(1);
+    assertPoisoned(out.in());
+    join(t);
+  }
+
+  public void testUnbatchRejects() {
+    /*
+     * Anything but a batch poisons both channels, and is reported
+     */
+    Object[] bad = {null,"not a batch"};
+    for (int i = 0;i < bad.length;i++) {
+      One2OneChannel in = Channel.one2one(0);
+      One2OneChannel out = Channel.one2one(0);
+      Throwable[] thrown = new Throwable[1];
+      Thread t = start(new Unbatch(in.in(),out.out()),thrown);
+      in.out().write(bad[i]);
+      join(t);
+      assertTrue(String.valueOf(thrown[0]),thrown[0] instanceof IllegalArgumentException);
+      assertTrue(thrown[0].getMessage().startsWith("***"));
+      assertPoisoned(out.in());
+      try {
+        in.out().write(new Object[0]);
+        fail();
+      } catch (PoisonException e) {
+      }
+    }
+  }
+
+  public void testBatchInt() {
+    /*
+     * Integers go out in full batches, or partial ones on timeout or poison
+     */
+    One2OneChannelInt in = Channel.one2oneInt(0);
+    One2OneChannel out = Channel.one2one(0);
+    Thread t = start(new BatchInt(in.in(),out.out(),3,200000),null);
+    for (int i = 0;i < 3;i++) {
+      in.out().write(i);
+    }
+    int[] batch = (int[]) poll(out.in(),10000);
+    assertTrue(Arrays.equals(new int[] {0,1,2},batch));
+    in.out().write(3);
+    in.out().write(4);
+    batch = (int[]) poll(out.in(),10000);
+    assertTrue(Arrays.equals(new int[] {3,4},batch));
+    in.out().write(5);
+    in.out().poison(1);
+    batch = (int[]) poll(out.in(),10000);
+    assertTrue(Arrays.equals(new int[] {5},batch));
+    assertPoisoned(out.in());
+    join(t);
+  }
+
+  public void testUnbatchInt() {
+    One2OneChannel in = Channel.one2one(0);
+    One2OneChannelInt out = Channel.one2oneInt(0);
+    Throwable[] thrown = new Throwable[1];
+    Thread t = start(new UnbatchInt(in.in(),out.out()),thrown);
+    in.out().write(new int[] {1,2});
+    assertEquals(1,out.in().read());
+    assertEquals(2,out.in().read());
+    in.out().write(new Integer[] {Integer.valueOf(3)});
+    join(t);
+    assertTrue(String.valueOf(thrown[0]),thrown[0] instanceof IllegalArgumentException);
+    assertPoisoned(out.in());
+  }
+
+}
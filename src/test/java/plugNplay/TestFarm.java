@@ -0,0 +1,364 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package plugNplay;
+
+import jcsp.lang.*;
+import jcsp.plugNplay.Farm;
+import jcsp.plugNplay.OrderedFarm;
+import jcsp.plugNplay.ints.FarmInt;
+import jcsp.plugNplay.ints.OrderedFarmInt;
+import junit.framework.TestCase;
+
+/*
+ * The test plays the source, the workers and the sink of each farm itself,
+ * one step at a time.
+ */
+public class TestFarm extends TestCase {
+
+  private One2OneChannel in, out;
+
+  private One2OneChannel[] to, from;
+
+  private One2OneChannelInt inInt, outInt;
+
+  private One2OneChannelInt[] toInt, fromInt;
+
+  private Thread farm;
+
+  private void channels(int workers) {
+    in = Channel.one2one(0);
+    out = Channel.one2one(0);
+    to = Channel.one2oneArray(workers,0);
+    from = Channel.one2oneArray(workers,0);
+  }
+
+  private void channelsInt(int workers) {
+    inInt = Channel.one2oneInt(0);
+    outInt = Channel.one2oneInt(0);
+    toInt = Channel.one2oneIntArray(workers,0);
+    fromInt = Channel.one2oneIntArray(workers,0);
+  }
+
+  private void start(final CSProcess p) {
+    farm = new Thread() {
+      public void run() {
+        p.run();
+      }
+    };
+    farm.start();
+  }
+
+  private void join(Thread t) {
+    try {
+      t.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(t.isAlive());
+  }
+
+  /**
+   * Returns the next message on <TT>c</TT>, or null if there is none within
+   * <TT>ms</TT> milliseconds.
+   */
+  private static Object poll(AltingChannelInput c, long ms) {
+    CSTimer tim = new CSTimer();
+    tim.setAlarm(tim.read() + ms);
+    return (new Alternative(new Guard[] {c,tim}).priSelect() == 0) ? c.read() : null;
+  }
+
+  /**
+   * Returns the next message on <TT>c</TT>, failing if there is none within ten seconds.
+   */
+  private static Object next(AltingChannelInput c) {
+    Object o = poll(c,10000);
+    assertNotNull(o);
+    return o;
+  }
+
+  private static int next(AltingChannelInputInt c) {
+    CSTimer tim = new CSTimer();
+    tim.setAlarm(tim.read() + 10000);
+    assertEquals(0,new Alternative(new Guard[] {c,tim}).priSelect());
+    return c.read();
+  }
+
+  private static boolean silent(AltingChannelInputInt c) {
+    CSTimer tim = new CSTimer();
+    tim.setAlarm(tim.read() + 100);
+    return new Alternative(new Guard[] {c,tim}).priSelect() == 1;
+  }
+
+  /**
+   * Starts a process writing <TT>job</TT> to <TT>c</TT>, and waits until it is blocked
+   * (or done).
+   */
+  private Thread offer(final ChannelOutput c, final Object job) {
+    Thread t = new Thread() {
+      public void run() {
+        c.write(job);
+      }
+    };
+    t.start();
+    long deadline = System.currentTimeMillis() + 10000;
+    while ((t.getState() != Thread.State.WAITING) && t.isAlive()) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+    return t;
+  }
+
+  /**
+   * Poisons the jobs, and checks that the farm poisons everything and ends.
+   */
+  private void finish() {
+    in.out().poison(1);
+    try {
+      out.in().read();
+      fail();
+    } catch (PoisonException e) {
+    }
+    for (int i = 0;i < to.length;i++) {
+      try {
+        to[i].in().read();
+        fail();
+      } catch (PoisonException e) {
+      }
+    }
+    join(farm);
+  }
+
+  private void finishInt() {
+    inInt.out().poison(1);
+    try {
+      outInt.in().read();
+      fail();
+    } catch (PoisonException e) {
+    }
+    join(farm);
+  }
+
+  /*
+   * (The farm outputs each result before reading the next, and with maxInFlight 1
+   * gives each job to its worker before reading the next, so the test takes each
+   * result and job it expects before handing in another.)
+   */
+
+  public void testLeastLoaded() {
+    /*
+     * Each job goes to the worker with fewest outstanding, ties taken in rotation
+     */
+    channels(3);
+    start(new Farm(in.in(),Channel.getOutputArray(to),Channel.getInputArray(from),out.out(),2));
+    for (int i = 0;i < 4;i++) {
+      in.out().write("job" + i);
+    }
+    assertEquals("job0",next(to[0].in()));
+    assertEquals("job1",next(to[1].in()));
+    assertEquals("job2",next(to[2].in()));
+    assertEquals("job3",next(to[0].in()));
+    // loads 2, 1, 1: worker 2 finishes, so the next job goes there, not to worker 1
+    from[2].out().write("result2");
+    assertEquals("result2",next(out.in()));
+    in.out().write("job4");
+    assertEquals("job4",next(to[2].in()));
+    assertNull(poll(to[1].in(),100));
+    from[0].out().write("result0");
+    assertEquals("result0",next(out.in()));
+    from[0].out().write("result3");
+    assertEquals("result3",next(out.in()));
+    from[1].out().write("result1");
+    assertEquals("result1",next(out.in()));
+    from[2].out().write("result4");
+    assertEquals("result4",next(out.in()));
+    finish();
+  }
+
+  public void testMaxInFlight() {
+    /*
+     * The farm stops taking jobs while every worker has maxInFlight of them
+     */
+    channels(2);
+    start(new Farm(in.in(),Channel.getOutputArray(to),Channel.getInputArray(from),out.out(),2));
+    for (int i = 0;i < 4;i++) {
+      in.out().write("job" + i);
+    }
+    Thread source = offer(in.out(),"job4");
+    assertTrue(source.isAlive());
+    assertEquals("job0",next(to[0].in()));
+    assertTrue(source.isAlive());
+    from[0].out().write("result0");
+    assertEquals("result0",next(out.in()));
+    join(source);
+    assertEquals("job2",next(to[0].in()));
+    assertEquals("job4",next(to[0].in()));
+    for (int i = 1;i < 4;i += 2) {
+      assertEquals("job" + i,next(to[1].in()));
+      from[1].out().write("result" + i);
+      assertEquals("result" + i,next(out.in()));
+    }
+    from[0].out().write("result2");
+    assertEquals("result2",next(out.in()));
+    from[0].out().write("result4");
+    assertEquals("result4",next(out.in()));
+    finish();
+  }
+
+  public void testOneAtATime() {
+    /*
+     * By default, a job is only given to an idle worker
+     */
+    channels(2);
+    start(new Farm(in.in(),Channel.getOutputArray(to),Channel.getInputArray(from),out.out()));
+    in.out().write("job0");
+    assertEquals("job0",next(to[0].in()));
+    in.out().write("job1");
+    assertEquals("job1",next(to[1].in()));
+    Thread source = offer(in.out(),"job2");
+    assertTrue(source.isAlive());
+    from[1].out().write("result1");
+    assertEquals("result1",next(out.in()));
+    join(source);
+    assertEquals("job2",next(to[1].in()));
+    from[0].out().write("result0");
+    assertEquals("result0",next(out.in()));
+    from[1].out().write("result2");
+    assertEquals("result2",next(out.in()));
+    finish();
+  }
+
+  public void testOrderedReorders() {
+    /*
+     * Results finished out of order are held until those of the earlier jobs are
+     * output, and no more jobs are taken while the reorder window is full
+     */
+    channels(2);
+    start(new OrderedFarm(in.in(),Channel.getOutputArray(to),Channel.getInputArray(from),out.out(),2));
+    for (int i = 0;i < 4;i++) {
+      in.out().write("job" + i);
+    }
+    assertEquals("job1",next(to[1].in()));
+    assertEquals("job3",next(to[1].in()));
+    from[1].out().write("result1");
+    from[1].out().write("result3");
+    assertNull(poll(out.in(),100));
+    Thread source = offer(in.out(),"job4");
+    assertTrue(source.isAlive());
+    assertEquals("job0",next(to[0].in()));
+    from[0].out().write("result0");
+    assertEquals("result0",next(out.in()));
+    assertEquals("result1",next(out.in()));
+    join(source);
+    assertEquals("job2",next(to[0].in()));
+    assertEquals("job4",next(to[1].in()));
+    from[1].out().write("result4");
+    assertNull(poll(out.in(),100));
+    from[0].out().write("result2");
+    assertEquals("result2",next(out.in()));
+    assertEquals("result3",next(out.in()));
+    assertEquals("result4",next(out.in()));
+    finish();
+  }
+
+  public void testPoisonDrains() {
+    /*
+     * Poisoned jobs: the results of the jobs given out are still output, in order,
+     * before everything is poisoned
+     */
+    channels(2);
+    start(new OrderedFarm(in.in(),Channel.getOutputArray(to),Channel.getInputArray(from),out.out()));
+    in.out().write("job0");
+    assertEquals("job0",next(to[0].in()));
+    in.out().write("job1");
+    assertEquals("job1",next(to[1].in()));
+    in.out().poison(1);
+    from[1].out().write("result1");
+    from[0].out().write("result0");
+    assertEquals("result0",next(out.in()));
+    assertEquals("result1",next(out.in()));
+    finish();
+  }
+
+  public void testPoisonFromWorker() {
+    /*
+     * A poisoned worker channel poisons everything straight away
+     */
+    channels(2);
+    start(new Farm(in.in(),Channel.getOutputArray(to),Channel.getInputArray(from),out.out(),2));
+    in.out().write("job0");
+    from[0].out().poison(1);
+    join(farm);
+    try {
+      in.out().write("job1");
+      fail();
+    } catch (PoisonException e) {
+    }
+    try {
+      out.in().read();
+      fail();
+    } catch (PoisonException e) {
+    }
+  }
+
+  public void testFarmIntLeastLoaded() {
+    channelsInt(3);
+    start(new FarmInt(inInt.in(),Channel.getOutputArray(toInt),Channel.getInputArray(fromInt),outInt.out(),2));
+    for (int i = 0;i < 4;i++) {
+      inInt.out().write(i);
+    }
+    assertEquals(0,next(toInt[0].in()));
+    assertEquals(1,next(toInt[1].in()));
+    assertEquals(2,next(toInt[2].in()));
+    assertEquals(3,next(toInt[0].in()));
+    fromInt[2].out().write(20);
+    assertEquals(20,next(outInt.in()));
+    inInt.out().write(4);
+    assertEquals(4,next(toInt[2].in()));
+    assertTrue(silent(toInt[1].in()));
+    fromInt[0].out().write(0);
+    assertEquals(0,next(outInt.in()));
+    fromInt[0].out().write(30);
+    assertEquals(30,next(outInt.in()));
+    fromInt[1].out().write(10);
+    assertEquals(10,next(outInt.in()));
+    fromInt[2].out().write(40);
+    assertEquals(40,next(outInt.in()));
+    finishInt();
+  }
+
+  public void testOrderedFarmIntReordersAndDrains() {
+    channelsInt(2);
+    start(new OrderedFarmInt(inInt.in(),Channel.getOutputArray(toInt),Channel.getInputArray(fromInt),outInt.out()));
+    inInt.out().write(0);
+    assertEquals(0,next(toInt[0].in()));
+    inInt.out().write(1);
+    assertEquals(1,next(toInt[1].in()));
+    fromInt[1].out().write(10);
+    assertTrue(silent(outInt.in()));
+    inInt.out().poison(1);
+    fromInt[0].out().write(0);
+    assertEquals(0,next(outInt.in()));
+    assertEquals(10,next(outInt.in()));
+    finishInt();
+  }
+
+}
@@ -0,0 +1,219 @@
+//////////////////////////////////////////////////////////////////////
+//                                                                  //
+//  jcspDemos Demonstrations of the JCSP ("CSP for Java") Library   //
+//  Copyright (C) 1996-2018 Peter Welch, Paul Austin and Neil Brown //
+//                2001-2004 Quickstone Technologies Limited         //
+//                2005-2018 Kevin Chalmers                          //
+//                                                                  //
+//  You may use this work under the terms of either                 //
+//  1. The Apache License, Version 2.0                              //
+//  2. or (at your option), the GNU Lesser General Public License,  //
+//       version 2.1 or greater.                                    //
+//                                                                  //
+//  Full licence texts are included in the LICENCE file with        //
+//  this library.                                                   //
+//                                                                  //
+//  Author contacts: P.H.Welch@kent.ac.uk K.Chalmers@napier.ac.uk   //
+//                                                                  //
+//////////////////////////////////////////////////////////////////////
+
+
+
+package timers;
+
+import jcsp.lang.*;
+import junit.framework.TestCase;
+
+public class TestNanoTimer extends TestCase {
+
+  private static final long MICROS = 1000L;
+
+  private static final long MILLIS = 1000000L;
+
+  public void testAfterNanos() {
+    /*
+     * afterNanos returns no earlier than its deadline, with or without a spin tail,
+     * and at once for a deadline that has passed
+     */
+    CSTimer tim = new CSTimer();
+    for (int k = 0;k < 100;k++) {
+      long deadline = tim.readNanos() + 200 * MICROS;
+      tim.afterNanos(deadline);
+      assertTrue(tim.readNanos() - deadline >= 0);
+    }
+    tim.setSpinNanos(50 * MICROS);
+    for (int k = 0;k < 100;k++) {
+      long deadline = tim.readNanos() + 200 * MICROS;
+      tim.afterNanos(deadline);
+      assertTrue(tim.readNanos() - deadline >= 0);
+    }
+    long start = tim.readNanos();
+    tim.afterNanos(start - 1000 * MILLIS);
+    assertTrue(tim.readNanos() - start < 1000 * MILLIS);
+  }
+
+  public void testNegativeSpin() {
+    try {
+      new CSTimer().setSpinNanos(-1);
+      fail("negative spin accepted");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testAfterNanosInterrupted() {
+    /*
+     * An interrupt ends an afterNanos wait with a ProcessInterruptedException
+     */
+    final CSTimer tim = new CSTimer();
+    final Throwable[] thrown = new Throwable[1];
+    Thread sleeper = new Thread() {
+      public void run() {
+        try {
+          tim.afterNanos(tim.readNanos() + 60000 * MILLIS);
+        } catch (Throwable e) {
+          thrown[0] = e;
+        }
+      }
+    };
+    sleeper.start();
+    awaitParked(sleeper);
+    sleeper.interrupt();
+    join(sleeper);
+    assertTrue(String.valueOf(thrown[0]),thrown[0] instanceof ProcessInterruptedException);
+  }
+
+  public void testAltTimeout() {
+    /*
+     * An ALT with a sub-millisecond alarm and no ready channel selects the timer,
+     * no earlier than its alarm, with or without a spin tail
+     */
+    One2OneChannel c = Channel.one2one();
+    CSTimer tim = new CSTimer();
+    Alternative alt = new Alternative(new Guard[] {c.in(),tim});
+    for (int spin = 0;spin <= 1;spin++) {
+      tim.setSpinNanos(spin * 100 * MICROS);
+      for (int k = 0;k < 100;k++) {
+        long alarm = tim.readNanos() + 150 * MICROS;
+        tim.setAlarmNanos(alarm);
+        assertEquals(1,alt.priSelect());
+        assertTrue(tim.readNanos() - alarm >= 0);
+      }
+    }
+  }
+
+  public void testAltAlarmPassed() {
+    /*
+     * An alarm that has already passed makes the timer ready at once
+     */
+    CSTimer tim = new CSTimer();
+    Alternative alt = new Alternative(new Guard[] {Channel.one2one().in(),tim});
+    tim.setAlarmNanos(tim.readNanos() - MILLIS);
+    assertEquals(1,alt.select());
+  }
+
+  public void testAltChannelBeforeTimeout() {
+    /*
+     * A channel that becomes ready before the alarm wakes the parked ALT
+     */
+    final One2OneChannel c = Channel.one2one();
+    final CSTimer tim = new CSTimer();
+    final int[] selected = {-1};
+    Thread selector = new Thread() {
+      public void run() {
+        Alternative alt = new Alternative(new Guard[] {c.in(),tim});
+        tim.setAlarmNanos(tim.readNanos() + 60000 * MILLIS);
+        selected[0] = alt.priSelect();
+        if (selected[0] == 0) {
+          c.in().read();
+        }
+      }
+    };
+    selector.setDaemon(true);
+    selector.start();
+    awaitParked(selector);
+    c.out().write("x");
+    join(selector);
+    assertEquals(0,selected[0]);
+  }
+
+  public void testAltEarliestClockWins() {
+    /*
+     * With millisecond and nanosecond timers in the same ALT, the earlier alarm
+     * is selected, whichever clock it is on
+     */
+    CSTimer msecs = new CSTimer();
+    CSTimer nanos = new CSTimer();
+    Alternative alt = new Alternative(new Guard[] {msecs,nanos});
+    msecs.setAlarm(msecs.read() + 60000);
+    nanos.setAlarmNanos(nanos.readNanos() + 500 * MICROS);
+    assertEquals(1,alt.priSelect());
+    msecs.setAlarm(msecs.read() + 50);
+    nanos.setAlarmNanos(nanos.readNanos() + 60000 * MILLIS);
+    assertEquals(0,alt.priSelect());
+  }
+
+  public void testMillisecondAlarmReplacesNanosecondAlarm() {
+    /*
+     * setAlarm replaces an earlier setAlarmNanos (and vice-versa)
+     */
+    CSTimer tim = new CSTimer();
+    Alternative alt = new Alternative(new Guard[] {tim});
+    tim.setAlarmNanos(tim.readNanos() + 60000 * MILLIS);
+    tim.setAlarm(tim.read() + 50);
+    long start = System.nanoTime();
+    assertEquals(0,alt.select());
+    assertTrue(System.nanoTime() - start < 30000 * MILLIS);
+    tim.setAlarm(tim.read() + 60000);
+    tim.setAlarmNanos(tim.readNanos() + 200 * MICROS);
+    start = System.nanoTime();
+    assertEquals(0,alt.select());
+    assertTrue(System.nanoTime() - start < 30000 * MILLIS);
+  }
+
+  public void testAltInterrupted() {
+    /*
+     * An interrupt ends a nanosecond ALT wait with a ProcessInterruptedException
+     */
+    final One2OneChannel c = Channel.one2one();
+    final CSTimer tim = new CSTimer();
+    final Throwable[] thrown = new Throwable[1];
+    Thread selector = new Thread() {
+      public void run() {
+        try {
+          Alternative alt = new Alternative(new Guard[] {c.in(),tim});
+          tim.setAlarmNanos(tim.readNanos() + 60000 * MILLIS);
+          alt.priSelect();
+        } catch (Throwable e) {
+          thrown[0] = e;
+        }
+      }
+    };
+    selector.start();
+    awaitParked(selector);
+    selector.interrupt();
+    join(selector);
+    assertTrue(String.valueOf(thrown[0]),thrown[0] instanceof ProcessInterruptedException);
+  }
+
+  /**
+   * Waits (for up to ten seconds) until <TT>t</TT> is parked with a timeout.
+   */
+  private void awaitParked(Thread t) {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (t.getState() != Thread.State.TIMED_WAITING) {
+      assertTrue(System.currentTimeMillis() < deadline);
+      Thread.yield();
+    }
+  }
+
+  private void join(Thread t) {
+    try {
+      t.join(10000);
+    } catch (InterruptedException e) {
+      fail(e.toString());
+    }
+    assertFalse(t.isAlive());
+  }
+
+}